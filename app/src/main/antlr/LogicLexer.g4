@@ -30,6 +30,8 @@ NATTYPE             : 'Nat' [1-9] [0-9]* ;
 
 FREEINTTYPE         : 'Int?' ;
 
+AUTOTYPE            : 'Auto' ;
+
 TO                  : 'to' ;
 
 DO                  : 'do' ;
@@ -50,6 +52,12 @@ DATA                : 'data' ;
 
 ENUM                : 'enum' ;
 
+MINIMIZE            : 'minimize' | 'minimise' ;
+
+MAXIMIZE            : 'maximize' | 'maximise' ;
+
+PREFER              : 'prefer' ;
+
 SUM                 : 'Σ' | 'SUM' ;
 
 UNDERSCORE          : '_' ;
@@ -120,6 +128,8 @@ IMPLIES             : ('→' | '->' | '\\rightarrow') ;
 
 IFF                 : ('↔' | '<->' | '\\leftrightarrow') ;
 
+XOR                 : ('⊻' | '^^' | '\\xor' | '\\veebar') ;
+
 FUNCARROW           : ('⇒' | '=>' | '\\Rightarrow') ;
 
 QUESTION            : '?' ;
@@ -107,6 +107,9 @@ binaryvardec        : IDENTIFIER TYPEOF INTTYPE
                     | IDENTIFIER TYPEOF FREEINTTYPE IN BRACEOPEN pexpression DOTS pexpression BRACECLOSE
                     ;
 
+autovardec          : IDENTIFIER TYPEOF AUTOTYPE IN range
+                    ;
+
 paramboolvardec     : paramvar TYPEOF BOOLTYPE FOR parameterlist
                     ;
 
@@ -118,6 +121,9 @@ parambinaryvardec   : paramvar TYPEOF INTTYPE FOR parameterlist
                     | paramvar TYPEOF FREEINTTYPE IN BRACEOPEN pexpression DOTS pexpression BRACECLOSE FOR parameterlist
                     ;
 
+paramautovardec     : paramvar TYPEOF AUTOTYPE IN range FOR parameterlist
+                    ;
+
 type                : BOOLTYPE
                     | RANGETYPE IN range
                     ;
@@ -128,6 +134,8 @@ declaration         : DECLARE boolvardec
                     | DECLARE paramboolvardec
                     | DECLARE paramrangevardec
                     | DECLARE parambinaryvardec
+                    | DECLARE autovardec
+                    | DECLARE paramautovardec
                     ;
 
 internaldeclaration : boolvardec EOF
@@ -136,6 +144,8 @@ internaldeclaration : boolvardec EOF
                     | paramboolvardec EOF
                     | paramrangevardec EOF
                     | parambinaryvardec EOF
+                    | autovardec EOF
+                    | paramautovardec EOF
                     ;
 
 /********** Formula **********/
@@ -155,10 +165,12 @@ smallformula        : BRACKETOPEN formula BRACKETCLOSE
 
 junction            : smallformula AND formula
                     | smallformula OR formula
+                    | smallformula XOR formula
                     ;
 
 quantification      : FORALL parameter DOT formula
                     | EXISTS parameter DOT formula
+                    | XOR parameter DOT formula
                     | (NOT | MINUS) quantification
                     ;
 
@@ -290,6 +302,24 @@ definition          : macro
 /********** Full programs **********/
 
 
-program             : definition* SEPARATOR? (declaration | formula)* SEPARATOR? statement* EOF
+objective           : MINIMIZE intexpression
+                    | MAXIMIZE intexpression
+                    ;
+
+preference          : PREFER (SBRACKETOPEN pexpression SBRACKETCLOSE)? formula
+                    ;
+
+program             : definition* SEPARATOR? (declaration | formula | objective | preference)*
+                      SEPARATOR? statement* EOF
+                    ;
+
+programpart         : definition
+                    | declaration
+                    | formula
+                    | objective
+                    | preference
+                    | SEPARATOR
+                    | statement
+                    | EOF
                     ;
 
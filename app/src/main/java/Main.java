@@ -1,12 +1,112 @@
 import language.Program;
+import language.Daemon;
+import language.Sweep;
 import logic.sat.SatProblem;
+import logic.sat.Variable;
 import java.nio.file.Paths;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import language.ResultCache;
+import logic.FragmentCache;
+import logic.sat.Statistics;
+import logic.sat.solver.ExternalSolver;
+import logic.sat.solver.ResultFileSolver;
+import logic.sat.solver.CompetitionSolver;
+import logic.sat.solver.CubeAndConquer;
+import logic.sat.solver.ComponentSolver;
+import logic.sat.solver.LocalSearch;
+import logic.sat.solver.SolverBackend;
+import java.util.ArrayList;
 
 public class Main {
+  /** The address the daemon listens on if --daemon is given without one. */
+  private static final String DEFAULT_DAEMON_ADDRESS = "7467";
+
+  /**
+   * Runs the program given by the arguments, or with --daemon[=ADDRESS], starts a daemon which
+   * runs a program for every request, using the other arguments as defaults.
+   */
   public static void main(String[] args) {
-    Program program = new Program();
+    String daemon = null;
+    final ArrayList<String> defaults = new ArrayList<String>();
+    for (String arg : args) {
+      if (arg.equals("--daemon")) daemon = DEFAULT_DAEMON_ADDRESS;
+      else if (arg.length() > 9 && arg.substring(0,9).equals("--daemon=")) {
+        daemon = arg.substring(9);
+      }
+      else defaults.add(arg);
+    }
+    if (daemon == null) {
+      run(args);
+      return;
+    }
+    try {
+      Daemon server = new Daemon(daemon, new Daemon.Handler() {
+        public void handle(String[] request) {
+          ArrayList<String> all = new ArrayList<String>(defaults);
+          for (String arg : request) all.add(arg);
+          run(all.toArray(new String[0]));
+        }
+      });
+      server.serve();
+    }
+    catch (java.io.IOException e) {
+      System.err.println("Could not start the daemon: " + e.getMessage());
+    }
+  }
+
+  /** Returns the given path if it is absolute, and otherwise the path relative to the project. */
+  private static String resolve(String path) {
+    if (Paths.get(path).isAbsolute()) return path;
+    return "../" + path;
+  }
+
+  /**
+   * Restores the global settings to their defaults, so a run in the daemon is not affected by the
+   * arguments of the runs before it.
+   */
+  private static void resetSettings() {
+    Variable.reset();
+    SatProblem.solvername = "yicessolver";
+    SatProblem.solver = null;
+    SatProblem.cubes = null;
+    SatProblem.components = null;
+    SatProblem.localSearch = null;
+    SatProblem.numbering = SatProblem.NUMBERING_DENSE;
+    SatProblem.clauseMemory = -1;
+    SatProblem.xorLines = false;
+  }
+
+  /** Reads, solves and prints the program given by the command line arguments. */
+  private static void run(String[] args) {
+    resetSettings();
     String filename = "../inputs/test.log";
+    String statsFile = null;
+    boolean stats = false;
+    String competition = null;
+    long timeout = 0;
+    long memoryLimit = 0;
+    String cacheDir = null;
+    int solutions = 1;
+    String fragmentDir = null;
+    long cacheSize = 512;
+    long cacheAge = 30;
+    boolean binarySearch = true;
+    long optimisationTime = 0;
+    int workers = 1;
+    int cubeDepth = -1;
+    long cubeTime = 0;
+    String split = null;
+    String localSearch = null;
+    int localThreads = 1;
+    long flips = 10000000;
+    long seed = 0;
+    boolean symmetry = false;
+    boolean xor = false;
+    int components = -1;
+    ArrayList<String> sweep = new ArrayList<String>();
+    int sweepThreads = Runtime.getRuntime().availableProcessors();
+    boolean stream = false;
 
     for (int i = 0; i < args.length; i++) {
       String arg = args[i];
@@ -14,11 +114,170 @@ public class Main {
         SatProblem.solvername = arg.substring(9);
         System.out.println("Setting SAT solver to: " + SatProblem.solvername);
       }
-      else filename = "../" + arg;
+      else if (arg.length() > 21 && arg.substring(0,21).equals("--competition-solver=")) {
+        competition = arg.substring(21);
+      }
+      else if (arg.length() > 10 && arg.substring(0,10).equals("--timeout=")) {
+        timeout = Long.parseLong(arg.substring(10)) * 1000;
+      }
+      else if (arg.length() > 15 && arg.substring(0,15).equals("--memory-limit=")) {
+        memoryLimit = Long.parseLong(arg.substring(15));
+      }
+      else if (arg.equals("--numbering=original")) {
+        SatProblem.numbering = SatProblem.NUMBERING_ORIGINAL;
+      }
+      else if (arg.equals("--numbering=dense")) SatProblem.numbering = SatProblem.NUMBERING_DENSE;
+      else if (arg.equals("--numbering=locality")) {
+        SatProblem.numbering = SatProblem.NUMBERING_LOCALITY;
+      }
+      else if (arg.length() > 16 && arg.substring(0,16).equals("--clause-memory=")) {
+        SatProblem.clauseMemory = Long.parseLong(arg.substring(16)) * 1024 * 1024;
+      }
+      else if (arg.equals("--solutions=all")) solutions = 0;
+      else if (arg.length() > 12 && arg.substring(0,12).equals("--solutions=")) {
+        solutions = Integer.parseInt(arg.substring(12));
+      }
+      else if (arg.equals("--optimise=binary")) binarySearch = true;
+      else if (arg.equals("--optimise=linear")) binarySearch = false;
+      else if (arg.length() > 16 && arg.substring(0,16).equals("--optimise-time=")) {
+        optimisationTime = Long.parseLong(arg.substring(16)) * 1000;
+      }
+      else if (arg.length() > 10 && arg.substring(0,10).equals("--workers=")) {
+        workers = Integer.parseInt(arg.substring(10));
+      }
+      else if (arg.length() > 13 && arg.substring(0,13).equals("--cube-depth=")) {
+        cubeDepth = Integer.parseInt(arg.substring(13));
+      }
+      else if (arg.length() > 12 && arg.substring(0,12).equals("--cube-time=")) {
+        cubeTime = Long.parseLong(arg.substring(12)) * 1000;
+      }
+      else if (arg.length() > 8 && arg.substring(0,8).equals("--split=")) {
+        split = arg.substring(8);
+      }
+      else if (arg.equals("--local-search")) localSearch = "alone";
+      else if (arg.equals("--local-search=race")) localSearch = "race";
+      else if (arg.length() > 23 && arg.substring(0,23).equals("--local-search-threads=")) {
+        localThreads = Integer.parseInt(arg.substring(23));
+      }
+      else if (arg.length() > 8 && arg.substring(0,8).equals("--flips=")) {
+        flips = Long.parseLong(arg.substring(8));
+      }
+      else if (arg.length() > 7 && arg.substring(0,7).equals("--seed=")) {
+        seed = Long.parseLong(arg.substring(7));
+      }
+      else if (arg.equals("--symmetry")) symmetry = true;
+      else if (arg.equals("--xor")) xor = true;
+      else if (arg.equals("--components")) components = 32;
+      else if (arg.length() > 13 && arg.substring(0,13).equals("--components=")) {
+        components = Integer.parseInt(arg.substring(13));
+      }
+      else if (arg.equals("--xor-lines")) {
+        xor = true;
+        SatProblem.xorLines = true;
+      }
+      else if (arg.equals("--sweep") && i + 1 < args.length) sweep.add(args[++i]);
+      else if (arg.length() > 8 && arg.substring(0,8).equals("--sweep=")) {
+        sweep.add(arg.substring(8));
+      }
+      else if (arg.length() > 16 && arg.substring(0,16).equals("--sweep-threads=")) {
+        sweepThreads = Integer.parseInt(arg.substring(16));
+      }
+      else if (arg.equals("--stream")) stream = true;
+      else if (arg.equals("--cache")) cacheDir = "../.satcache";
+      else if (arg.length() > 8 && arg.substring(0,8).equals("--cache=")) {
+        cacheDir = resolve(arg.substring(8));
+      }
+      else if (arg.equals("--incremental")) fragmentDir = "../.satcache/fragments";
+      else if (arg.length() > 14 && arg.substring(0,14).equals("--incremental=")) {
+        fragmentDir = resolve(arg.substring(14));
+      }
+      else if (arg.length() > 13 && arg.substring(0,13).equals("--cache-size=")) {
+        cacheSize = Long.parseLong(arg.substring(13));
+      }
+      else if (arg.length() > 12 && arg.substring(0,12).equals("--cache-age=")) {
+        cacheAge = Long.parseLong(arg.substring(12));
+      }
+      else if (arg.equals("--stats")) stats = true;
+      else if (arg.length() > 8 && arg.substring(0,8).equals("--stats=")) {
+        stats = true;
+        statsFile = resolve(arg.substring(8));
+      }
+      else filename = resolve(arg);
+    }
+
+    ArrayList<SolverBackend> backends = new ArrayList<SolverBackend>();
+    for (int i = 0; i < workers || i == 0; i++) {
+      ExternalSolver backend;
+      if (competition != null) backend = new CompetitionSolver("./bin/" + competition);
+      else backend = new ResultFileSolver("./bin/" + SatProblem.solvername);
+      backend.setTimeout(timeout);
+      backend.setMemoryLimit(memoryLimit);
+      backends.add(backend);
     }
+    SatProblem.solver = backends.get(0);
 
+    if (workers > 1 || split != null) {
+      // by default, make a few cubes per worker, so a worker with easy cubes can take on more
+      if (cubeDepth < 0) {
+        for (cubeDepth = 0; (1 << cubeDepth) < 4 * workers; cubeDepth++);
+      }
+      CubeAndConquer cubes = new CubeAndConquer(backends, cubeDepth, cubeTime);
+      if (split != null) {
+        for (String name : split.split(",")) cubes.addSplittingPrefix(name);
+      }
+      SatProblem.cubes = cubes;
+    }
+
+    if (components >= 0) SatProblem.components = new ComponentSolver(backends, components);
+
+    if (localSearch != null) {
+      SatProblem.localSearch = new LocalSearch(localThreads, flips, seed,
+                                               localSearch.equals("race"));
+    }
+
+    final ResultCache cache = cacheDir == null ? null :
+      new ResultCache(Paths.get(cacheDir), cacheSize * 1024 * 1024,
+                      cacheAge * 24 * 60 * 60 * 1000);
+    final FragmentCache fragments = fragmentDir == null ? null :
+      new FragmentCache(Paths.get(fragmentDir), cacheSize * 1024 * 1024);
+    final int solutionLimit = solutions;
+    final boolean binary = binarySearch;
+    final long optimiseTime = optimisationTime;
+    final boolean breakSymmetry = symmetry;
+    final boolean xorReasoning = xor;
+    final boolean streaming = stream;
+    Sweep.ProgramFactory factory = new Sweep.ProgramFactory() {
+      public Program create() {
+        Program program = new Program();
+        if (cache != null) program.setCache(cache);
+        if (fragments != null) program.setFragmentCache(fragments);
+        program.setSolutionLimit(solutionLimit);
+        program.setOptimisation(binary, optimiseTime);
+        program.setSymmetryBreaking(breakSymmetry);
+        program.setXorReasoning(xorReasoning);
+        program.setStreamingParser(streaming);
+        return program;
+      }
+    };
+
+    if (sweep.size() > 0) {
+      // the caches and the in-process solvers keep state that cannot be shared between solves
+      if (cache != null || fragments != null || SatProblem.cubes != null ||
+          SatProblem.components != null || SatProblem.localSearch != null) sweepThreads = 1;
+      Sweep sweeper = new Sweep(filename, factory, sweepThreads);
+      for (String description : sweep) sweeper.addMacro(description);
+      sweeper.run();
+      return;
+    }
+
+    Program program = factory.create();
     program.readFromFile(filename);
-    program.execute(false);
+    Statistics result = program.execute(false);
+    if (stats && statsFile == null) System.err.println(result.toJson());
+    else if (stats) {
+      try { Files.writeString(Paths.get(statsFile), result.toJson() + "\n"); }
+      catch (java.io.IOException e) { System.err.println("Could not write " + statsFile + "."); }
+    }
 
     /*
     program.declare("queen[x,y] :: Bool for x ∈ {1..8}, y ∈ {1..8}");
@@ -0,0 +1,16 @@
+/**
+ * Runs the program once on every input file given on the command line.  This is the training run
+ * for the class-data-sharing archive (see the cdsArchive task in build.gradle): the JVM records
+ * the classes loaded while parsing, grounding, solving and printing the example programs, so that
+ * later runs can map them from the archive instead of loading and verifying them again.
+ */
+public class Training {
+  public static void main(String[] args) {
+    for (String file : args) {
+      try { Main.main(new String[] { "--timeout=10", file }); }
+      catch (Throwable e) {
+        System.err.println("Training run on " + file + " failed: " + e.getMessage());
+      }
+    }
+  }
+}
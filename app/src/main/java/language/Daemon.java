@@ -0,0 +1,194 @@
+package language;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A Daemon keeps the program loaded between runs: it listens on a local TCP port or a Unix domain
+ * socket, and handles every request in the same JVM, so the JIT, the parser's DFA cache and the
+ * class loading only need to warm up once.
+ *
+ * The protocol is line-based.  A request consists of the command line arguments of a run, one per
+ * line, followed by an empty line.  The answer consists of the lines printed during the run, each
+ * prefixed by "out " or "err " depending on the stream, followed by "done ok", or "done error"
+ * and a message if the run failed.  Output is sent as soon as a line is complete.
+ *
+ * Connections are accepted concurrently, but runs are executed one at a time: variables are
+ * numbered process-wide, and the output is captured by redirecting System.out and System.err.
+ */
+public class Daemon {
+  /** The action to perform for a request. */
+  public interface Handler {
+    public void handle(String[] args);
+  }
+
+  private ServerSocketChannel _server;
+  private Path _socketFile;
+  private Handler _handler;
+  private ExecutorService _connections;
+  private final Object _runLock = new Object();
+
+  /**
+   * Creates a daemon listening on the given address: a port number on the loopback interface (0
+   * for any free port), or otherwise the path of a Unix domain socket, which is replaced if it
+   * already exists.
+   */
+  public Daemon(String address, Handler handler) throws IOException {
+    _handler = handler;
+    if (address.matches("[0-9]+")) {
+      _socketFile = null;
+      _server = ServerSocketChannel.open();
+      _server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                         Integer.parseInt(address)));
+    }
+    else {
+      _socketFile = Paths.get(address);
+      Files.deleteIfExists(_socketFile);
+      _server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+      _server.bind(UnixDomainSocketAddress.of(_socketFile));
+    }
+    _connections = Executors.newCachedThreadPool();
+  }
+
+  /** Returns the address the daemon listens on. */
+  public SocketAddress queryAddress() throws IOException {
+    return _server.getLocalAddress();
+  }
+
+  /** Accepts and handles requests until the daemon is closed. */
+  public void serve() {
+    System.err.println("Daemon listening on " + describeAddress() + ".");
+    while (_server.isOpen()) {
+      try {
+        final SocketChannel channel = _server.accept();
+        _connections.execute(new Runnable() {
+          public void run() { handleConnection(channel); }
+        });
+      }
+      catch (IOException e) {
+        if (_server.isOpen()) System.err.println("Could not accept a request: " + e.getMessage());
+      }
+    }
+  }
+
+  /** Stops accepting requests.  Requests that are being handled still finish. */
+  public void close() {
+    try { _server.close(); }
+    catch (IOException e) { }
+    _connections.shutdown();
+    if (_socketFile != null) _socketFile.toFile().delete();
+  }
+
+  private String describeAddress() {
+    try { return queryAddress().toString(); }
+    catch (IOException e) { return "an unknown address"; }
+  }
+
+  /** Reads the request from the given connection, runs it and sends back the answer. */
+  private void handleConnection(SocketChannel channel) {
+    try (SocketChannel ch = channel) {
+      BufferedReader reader = new BufferedReader(
+        new InputStreamReader(Channels.newInputStream(ch), StandardCharsets.UTF_8));
+      ArrayList<String> args = new ArrayList<String>();
+      for (String line = reader.readLine(); line != null && !line.equals("");
+           line = reader.readLine()) {
+        args.add(line);
+      }
+      OutputStream socket = Channels.newOutputStream(ch);
+      String status = execute(args.toArray(new String[0]), socket);
+      synchronized (socket) {
+        socket.write(("done " + status + "\n").getBytes(StandardCharsets.UTF_8));
+        socket.flush();
+      }
+    }
+    catch (IOException e) {
+      // the client went away; there is nobody left to tell
+    }
+  }
+
+  /**
+   * Runs the handler on the given arguments with the output redirected to the socket, and returns
+   * "ok", or "error" followed by a description of what went wrong.
+   */
+  private String execute(String[] args, OutputStream socket) {
+    synchronized (_runLock) {
+      PrintStream out = System.out;
+      PrintStream err = System.err;
+      PrintStream newOut = new PrintStream(new LineForwarder("out ", socket), true,
+                                           StandardCharsets.UTF_8);
+      PrintStream newErr = new PrintStream(new LineForwarder("err ", socket), true,
+                                           StandardCharsets.UTF_8);
+      System.setOut(newOut);
+      System.setErr(newErr);
+      try {
+        _handler.handle(args);
+        return "ok";
+      }
+      catch (Throwable e) {
+        return "error " + e.toString().replace('\n', ' ');
+      }
+      finally {
+        newOut.close();
+        newErr.close();
+        System.setOut(out);
+        System.setErr(err);
+      }
+    }
+  }
+
+  /**
+   * An output stream which sends every complete line to the socket, prefixed by the given tag.
+   * Both streams of a run write to the same socket, so whole lines are written while holding the
+   * socket's lock.
+   */
+  private static class LineForwarder extends OutputStream {
+    private byte[] _prefix;
+    private OutputStream _socket;
+    private ByteArrayOutputStream _line;
+
+    LineForwarder(String prefix, OutputStream socket) {
+      _prefix = prefix.getBytes(StandardCharsets.UTF_8);
+      _socket = socket;
+      _line = new ByteArrayOutputStream();
+    }
+
+    public void write(int b) throws IOException {
+      if (b == '\n') sendLine();
+      else _line.write(b);
+    }
+
+    private void sendLine() throws IOException {
+      synchronized (_socket) {
+        _socket.write(_prefix);
+        _line.writeTo(_socket);
+        _socket.write('\n');
+        _socket.flush();
+      }
+      _line.reset();
+    }
+
+    /** Sends the last line if it was not terminated. */
+    public void close() throws IOException {
+      if (_line.size() > 0) sendLine();
+    }
+  }
+}
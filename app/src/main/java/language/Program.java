@@ -1,52 +1,181 @@
 package language;
 
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
 import logic.sat.Solution;
+import logic.sat.SatProblem;
+import logic.sat.Statistics;
 import logic.VariableList;
 import logic.RequirementsList;
+import logic.FragmentCache;
+import logic.Objective;
 import language.parser.ParserException;
 import language.parser.InputReader;
+import language.parser.ParsedProgram;
 import language.parser.DefinitionData;
+import language.builder.ProgramBuilder;
 import language.execution.ProgramState;
 import language.execution.Statement;
+import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * A Program is the combination of a requirements list and an output statement, which can easily be
  * set up from inside Java, or be read from an input file.
+ *
+ * If a ResultCache is set, the program keeps track of its core -- everything except the output
+ * statement -- and looks up its solution in the cache before grounding and solving it.
+ *
+ * If the requirements have an objective or preferences, execute() looks for the best solution
+ * instead, and runs the output statement on that.
  */
 public class Program {
   private VariableList _vars;
   private RequirementsList _reqs;
   private Statement _statement;
   private DefinitionData _defs;
+  private Statistics _stats;
+  private StringBuilder _core;
+  private ResultCache _cache;
+  private int _solutions;
+  private boolean _binarySearch;
+  private long _optimisationTime;
+  private boolean _streaming;
 
   public Program() {
     _vars = new VariableList();
     _reqs = new RequirementsList(_vars);
     _defs = new DefinitionData();
     _statement = null;
+    _stats = new Statistics();
+    _core = new StringBuilder();
+    _cache = null;
+    _solutions = 1;
+    _binarySearch = true;
+    _optimisationTime = 0;
+    _streaming = false;
+  }
+
+  /**
+   * Sets how the best solution is searched for if the program has an objective: by binary search
+   * over the bound, or by repeatedly asking for a solution that improves on the previous one.  If
+   * milliseconds is positive, the search stops after that time, and the best solution found so
+   * far is used.
+   */
+  public void setOptimisation(boolean binarySearch, long milliseconds) {
+    _binarySearch = binarySearch;
+    _optimisationTime = milliseconds;
+  }
+
+  /**
+   * Sets whether symmetries between interchangeable index values should be broken before
+   * solving.  This never makes a solvable problem unsolvable, but when enumerating solutions,
+   * only one of every class of symmetric solutions is found.
+   */
+  public void setSymmetryBreaking(boolean value) {
+    _reqs.setSymmetryBreaking(value);
+  }
+
+  /**
+   * Sets whether parity constraints should be recovered from the clauses, and combined by Gaussian
+   * elimination to derive extra clauses before solving.
+   */
+  public void setXorReasoning(boolean value) {
+    _reqs.setXorReasoning(value);
+  }
+
+  /**
+   * Sets how many solutions execute() should look for: it runs the output statement on each of
+   * them, in the order they are found.  Use 0 to enumerate all solutions.
+   */
+  public void setSolutionLimit(int n) {
+    _solutions = n;
+  }
+
+  /**
+   * Sets the cache to take the clauses of unchanged requirements from, or null to always ground
+   * all requirements.  This should be done before the program is read from a file, since the keys
+   * of the requirements are only computed if there is a cache.
+   */
+  public void setFragmentCache(FragmentCache cache) {
+    _reqs.setFragmentCache(cache);
+  }
+
+  /**
+   * Sets the cache to look up and store solutions in, or null to always solve.  This should be
+   * done before the program is read from a file, since the core of the program is only kept if
+   * there is a cache.
+   */
+  public void setCache(ResultCache cache) {
+    _cache = cache;
+  }
+
+  /**
+   * Sets whether readFromFile should parse the program one part at a time, rather than building
+   * the parse tree of the whole file first.  This uses less memory for very large programs.
+   */
+  public void setStreamingParser(boolean value) {
+    _streaming = value;
   }
 
   public void readFromFile(String filename) {
-    try { _statement = InputReader.readProgramFromFile(filename, _reqs, _defs); }
+    _stats.startPhase("parse", null);
+    try {
+      // the core is only needed to look up the solution in the cache
+      StringBuilder core = _cache == null ? null : _core;
+      _statement = InputReader.readProgramFromFile(filename, _reqs, _defs, core, _streaming);
+    }
     catch (Exception e) { throw new Error(e); }
+    finally { _stats.endPhase(); }
+  }
+
+  /**
+   * Makes the macro with the given name take the given value when the program is read, instead of
+   * the value it is defined with in the program.
+   */
+  public void overrideMacro(String name, int value) {
+    _defs.overrideMacro(name, value);
+  }
+
+  /**
+   * Reads the program from a file that was parsed before, taking overridden macros into account.
+   * Every overridden macro should be defined in the program.
+   */
+  public void readFromParsed(ParsedProgram parsed) {
+    _stats.startPhase("parse", null);
+    StringBuilder core = _cache == null ? null : _core;
+    try { _statement = InputReader.readParsedProgram(parsed, _reqs, _defs, core); }
+    catch (Exception e) { throw new Error(e); }
+    finally { _stats.endPhase(); }
+    for (String name : _defs.queryOverriddenMacros()) {
+      if (_defs.getMacro(name) == null) {
+        throw new Error("The program does not define a macro " + name + ".");
+      }
+    }
   }
 
   public void addMacro(String name, int value) {
+    _core.append("define " + name + " " + value + "\n");
     try { InputReader.readMacroFromString("define " + name + " " + value, _defs); }
     catch (ParserException e) { throw new Error(e); }
   }
 
   public void addMapping(String name, String description) {
+    _core.append("function " + name + " " + description + "\n");
     try { InputReader.readFunctionFromString("function " + name + " " + description, _defs); }
     catch (ParserException e) { throw new Error(e); }
   }
 
   public void declare(String declaration) {
+    _core.append("declare " + declaration + "\n");
     try { InputReader.declare(declaration, _vars, _defs); }
     catch (ParserException e) { throw new Error(e); }
   }
 
   public void require(String formula) {
+    _core.append(formula + "\n");
     try { _reqs.add(InputReader.readClosedFormulaFromString(formula, _vars, _defs)); }
     catch (ParserException e) { throw new Error(e); }
   }
@@ -56,12 +185,163 @@ public class Program {
     catch (ParserException e) { throw new Error(e); }
   }
 
-  public void execute(boolean debug) {
-    Solution sol = _reqs.solve(debug);
+  public void setOutput(Statement statement) {
+    _statement = statement;
+  }
+
+  /**
+   * Returns a builder which adds declarations, definitions and requirements to this program
+   * directly, without going through the parser.
+   */
+  public ProgramBuilder builder() {
+    return new ProgramBuilder(this, _vars, _reqs, _defs, _core);
+  }
+
+  /**
+   * Solves the requirements and runs the output statement on the solution.  This returns the
+   * metrics collected along the way: time, memory and clauses for every phase and requirement.
+   */
+  public Statistics execute(boolean debug) {
+    if (_reqs.queryOptimising() || _solutions != 1) {
+      try (SatProblem problem = _reqs.createSat(_stats, debug)) {
+        if (debug) System.out.println(problem.toString());
+        if (_reqs.queryOptimising()) optimise(problem);
+        else enumerate(problem);
+      }
+      return _stats;
+    }
+    Solution sol = _cache == null ? _reqs.solve(debug, _stats) : solveCached(debug);
     if (sol == null) System.out.println("Could not determine whether the problem is solvable.");
     else if (!sol.querySatisfiable()) System.out.println("The problem is not solvable.");
     else if (_statement == null) System.out.println("The problem is solvable.");
     else _statement.execute(new ProgramState(sol));
+    return _stats;
   }
-}
 
+  /**
+   * Returns the solution stored in the cache for this program, or solves the requirements and
+   * stores the result in the cache if there is none.  The key covers every setting that affects
+   * which solution is found.  Since a cached solution is used without grounding, the lookup also
+   * restores the encodings of the auto variables, so the output statement reads the right atoms.
+   */
+  private Solution solveCached(boolean debug) {
+    String settings = SatProblem.querySolverDescription() + "\n" +
+                      _reqs.querySettingsDescription();
+    String key = ResultCache.computeKey(_core.toString(), settings);
+    _stats.startPhase("cache", null);
+    Solution sol = _cache.lookup(key, _vars);
+    _stats.endPhase();
+    if (sol != null) {
+      System.err.println("Using cached solution.");
+      return sol;
+    }
+    try (SatProblem problem = _reqs.createSat(_stats, debug)) {
+      if (debug) System.out.println(problem.toString());
+      System.err.println("Sending problem to SAT solver...");
+      sol = problem.solve(_stats);
+      if (sol != null) _cache.store(key, problem, sol);
+      return sol;
+    }
+  }
+
+  /**
+   * Runs the output statement on up to _solutions different solutions (or all of them, if
+   * _solutions is 0).  Solutions are considered different if they differ on the declared
+   * variables: after each solution, a clause is added which excludes its values for those
+   * variables, so solutions which only differ on auxiliary variables are never reported twice.
+   * The problem is grounded only once: all solutions are found in the given problem.
+   */
+  private void enumerate(SatProblem problem) {
+    ArrayList<Variable> projection = _vars.queryProjection();
+    int count = 0;
+    while (_solutions <= 0 || count < _solutions) {
+      System.err.println("Sending problem to SAT solver...");
+      Solution sol = problem.solve(_stats);
+      if (sol == null) {
+        System.out.println("Could not determine whether there are more solutions.");
+        return;
+      }
+      if (!sol.querySatisfiable()) break;
+      count++;
+      if (_statement == null) System.out.println("Solution " + count + " found.");
+      else {
+        System.out.println("Solution " + count + ":");
+        _statement.execute(new ProgramState(sol));
+      }
+      System.out.flush();
+      if (projection.isEmpty()) break;
+      ArrayList<Atom> blocking = new ArrayList<Atom>();
+      for (Variable x : projection) blocking.add(new Atom(x, !sol.check(x)));
+      problem.addClause(new Clause(blocking));
+    }
+    if (count == 0) System.out.println("The problem is not solvable.");
+    else if (count != _solutions) System.out.println("There are exactly " + count + " solutions.");
+  }
+
+  /**
+   * Searches for a solution with the best value of the objective, and runs the output statement
+   * on it.  The problem is grounded only once: every probe adds the clauses for a bound on the
+   * objective, guarded by an activation atom, and passes that atom to the solver as an assumption.
+   * If the probe succeeds the bound is made permanent; otherwise the atom is simply not assumed
+   * again.  Every probe is solved the way SatProblem.solve(stats) would, so local search, component
+   * solving and cube-and-conquer are used if they are set up.
+   *
+   * For preferences, the objectives of the strata are optimised in turn, each starting from the
+   * best solution so far.  Only the bounds on the last objective are made permanent: the best
+   * solution overall need not be the best one for the preferences of the highest weights.
+   *
+   * Internally, we minimise d * objective, where d is -1 when maximising; lo is the smallest value
+   * that is not known to be impossible, and hi the value of the best solution so far.
+   */
+  private void optimise(SatProblem problem) {
+    ArrayList<Objective> objectives = _reqs.queryObjectives();
+    long deadline = Long.MAX_VALUE;
+    Timer timer = null;
+    if (_optimisationTime > 0) {
+      deadline = System.currentTimeMillis() + _optimisationTime;
+      timer = new Timer(true);
+      timer.schedule(new TimerTask() {
+        public void run() { SatProblem.cancelSearch(); }
+      }, _optimisationTime);
+    }
+    System.err.println("Sending problem to SAT solver...");
+    Solution best = problem.solve(_stats);
+    boolean optimal = false;
+    for (int i = 0; i < objectives.size() && best != null && best.querySatisfiable(); i++) {
+      Objective objective = objectives.get(i);
+      boolean last = i == objectives.size() - 1;
+      int d = objective.queryMaximise() ? -1 : 1;
+      int lo = d * objective.queryOptimum();
+      int hi = d * objective.queryValue(best);
+      while (lo < hi && System.currentTimeMillis() < deadline) {
+        System.err.println("Found a solution with objective value " + (d * hi) + ".");
+        int k = _binarySearch ? lo + (hi - 1 - lo) / 2 : hi - 1;
+        Atom bound = objective.addBound(d * k, problem);
+        ArrayList<Atom> assumptions = new ArrayList<Atom>();
+        assumptions.add(bound);
+        Solution sol = problem.solve(_stats, assumptions);
+        if (sol == null) break;
+        if (!sol.querySatisfiable()) lo = k + 1;
+        else {
+          best = sol;
+          hi = d * objective.queryValue(sol);
+          if (last) problem.addClause(new Clause(bound));
+        }
+      }
+      if (lo < hi) break;
+      optimal = last;
+    }
+    if (timer != null) timer.cancel();
+
+    if (best == null) System.out.println("Could not determine whether the problem is solvable.");
+    else if (!best.querySatisfiable()) System.out.println("The problem is not solvable.");
+    else {
+      int value = objectives.get(objectives.size() - 1).queryValue(best);
+      if (optimal) System.out.println("Optimal objective value: " + value + ".");
+      else System.out.println("Best objective value found: " + value + " (not proven optimal).");
+      String violated = _reqs.queryViolatedPreferences(best);
+      if (!violated.equals("")) System.out.print("Violated preferences:\n" + violated);
+      if (_statement != null) _statement.execute(new ProgramState(best));
+    }
+  }
+}
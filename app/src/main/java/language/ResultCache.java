@@ -0,0 +1,222 @@
+package language;
+
+import logic.sat.Variable;
+import logic.sat.Solution;
+import logic.sat.SatProblem;
+import logic.sat.VariableNumbering;
+import logic.FragmentCache;
+import logic.VariableList;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A ResultCache stores the outcome of solving a program on disk, so running the same program
+ * again does not need to ground and solve it.  Entries are addressed by a key: a hash of the
+ * program's core (see InputReader.readProgramFromFile) and the solver settings.  Every entry
+ * is a directory holding three files:
+ * - problem.cnf: the problem as it was sent to the solver;
+ * - names: the DIMACS index and name of every named variable occurring in the problem;
+ * - answer: SAT or UNSAT, followed (if SAT) by the names of the variables that are true.
+ * Since the answer refers to variables by name, it can be used by a later run whose variables
+ * were created in a different order.  The names also tell which encodings the auto variables
+ * used, so a later run can read their values without grounding the program.
+ *
+ * Entries which have not been used for longer than a maximum age are removed, and if the cache
+ * grows beyond its maximum size, the least recently used entries are removed.
+ */
+public class ResultCache {
+  private Path _dir;
+  private long _maxBytes;
+  private long _maxAge;
+
+  /**
+   * Creates a cache in the given directory, which holds at most maxBytes bytes and forgets
+   * entries not used for maxAge milliseconds.
+   */
+  public ResultCache(Path dir, long maxBytes, long maxAge) {
+    _dir = dir;
+    _maxBytes = maxBytes;
+    _maxAge = maxAge;
+  }
+
+  /** Returns the key for a program with the given core, solved with the given settings. */
+  public static String computeKey(String core, String settings) {
+    return FragmentCache.hash(core + "\0" + settings);
+  }
+
+  /**
+   * Returns the cached solution for the given key, or null if there is none.  The true variables
+   * of the solution are looked up by name, so they get the indexes of the current run.
+   */
+  public Solution lookup(String key) {
+    return lookup(key, null);
+  }
+
+  /**
+   * Like lookup(key), but if vars is not null, the names of the variables in the stored problem
+   * are also used to give the auto variables in vars the encodings they had when the problem was
+   * solved; without this, their values could not be read from the solution.
+   */
+  public Solution lookup(String key, VariableList vars) {
+    Path entry = _dir.resolve(key);
+    Path answer = entry.resolve("answer");
+    try {
+      if (!Files.isRegularFile(answer)) return null;
+      if (System.currentTimeMillis() - Files.getLastModifiedTime(answer).toMillis() > _maxAge) {
+        removeEntry(entry);
+        return null;
+      }
+      List<String> lines = Files.readAllLines(answer, StandardCharsets.UTF_8);
+      if (lines.isEmpty()) return null;
+      Files.setLastModifiedTime(answer, FileTime.fromMillis(System.currentTimeMillis()));
+      if (lines.get(0).equals("UNSAT")) return new Solution(null);
+      if (!lines.get(0).equals("SAT")) return null;
+      if (vars != null) restoreViews(entry.resolve("names"), vars);
+      TreeSet<Integer> set = new TreeSet<Integer>();
+      for (int i = 1; i < lines.size(); i++) set.add(new Variable(lines.get(i)).queryIndex());
+      return new Solution(set);
+    }
+    catch (IOException e) { return null; }
+  }
+
+  /** Restores the encodings of the auto variables occurring in the given names file. */
+  private void restoreViews(Path file, VariableList vars) throws IOException {
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      int space = line.indexOf(' ');
+      if (space > 0) vars.restoreAutoView(line.substring(space + 1));
+    }
+  }
+
+  /**
+   * Stores the given problem and its solution under the given key, and then evicts old entries
+   * if necessary.  Failing to write the cache is not an error: a message is printed and the
+   * program continues as if there were no cache.
+   */
+  public void store(String key, SatProblem problem, Solution solution) {
+    Path entry = _dir.resolve(key);
+    Path tmp = null;
+    try {
+      Files.createDirectories(_dir);
+      tmp = Files.createTempDirectory(_dir, key + ".");
+      BufferedWriter writer = Files.newBufferedWriter(tmp.resolve("problem.cnf"));
+      problem.writeDimacs(writer);
+      writer.close();
+      writeNames(tmp.resolve("names"), problem.queryNumbering());
+      writeAnswer(tmp.resolve("answer"), solution);
+      if (Files.exists(entry)) removeEntry(entry);
+      Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      System.err.println("Could not store result in cache: " + e.getMessage());
+      if (tmp != null) removeEntry(tmp);
+      return;
+    }
+    evict();
+  }
+
+  /** Writes the DIMACS index and name of the named variables which occur in the problem. */
+  private void writeNames(Path file, VariableNumbering numbering) throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(file);
+    TreeMap<Integer,String> named = Variable.queryNamedVariables();
+    if (numbering == null) {
+      for (Map.Entry<Integer,String> e : named.entrySet()) {
+        writer.write(e.getKey() + " " + e.getValue());
+        writer.newLine();
+      }
+    }
+    else {
+      for (int i = 1; i <= numbering.size(); i++) {
+        String name = named.get(numbering.queryOriginal(i));
+        if (name == null) continue;
+        writer.write(i + " " + name);
+        writer.newLine();
+      }
+    }
+    writer.close();
+  }
+
+  /** Writes the answer, with the names of all true named variables. */
+  private void writeAnswer(Path file, Solution solution) throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(file);
+    if (!solution.querySatisfiable()) writer.write("UNSAT");
+    else {
+      writer.write("SAT");
+      TreeMap<Integer,String> named = Variable.queryNamedVariables();
+      for (Map.Entry<Integer,String> e : named.entrySet()) {
+        if (!solution.check(e.getKey())) continue;
+        writer.newLine();
+        writer.write(e.getValue());
+      }
+    }
+    writer.newLine();
+    writer.close();
+  }
+
+  /** Returns the total size of the files in the given entry. */
+  private static long querySize(File entry) {
+    long ret = 0;
+    File[] files = entry.listFiles();
+    if (files != null) {
+      for (File f : files) ret += f.length();
+    }
+    return ret;
+  }
+
+  /** Returns the last time the given entry was used, or 0 if this cannot be determined. */
+  private static long queryLastUsed(File entry) {
+    return new File(entry, "answer").lastModified();
+  }
+
+  /** Removes the given entry directory, ignoring any errors. */
+  private static void removeEntry(Path entry) {
+    File[] files = entry.toFile().listFiles();
+    if (files != null) {
+      for (File f : files) f.delete();
+    }
+    entry.toFile().delete();
+  }
+
+  /**
+   * Removes all entries which are older than the maximum age, and then the least recently used
+   * entries until the cache is no larger than the maximum size.
+   */
+  public void evict() {
+    File[] entries = _dir.toFile().listFiles();
+    if (entries == null) return;
+    long now = System.currentTimeMillis();
+    ArrayList<File> kept = new ArrayList<File>();
+    long total = 0;
+    for (File entry : entries) {
+      if (!entry.isDirectory() || entry.getName().contains(".")) continue;
+      if (now - queryLastUsed(entry) > _maxAge) removeEntry(entry.toPath());
+      else {
+        kept.add(entry);
+        total += querySize(entry);
+      }
+    }
+    File[] sorted = kept.toArray(new File[kept.size()]);
+    Arrays.sort(sorted, new Comparator<File>() {
+      public int compare(File a, File b) {
+        return Long.compare(queryLastUsed(a), queryLastUsed(b));
+      }
+    });
+    for (int i = 0; i < sorted.length && total > _maxBytes; i++) {
+      total -= querySize(sorted[i]);
+      removeEntry(sorted[i].toPath());
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package language;
+
+import language.parser.InputReader;
+import language.parser.ParsedProgram;
+import logic.sat.Variable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A Sweep runs the same program for every combination of values of some of its macros, such as
+ * NUMPOOLS ∈ {2..8} and DEVIATION ∈ {0,5,10}.  The program file is parsed only once; for every
+ * combination, the parse tree is read again with the macros overridden, and the resulting program
+ * is grounded, solved and printed.
+ *
+ * Up to one combination per thread runs at the same time, and a new one is started as soon as
+ * another finishes.  The variable registry is shared by all programs, so it can only be reset when
+ * no combination is running: this is done whenever the pool is idle.  Once the registry holds more
+ * than REGISTRY_LIMIT variables, no new combinations are started until the running ones have
+ * finished, so its size does not grow with the number of combinations.
+ *
+ * The standard output of each combination is collected separately, and printed as one block per
+ * combination, in the order of the combinations (the last macro varying fastest).  Messages on
+ * the standard error stream are not collected.
+ */
+public class Sweep {
+  /** Creates a Program with the settings to use for every combination. */
+  public interface ProgramFactory {
+    public Program create();
+  }
+
+  /** Above this number of variables, the registry is reset before starting more combinations. */
+  private static final int REGISTRY_LIMIT = 1000000;
+
+  private String _filename;
+  private ProgramFactory _factory;
+  private int _threads;
+  private ArrayList<String> _names;
+  private ArrayList<ArrayList<Integer>> _values;
+
+  // the state of the current sweep, guarded by this
+  private String[] _blocks;
+  private int _printed;
+  private int _running;
+
+  /** Creates a sweep over the given program file, which runs up to threads combinations at once. */
+  public Sweep(String filename, ProgramFactory factory, int threads) {
+    _filename = filename;
+    _factory = factory;
+    _threads = threads < 1 ? 1 : threads;
+    _names = new ArrayList<String>();
+    _values = new ArrayList<ArrayList<Integer>>();
+  }
+
+  /**
+   * Adds a macro to vary, given as NAME=VALUES, where VALUES is a comma-separated list of integers
+   * and ranges a..b.
+   */
+  public void addMacro(String description) {
+    int eq = description.indexOf('=');
+    if (eq <= 0) throw new Error("Sweep " + description + " should have the form NAME=VALUES.");
+    ArrayList<Integer> values = new ArrayList<Integer>();
+    try {
+      for (String part : description.substring(eq + 1).split(",")) {
+        int dots = part.indexOf("..");
+        if (dots < 0) values.add(Integer.parseInt(part.trim()));
+        else {
+          int from = Integer.parseInt(part.substring(0, dots).trim());
+          int to = Integer.parseInt(part.substring(dots + 2).trim());
+          for (int i = from; i <= to; i++) values.add(i);
+        }
+      }
+    }
+    catch (NumberFormatException e) {
+      throw new Error("Sweep " + description + " has a value which is not an integer.");
+    }
+    if (values.isEmpty()) throw new Error("Sweep " + description + " has no values.");
+    _names.add(description.substring(0, eq).trim());
+    _values.add(values);
+  }
+
+  /** Returns the number of combinations of the macro values. */
+  public int queryNumberCombinations() {
+    int ret = 1;
+    for (ArrayList<Integer> values : _values) ret *= values.size();
+    return ret;
+  }
+
+  /** Returns the values of the macros in the given combination. */
+  private int[] queryCombination(int index) {
+    int[] ret = new int[_names.size()];
+    for (int i = _names.size() - 1; i >= 0; i--) {
+      ret[i] = _values.get(i).get(index % _values.get(i).size());
+      index /= _values.get(i).size();
+    }
+    return ret;
+  }
+
+  /** Returns a description of the given combination, such as "NUMPOOLS = 2, DEVIATION = 5". */
+  private String describe(int[] combination) {
+    String ret = "";
+    for (int i = 0; i < combination.length; i++) {
+      if (i > 0) ret += ", ";
+      ret += _names.get(i) + " = " + combination[i];
+    }
+    return ret;
+  }
+
+  /** Parses the program, and runs and prints every combination. */
+  public void run() {
+    ParsedProgram parsed;
+    try { parsed = InputReader.parseProgramFromFile(_filename); }
+    catch (Exception e) { throw new Error(e); }
+    int total = queryNumberCombinations();
+    System.err.println("Sweeping " + total + " combinations with " + _threads + " threads...");
+    synchronized (this) {
+      _blocks = new String[total];
+      _printed = 0;
+      _running = 0;
+    }
+    PrintStream out = System.out;
+    ThreadOutput output = new ThreadOutput(out);
+    System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+    ExecutorService pool = Executors.newFixedThreadPool(_threads);
+    try {
+      ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int i = 0; i < total; i++) {
+        startSlot();
+        final int index = i;
+        futures.add(pool.submit(new Runnable() {
+          public void run() {
+            try { runCombination(parsed, index, output, out); }
+            finally { endSlot(); }
+          }
+        }));
+      }
+      for (Future<?> f : futures) f.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      throw new Error(e.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+      System.setOut(out);
+    }
+  }
+
+  /**
+   * Waits until another combination may start: a thread is free, and the registry is small enough
+   * or no combination is running.  If none is running, the registry is reset first.
+   */
+  private synchronized void startSlot() throws InterruptedException {
+    while (_running >= _threads ||
+           (_running > 0 && Variable.queryNumberCreated() > REGISTRY_LIMIT)) {
+      wait();
+    }
+    if (_running == 0) Variable.reset();
+    _running++;
+  }
+
+  /** Records that a combination has finished, so another one may start. */
+  private synchronized void endSlot() {
+    _running--;
+    notifyAll();
+  }
+
+  /** Runs a single combination, with its output collected in a buffer. */
+  private void runCombination(ParsedProgram parsed, int index, ThreadOutput output,
+                              PrintStream out) {
+    int[] combination = queryCombination(index);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    output.capture(buffer);
+    PrintStream print = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+    print.println("Sweep " + describe(combination) + ":");
+    try {
+      Program program = _factory.create();
+      for (int i = 0; i < combination.length; i++) {
+        program.overrideMacro(_names.get(i), combination[i]);
+      }
+      program.readFromParsed(parsed);
+      program.execute(false);
+    }
+    catch (Throwable e) {
+      print.println("Error: " + e.getMessage());
+    }
+    finally {
+      System.out.flush();
+      output.capture(null);
+    }
+    finish(index, buffer.toString(StandardCharsets.UTF_8), out);
+  }
+
+  /** Stores the output of a combination, and prints all blocks that are now next in line. */
+  private synchronized void finish(int index, String block, PrintStream out) {
+    _blocks[index] = block;
+    while (_printed < _blocks.length && _blocks[_printed] != null) {
+      out.print(_blocks[_printed]);
+      out.flush();
+      _blocks[_printed] = null;
+      _printed++;
+    }
+  }
+
+  /**
+   * An output stream which sends what a thread writes to the buffer set by capture(), or to the
+   * original stream if none was set.  Threads started while capturing write to the same buffer.
+   */
+  private static class ThreadOutput extends OutputStream {
+    private OutputStream _original;
+    private InheritableThreadLocal<ByteArrayOutputStream> _buffer;
+
+    ThreadOutput(OutputStream original) {
+      _original = original;
+      _buffer = new InheritableThreadLocal<ByteArrayOutputStream>();
+    }
+
+    void capture(ByteArrayOutputStream buffer) {
+      _buffer.set(buffer);
+    }
+
+    private OutputStream target() {
+      ByteArrayOutputStream buffer = _buffer.get();
+      return buffer == null ? _original : buffer;
+    }
+
+    public void write(int b) throws IOException {
+      OutputStream target = target();
+      synchronized (target) { target.write(b); }
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+      OutputStream target = target();
+      synchronized (target) { target.write(b, off, len); }
+    }
+
+    public void flush() throws IOException {
+      target().flush();
+    }
+  }
+}
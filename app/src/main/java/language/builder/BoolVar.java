@@ -0,0 +1,70 @@
+package language.builder;
+
+import logic.sat.Variable;
+import logic.parameter.PConstraint;
+import logic.parameter.PExpression;
+import logic.parameter.ParamBoolVar;
+import logic.formula.Formula;
+import logic.formula.AtomicFormula;
+import logic.formula.QuantifiedAtom;
+import language.execution.ParamBoolVarConstraint;
+import language.execution.VariableConstraint;
+
+/**
+ * A BoolVar is a handle for a declared boolean variable, or a parametrised one.  Use at() to refer
+ * to it in requirements, and value() to refer to its value in the solution in output statements.
+ * The number of arguments is checked immediately.
+ */
+public class BoolVar {
+  private String _name;
+  private Variable _var;
+  private ParamBoolVar _paramvar;
+
+  BoolVar(String name, Variable x) {
+    _name = name;
+    _var = x;
+    _paramvar = null;
+  }
+
+  BoolVar(ParamBoolVar x) {
+    _name = x.queryName();
+    _var = null;
+    _paramvar = x;
+  }
+
+  public String queryName() {
+    return _name;
+  }
+
+  public int queryArity() {
+    return _var != null ? 0 : _paramvar.queryParameters().size();
+  }
+
+  /** Returns the formula stating that the variable holds for the given arguments. */
+  public Formula at(PExpression ...args) {
+    ProgramBuilder.checkArity(queryName(), queryArity(), args.length);
+    if (_var != null) return new AtomicFormula(_var, true);
+    return new QuantifiedAtom(_paramvar, true, ProgramBuilder.list(args));
+  }
+
+  /** Returns the formula stating that the variable holds for the given indexes. */
+  public Formula at(int ...args) {
+    return at(ProgramBuilder.constants(args));
+  }
+
+  /** Returns the formula stating that the (unparametrised) variable holds. */
+  public Formula at() {
+    return at(new PExpression[0]);
+  }
+
+  /** Returns a constraint which holds in an output statement if the variable is true. */
+  public PConstraint value(PExpression ...args) {
+    ProgramBuilder.checkArity(queryName(), queryArity(), args.length);
+    if (_var != null) return new VariableConstraint(_var, true);
+    return new ParamBoolVarConstraint(_paramvar, ProgramBuilder.list(args), true);
+  }
+
+  public String toString() {
+    return _name;
+  }
+}
@@ -0,0 +1,31 @@
+package language.builder;
+
+import logic.parameter.Parameter;
+import logic.parameter.ParameterExpression;
+import logic.parameter.PConstraint;
+
+/**
+ * An Index is a handle for a parameter: a named integer which ranges over {min..max}, possibly
+ * with a restriction.  It is created by a ProgramBuilder, and can be used both to declare
+ * parametrised variables and to quantify over (in formulas, sums and output loops).  Since it is
+ * also a parameter expression, it can be passed directly as the argument of a variable.
+ */
+public class Index extends ParameterExpression {
+  private Parameter _param;
+
+  Index(Parameter param) {
+    super(param.queryName());
+    _param = param;
+  }
+
+  /** Returns the parameter this index stands for. */
+  public Parameter queryParameter() {
+    return _param;
+  }
+
+  /** Returns the index with the same name and range, which is restricted to satisfy c. */
+  public Index where(PConstraint c) {
+    return new Index(new Parameter(_param.queryName(), _param.queryMinimum(),
+                                   _param.queryMaximum(), c));
+  }
+}
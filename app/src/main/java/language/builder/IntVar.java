@@ -0,0 +1,90 @@
+package language.builder;
+
+import logic.parameter.PExpression;
+import logic.number.QuantifiedInteger;
+import logic.number.QuantifiedVariable;
+import logic.number.VariableInteger;
+import logic.number.range.RangeVariable;
+import logic.number.range.ParamRangeVar;
+import logic.number.binary.BinaryVariable;
+import logic.number.binary.ParamBinaryVar;
+import language.execution.ParamVarExpression;
+import language.execution.VariableExpression;
+
+/**
+ * An IntVar is a handle for a declared integer variable (range or binary), or a parametrised one.
+ * Use at() to refer to it in requirements, and value() to refer to its value in the solution in
+ * output statements.  The number of arguments is checked immediately.
+ */
+public class IntVar {
+  private String _name;
+  private int _arity;
+  private RangeVariable _range;
+  private BinaryVariable _binary;
+  private ParamRangeVar _paramrange;
+  private ParamBinaryVar _parambinary;
+
+  IntVar(String name, RangeVariable x) {
+    _name = name;
+    _arity = 0;
+    _range = x;
+  }
+
+  IntVar(String name, BinaryVariable x) {
+    _name = name;
+    _arity = 0;
+    _binary = x;
+  }
+
+  IntVar(ParamRangeVar x) {
+    _name = x.queryName();
+    _arity = x.queryParameters().size();
+    _paramrange = x;
+  }
+
+  IntVar(ParamBinaryVar x) {
+    _name = x.queryName();
+    _arity = x.queryParameters().size();
+    _parambinary = x;
+  }
+
+  public String queryName() {
+    return _name;
+  }
+
+  public int queryArity() {
+    return _arity;
+  }
+
+  /** Returns the integer expression for the variable at the given arguments. */
+  public QuantifiedInteger at(PExpression ...args) {
+    ProgramBuilder.checkArity(_name, _arity, args.length);
+    if (_range != null) return new VariableInteger(_range);
+    if (_binary != null) return new VariableInteger(_binary);
+    if (_paramrange != null) return new QuantifiedVariable(_paramrange, ProgramBuilder.list(args));
+    return new QuantifiedVariable(_parambinary, ProgramBuilder.list(args));
+  }
+
+  /** Returns the integer expression for the variable at the given indexes. */
+  public QuantifiedInteger at(int ...args) {
+    return at(ProgramBuilder.constants(args));
+  }
+
+  /** Returns the integer expression for the (unparametrised) variable. */
+  public QuantifiedInteger at() {
+    return at(new PExpression[0]);
+  }
+
+  /** Returns an expression for the value of the variable in output statements. */
+  public PExpression value(PExpression ...args) {
+    ProgramBuilder.checkArity(_name, _arity, args.length);
+    if (_range != null) return new VariableExpression(_range);
+    if (_binary != null) return new VariableExpression(_binary);
+    if (_paramrange != null) return new ParamVarExpression(_paramrange, ProgramBuilder.list(args));
+    return new ParamVarExpression(_parambinary, ProgramBuilder.list(args));
+  }
+
+  public String toString() {
+    return _name;
+  }
+}
@@ -0,0 +1,471 @@
+package language.builder;
+
+import logic.sat.Atom;
+import logic.VariableList;
+import logic.RequirementsList;
+import logic.Objective;
+import logic.formula.*;
+import logic.number.ClosedInteger;
+import logic.number.QuantifiedConstant;
+import logic.number.QuantifiedInteger;
+import logic.number.QuantifiedPlus;
+import logic.number.QuantifiedSum;
+import logic.number.QuantifiedVariable;
+import logic.number.VariableInteger;
+import logic.parameter.*;
+import language.Program;
+import language.parser.DefinitionData;
+import language.execution.Block;
+import language.execution.For;
+import language.execution.If;
+import language.execution.Print;
+import language.execution.Statement;
+import language.execution.StringExpression;
+import java.util.ArrayList;
+
+/**
+ * The ProgramBuilder sets up a Program from Java, by building its formulas, integer expressions,
+ * parameters and output statements directly, rather than writing them as strings which are then
+ * parsed.  This is meant for programs that are generated from data, where there may be thousands
+ * of requirements, and parsing each of them would take longer than grounding them.
+ *
+ * Declarations return typed handles (Index, BoolVar, IntVar), and everything is checked as soon as
+ * it is built: the number of arguments of variables and functions, the shape of bulk data, the
+ * names of declarations and definitions, and that requirements have no unbound parameters.  This
+ * gives an Error at the call that is wrong rather than later, during grounding.
+ *
+ * Builders and Program.declare/require can be mixed, as they register everything in the same
+ * variable list and definitions.  Integer variables with the Auto encoding can only be declared
+ * through Program.declare, since their encoding is chosen from how the parser sees them used.
+ */
+public class ProgramBuilder {
+  private Program _program;
+  private VariableList _vars;
+  private RequirementsList _reqs;
+  private DefinitionData _defs;
+  private StringBuilder _core;
+
+  /**
+   * Creates a builder which adds to the given program, whose variables, requirements and
+   * definitions are given.  Everything added is also described in core, which identifies the
+   * program in the ResultCache.  Use Program.builder() rather than calling this directly.
+   */
+  public ProgramBuilder(Program program, VariableList vars, RequirementsList reqs,
+                        DefinitionData defs, StringBuilder core) {
+    _program = program;
+    _vars = vars;
+    _reqs = reqs;
+    _defs = defs;
+    _core = core;
+  }
+
+  /** ===== Helpers shared with the handles ===== */
+
+  /** Throws an Error if the given number of arguments does not match the arity. */
+  static void checkArity(String name, int arity, int given) {
+    if (arity != given) {
+      throw new Error(name + " takes " + arity + " argument(s), but is given " + given + ".");
+    }
+  }
+
+  static ArrayList<PExpression> list(PExpression[] args) {
+    ArrayList<PExpression> ret = new ArrayList<PExpression>();
+    for (int i = 0; i < args.length; i++) ret.add(args[i]);
+    return ret;
+  }
+
+  static PExpression[] constants(int[] args) {
+    PExpression[] ret = new PExpression[args.length];
+    for (int i = 0; i < args.length; i++) ret[i] = new ConstantExpression(args[i]);
+    return ret;
+  }
+
+  private Atom truth() {
+    return new Atom(_vars.queryTrueVariable(), true);
+  }
+
+  /** Throws an Error if name is already used for a variable or definition. */
+  private void checkFresh(String name, String what) {
+    if (_vars.isDeclared(name)) {
+      throw new Error("Cannot use " + name + " as " + what + ": it is declared as a variable.");
+    }
+    if (_defs.defines(name)) {
+      throw new Error("Cannot use " + name + " as " + what + ": it is already defined as a " +
+        _defs.definedAsWhat(name) + ".");
+    }
+  }
+
+  private static ParameterList parameterList(Index[] params) {
+    ArrayList<Parameter> lst = new ArrayList<Parameter>();
+    for (int i = 0; i < params.length; i++) lst.add(params[i].queryParameter());
+    return new ParameterList(lst);
+  }
+
+  private static String describe(String name, Index[] params) {
+    if (params.length == 0) return name;
+    String ret = name + "[";
+    for (int i = 0; i < params.length; i++) ret += (i > 0 ? "," : "") + params[i];
+    return ret + "]";
+  }
+
+  private static String describeFor(Index[] params) {
+    if (params.length == 0) return "";
+    String ret = " for ";
+    for (int i = 0; i < params.length; i++) {
+      ret += (i > 0 ? ", " : "") + params[i].queryParameter();
+    }
+    return ret;
+  }
+
+  /** ===== Parameters and definitions ===== */
+
+  /** Returns an index with the given name, ranging over {min..max}. */
+  public Index index(String name, int min, int max) {
+    return index(name, new ConstantExpression(min), new ConstantExpression(max));
+  }
+
+  /**
+   * Returns an index with the given name, ranging over {min..max}, where min and max may refer to
+   * other indexes (for instance for a triangle j ∈ {i+1..N}).
+   */
+  public Index index(String name, PExpression min, PExpression max) {
+    checkFresh(name, "an index");
+    return new Index(new Parameter(name, min, max, new TrueConstraint()));
+  }
+
+  /** Defines a macro, and returns it as a constant expression. */
+  public PExpression defineMacro(String name, int value) {
+    checkFresh(name, "a macro");
+    _defs.setMacro(name, value);
+    _core.append("define " + name + " " + value + "\n");
+    return new ConstantExpression(value);
+  }
+
+  /**
+   * Defines a function from the given table: keys[i] is mapped to values[i].  All keys should
+   * have the same length, which is the arity of the function.
+   */
+  public Function defineFunction(String name, int[][] keys, int[] values) {
+    checkFresh(name, "a function");
+    if (keys.length != values.length) {
+      throw new Error("Function " + name + " is given " + keys.length + " keys but " +
+        values.length + " values.");
+    }
+    if (keys.length == 0) throw new Error("Function " + name + " is given no values.");
+    ArrayList<String> args = new ArrayList<String>();
+    for (int j = 0; j < keys[0].length; j++) args.add("_" + j);
+    Function f = new Function(name, args);
+    for (int i = 0; i < keys.length; i++) {
+      checkArity("Function " + name, args.size(), keys[i].length);
+      f.setValue(match(keys[i]), values[i]);
+    }
+    _defs.setFunction(name, f);
+    _core.append("function " + f + "\n");
+    return f;
+  }
+
+  /** Defines a function of one argument mapping first + i to values[i]. */
+  public Function defineFunction(String name, int first, int[] values) {
+    int[][] keys = new int[values.length][];
+    for (int i = 0; i < values.length; i++) keys[i] = new int[] { first + i };
+    return defineFunction(name, keys, values);
+  }
+
+  /** Defines a property which holds exactly for the given tuples. */
+  public Property defineProperty(String name, int[][] tuples) {
+    checkFresh(name, "a property");
+    Property p = new Property(name);
+    for (int i = 0; i < tuples.length; i++) p.add(match(tuples[i]));
+    _defs.setProperty(name, p);
+    _core.append("property " + p + "\n");
+    return p;
+  }
+
+  /** Defines a property of one argument which holds exactly for the given values. */
+  public Property defineProperty(String name, int[] values) {
+    int[][] tuples = new int[values.length][];
+    for (int i = 0; i < values.length; i++) tuples[i] = new int[] { values[i] };
+    return defineProperty(name, tuples);
+  }
+
+  private static Match match(int[] tuple) {
+    ArrayList<Integer> lst = new ArrayList<Integer>();
+    for (int i = 0; i < tuple.length; i++) lst.add(tuple[i]);
+    return new Match(lst);
+  }
+
+  /** Returns the expression f(args), after checking the number of arguments. */
+  public static PExpression apply(Function f, PExpression ...args) {
+    checkArity("Function " + f.queryName(), f.arity(), args.length);
+    return new FunctionExpression(f, list(args));
+  }
+
+  /** Returns the constraint that the property holds for args. */
+  public static PConstraint holds(Property p, PExpression ...args) {
+    return new PropertyConstraint(p, list(args), true);
+  }
+
+  /** ===== Declarations ===== */
+
+  /** Declares a boolean variable, which is parametrised if indexes are given. */
+  public BoolVar declareBool(String name, Index ...params) {
+    checkFresh(name, "a variable");
+    _core.append("declare " + describe(name, params) + " :: Bool" + describeFor(params) + "\n");
+    if (params.length == 0) return new BoolVar(name, _vars.registerBooleanVariable(name));
+    return new BoolVar(_vars.registerParametrisedBooleanVariable(name, parameterList(params)));
+  }
+
+  /**
+   * Declares an integer variable with the order encoding, ranging over {min..max}.  If indexes are
+   * given, it is parametrised, and min and max may refer to them.
+   */
+  public IntVar declareInt(String name, PExpression min, PExpression max, Index ...params) {
+    checkFresh(name, "a variable");
+    Parameter range = new Parameter(name, min, max, new TrueConstraint());
+    _core.append("declare " + describe(name, params) + " :: Int ∈ {" + min + ".." + max + "}" +
+      describeFor(params) + "\n");
+    if (params.length == 0) {
+      checkConstant(name, min, max);
+      return new IntVar(name, _vars.registerRangeVariable(range));
+    }
+    return new IntVar(_vars.registerParametrisedRangeVariable(range, parameterList(params)));
+  }
+
+  public IntVar declareInt(String name, int min, int max, Index ...params) {
+    return declareInt(name, new ConstantExpression(min), new ConstantExpression(max), params);
+  }
+
+  /**
+   * Declares an integer variable with the binary encoding, ranging over {min..max}.  If indexes
+   * are given, it is parametrised, and min and max may refer to them.
+   */
+  public IntVar declareBinary(String name, PExpression min, PExpression max, Index ...params) {
+    checkFresh(name, "a variable");
+    _core.append("declare " + describe(name, params) + " :: Int? ∈ {" + min + ".." + max +
+      "}" + describeFor(params) + "\n");
+    if (params.length == 0) {
+      checkConstant(name, min, max);
+      return new IntVar(name, _vars.registerBinaryVariable(name, min.evaluate(null),
+                                                           max.evaluate(null)));
+    }
+    return new IntVar(_vars.registerParametrisedBinaryVariable(name, parameterList(params),
+                                                               min, max));
+  }
+
+  public IntVar declareBinary(String name, int min, int max, Index ...params) {
+    return declareBinary(name, new ConstantExpression(min), new ConstantExpression(max), params);
+  }
+
+  private static void checkConstant(String name, PExpression min, PExpression max) {
+    if (min.queryParameters().size() > 0 || max.queryParameters().size() > 0) {
+      throw new Error("The range of " + name + " uses parameters, but " + name + " has none.");
+    }
+  }
+
+  /** ===== Formulas ===== */
+
+  public static Formula not(Formula f) {
+    return f.negate();
+  }
+
+  public static Formula and(Formula ...parts) {
+    ArrayList<Formula> lst = new ArrayList<Formula>();
+    for (int i = 0; i < parts.length; i++) lst.add(parts[i]);
+    return new And(lst);
+  }
+
+  public static Formula or(Formula ...parts) {
+    ArrayList<Formula> lst = new ArrayList<Formula>();
+    for (int i = 0; i < parts.length; i++) lst.add(parts[i]);
+    return new Or(lst);
+  }
+
+  public static Formula xor(Formula ...parts) {
+    ArrayList<Formula> lst = new ArrayList<Formula>();
+    for (int i = 0; i < parts.length; i++) lst.add(parts[i]);
+    return new Xor(lst);
+  }
+
+  public static Formula implies(Formula a, Formula b) {
+    return new Implication(a, b);
+  }
+
+  public static Formula iff(Formula a, Formula b) {
+    return new Iff(a, b);
+  }
+
+  public static Formula ite(Formula cond, Formula a, Formula b) {
+    return new IfThenElse(cond, a, b);
+  }
+
+  public static Formula forall(Index i, Formula f) {
+    return new Forall(i.queryParameter(), f);
+  }
+
+  public static Formula exists(Index i, Formula f) {
+    return new Exists(i.queryParameter(), f);
+  }
+
+  /** ===== Integer expressions ===== */
+
+  public QuantifiedInteger constant(int value) {
+    return new QuantifiedConstant(value, truth());
+  }
+
+  public QuantifiedInteger constant(PExpression value) {
+    return new QuantifiedConstant(value, truth());
+  }
+
+  /**
+   * Returns the sum of the given parts.  Range and binary integers cannot be mixed in a sum, so
+   * this throws an Error if they are.
+   */
+  public QuantifiedInteger plus(QuantifiedInteger ...parts) {
+    ArrayList<QuantifiedInteger> lst = new ArrayList<QuantifiedInteger>();
+    int kind = ClosedInteger.BOTH;
+    for (int i = 0; i < parts.length; i++) {
+      lst.add(parts[i]);
+      if (parts[i].queryKind() == kind || parts[i].queryKind() == ClosedInteger.BOTH) continue;
+      if (kind != ClosedInteger.BOTH) {
+        throw new Error("Inconsistent integer expression: binary and range integers are mixed!");
+      }
+      kind = parts[i].queryKind();
+    }
+    return new QuantifiedPlus(lst, kind, truth());
+  }
+
+  /** Returns Σ_{i} expr. */
+  public QuantifiedInteger sum(Index i, QuantifiedInteger expr) {
+    return new QuantifiedSum(i.queryParameter(), expr, expr.queryKind(), truth());
+  }
+
+  /** Returns Σ_{i} {expr | condition}: the sum of expr over those i where condition holds. */
+  public QuantifiedInteger sum(Index i, QuantifiedInteger expr, Formula condition) {
+    QuantifiedInteger e = new QuantifiedConditionalInteger(condition, expr, truth());
+    return new QuantifiedSum(i.queryParameter(), e, e.queryKind(), truth());
+  }
+
+  public static Formula geq(QuantifiedInteger a, QuantifiedInteger b) {
+    return new Geq(a, b, true);
+  }
+
+  public static Formula leq(QuantifiedInteger a, QuantifiedInteger b) {
+    return new Geq(b, a, true);
+  }
+
+  public static Formula smaller(QuantifiedInteger a, QuantifiedInteger b) {
+    return new Geq(a, b, false);
+  }
+
+  public static Formula greater(QuantifiedInteger a, QuantifiedInteger b) {
+    return new Geq(b, a, false);
+  }
+
+  public static Formula eq(QuantifiedInteger a, QuantifiedInteger b) {
+    directView(a, b);
+    return new Equals(a, b, true);
+  }
+
+  public static Formula neq(QuantifiedInteger a, QuantifiedInteger b) {
+    directView(a, b);
+    return new Equals(a, b, false);
+  }
+
+  /**
+   * As the parser does, enables the direct view of a range variable compared with a constant, so
+   * the equality becomes a single atom.
+   */
+  private static void directView(QuantifiedInteger a, QuantifiedInteger b) {
+    if (b instanceof QuantifiedConstant) enableDirectView(a);
+    if (a instanceof QuantifiedConstant) enableDirectView(b);
+  }
+
+  private static void enableDirectView(QuantifiedInteger expr) {
+    if (expr instanceof VariableInteger) ((VariableInteger)expr).enableDirectView();
+    if (expr instanceof QuantifiedVariable) ((QuantifiedVariable)expr).enableDirectView();
+  }
+
+  /** ===== Requirements ===== */
+
+  /** Adds a requirement, which should not have unbound parameters. */
+  public ProgramBuilder require(Formula f) {
+    if (!f.queryClosed()) {
+      throw new Error("Formula " + f + " has unbound parameters: " + f.queryParameters() + ".");
+    }
+    _core.append(f.toString() + "\n");
+    _reqs.add(f);
+    return this;
+  }
+
+  /** Adds a preference: a requirement which may be violated, at the cost of the given weight. */
+  public ProgramBuilder prefer(Formula f, int weight) {
+    if (!f.queryClosed()) {
+      throw new Error("Formula " + f + " has unbound parameters: " + f.queryParameters() + ".");
+    }
+    _core.append("prefer [" + weight + "] " + f + "\n");
+    _reqs.addPreference(f, weight, -1);
+    return this;
+  }
+
+  /** Makes the program look for a solution where the given expression is as small as possible. */
+  public ProgramBuilder minimise(QuantifiedInteger expr) {
+    return optimise(expr, false);
+  }
+
+  /** Makes the program look for a solution where the given expression is as large as possible. */
+  public ProgramBuilder maximise(QuantifiedInteger expr) {
+    return optimise(expr, true);
+  }
+
+  private ProgramBuilder optimise(QuantifiedInteger expr, boolean maximise) {
+    if (!expr.queryClosed()) {
+      throw new Error("Objective " + expr + " has unbound parameters: " + expr.queryParameters() +
+        ".");
+    }
+    _core.append((maximise ? "maximize " : "minimize ") + expr + "\n");
+    _reqs.setObjective(new Objective(expr, maximise, truth()));
+    return this;
+  }
+
+  /** ===== Output ===== */
+
+  /** Sets the statement to run on the solution. */
+  public ProgramBuilder output(Statement statement) {
+    _program.setOutput(statement);
+    return this;
+  }
+
+  /** Returns a statement printing the given text; \n is printed as a newline. */
+  public static Statement print(String text) {
+    return new Print(new StringExpression(text));
+  }
+
+  /** Returns a statement printing the value of the given expression. */
+  public static Statement print(PExpression value) {
+    return new Print(new StringExpression(value));
+  }
+
+  public static Statement println() {
+    return print("\\n");
+  }
+
+  public static Statement block(Statement ...parts) {
+    ArrayList<Statement> lst = new ArrayList<Statement>();
+    for (int i = 0; i < parts.length; i++) lst.add(parts[i]);
+    return new Block(lst);
+  }
+
+  /** Returns a statement running body for every value of i in its range, in increasing order. */
+  public static Statement loop(Index i, Statement body) {
+    Parameter p = i.queryParameter();
+    if (!p.queryRestriction().isTop()) {
+      body = new If(p.queryRestriction(), body, null);
+    }
+    return new For(p.queryName(), p.queryMinimum(), p.queryMaximum(), body);
+  }
+
+  /** Returns the statement if c then a else b; b may be null. */
+  public static Statement when(PConstraint c, Statement a, Statement b) {
+    return new If(c, a, b);
+  }
+}
@@ -6,6 +6,7 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.ParamAutoVar;
 
 import java.util.ArrayList;
 import java.util.TreeSet;
@@ -13,6 +14,7 @@ import java.util.TreeSet;
 public class ParamVarExpression implements PExpression {
   private ParamRangeVar _rvar;
   private ParamBinaryVar _bvar;
+  private ParamAutoVar _avar;
   private ArrayList<PExpression> _arguments;
 
   public ParamVarExpression(ParamRangeVar x, ArrayList<PExpression> args) {
@@ -33,21 +35,38 @@ public class ParamVarExpression implements PExpression {
     }
   }
 
-  private ParamVarExpression(ParamRangeVar rvar, ParamBinaryVar bvar, ArrayList<PExpression> args) {
+  public ParamVarExpression(ParamAutoVar x, ArrayList<PExpression> args) {
+    _avar = x;
+    _arguments = new ArrayList<PExpression>(args);
+    if (_arguments.size() != x.queryParameters().size()) {
+      throw new Error("ParamVarExpression created with " + _arguments.size() + " arguments " +
+        "given; auto variable " + x.toString() + " expects " + x.queryParameters().size() + ".");
+    }
+  }
+
+  private ParamVarExpression(ParamRangeVar rvar, ParamBinaryVar bvar, ParamAutoVar avar,
+                             ArrayList<PExpression> args) {
     _rvar = rvar;
     _bvar = bvar;
+    _avar = avar;
     _arguments = args;
   }
 
+  private ParameterList queryVariableParameters() {
+    if (_rvar != null) return _rvar.queryParameters();
+    if (_bvar != null) return _bvar.queryParameters();
+    return _avar.queryParameters();
+  }
+
   public PExpression substitute(Substitution subst) {
     ArrayList<PExpression> args = new ArrayList<PExpression>(_arguments);
     for (int i = 0; i < args.size(); i++) args.set(i, args.get(i).substitute(subst));
-    return new ParamVarExpression(_rvar, _bvar, args);
+    return new ParamVarExpression(_rvar, _bvar, _avar, args);
   }
 
   public int evaluate(Assignment ass) {
     Assignment indexes = new Assignment();
-    ParameterList params = _rvar == null ? _bvar.queryParameters() : _rvar.queryParameters();
+    ParameterList params = queryVariableParameters();
     for (int i = 0; i < params.size(); i++) {
       indexes.put(params.get(i).queryName(), _arguments.get(i).evaluate(ass));
     }
@@ -56,7 +75,8 @@ public class ParamVarExpression implements PExpression {
         "ProgramState.");
     }
     if (_rvar != null) return ((ProgramState)ass).queryValue(_rvar.queryVar(indexes));
-    else return ((ProgramState)ass).queryValue(_bvar.queryVar(indexes));
+    else if (_bvar != null) return ((ProgramState)ass).queryValue(_bvar.queryVar(indexes));
+    else return ((ProgramState)ass).queryValue(_avar.queryVar(indexes));
   }
 
   public int queryKind() {
@@ -80,6 +100,7 @@ public class ParamVarExpression implements PExpression {
   }
 
   public String toString() {
+    if (_avar != null) return _avar.toString(_arguments);
     return _rvar == null ? _bvar.toString(_arguments) : _rvar.toString(_arguments);
   }
 
@@ -107,6 +128,7 @@ public class ParamVarExpression implements PExpression {
     ParamVarExpression o = (ParamVarExpression)other;
     if (_rvar != null && !_rvar.equals(o._rvar)) return false;
     if (_bvar != null && !_bvar.equals(o._bvar)) return false;
+    if (_avar != null && !_avar.equals(o._avar)) return false;
     for (int i = 0; i < _arguments.size(); i++) {
       if (!_arguments.get(i).equals(o._arguments.get(i))) return false;
     }
@@ -11,6 +11,7 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
 
 import java.util.Set;
 import java.util.ArrayList;
@@ -34,6 +35,10 @@ public class ProgramState extends Assignment {
     return x.getValue(_solution);
   }
 
+  public int queryValue(AutoVariable x) {
+    return x.getValue(_solution);
+  }
+
   public boolean queryValue(ParamBoolVar x, ArrayList<PExpression> values) {
     ParameterList params = x.queryParameters();
     Assignment ass = new Assignment();
@@ -9,12 +9,14 @@ import logic.parameter.Assignment;
 import logic.parameter.Substitution;
 import logic.number.range.RangeVariable;
 import logic.number.binary.BinaryVariable;
+import logic.number.auto.AutoVariable;
 
 import java.util.TreeSet;
 
 public class VariableExpression implements PExpression {
   private RangeVariable _rvar;
   private BinaryVariable _bvar;
+  private AutoVariable _avar;
 
   public VariableExpression(RangeVariable x) {
     _rvar = x;
@@ -26,6 +28,12 @@ public class VariableExpression implements PExpression {
     _bvar = x;
   }
 
+  public VariableExpression(AutoVariable x) {
+    _rvar = null;
+    _bvar = null;
+    _avar = x;
+  }
+
   public PExpression substitute(Substitution subst) {
     return this;
   }
@@ -33,7 +41,8 @@ public class VariableExpression implements PExpression {
   public int evaluate(Assignment ass) {
     if (ass instanceof ProgramState) {
       if (_rvar != null) return ((ProgramState)ass).queryValue(_rvar);
-      else return ((ProgramState)ass).queryValue(_bvar);
+      else if (_bvar != null) return ((ProgramState)ass).queryValue(_bvar);
+      else return ((ProgramState)ass).queryValue(_avar);
     }
     throw new Error("Evaluating VariableExpression with an Assignment that is not a ProgramState.");
   }
@@ -59,6 +68,7 @@ public class VariableExpression implements PExpression {
   }
 
   public String toString() {
+    if (_avar != null) return _avar.toString();
     return _rvar == null ? _bvar.toString() : _rvar.toString();
   }
 
@@ -81,7 +91,8 @@ public class VariableExpression implements PExpression {
     if (!(other instanceof VariableExpression)) return false;
     VariableExpression o = (VariableExpression)other;
     if (_rvar != null) return _rvar.equals(o._rvar);
-    return _bvar.equals(o._bvar);
+    if (_bvar != null) return _bvar.equals(o._bvar);
+    return _avar.equals(o._avar);
   }
 }
 
@@ -3,6 +3,7 @@ package language.parser;
 import logic.parameter.Function;
 import logic.parameter.Property;
 import language.execution.StringFunction;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class DefinitionData {
@@ -10,12 +11,32 @@ public class DefinitionData {
   private TreeMap<String,Function> _functions;
   private TreeMap<String,Property> _properties;
   private TreeMap<String,StringFunction> _enums;
+  private TreeMap<String,Integer> _overrides;
 
   public DefinitionData() {
     _macros = new TreeMap<String,Integer>();
     _functions = new TreeMap<String,Function>();
     _properties = new TreeMap<String,Property>();
     _enums = new TreeMap<String,StringFunction>();
+    _overrides = new TreeMap<String,Integer>();
+  }
+
+  /**
+   * Makes the macro with the given name get the given value when the program defines it, instead
+   * of the value given in the program.
+   */
+  public void overrideMacro(String m, int value) {
+    _overrides.put(m, value);
+  }
+
+  /** Returns the value that overrides the definition of the given macro, or null if none does. */
+  public Integer getOverride(String m) {
+    return _overrides.get(m);
+  }
+
+  /** Returns the names of the macros with an overriding value. */
+  public Set<String> queryOverriddenMacros() {
+    return _overrides.keySet();
   }
 
   public void setMacro(String m, int value) {
@@ -57,6 +78,18 @@ public class DefinitionData {
            _enums.containsKey(name);
   }
 
+  /**
+   * Returns a description of the definition of the given name, which changes whenever the value
+   * of the definition does; for macros, this is the value, and for the others, all their cases.
+   */
+  public String describe(String name) {
+    if (_macros.containsKey(name)) return "macro " + _macros.get(name);
+    if (_functions.containsKey(name)) return "function " + _functions.get(name).toString();
+    if (_properties.containsKey(name)) return "property " + _properties.get(name).toString();
+    if (_enums.containsKey(name)) return "enum " + _enums.get(name).toString();
+    return "nothing";
+  }
+
   public String definedAsWhat(String name) {
     if (_macros.containsKey(name)) return "macro";
     if (_functions.containsKey(name)) return "function";
@@ -8,19 +8,30 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.ParamAutoVar;
+import logic.number.auto.EncodingChoice;
 import logic.formula.*;
 import logic.VariableList;
 import logic.RequirementsList;
+import logic.Objective;
+import logic.FragmentCache;
+import logic.events.ParseEvent;
 import language.execution.*;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenFactory;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 import org.antlr.v4.runtime.Token;
@@ -28,14 +39,19 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Vocabulary;
 
 public class InputReader {
+  /** The number of characters the streaming parser reads from the file at a time. */
+  private static final int STREAM_BUFFER = 4096;
+
   private Vocabulary _vocabulary;
   private String[] _ruleNames;
   private DefinitionData _defs;
+  private ArrayList<EncodingChoice> _autoUsage;
 
   public InputReader() {
     _vocabulary = LogicParser.VOCABULARY;
     _ruleNames = LogicParser.ruleNames;
     _defs = new DefinitionData();
+    _autoUsage = new ArrayList<EncodingChoice>();
   }
 
   /** ===== Generic functions: usable for all Antlr readers ===== */
@@ -294,6 +310,8 @@ public class InputReader {
       if (x != null) return new VariableExpression(x);
       BinaryVariable y = (lst == null ? null : lst.queryBinaryVariable(name));
       if (y != null) return new VariableExpression(y);
+      AutoVariable z = (lst == null ? null : lst.queryAutoVariable(name));
+      if (z != null) return new VariableExpression(z);
       return new ParameterExpression(tree.getText());
     }
     // MINUS IDENTIFIER (where identifier is a parameter or macro)
@@ -385,6 +403,11 @@ public class InputReader {
       checkParameterSize(tree, name, y.queryParameters().size(), exprs.size());
       return new ParamVarExpression(y, exprs);
     }
+    ParamAutoVar z = lst.queryParametrisedAutoVariable(name);
+    if (z != null) {
+      checkParameterSize(tree, name, z.queryParameters().size(), exprs.size());
+      return new ParamVarExpression(z, exprs);
+    }
     if (lst.isDeclared(name)) {
       throw new ParserException(firstToken(tree), "Illegal use of variable " + name + ": used " +
         "as a parametrised range/binary variable but was not declared as such.");
@@ -638,6 +661,8 @@ public class InputReader {
     else if (kind.equals("rule paramboolvardec")) readParamBoolVarDec(tree.getChild(1), lst);
     else if (kind.equals("rule paramrangevardec")) readParamRangeVarDec(tree.getChild(1), lst);
     else if (kind.equals("rule parambinaryvardec")) readParamBinaryVarDec(tree.getChild(1), lst);
+    else if (kind.equals("rule autovardec")) readAutoVarDec(tree.getChild(1), lst);
+    else if (kind.equals("rule paramautovardec")) readParamAutoVarDec(tree.getChild(1), lst);
     else throw buildError(tree, "encountered " + kind + ", expected a kind of declaration.");
   }
 
@@ -791,6 +816,37 @@ public class InputReader {
     }
   }
 
+  private void readAutoVarDec(ParseTree tree, VariableList lst) throws ParserException {
+    // IDENTIFIER TYPEOF AUTOTYPE IN range
+    verifyChildIsToken(tree, 0, "IDENTIFIER", "an identifier (variable name)");
+    verifyChildIsToken(tree, 1, "TYPEOF", "typeof symbol ::");
+    verifyChildIsToken(tree, 2, "AUTOTYPE", "Auto");
+    verifyChildIsToken(tree, 3, "IN", "∈");
+    verifyChildIsRule(tree, 4, "range", "a range");
+    String name = tree.getChild(0).getText();
+    checkDeclarationAllowed(name, "auto", lst, tree);
+    Parameter param = readParameterRange(name, tree.getChild(4));
+    verifyRangeUsesOnlyAllowedParameters(param, null, tree);
+    lst.registerAutoVariable(param);
+  }
+
+  private void readParamAutoVarDec(ParseTree tree, VariableList lst) throws ParserException {
+    // paramvar TYPEOF AUTOTYPE IN range FOR parameterlist
+    verifyChildIsRule(tree, 0, "paramvar", "a parametrised variable x[i1,...,in]");
+    verifyChildIsToken(tree, 1, "TYPEOF", "typeof symbol ::");
+    verifyChildIsToken(tree, 2, "AUTOTYPE", "Auto");
+    verifyChildIsToken(tree, 3, "IN", "∈");
+    verifyChildIsRule(tree, 4, "range", "a range");
+    verifyChildIsToken(tree, 5, "FOR", "keyword 'for'");
+    verifyChildIsRule(tree, 6, "parameterlist", "a list of parameters");
+    ParameterList params = readParameterList(tree.getChild(6));
+    String name = readParamVarForDeclaration(tree.getChild(0), params, lst);
+    checkDeclarationAllowed(name, "parametrised auto", lst, tree);
+    Parameter range = readParameterRange(name, tree.getChild(4));
+    verifyRangeUsesOnlyAllowedParameters(range, params, tree);
+    lst.registerParametrisedAutoVariable(range, params);
+  }
+
   /**
    * Meant for internal use in the program: reading a declaration from string.  This means the
    * declare keyword is omitted, and the input ends after the declaration.
@@ -804,6 +860,8 @@ public class InputReader {
     else if (kind.equals("rule paramboolvardec")) readParamBoolVarDec(tree.getChild(0), lst);
     else if (kind.equals("rule paramrangevardec")) readParamRangeVarDec(tree.getChild(0), lst);
     else if (kind.equals("rule parambinaryvardec")) readParamBinaryVarDec(tree.getChild(0), lst);
+    else if (kind.equals("rule autovardec")) readAutoVarDec(tree.getChild(0), lst);
+    else if (kind.equals("rule paramautovardec")) readParamAutoVarDec(tree.getChild(0), lst);
     else throw buildError(tree, "encountered " + kind +
       ", expected rule boolvardec or rule paramboolvardec");
   }
@@ -865,9 +923,17 @@ public class InputReader {
   private Formula readIntegerComparison(ParseTree tree, VariableList lst) throws ParserException {
     verifyChildIsRule(tree, 0, "intexpression", "an integer expression");
     verifyChildIsRule(tree, 2, "intexpression", "an integer expression");
+    int start = _autoUsage.size();
     QuantifiedInteger left = readIntegerExpression(tree.getChild(0), lst);
+    int middle = _autoUsage.size();
     QuantifiedInteger right = readIntegerExpression(tree.getChild(2), lst);
     String kind = checkChild(tree, 1);
+    boolean equality = kind.equals("token EQUALS") || kind.equals("token NEQ");
+    recordComparison(start, middle, equality, right instanceof QuantifiedConstant);
+    recordComparison(middle, _autoUsage.size(), equality, left instanceof QuantifiedConstant);
+    forgetAutoUsage(start);
+    if (equality && right instanceof QuantifiedConstant) enableDirectView(left);
+    if (equality && left instanceof QuantifiedConstant) enableDirectView(right);
     if (kind.equals("token GEQ")) return new Geq(left, right, true);
     if (kind.equals("token LEQ")) return new Geq(right, left, true);
     if (kind.equals("token SMALLER")) return new Geq(left, right, false);
@@ -877,6 +943,36 @@ public class InputReader {
     throw buildError(tree, "expected (in)equality token");
   }
 
+  /**
+   * If expr is a range variable, this enables its direct (one-hot) view, so equalities between
+   * expr and a constant become a single atom.
+   */
+  private void enableDirectView(QuantifiedInteger expr) {
+    if (expr instanceof VariableInteger) ((VariableInteger)expr).enableDirectView();
+    if (expr instanceof QuantifiedVariable) ((QuantifiedVariable)expr).enableDirectView();
+  }
+
+  /**
+   * Registers that the auto variables recorded in _autoUsage[start..end) were used in an
+   * (in)equality or comparison, so they can take this into account when choosing their encoding.
+   */
+  private void recordComparison(int start, int end, boolean equality, boolean withConstant) {
+    for (int i = start; i < end; i++) {
+      if (equality) _autoUsage.get(i).recordEquality(withConstant);
+      else _autoUsage.get(i).recordComparison(withConstant);
+    }
+  }
+
+  /** Registers that the auto variables recorded in _autoUsage[start..] occur in a sum. */
+  private void recordSum(int start) {
+    for (int i = start; i < _autoUsage.size(); i++) _autoUsage.get(i).recordSum();
+  }
+
+  /** Removes the auto variables recorded in _autoUsage[start..], as they have been handled. */
+  private void forgetAutoUsage(int start) {
+    while (_autoUsage.size() > start) _autoUsage.remove(_autoUsage.size()-1);
+  }
+
   /**
    * Given that tree is an addition, using either RANGEPLUS, BINARYPLUS or just PLUS, this parses
    * the given components into a QuantifiedPlus with the correct kind.
@@ -936,7 +1032,8 @@ public class InputReader {
       }
       else if (kind.equals("token IDENTIFIER") &&
                lst.queryRangeVariable(child.getText()) == null &&
-               lst.queryBinaryVariable(child.getText()) == null) {
+               lst.queryBinaryVariable(child.getText()) == null &&
+               lst.queryAutoVariable(child.getText()) == null) {
         PExpression e = readPExpressionUnit(child, null);
         if (expr == null) expr = e; else expr = new SumExpression(expr, e);
       }
@@ -953,6 +1050,7 @@ public class InputReader {
                                                                           throws ParserException {
     Atom truth = new Atom(lst.queryTrueVariable(), true);
     ArrayList<QuantifiedInteger> ret = new ArrayList<QuantifiedInteger>();
+    int start = _autoUsage.size();
     for (int i = 0; i < tree.getChildCount(); i += 2) {
       ParseTree child = tree.getChild(i);
       String kind = checkChild(child, 0);
@@ -965,6 +1063,11 @@ public class InputReader {
         if (x != null) ret.add(new VariableInteger(x));
         BinaryVariable y = lst.queryBinaryVariable(name);
         if (y != null) ret.add(new VariableInteger(y));
+        AutoVariable z = lst.queryAutoVariable(name);
+        if (z != null) {
+          ret.add(new VariableInteger(z));
+          _autoUsage.add(z.queryEncodingChoice());
+        }
       }
       // BRACKETOPEN intexpression BRACKETCLOSE
       if (kind.equals("token BRACKETOPEN")) {
@@ -988,6 +1091,7 @@ public class InputReader {
         verifyChildIsRule(child, 4, "parameterlist", "a parameter list");
         QuantifiedInteger expr = readIntegerExpression(child.getChild(2), lst);
         ArrayList<Parameter> params = readOpenParameterList(child.getChild(4));
+        recordSum(start);
         if (child.getChildCount() == 6) {
           verifyChildIsToken(child, 5, "BRACECLOSE", "closing brace }");
           return new QuantifiedSum(params, expr, expr.queryKind(), truth);
@@ -1005,9 +1109,11 @@ public class InputReader {
         String name = splitParamVar(child.getChild(0), args, null);
         ParamRangeVar x = null;
         ParamBinaryVar y = null;
+        ParamAutoVar z = null;
         x = lst.queryParametrisedRangeVariable(name);
         if (x == null) y = lst.queryParametrisedBinaryVariable(name);
-        if (x == null && y == null) {
+        if (x == null && y == null) z = lst.queryParametrisedAutoVariable(name);
+        if (x == null && y == null && z == null) {
           if (lst.isDeclared(name)) {
             throw new ParserException(firstToken(tree), "Illegal use of variable " + name +
               ": used as a parametrised integer variable but was not declared as such.");
@@ -1020,14 +1126,20 @@ public class InputReader {
           checkParameterSize(tree, name, x.queryParameters().size(), args.size());
           ret.add(new QuantifiedVariable(x, args));
         }
-        else {
+        else if (y != null) {
           checkParameterSize(tree, name, y.queryParameters().size(), args.size());
           ret.add(new QuantifiedVariable(y, args));
         }
+        else {
+          checkParameterSize(tree, name, z.queryParameters().size(), args.size());
+          ret.add(new QuantifiedVariable(z, args));
+          _autoUsage.add(z.queryEncodingChoice());
+        }
       }
     }
     if (ret.size() == 0) return null;
     if (ret.size() == 1) return ret.get(0);
+    recordSum(start);
     return makePlus(tree, ret, truth);
   }
 
@@ -1059,18 +1171,27 @@ public class InputReader {
   private Formula readJunction(ParseTree tree, VariableList lst) throws ParserException {
     // smallformula AND formula
     // smallformula OR formula
+    // smallformula XOR formula
     verifyChildIsRule(tree, 0, "smallformula", "a basic formula (brackets or no operators)");
     verifyChildIsRule(tree, 2, "formula", "a formula");
     Formula left = readSmallFormula(tree.getChild(0), lst);
     Formula right = readFormula(tree.getChild(2), lst);
-    boolean isAnd = checkChild(tree, 1).equals("token AND");
-    String childkind = getRootOperator(tree.getChild(2));
-    if ( (childkind.equals("token AND") && !isAnd) || (childkind.equals("token OR") && isAnd) ) {
+    String kind = checkChild(tree, 1);
+    String childkind = "";
+    if (checkChild(tree.getChild(2), 0).equals("rule junction")) {
+      childkind = getRootOperator(tree.getChild(2));
+    }
+    if (!childkind.equals("") && !childkind.equals(kind)) {
+      if (kind.equals("token XOR") || childkind.equals("token XOR")) {
+        throw new ParserException(firstToken(tree), "No precedence is defined between XOR and " +
+          "AND or OR; please use brackets.");
+      }
       throw new ParserException(firstToken(tree), "No precedence is defined between AND and OR; " +
         "please use brackets.");
     }
-    if (isAnd) return new And(left, right);
-    else return new Or(left, right);
+    if (kind.equals("token AND")) return new And(left, right);
+    if (kind.equals("token XOR")) return new Xor(left, right);
+    return new Or(left, right);
   }
 
   private Formula readArrow(ParseTree tree, VariableList lst) throws ParserException {
@@ -1099,6 +1220,7 @@ public class InputReader {
   private Formula readQuantification(ParseTree tree, VariableList lst) throws ParserException {
     // FORALL parameter DOT formula
     // EXISTS parameter DOT formula
+    // XOR parameter DOT formula
     // (NOT | MINUS) quantification
     String kind = checkChild(tree, 0);
     if (kind.equals("token NOT") || kind.equals("token MINUS")) {
@@ -1112,7 +1234,8 @@ public class InputReader {
     Formula form = readFormula(tree.getChild(3), lst);
     if (kind.equals("token FORALL")) return new Forall(p, form);
     if (kind.equals("token EXISTS")) return new Exists(p, form);
-    throw buildError(tree, "Expected token FORALL or EXISTS");
+    if (kind.equals("token XOR")) return new Parity(p, form);
+    throw buildError(tree, "Expected token FORALL, EXISTS or XOR");
   }
 
   private Formula readClosedFormula(ParseTree tree, VariableList lst) throws ParserException {
@@ -1268,6 +1391,7 @@ public class InputReader {
         " contains parameters: " + expr.queryParameters());
     }
     int k = expr.evaluate(null);
+    if (_defs.getOverride(name) != null) k = _defs.getOverride(name);
     _defs.setMacro(name, k);
     return k;
   }
@@ -1551,25 +1675,226 @@ public class InputReader {
     else if (kind.equals("rule data")) readData(tree.getChild(0));
   }
 
+  /**
+   * Appends the tokens of the given tree to text, separated by spaces, and adds the identifiers
+   * and strings among them -- the names which may refer to definitions or declarations -- to
+   * names.
+   */
+  private void collectTokens(ParseTree tree, StringBuilder text, TreeSet<String> names) {
+    String kind = getTerminalNodeName(tree);
+    if (kind != null) {
+      text.append(tree.getText());
+      text.append(' ');
+      if (kind.equals("IDENTIFIER") || kind.equals("STRING")) names.add(tree.getText());
+    }
+    else {
+      for (int i = 0; i < tree.getChildCount(); i++) collectTokens(tree.getChild(i), text, names);
+    }
+  }
+
+  /**
+   * Returns a description of the definitions and declarations the given names refer to, where
+   * declarations maps the name of every declared variable to a description of its declaration.
+   */
+  private String describeDependencies(TreeSet<String> names, TreeMap<String,String> declarations,
+                                      VariableList vars) {
+    StringBuilder ret = new StringBuilder();
+    for (String name : names) {
+      if (_defs.defines(name)) ret.append(name + " = " + _defs.describe(name) + "\n");
+      else if (declarations.containsKey(name)) {
+        ret.append(name + " : " + declarations.get(name) + " / " +
+                   vars.queryUsageDescription(name) + "\n");
+      }
+    }
+    return ret.toString();
+  }
+
+  /** Reads a minimize or maximize directive, and sets it as the objective of lst. */
+  private void readObjective(ParseTree tree, RequirementsList lst) throws ParserException {
+    if (lst.queryObjective() != null) {
+      throw buildError(tree, "A program can have at most one minimize or maximize directive.");
+    }
+    if (lst.queryNumberPreferences() > 0) {
+      throw buildError(tree, "A program cannot have both preferences and an objective.");
+    }
+    VariableList vars = lst.queryVariables();
+    boolean maximise = checkChild(tree, 0).equals("token MAXIMIZE");
+    QuantifiedInteger expr = readIntegerExpression(tree.getChild(1), vars);
+    if (!expr.queryClosed()) {
+      throw new ParserException(firstToken(tree),
+        "Objective " + expr.toString() + " has unbound parameters.");
+    }
+    lst.setObjective(new Objective(expr, maximise, new Atom(vars.queryTrueVariable(), true)));
+  }
+
+  /** Reads a preference "prefer [weight] formula" and adds it to lst; the weight defaults to 1. */
+  private void readPreference(ParseTree tree, RequirementsList lst) throws ParserException {
+    if (lst.queryObjective() != null) {
+      throw buildError(tree, "A program cannot have both preferences and an objective.");
+    }
+    int weight = 1;
+    int f = 1;
+    if (checkChild(tree, 1).equals("token SBRACKETOPEN")) {
+      PExpression expr = readPExpression(tree.getChild(2), null);
+      if (expr.queryParameters().size() != 0) {
+        throw new ParserException(firstToken(tree), "Preference weight " + expr.toString() +
+          " contains parameters: " + expr.queryParameters());
+      }
+      weight = expr.evaluate(null);
+      if (weight <= 0) {
+        throw new ParserException(firstToken(tree), "Preference weight should be positive, " +
+          "but is " + weight + ".");
+      }
+      f = 4;
+    }
+    Formula formula = readClosedFormula(tree.getChild(f), lst.queryVariables());
+    lst.addPreference(formula, weight, firstToken(tree).getLine());
+  }
+
+  /**
+   * While reading the requirements of a program, this keeps track of what is needed to build their
+   * keys once all of them have been read: the declarations of the variables, and for every
+   * requirement its position in the requirements list, a hash of its tokens and the names it
+   * refers to.
+   */
+  private static class RequirementKeys {
+    TreeMap<String,String> declarations;
+    ArrayList<Integer> positions;
+    ArrayList<String> texts;
+    ArrayList<TreeSet<String>> dependencies;
+
+    RequirementKeys() {
+      declarations = new TreeMap<String,String>();
+      positions = new ArrayList<Integer>();
+      texts = new ArrayList<String>();
+      dependencies = new ArrayList<TreeSet<String>>();
+    }
+  }
+
+  /**
+   * Reads the given child of tree, which should be a definition, declaration, requirement,
+   * objective or preference (or a separator, which is skipped).  Requirements are added to lst
+   * straight away, but their keys are only set by setRequirementKeys.  If keys is null, nothing is
+   * recorded for the keys.
+   */
+  private void readProgramPart(ParseTree tree, int i, RequirementsList lst, RequirementKeys keys)
+                                                                         throws ParserException {
+    VariableList vars = lst.queryVariables();
+    String kind = checkChild(tree, i);
+    ParseTree part = tree.getChild(i);
+    if (kind.equals("token SEPARATOR")) return;
+    else if (kind.equals("rule definition")) readDefinition(part);
+    else if (kind.equals("rule declaration")) {
+      readDeclaration(part, vars);
+      if (keys == null) return;
+      StringBuilder text = new StringBuilder();
+      TreeSet<String> names = new TreeSet<String>();
+      collectTokens(part, text, names);
+      String description = text.toString() + "\n" +
+                           describeDependencies(names, keys.declarations, vars);
+      for (String name : names) {
+        if (vars.isDeclared(name) && !keys.declarations.containsKey(name)) {
+          keys.declarations.put(name, description);
+        }
+      }
+    }
+    else if (kind.equals("rule formula")) {
+      Formula formula = readClosedFormula(part, vars);
+      if (keys == null) {
+        lst.add(formula, firstToken(part).getLine(), null);
+        return;
+      }
+      StringBuilder text = new StringBuilder();
+      TreeSet<String> names = new TreeSet<String>();
+      collectTokens(part, text, names);
+      keys.positions.add(lst.queryNumberRequirements());
+      keys.texts.add(FragmentCache.hash(text.toString()));
+      keys.dependencies.add(names);
+      lst.add(formula, firstToken(part).getLine(), null);
+    }
+    else if (kind.equals("rule objective")) readObjective(part, lst);
+    else if (kind.equals("rule preference")) readPreference(part, lst);
+    else throw buildError(part, "unexpected: " + kind);
+  }
+
+  /**
+   * Sets the keys of the requirements recorded in keys.  This is only done once all requirements
+   * have been read, since reading later requirements may still change how the variables are
+   * encoded.  If keys is null, nothing happens.
+   */
+  private void setRequirementKeys(RequirementsList lst, RequirementKeys keys) {
+    if (keys == null) return;
+    VariableList vars = lst.queryVariables();
+    for (int j = 0; j < keys.positions.size(); j++) {
+      String key = "requirement " + keys.texts.get(j) + "\n" +
+                   describeDependencies(keys.dependencies.get(j), keys.declarations, vars);
+      lst.setKey(keys.positions.get(j), FragmentCache.hash(key));
+    }
+  }
+
+  /**
+   * Returns a fresh RequirementKeys to record the keys of the requirements added to lst, or null
+   * if lst has no fragment cache, so the keys are never used.
+   */
+  private static RequirementKeys newRequirementKeys(RequirementsList lst) {
+    if (lst.queryFragmentCache() == null) return null;
+    return new RequirementKeys();
+  }
+
   private Statement readProgram(ParseTree tree, RequirementsList lst) throws ParserException {
+    RequirementKeys keys = newRequirementKeys(lst);
     int i = 0;
-    VariableList vars = lst.queryVariables();
-    // read declarations and requirements
-    for (; i < tree.getChildCount(); i++) {
-      String kind = checkChild(tree, i);
-      if (kind.equals("token SEPARATOR")) continue;
-      else if (kind.equals("rule definition")) readDefinition(tree.getChild(i));
-      else if (kind.equals("rule declaration")) readDeclaration(tree.getChild(i), vars);
-      else if (kind.equals("rule formula")) lst.add(readClosedFormula(tree.getChild(i), vars));
-      else if (kind.equals("rule statement")) break;
-      else throw buildError(tree.getChild(i), "unexpected: " + kind);
+    // read definitions, declarations and requirements
+    for (; i < tree.getChildCount() && !checkChild(tree, i).equals("rule statement"); i++) {
+      readProgramPart(tree, i, lst, keys);
     }
+    setRequirementKeys(lst, keys);
     // read statements
     ArrayList<Statement> stats = new ArrayList<Statement>();
     for (; i < tree.getChildCount()-1; i++) {
       verifyChildIsRule(tree, i, "statement", "a statement");
-      stats.add(readStatement(tree.getChild(i), vars));
+      stats.add(readStatement(tree.getChild(i), lst.queryVariables()));
+    }
+    if (stats.size() == 1) return stats.get(0);
+    return new Block(stats);
+  }
+
+  /**
+   * Reads a program from the parser one part at a time, and discards the parse tree of every part
+   * once it has been read.  The parts should come in the same order as in the program rule.  If
+   * core is not null, the tokens of the parts before the first statement are appended to it.
+   */
+  private Statement readProgramParts(LogicParser parser, ErrorCollector collector,
+                                     RequirementsList lst, StringBuilder core)
+                                                                         throws ParserException {
+    RequirementKeys keys = newRequirementKeys(lst);
+    ArrayList<Statement> stats = new ArrayList<Statement>();
+    boolean definitionsDone = false;
+    while (true) {
+      ParseTree part = parser.programpart();
+      collector.throwCollectedExceptions();
+      String kind = checkChild(part, 0);
+      if (kind.equals("token EOF")) break;
+      if (kind.equals("rule statement")) {
+        if (stats.isEmpty()) setRequirementKeys(lst, keys);
+        stats.add(readStatement(part.getChild(0), lst.queryVariables()));
+        continue;
+      }
+      if (!stats.isEmpty()) {
+        throw buildError(part, "Definitions, declarations and requirements should come before " +
+          "the statements of a program.");
+      }
+      if (kind.equals("rule definition") && definitionsDone) {
+        throw buildError(part, "Definitions should come before the declarations and " +
+          "requirements of a program.");
+      }
+      if (!kind.equals("rule definition") && !kind.equals("token SEPARATOR")) {
+        definitionsDone = true;
+      }
+      if (core != null) collectTokens(part, core, new TreeSet<String>());
+      readProgramPart(part, 0, lst, keys);
     }
+    if (stats.isEmpty()) setRequirementKeys(lst, keys);
     if (stats.size() == 1) return stats.get(0);
     return new Block(stats);
   }
@@ -1775,19 +2100,132 @@ public class InputReader {
   /** Sets up a (lexer and) parser from the given file, using the given error collector. */
   public static Statement readProgramFromFile(String filename, RequirementsList lst, DefinitionData
                                               defs) throws IOException, ParserException {
+    return readProgramFromFile(filename, lst, defs, null);
+  }
+
+  /**
+   * Reads a program like readProgramFromFile(filename, lst, defs), and if core is not null,
+   * appends to it the part of the program that determines the SAT problem: the tokens of the
+   * definitions, declarations and requirements, separated by single spaces.  Thus, changes to the
+   * layout, the comments or the output statements of a program do not change the core.
+   */
+  public static Statement readProgramFromFile(String filename, RequirementsList lst,
+                                              DefinitionData defs, StringBuilder core)
+                                                         throws IOException, ParserException {
+    return readProgramFromFile(filename, lst, defs, core, false);
+  }
+
+  /**
+   * Reads a program like readProgramFromFile(filename, lst, defs, core).  If streaming is true,
+   * the file is not parsed as a whole, but lexed incrementally and parsed one definition,
+   * declaration, requirement or statement at a time, each of which is handed to lst before the
+   * next one is parsed.  Then the memory used for parsing does not grow with the size of the file,
+   * which matters for generated programs with very many requirements.
+   */
+  public static Statement readProgramFromFile(String filename, RequirementsList lst,
+                                              DefinitionData defs, StringBuilder core,
+                                              boolean streaming)
+                                                         throws IOException, ParserException {
+    ParseEvent event = new ParseEvent();
+    int requirements = lst.queryNumberRequirements();
+    int variables = Variable.queryNumberCreated();
+    event.begin();
+    Statement ret;
+    if (streaming) ret = streamProgramFromFile(filename, lst, defs, core);
+    else ret = readParsedProgram(parseProgramFromFile(filename), lst, defs, core);
+    if (event.shouldCommit()) {
+      event.file = filename;
+      event.requirements = lst.queryNumberRequirements() - requirements;
+      event.variables = Variable.queryNumberCreated() - variables;
+      event.commit();
+    }
+    return ret;
+  }
+
+  /**
+   * Parses the program in the given file, without interpreting it yet.  The result can be read
+   * several times with readParsedProgram, for instance with different values for the macros.
+   */
+  public static ParsedProgram parseProgramFromFile(String filename)
+                                                         throws IOException, ParserException {
     ErrorCollector collector = new ErrorCollector();
     ANTLRInputStream input = new ANTLRInputStream(new FileInputStream(filename));
     LogicLexer lexer = new LogicLexer(input);
     lexer.removeErrorListeners();
     lexer.addErrorListener(collector);
-    LogicParser parser = new LogicParser(new CommonTokenStream(lexer));
+    CommonTokenStream tokens = new CommonTokenStream(lexer);
+    LogicParser parser = new LogicParser(tokens);
     parser.removeErrorListeners();
     parser.addErrorListener(collector);
-    InputReader reader = new InputReader();
-    if (defs != null) reader._defs = defs;
     ParseTree tree = parser.program();
     collector.throwCollectedExceptions();
-    return reader.readProgram(tree, lst);
+    return new ParsedProgram(tree, tokens);
+  }
+
+  /**
+   * Reads a parsed program like readProgramFromFile(filename, lst, defs, core).  Macros which are
+   * overridden in defs get the overriding value rather than the one in the program; the overrides
+   * are also added to the core.  A ParsedProgram is not changed by reading it, so several threads
+   * may read the same one at the same time.
+   */
+  public static Statement readParsedProgram(ParsedProgram program, RequirementsList lst,
+                                            DefinitionData defs, StringBuilder core)
+                                                                       throws ParserException {
+    InputReader reader = new InputReader();
+    if (defs != null) reader._defs = defs;
+    Statement ret = reader.readProgram(program.tree, lst);
+    if (core != null) {
+      reader.appendCore(program.tree, program.tokens, core);
+      reader.appendOverrides(core);
+    }
+    return ret;
+  }
+
+  /** Reads the program in the given file one part at a time; see readProgramFromFile. */
+  private static Statement streamProgramFromFile(String filename, RequirementsList lst,
+                                                 DefinitionData defs, StringBuilder core)
+                                                         throws IOException, ParserException {
+    ErrorCollector collector = new ErrorCollector();
+    try (FileInputStream stream = new FileInputStream(filename)) {
+      LogicLexer lexer = new LogicLexer(new UnbufferedCharStream(stream, STREAM_BUFFER,
+                                                                 StandardCharsets.UTF_8));
+      // the characters are not kept, so every token should keep its own text
+      lexer.setTokenFactory(new CommonTokenFactory(true));
+      lexer.removeErrorListeners();
+      lexer.addErrorListener(collector);
+      LogicParser parser = new LogicParser(new UnbufferedTokenStream<Token>(lexer));
+      parser.removeErrorListeners();
+      parser.addErrorListener(collector);
+      InputReader reader = new InputReader();
+      if (defs != null) reader._defs = defs;
+      Statement ret = reader.readProgramParts(parser, collector, lst, core);
+      if (core != null) reader.appendOverrides(core);
+      return ret;
+    }
+  }
+
+  /** Appends the macros whose value was overridden to core. */
+  private void appendOverrides(StringBuilder core) {
+    for (String name : _defs.queryOverriddenMacros()) {
+      core.append("override " + name + " " + _defs.getOverride(name) + " ");
+    }
+  }
+
+  /** Appends the tokens of the given program tree before its first statement to core. */
+  private void appendCore(ParseTree tree, CommonTokenStream tokens, StringBuilder core) {
+    int end = tokens.size();
+    for (int i = 0; i < tree.getChildCount(); i++) {
+      if (checkChild(tree, i).equals("rule statement")) {
+        end = firstToken(tree.getChild(i)).getTokenIndex();
+        break;
+      }
+    }
+    for (int i = 0; i < end; i++) {
+      Token token = tokens.get(i);
+      if (token.getType() == Token.EOF || token.getChannel() != Token.DEFAULT_CHANNEL) continue;
+      core.append(token.getText());
+      core.append(' ');
+    }
   }
 }
 
@@ -0,0 +1,19 @@
+package language.parser;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * A ParsedProgram is the parse tree of a program file, together with its tokens.  It is created by
+ * InputReader.parseProgramFromFile, and can be interpreted (several times) by
+ * InputReader.readParsedProgram.
+ */
+public class ParsedProgram {
+  ParseTree tree;
+  CommonTokenStream tokens;
+
+  ParsedProgram(ParseTree t, CommonTokenStream ts) {
+    tree = t;
+    tokens = ts;
+  }
+}
@@ -0,0 +1,194 @@
+package logic;
+
+import logic.sat.Variable;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseCollection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * A FragmentCache stores the clauses generated for individual requirements on disk, so that a
+ * requirement whose meaning did not change since the last run does not need to be grounded again.
+ * Each fragment is stored under a key which describes the requirement and everything it depends
+ * on (see InputReader), and must be self-contained: it is grounded in a ClauseCollection of its
+ * own, so it does not rely on the definitions of auxiliary variables made by other requirements.
+ *
+ * Variables created by name are stored by name.  Auxiliary variables are only used within the
+ * fragment, so they are not stored at all: when a fragment is loaded, they are replaced by fresh
+ * auxiliary variables belonging to the fragment.
+ */
+public class FragmentCache {
+  private static final int FORMAT = 1;
+
+  private Path _dir;
+  private long _maxBytes;
+
+  /** Creates a cache in the given directory, which holds at most maxBytes bytes. */
+  public FragmentCache(Path dir, long maxBytes) {
+    _dir = dir;
+    _maxBytes = maxBytes;
+  }
+
+  /** Returns a hexadecimal SHA-256 hash of the given text, for use as a key. */
+  public static String hash(String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder ret = new StringBuilder();
+      for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+        ret.append(String.format("%02x", b));
+      }
+      return ret.toString();
+    }
+    catch (NoSuchAlgorithmException e) { throw new Error(e); }
+  }
+
+  /** The source of the auxiliary variables of a loaded fragment. */
+  private static class Fragment implements VariableSource {
+    private String _key;
+
+    Fragment(String key) {
+      _key = key;
+    }
+
+    public String queryVariableName(int index) {
+      return "⟦fragment " + _key + "⟧⟨" + index + "⟩";
+    }
+
+    public Fingerprint queryFingerprint() {
+      return new Fingerprint("fragment " + _key);
+    }
+  }
+
+  /**
+   * Adds the clauses of the fragment with the given key to col, and returns true; or returns
+   * false (and leaves col unchanged) if there is no such fragment.  Direct atoms of range variables
+   * and the encodings of auto variables occurring in the fragment are restored in vars, so they
+   * are defined by the well-definedness clauses, just as if the requirement had been grounded.
+   * The whole file is read before anything is restored, so an unreadable fragment has no effect.
+   */
+  public boolean load(String key, ClauseCollection col, VariableList vars) {
+    Path file = _dir.resolve(key + ".frag");
+    if (!Files.isRegularFile(file)) return false;
+    String[] names;
+    int[][] literals;
+    try (DataInputStream in = new DataInputStream(
+                                new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != FORMAT) return false;
+      names = new String[in.readInt()];
+      for (int i = 0; i < names.length; i++) {
+        if (in.readBoolean()) names[i] = in.readUTF();
+      }
+      literals = new int[in.readInt()][];
+      for (int i = 0; i < literals.length; i++) {
+        literals[i] = new int[in.readInt()];
+        for (int j = 0; j < literals[i].length; j++) {
+          int lit = in.readInt();
+          if (lit == 0 || Math.abs(lit) > names.length) return false;
+          literals[i][j] = lit;
+        }
+      }
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+    catch (IOException e) { return false; }
+    catch (RuntimeException e) { return false; }
+
+    Variable[] variables = new Variable[names.length];
+    Fragment source = new Fragment(key);
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] == null) variables[i] = Variable.auxiliary(source, i);
+      else {
+        vars.restoreDirectAtom(names[i]);
+        vars.restoreAutoView(names[i]);
+        variables[i] = new Variable(names[i]);
+      }
+    }
+    for (int i = 0; i < literals.length; i++) {
+      ArrayList<Atom> atoms = new ArrayList<Atom>(literals[i].length);
+      for (int lit : literals[i]) atoms.add(new Atom(variables[Math.abs(lit) - 1], lit > 0));
+      col.addClause(new Clause(atoms));
+    }
+    return true;
+  }
+
+  /**
+   * Stores the clauses in the given collection as the fragment with the given key.  Failing to
+   * write the fragment is not an error: a message is printed, and the requirement will simply be
+   * grounded again next time.
+   */
+  public void store(String key, ClauseCollection col) {
+    HashMap<Integer,Integer> local = new HashMap<Integer,Integer>();
+    ArrayList<Variable> variables = new ArrayList<Variable>();
+    for (int i = 0; i < col.queryNumberClauses(); i++) {
+      for (Atom a : col.queryClause(i).getParts()) {
+        if (local.containsKey(a.queryIndex())) continue;
+        variables.add(a.queryVariable());
+        local.put(a.queryIndex(), variables.size());
+      }
+    }
+    Path tmp = null;
+    try {
+      Files.createDirectories(_dir);
+      tmp = Files.createTempFile(_dir, key, ".tmp");
+      try (DataOutputStream out = new DataOutputStream(
+                                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(FORMAT);
+        out.writeInt(variables.size());
+        for (Variable x : variables) {
+          out.writeBoolean(!x.queryAuxiliary());
+          if (!x.queryAuxiliary()) out.writeUTF(x.toString());
+        }
+        out.writeInt(col.queryNumberClauses());
+        for (int i = 0; i < col.queryNumberClauses(); i++) {
+          ArrayList<Atom> atoms = col.queryClause(i).getParts();
+          out.writeInt(atoms.size());
+          for (Atom a : atoms) {
+            int index = local.get(a.queryIndex());
+            out.writeInt(a.queryNegative() ? -index : index);
+          }
+        }
+      }
+      Files.move(tmp, _dir.resolve(key + ".frag"), StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      System.err.println("Could not store requirement in cache: " + e.getMessage());
+      if (tmp != null) tmp.toFile().delete();
+    }
+  }
+
+  /** Removes the least recently used fragments until the cache fits in its maximum size. */
+  public void evict() {
+    File[] files = _dir.toFile().listFiles();
+    if (files == null) return;
+    long total = 0;
+    for (File f : files) total += f.length();
+    Arrays.sort(files, new Comparator<File>() {
+      public int compare(File a, File b) {
+        return Long.compare(a.lastModified(), b.lastModified());
+      }
+    });
+    for (int i = 0; i < files.length && total > _maxBytes; i++) {
+      total -= files[i].length();
+      files[i].delete();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package logic;
+
+import logic.sat.Variable;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
+import logic.sat.Atom;
+import logic.sat.ClauseCollection;
+import logic.sat.Solution;
+import logic.number.ClosedInteger;
+import logic.number.QuantifiedInteger;
+import logic.number.QuantifiedConstant;
+import logic.number.range.RangeInteger;
+import logic.number.binary.BinaryInteger;
+import logic.formula.Geq;
+import java.util.ArrayList;
+
+/**
+ * An Objective is a closed integer expression that should be made as small (or as large) as
+ * possible.  It is encoded once, as a range or binary integer -- following the same choice as a
+ * comparison with a constant would make -- so its value can be read from any solution of a
+ * problem that includes its definition clauses.
+ *
+ * Bounds on the objective are added guarded by an activation atom: the clauses for "objective ≤ k"
+ * (or "objective ≥ k" when maximising) only have effect when the atom is true.  This way a bound
+ * can be tried by assuming its atom, and is simply left alone if it turns out to be too strict.
+ */
+public class Objective implements VariableSource {
+  private QuantifiedInteger _expr;
+  private boolean _maximise;
+  private Atom _truth;
+  private RangeInteger _range;
+  private BinaryInteger _binary;
+  private Fingerprint _fingerprint;
+
+  public Objective(QuantifiedInteger expr, boolean maximise, Atom truth) {
+    if (!expr.queryClosed()) throw new Error("Objective with parameters: " + expr.toString());
+    _expr = expr;
+    _maximise = maximise;
+    _truth = truth;
+    ClosedInteger cl = expr.instantiate(null);
+    if (cl.queryKind() == ClosedInteger.BINARY || cl.queryPreferredKind() == ClosedInteger.BINARY) {
+      _range = null;
+      _binary = cl.getBinary();
+    }
+    else {
+      _range = cl.getRange();
+      _binary = null;
+    }
+  }
+
+  /** Returns true if the objective should be maximised, false if it should be minimised. */
+  public boolean queryMaximise() {
+    return _maximise;
+  }
+
+  /** Returns the smallest value the objective can take. */
+  public int queryMinimum() {
+    return _range != null ? _range.queryMinimum() : _binary.queryMinimum();
+  }
+
+  /** Returns the largest value the objective can take. */
+  public int queryMaximum() {
+    return _range != null ? _range.queryMaximum() : _binary.queryMaximum();
+  }
+
+  /** Returns the best value the objective could possibly take. */
+  public int queryOptimum() {
+    return _maximise ? queryMaximum() : queryMinimum();
+  }
+
+  /** Returns whether the value a is strictly better than the value b. */
+  public boolean queryBetter(int a, int b) {
+    return _maximise ? a > b : a < b;
+  }
+
+  /**
+   * Adds the clauses that define the encoding of the objective, so its value can be read from a
+   * solution.
+   */
+  public void addDefinitionClauses(ClauseCollection col) {
+    if (_range != null) _range.addWelldefinednessClauses(col);
+    else _binary.addWelldefinednessClauses(col);
+  }
+
+  /**
+   * Returns the value of the objective in the given solution, which is assumed to satisfy the
+   * definition clauses.
+   */
+  public int queryValue(Solution solution) {
+    if (_range != null) {
+      for (int i = _range.queryMinimum() + 1; i <= _range.queryMaximum(); i++) {
+        if (!solution.check(_range.queryGeqAtom(i))) return i - 1;
+      }
+      return _range.queryMaximum();
+    }
+    boolean negative = solution.check(_binary.queryNegativeBit());
+    int ret = 0;
+    for (int i = 0, k = 1; i < _binary.length(); i++, k *= 2) {
+      if (solution.check(_binary.queryBit(i)) != negative) ret += k;
+    }
+    return negative ? -1-ret : ret;
+  }
+
+  /**
+   * Returns the atoms that queryValue reads, so whoever changes a solution can tell whether the
+   * value of the objective is affected.
+   */
+  public ArrayList<Atom> queryValueAtoms() {
+    ArrayList<Atom> ret = new ArrayList<Atom>();
+    if (_range != null) {
+      for (int i = _range.queryMinimum() + 1; i <= _range.queryMaximum(); i++) {
+        ret.add(_range.queryGeqAtom(i));
+      }
+      return ret;
+    }
+    ret.add(_binary.queryNegativeBit());
+    for (int i = 0; i < _binary.length(); i++) ret.add(_binary.queryBit(i));
+    return ret;
+  }
+
+  /** Returns the name of the activation variable for the bound k. */
+  public String queryVariableName(int k) {
+    return "⟦" + toString() + (_maximise ? " ≥ " : " ≤ ") + k + "⟧";
+  }
+
+  /** Returns a fingerprint identifying the objective, for its activation variables. */
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) _fingerprint = new Fingerprint("objective " + toString());
+    return _fingerprint;
+  }
+
+  /**
+   * Adds clauses to col which require the objective to be at most k (or at least k, when
+   * maximising) if the returned atom holds.  The atom is returned positively, so it can be used as
+   * an assumption, or added as a unit clause to make the bound permanent.
+   */
+  public Atom addBound(int k, ClauseCollection col) {
+    Atom ret = new Atom(Variable.auxiliary(this, k), true);
+    if (col.isInMemory(this, k)) return ret;
+    col.addToMemory(this, k);
+    QuantifiedConstant bound = new QuantifiedConstant(k, _truth);
+    Geq formula = _maximise ? new Geq(_expr, bound, true) : new Geq(bound, _expr, true);
+    formula.addClausesIfThisIsImpliedBy(ret, col);
+    return ret;
+  }
+
+  public String toString() {
+    return (_maximise ? "maximize " : "minimize ") + _expr.toString();
+  }
+}
@@ -1,64 +1,337 @@
 package logic;
 
+import logic.sat.Atom;
+import logic.sat.ClauseCollection;
 import logic.sat.SatProblem;
 import logic.sat.Solution;
+import logic.sat.Statistics;
+import logic.sat.XorPreprocessor;
 import logic.formula.Formula;
+import logic.formula.AtomicFormula;
+import logic.formula.QuantifiedConditionalInteger;
+import logic.number.ClosedInteger;
+import logic.number.QuantifiedInteger;
+import logic.number.QuantifiedConstant;
+import logic.number.QuantifiedPlus;
+import logic.events.GroundRequirementEvent;
 import java.util.ArrayList;
+import java.util.TreeSet;
 
 /**
  * The RequirementsList keeps track of both the user-declared variables in a program, and the
  * (closed!) formulas that are required to hold.
  * It can translate these into a SatProblem to be solved.
+ *
+ * Requirements may be given a key which describes everything their meaning depends on.  If a
+ * FragmentCache is set, the clauses for such requirements are taken from the cache when possible,
+ * and stored in it otherwise.
+ *
+ * Optionally, the list has an objective: an integer expression to minimise or maximise.  Its
+ * definition clauses are part of the SatProblem, but finding the best solution is left to the
+ * caller.
+ *
+ * Alternatively, the list may have preferences: formulas with a positive weight, which should
+ * preferably hold.  The objective is then to minimise the total weight of the violated
+ * preferences.  Each preference is reified into an atom, and the weights of the false atoms are
+ * added up using the same integer encodings as for sums in the requirements.
+ *
+ * If symmetry breaking is enabled, the SatProblem also gets lex-leader clauses for the
+ * symmetries between interchangeable index values (see SymmetryBreaker).  This keeps at least one
+ * solution -- and one optimal solution -- of every class of symmetric solutions, but no more, so
+ * when enumerating solutions, symmetric variants are not listed separately.
+ *
+ * If xor reasoning is enabled, the parity constraints hidden in the clauses are recovered and
+ * combined by Gaussian elimination, and the short consequences are added (see XorPreprocessor).
  */
 public class RequirementsList {
   private VariableList _variables;
   private ArrayList<Formula> _formulas;
+  private ArrayList<Integer> _lines;
+  private ArrayList<String> _keys;
+  private FragmentCache _fragments;
+  private Objective _objective;
+  private ArrayList<Formula> _preferences;
+  private ArrayList<Integer> _weights;
+  private ArrayList<Integer> _preferenceLines;
+  private ArrayList<Atom> _satisfied;
+  private ArrayList<Objective> _strata;
+  private boolean _symmetryBreaking;
+  private boolean _xorReasoning;
+
+  /** Above this total weight, the violated preferences are added up in binary. */
+  private static final int RANGE_WEIGHT_LIMIT = 256;
 
   public RequirementsList(VariableList vars) {
     _variables = vars;
     _formulas = new ArrayList<Formula>();
+    _lines = new ArrayList<Integer>();
+    _keys = new ArrayList<String>();
+    _fragments = null;
+    _objective = null;
+    _preferences = new ArrayList<Formula>();
+    _weights = new ArrayList<Integer>();
+    _preferenceLines = new ArrayList<Integer>();
+    _satisfied = null;
+    _strata = null;
+    _symmetryBreaking = false;
+    _xorReasoning = false;
+  }
+
+  /** Sets the cache to take the clauses of requirements from, or null to always ground them. */
+  public void setFragmentCache(FragmentCache cache) {
+    _fragments = cache;
+  }
+
+  /** Returns the cache to take the clauses of requirements from, or null if there is none. */
+  public FragmentCache queryFragmentCache() {
+    return _fragments;
+  }
+
+  /** Sets whether createSat should add clauses that break symmetries between index values. */
+  public void setSymmetryBreaking(boolean value) {
+    _symmetryBreaking = value;
+  }
+
+  /** Sets whether createSat should derive extra clauses from the parity constraints. */
+  public void setXorReasoning(boolean value) {
+    _xorReasoning = value;
+  }
+
+  /** Returns a description of the settings which affect the problem that createSat creates. */
+  public String querySettingsDescription() {
+    return "symmetry " + _symmetryBreaking + "\nxor " + _xorReasoning;
+  }
+
+  /** Sets the objective to optimise, or null if any solution will do. */
+  public void setObjective(Objective objective) {
+    _objective = objective;
+  }
+
+  /** Returns the objective to optimise, or null if there is none. */
+  public Objective queryObjective() {
+    return _objective;
+  }
+
+  /** Adds a closed formula which should preferably hold, read from the given line. */
+  public void addPreference(Formula formula, int weight, int line) {
+    if (!formula.queryClosed()) {
+      throw new Error("Adding an open formula to the preferences!");
+    }
+    if (weight <= 0) throw new Error("Adding a preference with non-positive weight " + weight);
+    _preferences.add(formula);
+    _weights.add(weight);
+    _preferenceLines.add(line);
+  }
+
+  public int queryNumberPreferences() {
+    return _preferences.size();
+  }
+
+  /** Returns whether there is anything to optimise: an objective, or preferences. */
+  public boolean queryOptimising() {
+    return _objective != null || _preferences.size() > 0;
+  }
+
+  /**
+   * Returns the objectives to optimise, one after the other, in the last SatProblem created.  If
+   * an objective was set, this is just that objective.  For preferences, the search is stratified:
+   * the first objective only counts the violated preferences of the highest weight, the next one
+   * also those of the next highest weight, and so on, so good solutions are found quickly for the
+   * preferences that matter most.  The last objective counts all violated preferences; it is
+   * the one that is truly optimised.
+   */
+  public ArrayList<Objective> queryObjectives() {
+    ArrayList<Objective> ret = new ArrayList<Objective>();
+    if (_objective != null) ret.add(_objective);
+    else if (_strata != null) ret.addAll(_strata);
+    return ret;
+  }
+
+  /**
+   * Returns a description of the preferences that do not hold in the given solution of the last
+   * SatProblem created, one per line.
+   */
+  public String queryViolatedPreferences(Solution solution) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; _satisfied != null && i < _satisfied.size(); i++) {
+      if (solution.check(_satisfied.get(i))) continue;
+      if (_preferenceLines.get(i) >= 0) ret.append("line " + _preferenceLines.get(i) + ": ");
+      ret.append("prefer[" + _weights.get(i) + "] " + _preferences.get(i).toString() + "\n");
+    }
+    return ret.toString();
   }
 
   public VariableList queryVariables() {
     return _variables;
   }
 
+  public int queryNumberRequirements() {
+    return _formulas.size();
+  }
+
   public void add(Formula formula) {
+    add(formula, -1);
+  }
+
+  /** Adds a formula which was read from the given line of the input file. */
+  public void add(Formula formula, int line) {
+    add(formula, line, null);
+  }
+
+  /**
+   * Adds a formula which was read from the given line of the input file, with a key describing
+   * it and everything it depends on (or null if the requirement should never be cached).
+   */
+  public void add(Formula formula, int line, String key) {
     if (!formula.queryClosed()) {
       throw new Error("Adding an open formula to the requirements list!");
     }
     _formulas.add(formula);
+    _lines.add(line);
+    _keys.add(key);
+  }
+
+  /**
+   * Sets the key of the requirement at the given index; this is used when the key can only be
+   * determined after the requirement was added.
+   */
+  public void setKey(int index, String key) {
+    _keys.set(index, key);
   }
 
-   /** 
+  /** 
    * This method turns the requirements list into a SatProblem, so that the one is satisfiable if
    * and only if the other is.
    */
   public SatProblem createSat() {
+    return createSat(new Statistics());
+  }
+
+  /**
+   * This method turns the requirements list into a SatProblem like createSat(), and records the
+   * cost of grounding each requirement, and of the well-definedness clauses, in stats.
+   */
+  public SatProblem createSat(Statistics stats) {
+    return createSat(stats, false);
+  }
+
+  /**
+   * This method turns the requirements list into a SatProblem like createSat(stats).  In debug
+   * mode, it also lists the symmetries that were broken.
+   */
+  public SatProblem createSat(Statistics stats, boolean debug) {
     System.err.println("Generating SAT problem...");
     SatProblem problem = new SatProblem();
-    _variables.addWelldefinednessClauses(problem);
+    stats.startPhase("ground", problem);
+    int reused = 0;
     for (int i = 0; i < _formulas.size(); i++) {
-      System.err.println(_formulas.get(i).toString());
-      _formulas.get(i).addClauses(problem);
+      GroundRequirementEvent event = new GroundRequirementEvent();
+      event.begin();
+      stats.startRequirement(_lines.get(i), _formulas.get(i), problem);
+      if (_fragments == null || _keys.get(i) == null) _formulas.get(i).addClauses(problem);
+      else if (_fragments.load(_keys.get(i), problem, _variables)) reused++;
+      else {
+        ClauseCollection fragment = new ClauseCollection();
+        _formulas.get(i).addClauses(fragment);
+        _fragments.store(_keys.get(i), fragment);
+        for (int j = 0; j < fragment.queryNumberClauses(); j++) {
+          problem.addClause(fragment.queryClause(j));
+        }
+      }
+      stats.endRequirement();
+      if (event.shouldCommit()) {
+        Statistics.Measurement m = stats.queryRequirements().get(i);
+        event.index = i;
+        event.line = _lines.get(i);
+        event.clauses = (int)m.queryClauses();
+        event.variables = (int)m.queryVariables();
+        event.commit();
+      }
+    }
+    stats.endPhase();
+    if (_fragments != null) {
+      System.err.println("Reused " + reused + " of " + _formulas.size() + " requirements.");
+      _fragments.evict();
+    }
+    // this is done last, since the formulas may create atoms (such as the direct atoms x = i of a
+    // range variable) whose meaning is given by the well-definedness clauses
+    if (_preferences.size() > 0) {
+      stats.startPhase("preferences", problem);
+      _strata = createStrata(problem);
+      stats.endPhase();
+    }
+    stats.startPhase("welldefinedness", problem);
+    for (Objective objective : queryObjectives()) objective.addDefinitionClauses(problem);
+    _variables.addWelldefinednessClauses(problem);
+    stats.endPhase();
+    if (_symmetryBreaking) {
+      stats.startPhase("symmetry", problem);
+      SymmetryBreaker breaker = new SymmetryBreaker(_variables, queryObjectives());
+      int found = breaker.addClauses(problem);
+      System.err.println("Symmetry breaking: found " + found + " symmetries.");
+      if (debug) {
+        for (String desc : breaker.querySymmetries()) System.err.println("  " + desc);
+      }
+      stats.endPhase();
+    }
+    if (_xorReasoning) {
+      stats.startPhase("xor", problem);
+      (new XorPreprocessor()).simplify(problem);
+      stats.endPhase();
     }
     return problem;
   }
 
+  /**
+   * Reifies every preference into an atom in col, and returns the objectives for a stratified
+   * search over the total weight of the violated preferences (see queryObjectives).
+   */
+  private ArrayList<Objective> createStrata(ClauseCollection col) {
+    Atom truth = new Atom(_variables.queryTrueVariable(), true);
+    _satisfied = new ArrayList<Atom>();
+    TreeSet<Integer> levels = new TreeSet<Integer>();
+    for (int i = 0; i < _preferences.size(); i++) {
+      _satisfied.add(_preferences.get(i).reify(col));
+      levels.add(_weights.get(i));
+    }
+    ArrayList<Objective> ret = new ArrayList<Objective>();
+    for (int level : levels.descendingSet()) {
+      ArrayList<QuantifiedInteger> parts = new ArrayList<QuantifiedInteger>();
+      int total = 0;
+      for (int i = 0; i < _preferences.size(); i++) {
+        if (_weights.get(i) < level) continue;
+        parts.add(new QuantifiedConditionalInteger(new AtomicFormula(_satisfied.get(i).negate()),
+                    new QuantifiedConstant(_weights.get(i), truth), truth));
+        total += _weights.get(i);
+      }
+      int kind = total <= RANGE_WEIGHT_LIMIT ? ClosedInteger.RANGE : ClosedInteger.BINARY;
+      QuantifiedInteger cost = parts.size() == 1 ? parts.get(0) :
+                               new QuantifiedPlus(parts, kind, truth);
+      ret.add(new Objective(cost, false, truth));
+    }
+    return ret;
+  }
+
   /** 
    * This method finds a satisfying assignment for all the requirements in the current list, if one
    * exists.  If not, the negative Solution is returned.
    * If the sat solver cannot decide the problem or a file issue occurs, null is returned instead.
    */
   public Solution solve(boolean debug) {
-    SatProblem problem = createSat();
-    if (debug) {
-      System.err.println("Creating debug output...");
-      String debugOutput = problem.toString();
-      System.out.println(debugOutput);
+    return solve(debug, new Statistics());
+  }
+
+  /** This method solves the requirements like solve(debug), recording metrics in stats. */
+  public Solution solve(boolean debug, Statistics stats) {
+    try (SatProblem problem = createSat(stats, debug)) {
+      if (debug) {
+        System.err.println("Creating debug output...");
+        String debugOutput = problem.toString();
+        System.out.println(debugOutput);
+      }
+      System.err.println("Sending problem to SAT solver...");
+      return problem.solve(stats);
     }
-    System.err.println("Sending problem to SAT solver...");
-    return problem.solve();
   }
 
   /** This returns a human-readable presentation of the requirements list. */
@@ -67,6 +340,10 @@ public class RequirementsList {
     for (int i = 0; i < _formulas.size(); i++) {
       ret += _formulas.get(i).toString() + "\n";
     }   
+    if (_objective != null) ret += _objective.toString() + "\n";
+    for (int i = 0; i < _preferences.size(); i++) {
+      ret += "prefer[" + _weights.get(i) + "] " + _preferences.get(i).toString() + "\n";
+    }
     return ret;
   }
 }
@@ -0,0 +1,629 @@
+package logic;
+
+import logic.sat.Variable;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseCollection;
+import logic.sat.SatProblem;
+import logic.parameter.Parameter;
+import logic.parameter.ParameterList;
+import logic.parameter.ParametrisedObject;
+import logic.number.range.RangeVariable;
+import logic.number.range.ParamRangeVar;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The SymmetryBreaker looks for interchangeable index values in a grounded problem, and adds
+ * lex-leader clauses, so the solver only has to consider one solution out of every class of
+ * symmetric solutions.
+ *
+ * Candidate symmetries come from the declarations.  An index set is a range {a..b} which is used
+ * as the range of a parameter of one or more parametrised variables, or as the values of a
+ * parametrised range variable with a direct view.  For two consecutive values v and v+1 of such a
+ * set, the candidate swaps v and v+1 in all those places at once (and if that fails, in each
+ * place separately).  The swap is extended to auxiliary variables through the clauses they occur
+ * in: an auxiliary variable is mapped to one with the same kind of source whose clauses are the
+ * images of its own, so their (often long) names are never built.  A candidate is only used if it
+ * maps the set of clauses onto itself, so whatever the requirements look like, only true
+ * symmetries of the problem are broken.
+ *
+ * Swapping values of a range variable is not a renaming of its order atoms x ≥ i.  Hence, the
+ * values of a family are only considered if its order atoms occur in nothing but its
+ * well-definedness clauses.  Those clauses are then left out of the comparison: all they say
+ * about the direct atoms x = i is that at most one of them holds, which is symmetric.
+ *
+ * For every symmetry σ found, the clauses require x1...xn ≥lex σ(x1)...σ(xn), where x1,...,xn
+ * are the variables created by name, ordered by index.  Auxiliary variables e_i express that the
+ * first i positions are equal.  Since all these constraints use the same order, together they
+ * still allow at least one solution of every class.  Candidates which move one of the variables
+ * that determine the value of an objective are rejected, so optimal values are not affected.
+ */
+public class SymmetryBreaker {
+  /** The position used for the values of a range variable, rather than a parameter. */
+  private static final int VALUES = -1;
+
+  /** A place where the values of an index set occur. */
+  private static class Place {
+    String family;
+    int position;
+    int arity;
+
+    Place(String f, int p, int a) {
+      family = f;
+      position = p;
+      arity = a;
+    }
+
+    public String toString() {
+      if (position == VALUES) return family + " = ·";
+      StringBuilder ret = new StringBuilder(family + "[");
+      for (int i = 0; i < arity; i++) {
+        if (i > 0) ret.append(",");
+        ret.append(i == position ? "·" : "_");
+      }
+      return ret.append("]").toString();
+    }
+  }
+
+  /** A candidate symmetry: swapping the values a and b in the given positions of each family. */
+  private static class Swap {
+    TreeMap<String,TreeSet<Integer>> places;
+    int a;
+    int b;
+    String description;
+
+    Swap(ArrayList<Place> group, int v, int w) {
+      places = new TreeMap<String,TreeSet<Integer>>();
+      a = v;
+      b = w;
+      StringBuilder desc = new StringBuilder();
+      for (Place place : group) {
+        if (!places.containsKey(place.family)) places.put(place.family, new TreeSet<Integer>());
+        places.get(place.family).add(place.position);
+        if (desc.length() > 0) desc.append(", ");
+        desc.append(place.toString());
+      }
+      description = desc.toString() + ": " + v + " ↔ " + w;
+    }
+
+    int apply(int k) {
+      return k == a ? b : k == b ? a : k;
+    }
+
+    /** Returns whether the given name may refer to an instance of one of the families. */
+    boolean mentions(String name) {
+      for (String family : places.keySet()) {
+        if (name.indexOf(family + "[") >= 0) return true;
+      }
+      return false;
+    }
+  }
+
+  /** The source of the variables e_i in the lex-leader clauses for a single symmetry. */
+  private static class LexChain implements VariableSource {
+    private String _description;
+
+    LexChain(String description) {
+      _description = description;
+    }
+
+    public String queryVariableName(int index) {
+      return "⟦lex-leader " + _description + " #" + index + "⟧";
+    }
+
+    public Fingerprint queryFingerprint() {
+      return new Fingerprint("lex-leader " + _description);
+    }
+  }
+
+  private VariableList _vars;
+  private TreeSet<Integer> _fixed;
+  private ArrayList<String> _symmetries;
+
+  // the state for the problem being analysed
+  private String[] _names;
+  private Variable[] _auxiliaries;
+  private boolean[] _used;
+  private ArrayList<int[]> _clauses;
+  private HashSet<String> _clauseKeys;
+  private int[][] _occurrences;
+  private TreeMap<String,ArrayList<RangeVariable>> _valueFamilies;
+  private TreeMap<String,ArrayList<Place>> _places;
+  private TreeMap<String,int[]> _bounds;
+
+  /**
+   * Creates a symmetry breaker for problems over the given variables, which should leave the
+   * values of the given objectives alone.
+   */
+  public SymmetryBreaker(VariableList vars, ArrayList<Objective> objectives) {
+    _vars = vars;
+    _fixed = new TreeSet<Integer>();
+    for (Objective objective : objectives) {
+      for (Atom atom : objective.queryValueAtoms()) _fixed.add(atom.queryIndex());
+    }
+    _symmetries = new ArrayList<String>();
+  }
+
+  /** Returns a description of every symmetry found by the last call to addClauses. */
+  public ArrayList<String> querySymmetries() {
+    return new ArrayList<String>(_symmetries);
+  }
+
+  /**
+   * Looks for symmetries of the given problem, and adds the lex-leader clauses for them to it.
+   * This returns the number of symmetries found.
+   */
+  public int addClauses(SatProblem problem) {
+    _symmetries = new ArrayList<String>();
+    int[][] clauses = problem.queryClauseLiterals();
+    setupNames(problem.queryNumberVariables());
+    _places = new TreeMap<String,ArrayList<Place>>();
+    _bounds = new TreeMap<String,int[]>();
+    collectIndexPlaces();
+    HashSet<String> welldefined = collectValuePlaces(clauses);
+    setupClauses(clauses, welldefined);
+    for (String sort : _places.keySet()) {
+      ArrayList<Place> all = _places.get(sort);
+      int[] bounds = _bounds.get(sort);
+      for (int v = bounds[0]; v < bounds[1]; v++) {
+        if (tryCandidate(all, v, problem) || all.size() == 1) continue;
+        for (Place place : all) {
+          ArrayList<Place> single = new ArrayList<Place>();
+          single.add(place);
+          tryCandidate(single, v, problem);
+        }
+      }
+    }
+    return _symmetries.size();
+  }
+
+  /** Records that the values of the index set {min..max} are used in the given place. */
+  private void addPlace(Place place, int min, int max) {
+    if (min >= max) return;
+    String sort = min + ".." + max;
+    if (!_places.containsKey(sort)) {
+      _places.put(sort, new ArrayList<Place>());
+      _bounds.put(sort, new int[] { min, max });
+    }
+    _places.get(sort).add(place);
+  }
+
+  /** Adds a place for every parameter with a fixed, unrestricted range. */
+  private void collectIndexPlaces() {
+    for (ParametrisedObject<?> family : _vars.queryParametrisedVariables()) {
+      ParameterList params = family.queryParameters();
+      for (int p = 0; p < params.size(); p++) {
+        Parameter param = params.get(p);
+        if (!param.queryMinimum().queryConstant() || !param.queryMaximum().queryConstant() ||
+            !param.queryRestriction().isTop()) continue;
+        addPlace(new Place(family.queryName(), p, params.size()),
+                 param.queryMinimum().evaluate(null), param.queryMaximum().evaluate(null));
+      }
+    }
+  }
+
+  /**
+   * Adds a place for the values of every parametrised range variable whose instances all have
+   * the same range, have a direct view, and whose order atoms occur only in the well-definedness
+   * clauses.  This returns the well-definedness clauses of those families.
+   */
+  private HashSet<String> collectValuePlaces(int[][] clauses) {
+    HashSet<String> ret = new HashSet<String>();
+    _valueFamilies = new TreeMap<String,ArrayList<RangeVariable>>();
+    for (ParamRangeVar family : _vars.queryParametrisedRangeVariables()) {
+      ArrayList<RangeVariable> instances = family.queryObjects();
+      if (!family.queryDirectView() || instances.isEmpty()) continue;
+      int min = instances.get(0).queryMinimum(), max = instances.get(0).queryMaximum();
+      TreeSet<Integer> order = new TreeSet<Integer>();
+      boolean ok = min < max;
+      for (RangeVariable x : instances) {
+        if (x.queryMinimum() != min || x.queryMaximum() != max) ok = false;
+        // shared order atoms indicate a range restriction
+        for (int i = min + 1; ok && i <= max; i++) {
+          int index = x.queryGeqAtom(i).queryIndex();
+          if (!order.add(index) || _fixed.contains(index)) ok = false;
+        }
+      }
+      if (!ok) continue;
+      ClauseCollection col = new ClauseCollection();
+      family.addWelldefinednessClauses(col);
+      HashSet<String> welldefined = new HashSet<String>();
+      for (int i = 0; i < col.queryNumberClauses(); i++) {
+        welldefined.add(key(literals(col.queryClause(i))));
+      }
+      for (int j = 0; ok && j < clauses.length; j++) {
+        for (int lit : clauses[j]) {
+          if (order.contains(Math.abs(lit)) && !welldefined.contains(key(clauses[j]))) ok = false;
+        }
+      }
+      if (!ok) continue;
+      ret.addAll(welldefined);
+      _valueFamilies.put(family.queryName(), instances);
+      addPlace(new Place(family.queryName(), VALUES, 0), min, max);
+    }
+    return ret;
+  }
+
+  /** Stores the names of the named variables 1..n, and the auxiliary ones among them. */
+  private void setupNames(int n) {
+    _names = new String[n + 1];
+    _auxiliaries = new Variable[n + 1];
+    for (Map.Entry<Integer,String> e : Variable.queryNamedVariables().entrySet()) {
+      if (e.getKey() <= n) _names[e.getKey()] = e.getValue();
+    }
+    for (Map.Entry<Integer,Variable> e : Variable.queryAuxiliaryVariables().entrySet()) {
+      if (e.getKey() <= n) _auxiliaries[e.getKey()] = e.getValue();
+    }
+  }
+
+  /** Stores the clauses of the problem, except the given ones, to compare candidates against. */
+  private void setupClauses(int[][] clauses, HashSet<String> skip) {
+    _clauses = new ArrayList<int[]>();
+    _clauseKeys = new HashSet<String>();
+    _used = new boolean[_names.length];
+    for (int[] clause : clauses) {
+      String k = key(clause);
+      if (skip.contains(k) || !_clauseKeys.add(k)) continue;
+      _clauses.add(clause);
+      for (int lit : clause) _used[Math.abs(lit)] = true;
+    }
+    int[] count = new int[_names.length];
+    for (int[] clause : _clauses) {
+      for (int lit : clause) count[Math.abs(lit)]++;
+    }
+    _occurrences = new int[_names.length][];
+    for (int x = 0; x < _names.length; x++) _occurrences[x] = new int[count[x]];
+    Arrays.fill(count, 0);
+    for (int c = 0; c < _clauses.size(); c++) {
+      for (int lit : _clauses.get(c)) {
+        int x = Math.abs(lit);
+        _occurrences[x][count[x]++] = c;
+      }
+    }
+  }
+
+  private static int[] literals(Clause clause) {
+    ArrayList<Atom> parts = clause.getParts();
+    int[] ret = new int[parts.size()];
+    for (int j = 0; j < parts.size(); j++) {
+      Atom a = parts.get(j);
+      ret[j] = a.queryNegative() ? -a.queryIndex() : a.queryIndex();
+    }
+    return ret;
+  }
+
+  /** Returns a description of the clause which does not depend on the order of the literals. */
+  private static String key(int[] clause) {
+    int[] lits = Arrays.copyOf(clause, clause.length);
+    Arrays.sort(lits);
+    StringBuilder ret = new StringBuilder();
+    for (int j = 0; j < lits.length; j++) {
+      if (j > 0 && lits[j] == lits[j-1]) continue;
+      ret.append(lits[j]).append(' ');
+    }
+    return ret.toString();
+  }
+
+  /**
+   * Checks whether swapping v and v+1 in the given places is a symmetry of the problem, and if so,
+   * adds the lex-leader clauses for it to col.
+   */
+  private boolean tryCandidate(ArrayList<Place> group, int v, ClauseCollection col) {
+    Swap swap = new Swap(group, v, v + 1);
+    int[] perm = queryPermutation(swap);
+    if (perm == null || !queryAutomorphism(perm)) return false;
+    addLexLeader(perm, swap.description, col);
+    _symmetries.add(swap.description);
+    return true;
+  }
+
+  /**
+   * Returns the permutation of the variables that the swap induces, or null if some variable in
+   * the clauses would be mapped to a variable outside them, or the swap would change the value of
+   * an objective.  The named variables are renamed by the swap; the images of the auxiliary
+   * variables follow from the clauses (see mapAuxiliaries).
+   */
+  private int[] queryPermutation(Swap swap) {
+    int n = _used.length - 1;
+    int[] perm = new int[n + 1];
+    for (int x = 1; x <= n; x++) {
+      if (_used[x] && _auxiliaries[x] != null) continue;
+      perm[x] = x;
+      if (!_used[x]) continue;
+      String name = _names[x];
+      if (name == null) return null;
+      if (!swap.mentions(name)) continue;
+      String image = rename(name, swap);
+      if (image == null) return null;
+      if (image.equals(name)) continue;
+      int y = Variable.exists(image) ? new Variable(image).queryIndex() : 0;
+      if (y <= 0 || y > n || !_used[y]) return null;
+      perm[x] = y;
+    }
+    if (!mapAuxiliaries(perm)) return null;
+    for (int x = 1; x <= n; x++) {
+      if (perm[perm[x]] != x) return null;
+    }
+    for (int x : _fixed) {
+      if (x <= n && perm[x] != x) return null;
+    }
+    // the direct atoms of the families whose well-definedness clauses were left out must match up,
+    // even if they do not occur in the remaining clauses
+    for (String family : _valueFamilies.keySet()) {
+      if (!swap.places.containsKey(family)) continue;
+      for (RangeVariable x : _valueFamilies.get(family)) {
+        for (int i = x.queryMinimum(); i <= x.queryMaximum(); i++) {
+          String name = x.toString() + "=" + i;
+          String image = rename(name, swap);
+          if (Variable.exists(name) != (image != null && Variable.exists(image))) return null;
+        }
+      }
+    }
+    return perm;
+  }
+
+  /**
+   * Completes the permutation, in which the auxiliary variables are still mapped to 0.  Those which
+   * are not connected to a moved variable through clauses of auxiliary variables stay in place.
+   * For the others, each clause whose other variables have an image restricts the candidates to the
+   * variables that complete its image to a clause of the problem.  A single candidate is taken
+   * right away; if there is none with a single candidate, the first variable with candidates is
+   * mapped to itself if possible, and to its first candidate otherwise.  The result need not be a
+   * symmetry, so it is checked afterwards; this returns false if some variable has no candidates.
+   */
+  private boolean mapAuxiliaries(int[] perm) {
+    TreeSet<Integer> open = new TreeSet<Integer>();
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+    for (int x = 1; x < perm.length; x++) {
+      if (perm[x] != 0 && perm[x] != x) addNeighbours(x, perm, open, queue);
+    }
+    while (!queue.isEmpty()) addNeighbours(queue.poll(), perm, open, queue);
+    for (int x = 1; x < perm.length; x++) {
+      if (perm[x] == 0 && !open.contains(x)) perm[x] = x;
+    }
+    queue.addAll(open);
+    while (!open.isEmpty()) {
+      while (!queue.isEmpty()) {
+        int x = queue.poll();
+        if (perm[x] != 0) continue;
+        TreeSet<Integer> candidates = queryCandidates(x, perm);
+        if (candidates == null) continue;
+        if (candidates.isEmpty()) return false;
+        if (candidates.size() == 1) assign(x, candidates.first(), perm, open, queue);
+      }
+      int choice = 0;
+      TreeSet<Integer> candidates = null;
+      for (int x : open) {
+        candidates = queryCandidates(x, perm);
+        if (candidates != null) { choice = x; break; }
+      }
+      if (choice == 0) {
+        for (int x : open) perm[x] = x;
+        return true;
+      }
+      if (candidates.isEmpty()) return false;
+      int image = candidates.contains(choice) ? choice : candidates.first();
+      assign(choice, image, perm, open, queue);
+    }
+    return true;
+  }
+
+  /**
+   * Adds the auxiliary variables without an image which occur in a clause with x to open, and
+   * those that were not there yet to the queue.
+   */
+  private void addNeighbours(int x, int[] perm, TreeSet<Integer> open, ArrayDeque<Integer> queue) {
+    for (int c : _occurrences[x]) {
+      for (int lit : _clauses.get(c)) {
+        int y = Math.abs(lit);
+        if (perm[y] == 0 && open.add(y)) queue.add(y);
+      }
+    }
+  }
+
+  /**
+   * Maps the auxiliary variables x and y to each other (swaps are their own inverse), and queues
+   * the variables without an image in their clauses, which may now have fewer candidates.
+   */
+  private void assign(int x, int y, int[] perm, TreeSet<Integer> open, ArrayDeque<Integer> queue) {
+    perm[x] = y;
+    perm[y] = x;
+    open.remove(x);
+    open.remove(y);
+    for (int z : new int[] { x, y }) {
+      for (int c : _occurrences[z]) {
+        for (int lit : _clauses.get(c)) {
+          if (perm[Math.abs(lit)] == 0) queue.add(Math.abs(lit));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the auxiliary variables without an image that x may be mapped to, given the images
+   * assigned so far, or null if none of the clauses of x restricts this yet.
+   */
+  private TreeSet<Integer> queryCandidates(int x, int[] perm) {
+    TreeSet<Integer> ret = null;
+    for (int c : _occurrences[x]) {
+      int[] clause = _clauses.get(c);
+      HashSet<Integer> image = new HashSet<Integer>();
+      boolean positive = true, known = true;
+      int pivot = 0;
+      for (int lit : clause) {
+        int y = Math.abs(lit);
+        if (y == x) positive = lit > 0;
+        else if (perm[y] == 0) known = false;
+        else {
+          int imageLit = lit > 0 ? perm[y] : -perm[y];
+          image.add(imageLit);
+          // only the clauses with the least frequent image literal need to be searched
+          if (pivot == 0 || _occurrences[perm[y]].length < _occurrences[Math.abs(pivot)].length) {
+            pivot = imageLit;
+          }
+        }
+      }
+      if (!known || pivot == 0) continue;
+      TreeSet<Integer> found = new TreeSet<Integer>();
+      for (int d : _occurrences[Math.abs(pivot)]) {
+        int[] other = _clauses.get(d);
+        if (other.length != clause.length) continue;
+        int extra = 0;
+        for (int lit : other) {
+          if (image.contains(lit)) continue;
+          if (extra != 0) { extra = 0; break; }
+          extra = lit;
+        }
+        int y = Math.abs(extra);
+        if (extra != 0 && (extra > 0) == positive && perm[y] == 0 && _auxiliaries[y] != null &&
+            querySameKind(_auxiliaries[x], _auxiliaries[y])) found.add(y);
+      }
+      if (ret == null) ret = found;
+      else ret.retainAll(found);
+      if (ret.isEmpty()) return ret;
+    }
+    return ret;
+  }
+
+  /**
+   * Returns whether the auxiliary variables may correspond to each other: their sources are of
+   * the same class.  If a source has been forgotten, this cannot be checked, so it is assumed.
+   */
+  private static boolean querySameKind(Variable x, Variable y) {
+    if (x.querySource() == null || y.querySource() == null) return true;
+    return x.querySource().getClass() == y.querySource().getClass();
+  }
+
+  /** Returns whether the permutation maps every clause to a clause of the problem. */
+  private boolean queryAutomorphism(int[] perm) {
+    for (int[] clause : _clauses) {
+      int[] image = new int[clause.length];
+      boolean moved = false;
+      for (int j = 0; j < clause.length; j++) {
+        int x = Math.abs(clause[j]);
+        if (perm[x] != x) moved = true;
+        image[j] = clause[j] > 0 ? perm[x] : -perm[x];
+      }
+      if (moved && !_clauseKeys.contains(key(image))) return false;
+    }
+    return true;
+  }
+
+  private static boolean identifierStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  private static boolean identifierPart(char c) {
+    return identifierStart(c) || (c >= '0' && c <= '9');
+  }
+
+  /**
+   * Returns the name of the named variable that the swap maps the variable with the given name to,
+   * or null if the name uses an affected family in a way we cannot rename.
+   */
+  private String rename(String name, Swap swap) {
+    StringBuilder ret = new StringBuilder();
+    int i = 0, n = name.length();
+    while (i < n) {
+      char c = name.charAt(i);
+      if (!identifierPart(c)) {
+        ret.append(c);
+        i++;
+        continue;
+      }
+      int j = i;
+      while (j < n && identifierPart(name.charAt(j))) j++;
+      String id = name.substring(i, j);
+      TreeSet<Integer> positions = swap.places.get(id);
+      if (positions == null || !identifierStart(c) || j >= n || name.charAt(j) != '[') {
+        ret.append(id);
+        i = j;
+        continue;
+      }
+      int k = name.indexOf(']', j);
+      if (k < 0) return null;
+      ret.append(id).append('[');
+      String[] args = name.substring(j + 1, k).split(",");
+      for (int p = 0; p < args.length; p++) {
+        int value;
+        try { value = Integer.parseInt(args[p].trim()); }
+        catch (NumberFormatException e) { return null; }
+        if (p > 0) ret.append(',');
+        ret.append(positions.contains(p) ? swap.apply(value) : value);
+      }
+      ret.append(']');
+      i = k + 1;
+      if (positions.contains(VALUES)) {
+        i = renameValue(name, i, swap, ret);
+        if (i < 0) return null;
+      }
+    }
+    return ret.toString();
+  }
+
+  /**
+   * Helper function for rename: an instance of a family whose values are swapped was just added
+   * to ret, and ends at position i of name.  If the name is that of a direct atom x=c, this
+   * renames the constant, and returns the position in name after it; otherwise it returns -1.
+   */
+  private static int renameValue(String name, int i, Swap swap, StringBuilder ret) {
+    if (!name.startsWith("=", i)) return -1;
+    int j = i + 1, k = j;
+    if (k < name.length() && name.charAt(k) == '-') k++;
+    int digits = k;
+    while (k < name.length() && Character.isDigit(name.charAt(k))) k++;
+    if (k == digits) return -1;
+    ret.append('=');
+    ret.append(swap.apply(Integer.parseInt(name.substring(j, k))));
+    return k;
+  }
+
+  /** Returns an atom for the variable with the given index. */
+  private Atom queryAtom(int x) {
+    return new Atom(new Variable(_names[x]), true);
+  }
+
+  /** Returns the clause with the given atoms, leaving out the first if it is null. */
+  private static Clause makeClause(Atom first, Atom... rest) {
+    ArrayList<Atom> parts = new ArrayList<Atom>();
+    if (first != null) parts.add(first);
+    for (Atom a : rest) parts.add(a);
+    return new Clause(parts);
+  }
+
+  /**
+   * Adds clauses requiring that the named variables, ordered by index, are lexicographically at
+   * least as large (with true > false) as their images under the permutation.  Positions whose
+   * partner came earlier are skipped: if all earlier positions are equal, so are these.
+   */
+  private void addLexLeader(int[] perm, String description, ClauseCollection col) {
+    ArrayList<Integer> positions = new ArrayList<Integer>();
+    for (int x = 1; x < perm.length; x++) {
+      if (perm[x] == x || _auxiliaries[x] != null) continue;
+      if (perm[x] < x && _auxiliaries[perm[x]] == null) continue;
+      positions.add(x);
+    }
+    LexChain chain = new LexChain(description);
+    Atom equal = null;      // holds if all earlier positions are equal; null means true
+    for (int i = 0; i < positions.size(); i++) {
+      Atom x = queryAtom(positions.get(i));
+      Atom y = queryAtom(perm[positions.get(i)]);
+      Atom notEqual = equal == null ? null : equal.negate();
+      col.addClause(makeClause(notEqual, x, y.negate()));
+      if (i == positions.size() - 1) break;
+      Atom next = new Atom(Variable.auxiliary(chain, i + 1), true);
+      col.addClause(makeClause(notEqual, x.negate(), y.negate(), next));
+      // if x is false while the earlier positions are equal, then so is y
+      col.addClause(makeClause(notEqual, x, next));
+      equal = next;
+    }
+  }
+}
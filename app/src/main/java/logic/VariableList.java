@@ -6,10 +6,16 @@ import logic.parameter.Parameter;
 import logic.parameter.ParameterList;
 import logic.parameter.Substitution;
 import logic.parameter.ParamBoolVar;
+import logic.parameter.ParametrisedObject;
 import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.ParamAutoVar;
+import logic.number.auto.EncodingChoice;
+import logic.events.WelldefinednessEvent;
+import java.util.ArrayList;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
@@ -28,6 +34,12 @@ public class VariableList {
   private TreeMap<String,ParamBoolVar> _paramboolvars;
   private TreeMap<String,ParamRangeVar> _paramrangevars;
   private TreeMap<String,ParamBinaryVar> _parambinaryvars;
+  private TreeMap<String,AutoVariable> _autovars;
+  private TreeMap<String,ParamAutoVar> _paramautovars;
+  /** All range variables, including instances of parametrised ones; built when needed. */
+  private TreeMap<String,RangeVariable> _rangeInstances;
+  /** All auto variables, including instances of parametrised ones; built when needed. */
+  private TreeMap<String,AutoVariable> _autoInstances;
 
   public VariableList() {
     _usednames = new TreeSet<String>();
@@ -37,6 +49,10 @@ public class VariableList {
     _paramboolvars = new TreeMap<String,ParamBoolVar>();
     _paramrangevars = new TreeMap<String,ParamRangeVar>();
     _parambinaryvars = new TreeMap<String,ParamBinaryVar>();
+    _autovars = new TreeMap<String,AutoVariable>();
+    _paramautovars = new TreeMap<String,ParamAutoVar>();
+    _rangeInstances = null;
+    _autoInstances = null;
 
     _boolvars.put("FALSE", new Variable("FALSE"));
     _boolvars.put("TRUE", new Variable("TRUE"));
@@ -71,6 +87,7 @@ public class VariableList {
     checkAcceptableName(name);
     RangeVariable v = new RangeVariable(param, truth());
     _rangevars.put(name, v);
+    _rangeInstances = null;
     _usednames.add(name);
     return v;
   }
@@ -104,6 +121,7 @@ public class VariableList {
     checkAcceptableName(name);
     ParamRangeVar v = new ParamRangeVar(count, params, new Atom(queryTrueVariable(), true));
     _paramrangevars.put(name, v);
+    _rangeInstances = null;
     _usednames.add(name);
     return v;
   }
@@ -126,6 +144,41 @@ public class VariableList {
     return v;
   }
 
+  public AutoVariable registerAutoVariable(Parameter param) {
+    String name = param.queryName();
+    checkAcceptableName(name);
+    AutoVariable v = new AutoVariable(param, truth(), new EncodingChoice());
+    _autovars.put(name, v);
+    _autoInstances = null;
+    _usednames.add(name);
+    return v;
+  }
+
+  public ParamAutoVar registerParametrisedAutoVariable(Parameter count, ParameterList params) {
+    String name = count.queryName();
+    checkAcceptableName(name);
+    ParamAutoVar v = new ParamAutoVar(count, params, truth());
+    _paramautovars.put(name, v);
+    _autoInstances = null;
+    _usednames.add(name);
+    return v;
+  }
+
+  /** Returns all parametrised variables: the boolean, range, binary and auto ones. */
+  public ArrayList<ParametrisedObject<?>> queryParametrisedVariables() {
+    ArrayList<ParametrisedObject<?>> ret = new ArrayList<ParametrisedObject<?>>();
+    ret.addAll(_paramboolvars.values());
+    ret.addAll(_paramrangevars.values());
+    ret.addAll(_parambinaryvars.values());
+    ret.addAll(_paramautovars.values());
+    return ret;
+  }
+
+  /** Returns all parametrised range variables. */
+  public ArrayList<ParamRangeVar> queryParametrisedRangeVariables() {
+    return new ArrayList<ParamRangeVar>(_paramrangevars.values());
+  }
+
   public boolean isDeclared(String name) {
     return _usednames.contains(name);
   }
@@ -154,6 +207,151 @@ public class VariableList {
     return _parambinaryvars.get(name);
   }
 
+  public AutoVariable queryAutoVariable(String name) {
+    return _autovars.get(name);
+  }
+
+  public ParamAutoVar queryParametrisedAutoVariable(String name) {
+    return _paramautovars.get(name);
+  }
+
+  /**
+   * Returns a description of the choices made for the variable (or family) with the given name
+   * while reading the requirements: whether it has a direct view, and how an auto variable is
+   * used.  Since these choices affect how formulas are grounded, a requirement using the variable
+   * must be grounded again when its description changes.
+   */
+  public String queryUsageDescription(String name) {
+    if (_rangevars.containsKey(name)) return "direct " + _rangevars.get(name).queryDirectView();
+    if (_paramrangevars.containsKey(name)) {
+      // the direct view may also be enabled on individual instances
+      TreeMap<String,RangeVariable> instances = new TreeMap<String,RangeVariable>();
+      _paramrangevars.get(name).collectInstances(instances);
+      StringBuilder ret = new StringBuilder("direct");
+      for (RangeVariable x : instances.values()) {
+        if (x.queryDirectView()) ret.append(" " + x.toString());
+      }
+      return ret.toString();
+    }
+    if (_autovars.containsKey(name)) return _autovars.get(name).queryEncodingChoice().toString();
+    if (_paramautovars.containsKey(name)) {
+      return _paramautovars.get(name).queryEncodingChoice().toString();
+    }
+    return "";
+  }
+
+  /**
+   * If the given name has the form x=i for a range variable x with a direct view, this creates
+   * the atom x = i (if it does not exist yet), so that the well-definedness clauses give it its
+   * meaning, and returns true.  Otherwise, this returns false.
+   * This is used when clauses containing the atom are not created by grounding a formula, but
+   * loaded from elsewhere.
+   */
+  public boolean restoreDirectAtom(String name) {
+    int eq = name.lastIndexOf('=');
+    if (eq <= 0) return false;
+    if (_rangeInstances == null) {
+      _rangeInstances = new TreeMap<String,RangeVariable>(_rangevars);
+      for (ParamRangeVar y : _paramrangevars.values()) y.collectInstances(_rangeInstances);
+    }
+    RangeVariable x = _rangeInstances.get(name.substring(0, eq));
+    if (x == null || !x.queryDirectView()) return false;
+    int value;
+    try { value = Integer.parseInt(name.substring(eq + 1)); }
+    catch (NumberFormatException e) { return false; }
+    x.queryEqAtom(value);
+    return true;
+  }
+
+  /**
+   * If the given name is that of a variable in the order encoding (x≥i) or the binary encoding
+   * (x⟨i⟩ or x⟨-⟩) of an auto variable x, this makes sure that x uses that encoding, and returns
+   * true.  Otherwise, this returns false.
+   * Like restoreDirectAtom, this is used when clauses or a solution are loaded from elsewhere:
+   * the encodings of an auto variable are normally chosen while grounding the formulas, and they
+   * determine both its well-definedness clauses and how its value is read from a solution.
+   */
+  public boolean restoreAutoView(String name) {
+    int geq = name.lastIndexOf('≥');
+    int bit = name.endsWith("⟩") ? name.lastIndexOf('⟨') : -1;
+    if (geq <= 0 && bit <= 0) return false;
+    if (_autoInstances == null) {
+      _autoInstances = new TreeMap<String,AutoVariable>(_autovars);
+      for (ParamAutoVar y : _paramautovars.values()) {
+        for (AutoVariable x : y.queryObjects()) _autoInstances.put(x.toString(), x);
+      }
+    }
+    if (bit > 0) {
+      AutoVariable x = _autoInstances.get(name.substring(0, bit));
+      if (x == null) return false;
+      x.enableBinaryView();
+    }
+    else {
+      AutoVariable x = _autoInstances.get(name.substring(0, geq));
+      if (x == null) return false;
+      x.enableRangeView();
+    }
+    return true;
+  }
+
+  /** Adds the variable of the given atom to set, unless it is TRUE or FALSE. */
+  private void addProjectionAtom(Atom atom, TreeSet<Variable> set) {
+    Variable x = atom.queryVariable();
+    if (!x.equals(queryTrueVariable()) && !x.equals(queryFalseVariable())) set.add(x);
+  }
+
+  private void addProjectionVariables(RangeVariable x, TreeSet<Variable> set) {
+    for (int i = x.queryMinimum() + 1; i <= x.queryMaximum(); i++) {
+      addProjectionAtom(x.queryGeqAtom(i), set);
+    }
+  }
+
+  private void addProjectionVariables(BinaryVariable x, TreeSet<Variable> set) {
+    for (int i = 0; i < x.length(); i++) addProjectionAtom(x.queryBit(i), set);
+    addProjectionAtom(x.queryNegativeBit(), set);
+  }
+
+  /** Auto variables are projected on the view that determines their value. */
+  private void addProjectionVariables(AutoVariable x, TreeSet<Variable> set) {
+    if (x.hasRangeView()) {
+      for (int i = x.queryMinimum() + 1; i <= x.queryMaximum(); i++) {
+        addProjectionAtom(x.queryGeqAtom(i), set);
+      }
+    }
+    else if (x.hasBinaryView()) {
+      for (int i = 0; i < x.length(); i++) addProjectionAtom(x.queryBit(i), set);
+      addProjectionAtom(x.queryNegativeBit(), set);
+    }
+  }
+
+  /**
+   * Returns the SAT variables which together determine the values of all declared variables
+   * (including all instances of parametrised ones), without the auxiliary variables that are only
+   * used to encode the requirements.  Two solutions which agree on these variables are the same
+   * as far as the user is concerned.  This should be called after the well-definedness clauses
+   * have been generated, so that the encoding of auto variables is fixed.
+   */
+  public ArrayList<Variable> queryProjection() {
+    TreeSet<Variable> set = new TreeSet<Variable>();
+    for (Variable x : _boolvars.values()) addProjectionAtom(new Atom(x, true), set);
+    for (ParamBoolVar y : _paramboolvars.values()) {
+      for (Variable x : y.queryObjects()) addProjectionAtom(new Atom(x, true), set);
+    }
+    for (RangeVariable x : _rangevars.values()) addProjectionVariables(x, set);
+    for (ParamRangeVar y : _paramrangevars.values()) {
+      for (RangeVariable x : y.queryObjects()) addProjectionVariables(x, set);
+    }
+    for (BinaryVariable x : _binaryvars.values()) addProjectionVariables(x, set);
+    for (ParamBinaryVar y : _parambinaryvars.values()) {
+      for (BinaryVariable x : y.queryObjects()) addProjectionVariables(x, set);
+    }
+    for (AutoVariable x : _autovars.values()) addProjectionVariables(x, set);
+    for (ParamAutoVar y : _paramautovars.values()) {
+      for (AutoVariable x : y.queryObjects()) addProjectionVariables(x, set);
+    }
+    return new ArrayList<Variable>(set);
+  }
+
   public Variable queryFalseVariable() {
     return _boolvars.get("FALSE");
   }
@@ -162,14 +360,64 @@ public class VariableList {
     return _boolvars.get("TRUE");
   }
 
+  /**
+   * Starts a JFR event for the well-definedness clauses of a single variable or family.  The
+   * counts are only stored when the event is enabled, so this is cheap when not recording.
+   */
+  private WelldefinednessEvent startWelldefinedness(ClauseCollection col) {
+    WelldefinednessEvent event = new WelldefinednessEvent();
+    if (event.isEnabled()) {
+      event.clauses = col.queryNumberClauses();
+      event.variables = Variable.queryNumberCreated();
+    }
+    event.begin();
+    return event;
+  }
+
+  /** Commits the given event, if it should be recorded. */
+  private void endWelldefinedness(WelldefinednessEvent event, Object family,
+                                  ClauseCollection col) {
+    if (!event.shouldCommit()) return;
+    event.family = family.toString();
+    event.clauses = col.queryNumberClauses() - event.clauses;
+    event.variables = Variable.queryNumberCreated() - event.variables;
+    event.commit();
+  }
+
   /** Adds clauses to col which necessitate that every integer variable is really an integer. */
   public void addWelldefinednessClauses(ClauseCollection col) {
     col.addClause(new Clause(new Atom(queryTrueVariable(), true)));
     col.addClause(new Clause(new Atom(queryFalseVariable(), false)));
-    for (RangeVariable x : _rangevars.values()) x.addWelldefinednessClauses(col);
-    for (ParamRangeVar y : _paramrangevars.values()) y.addWelldefinednessClauses(col);
-    for (BinaryVariable x : _binaryvars.values()) x.addWelldefinednessClauses(col);
-    for (ParamBinaryVar y : _parambinaryvars.values()) y.addWelldefinednessClauses(col);
+    for (RangeVariable x : _rangevars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      x.addWelldefinednessClauses(col);
+      endWelldefinedness(event, x, col);
+    }
+    for (ParamRangeVar y : _paramrangevars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      y.addWelldefinednessClauses(col);
+      endWelldefinedness(event, y, col);
+    }
+    for (BinaryVariable x : _binaryvars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      x.addWelldefinednessClauses(col);
+      endWelldefinedness(event, x, col);
+    }
+    for (ParamBinaryVar y : _parambinaryvars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      y.addWelldefinednessClauses(col);
+      endWelldefinedness(event, y, col);
+    }
+    for (AutoVariable x : _autovars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      x.addWelldefinednessClauses(col);
+      endWelldefinedness(event, x, col);
+    }
+    for (ParamAutoVar y : _paramautovars.values()) {
+      WelldefinednessEvent event = startWelldefinedness(col);
+      y.addWelldefinednessClauses(col);
+      endWelldefinedness(event, y, col);
+    }
   }
 
   /** This returns a human-readable presentation of the declared boolean variables. */
@@ -201,6 +449,15 @@ public class VariableList {
     return ret;
   }
 
+  /** This returns a human-readable presentation of the declared auto variables. */
+  private String printBasicAutoDeclarations() {
+    String ret = "";
+    for (AutoVariable x : _autovars.values()) {
+      ret += "declare " + x.toString() + " :: Auto ∈ " + x.queryRangeDescription() + "\n";
+    }
+    return ret;
+  }
+
   /** Helper for the two printVariableDeclaration method. */
   private String printParameterList(ParameterList lst) {
     if (lst.size() == 0) return ""; 
@@ -243,6 +500,16 @@ public class VariableList {
     return ret;
   }
 
+  /** This returns a human-readable presentation of the declared parametrised auto variables. */
+  private String printParametrisedAutoDeclarations() {
+    String ret = "";
+    for (ParamAutoVar x : _paramautovars.values()) {
+      ret += "declare " + x.toString() + " :: Auto ∈ " + x.queryRangeDescription() +
+        printParameterList(x.queryParameters()) + "\n";
+    }
+    return ret;
+  }
+
   /** This returns a human-readable presentation of the variable list. */
   public String toString() {
     String ret = printBasicBooleanVariableDeclarations() +
@@ -250,7 +517,9 @@ public class VariableList {
                  printBasicRangeDeclarations() +
                  printParametrisedRangeDeclarations() +
                  printBasicBinaryDeclarations() +
-                 printParametrisedBinaryDeclarations();
+                 printParametrisedBinaryDeclarations() +
+                 printBasicAutoDeclarations() +
+                 printParametrisedAutoDeclarations();
     return ret;
   }
 }
@@ -0,0 +1,17 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/** A JFR event recording the reading of the solver output into a Solution. */
+@Name("satlanguage.Decode")
+@Label("Decode Solution")
+@Category({"SAT Language"})
+@StackTrace(false)
+public class DecodeEvent extends Event {
+  @Label("Satisfiable")
+  public boolean satisfiable;
+
+  @Label("True Variables")
+  @Description("The number of variables that are true in the solution.")
+  public int trueVariables;
+}
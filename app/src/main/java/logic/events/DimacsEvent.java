@@ -0,0 +1,16 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/** A JFR event recording the serialization of a SAT problem in DIMACS format. */
+@Name("satlanguage.Dimacs")
+@Label("Write DIMACS")
+@Category({"SAT Language"})
+@StackTrace(false)
+public class DimacsEvent extends Event {
+  @Label("Clauses")
+  public int clauses;
+
+  @Label("Variables")
+  public int variables;
+}
@@ -0,0 +1,24 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/** A JFR event recording the translation of a single top-level requirement into clauses. */
+@Name("satlanguage.GroundRequirement")
+@Label("Ground Requirement")
+@Category({"SAT Language"})
+@StackTrace(false)
+public class GroundRequirementEvent extends Event {
+  @Label("Index")
+  public int index;
+
+  @Label("Line")
+  @Description("The line of the input file the requirement was read from, or -1 if unknown.")
+  public int line;
+
+  @Label("Clauses")
+  public int clauses;
+
+  @Label("Variables")
+  @Description("The number of fresh variables created for the requirement.")
+  public int variables;
+}
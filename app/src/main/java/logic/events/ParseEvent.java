@@ -0,0 +1,26 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event recording the parsing of a program file.
+ *
+ * The events in this package are recorded by Java Flight Recorder, for instance by running with
+ * -XX:StartFlightRecording.  Fields are only computed when an event is actually committed, so when
+ * recording is off the cost is limited to creating the (usually scalar-replaced) event object.
+ */
+@Name("satlanguage.Parse")
+@Label("Parse Program")
+@Category({"SAT Language"})
+@StackTrace(false)
+public class ParseEvent extends Event {
+  @Label("File")
+  public String file;
+
+  @Label("Requirements")
+  public int requirements;
+
+  @Label("Variables")
+  @Description("The number of variables created while parsing.")
+  public int variables;
+}
@@ -0,0 +1,28 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event recording the expansion of a single quantifier into its instances.  Nested
+ * quantifiers are expanded very often, so by default only expansions that take at least a
+ * millisecond are recorded.
+ */
+@Name("satlanguage.QuantifierExpansion")
+@Label("Quantifier Expansion")
+@Category({"SAT Language"})
+@StackTrace(false)
+@Threshold("1 ms")
+public class QuantifierExpansionEvent extends Event {
+  @Label("Parameter")
+  public String parameter;
+
+  @Label("Minimum")
+  public int minimum;
+
+  @Label("Maximum")
+  public int maximum;
+
+  @Label("Instances")
+  @Description("The number of values in the range that satisfy the restriction.")
+  public int instances;
+}
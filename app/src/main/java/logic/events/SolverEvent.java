@@ -0,0 +1,22 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/** A JFR event recording the lifetime of the external SAT solver process. */
+@Name("satlanguage.Solver")
+@Label("Run SAT Solver")
+@Category({"SAT Language"})
+@StackTrace(false)
+public class SolverEvent extends Event {
+  @Label("Solver")
+  public String solver;
+
+  @Label("Exit Code")
+  public int exitCode;
+
+  @Label("Clauses")
+  public int clauses;
+
+  @Label("Variables")
+  public int variables;
+}
@@ -0,0 +1,24 @@
+package logic.events;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event recording the well-definedness clauses of a declared variable or parametrised
+ * variable family.  There may be very many of these, so by default only the ones that take at
+ * least a millisecond are recorded.
+ */
+@Name("satlanguage.Welldefinedness")
+@Label("Well-definedness Clauses")
+@Category({"SAT Language"})
+@StackTrace(false)
+@Threshold("1 ms")
+public class WelldefinednessEvent extends Event {
+  @Label("Family")
+  public String family;
+
+  @Label("Clauses")
+  public int clauses;
+
+  @Label("Variables")
+  public int variables;
+}
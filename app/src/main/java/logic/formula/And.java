@@ -4,6 +4,7 @@ import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
 import logic.parameter.Substitution;
 import java.util.ArrayList;
 
@@ -100,6 +101,10 @@ public class And extends Formula {
     return Formula.JUNCTION;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint("∧", queryFingerprints(_parts));
+  }
+
   public String toString() {
     if (_parts.size() == 0) return "⊤";
     String ret = ""; 
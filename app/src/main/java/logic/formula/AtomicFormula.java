@@ -4,6 +4,7 @@ import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
 import logic.parameter.Substitution;
 
 /** A formula representing a single atom (a variable or negated variable). */
@@ -56,6 +57,10 @@ public class AtomicFormula extends Formula {
     return Formula.ATOM;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return Fingerprint.of(_atom);
+  }
+
   public String toString() {
     return _atom.toString();
   }
@@ -7,6 +7,8 @@ import logic.sat.ClauseCollection;
 import logic.parameter.Assignment;
 import logic.parameter.Substitution;
 import logic.number.ClosedInteger;
+import logic.number.VariableInteger;
+import logic.number.range.RangeVariable;
 import logic.number.range.RangeInteger;
 import logic.number.range.RangeComparison;
 import logic.number.binary.BinaryInteger;
@@ -32,9 +34,36 @@ public class Equals extends Formula {
     return new Equals(_left, _right, _negated);
   }
 
-  /** @return null */
+  /**
+   * @return the direct atom x = c (or its negation) if this compares a range variable that has a
+   * direct view to a constant, and null otherwise.
+   */
   public Atom queryAtom() {
-    return null;
+    if (!queryClosed()) return null;
+    Atom ret = queryDirectAtom(_left.instantiate(null), _right.instantiate(null));
+    if (ret == null || !_negated) return ret;
+    return ret.negate();
+  }
+
+  /** Returns the range variable represented by ci if this has a direct view; otherwise null. */
+  private static RangeVariable queryDirectVariable(ClosedInteger ci) {
+    if (!(ci instanceof VariableInteger) || ci.queryKind() != ClosedInteger.RANGE) return null;
+    RangeVariable x = (RangeVariable)ci.getRange();
+    return x.queryDirectView() ? x : null;
+  }
+
+  /**
+   * If one of the sides is a range variable with a direct view and the other is a constant, this
+   * returns the atom x = c; otherwise it returns null.
+   */
+  private static Atom queryDirectAtom(ClosedInteger cl, ClosedInteger cr) {
+    if (cl.queryMinimum() == cl.queryMaximum()) {
+      ClosedInteger tmp = cl; cl = cr; cr = tmp;
+    }
+    if (cr.queryMinimum() != cr.queryMaximum()) return null;
+    RangeVariable x = queryDirectVariable(cl);
+    if (x == null) return null;
+    return x.queryEqAtom(cr.queryMinimum());
   }
 
   /** Instantiates the current conjunction with an assignment. */
@@ -51,11 +80,25 @@ public class Equals extends Formula {
     }
     ClosedInteger cl = _left.instantiate(null);
     ClosedInteger cr = _right.instantiate(null);
+    Atom direct = queryDirectAtom(cl, cr);
+    if (direct != null) {
+      cl.getRange().addWelldefinednessClauses(col);
+      cr.getRange().addWelldefinednessClauses(col);
+      ArrayList<Clause> ret = new ArrayList<Clause>();
+      ret.add(new Clause(neg ? direct.negate() : direct));
+      return ret;
+    }
     if (cl.queryKind() != cr.queryKind() && cl.queryKind() != ClosedInteger.BOTH &&
         cr.queryKind() != ClosedInteger.BOTH) {
       throw new Error("Required to compare binary and range integer: " + toString());
     }
-    if (cl.queryKind() == ClosedInteger.BINARY || cr.queryKind() == ClosedInteger.BINARY) {
+    // if both sides can be encoded either way, we follow the preference of any auto variables
+    boolean binary = cl.queryKind() == ClosedInteger.BINARY ||
+                     cr.queryKind() == ClosedInteger.BINARY ||
+                     (cl.queryKind() == ClosedInteger.BOTH && cr.queryKind() == ClosedInteger.BOTH &&
+                      (cl.queryPreferredKind() == ClosedInteger.BINARY ||
+                       cr.queryPreferredKind() == ClosedInteger.BINARY));
+    if (binary) {
       BinaryInteger l = cl.getBinary();
       BinaryInteger r = cr.getBinary();
       l.addWelldefinednessClauses(col);
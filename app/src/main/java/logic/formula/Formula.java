@@ -4,6 +4,8 @@ import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
 import logic.parameter.Assignment;
 import logic.parameter.Substitution;
 
@@ -15,7 +17,7 @@ import java.util.TreeSet;
  * Formulas may use parameters (in particular as part of parametrised variables), and can handle
  * instantiation or substitution of those parameters.
  */
-public abstract class Formula {
+public abstract class Formula implements VariableSource {
   static final int ATOM        = 0;
   static final int JUNCTION    = 1;
   static final int IMPLICATION = 2;
@@ -27,6 +29,9 @@ public abstract class Formula {
    */
   protected TreeSet<String> _usedParameters;
 
+  /** The fingerprint of the formula, which is only computed when it is first asked for. */
+  private Fingerprint _fingerprint;
+
   /**
    * Initialises _usedParameters and makes them contain the parameters of all children.
    * The children will not be modified.
@@ -99,23 +104,61 @@ public abstract class Formula {
    * represents the given formula, and adds the requirements that it's equivalent.
    * Note: we assume here that variables of the form ⟦φ⟧ are ONLY created by this function, and
    * therefore the existence of such a formula implies that col *already contains* a set of clauses
-   * exactly describing that ⟦φ⟧ <-> φ.  We also assume that the string representation of a formula
-   * uniquely describes that formula.
+   * exactly describing that ⟦φ⟧ <-> φ.  The variable is identified by the fingerprint of the
+   * formula, so structurally equal formulas share it.
    */
   protected Atom queryAtomFor(Formula formula, ClauseCollection col) {
     Atom ret = formula.queryAtom();
     if (ret != null) return ret;
 
-    String varname = "⟦" + formula.toString() + "⟧";
-    boolean exists = col.isInMemory(varname);
-    ret = new Atom(new Variable(varname), true);
+    boolean exists = col.isInMemory(formula, 0);
+    ret = new Atom(Variable.auxiliary(formula, 0), true);
     if (!exists) {
       formula.addClausesDef(ret, col);
-      col.addToMemory(varname);
+      col.addToMemory(formula, 0);
     }
     return ret;
   }
 
+  /**
+   * Returns an Atom that is equivalent to the present formula, adding the clauses that define it
+   * to col if they are not there yet (see queryAtomFor).
+   */
+  public Atom reify(ClauseCollection col) {
+    return queryAtomFor(this, col);
+  }
+
+  /** Returns the name ⟦φ⟧ of the variable which represents this formula φ. */
+  public String queryVariableName(int index) {
+    return "⟦" + toString() + "⟧";
+  }
+
+  /**
+   * Returns a fingerprint which identifies the formula structurally; formulas with the same
+   * fingerprint are represented by the same variable ⟦φ⟧.  It is computed only once.
+   */
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) _fingerprint = computeFingerprint();
+    return _fingerprint;
+  }
+
+  /**
+   * Computes the fingerprint of the formula.  By default this is the fingerprint of its string
+   * representation, which suits formulas without subformulas; formulas with subformulas should
+   * combine the fingerprints of their parts instead, so the descriptions of the subformulas are
+   * not built over and over again.
+   */
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint(toString());
+  }
+
+  /** Returns the fingerprints of the given formulas. */
+  protected static Fingerprint[] queryFingerprints(ArrayList<Formula> formulas) {
+    Fingerprint[] ret = new Fingerprint[formulas.size()];
+    for (int i = 0; i < formulas.size(); i++) ret[i] = formulas.get(i).queryFingerprint();
+    return ret;
+  }
+
   /**
    * This adds a set of clauses φ to prob such that, if x1...xn are the variables that occur in φ
    * but not in the present formula: this ↔ ∃x1...xn [∧φ].
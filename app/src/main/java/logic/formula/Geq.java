@@ -58,7 +58,13 @@ public class Geq extends Formula {
         cr.queryKind() != ClosedInteger.BOTH) {
       throw new Error("Required to compare binary and range integer: " + toString());
     }   
-    if (cl.queryKind() == ClosedInteger.BINARY || cr.queryKind() == ClosedInteger.BINARY) {
+    // if both sides can be encoded either way, we follow the preference of any auto variables
+    boolean binary = cl.queryKind() == ClosedInteger.BINARY ||
+                     cr.queryKind() == ClosedInteger.BINARY ||
+                     (cl.queryKind() == ClosedInteger.BOTH && cr.queryKind() == ClosedInteger.BOTH &&
+                      (cl.queryPreferredKind() == ClosedInteger.BINARY ||
+                       cr.queryPreferredKind() == ClosedInteger.BINARY));
+    if (binary) {
       BinaryInteger l = cl.getBinary();
       BinaryInteger r = cr.getBinary();
       l.addWelldefinednessClauses(col);
@@ -4,6 +4,7 @@ import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
 import logic.parameter.Substitution;
 
 /** IfThenElse is a formula that means "a → b ∧ ¬a → c, where a, b and c are all formulas. */
@@ -65,6 +66,11 @@ public class IfThenElse extends Formula {
     return Formula.ATOM;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint("ite", _condition.queryFingerprint(), _thenform.queryFingerprint(),
+                           _elseform.queryFingerprint());
+  }
+
   public String toString() {
     String c = _condition.toString();
     String t = _thenform.toString();
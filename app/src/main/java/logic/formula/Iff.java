@@ -3,6 +3,7 @@ package logic.formula;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
 import logic.parameter.Substitution;
 
 /** Iff is a formula of the shape a <--> b, where both a and b are also formulas. */
@@ -61,6 +62,10 @@ public class Iff extends Formula {
     return Formula.IMPLICATION;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint("↔", _left.queryFingerprint(), _right.queryFingerprint());
+  }
+
   public String toString() {
     String l = _left.toString();
     String r = _right.toString();
@@ -1,6 +1,7 @@
 package logic.formula;
 
 import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
 import logic.parameter.Substitution;
 import java.util.ArrayList;
 
@@ -40,6 +41,10 @@ public class Implication extends SugarFormula {
     return Formula.IMPLICATION;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint("→", _left.queryFingerprint(), _right.queryFingerprint());
+  }
+
   public String toString() {
     String l = _left.toString();
     String r = _right.toString();
@@ -0,0 +1,43 @@
+package logic.formula;
+
+import logic.parameter.Parameter;
+
+/**
+ * A Parity formula is a bounded quantification that is syntactic sugar for an exclusive or.  It
+ * has the form ⊻ i ∈ {lower..upper} with cond. formula, and holds if the formula holds for an odd
+ * number of values of i.  Its negation holds if the formula holds for an even number of them.
+ */
+public class Parity extends QuantifierFormula {
+  private boolean _odd;
+
+  /** Creates the formula ⊻ param.formula, or its negation if odd is false. */
+  public Parity(Parameter param, Formula formula, boolean odd) {
+    super(param, formula);
+    _odd = odd;
+  }
+
+  /** Creates the formula ⊻ param.formula. */
+  public Parity(Parameter param, Formula formula) {
+    this(param, formula, true);
+  }
+
+  /** Required by the Quantifier inherit: calls the constructor. */
+  protected Parity create(Parameter param, Formula formula) {
+    return new Parity(param, formula, _odd);
+  }
+
+  /** Required by the Quantifier inherit: returns the name of the quantifier. */
+  protected String queryQuantifierName() {
+    return _odd ? "⊻" : "¬⊻";
+  }
+
+  /** Returns the negation of this formula, which requires the opposite parity. */
+  public Formula negate() {
+    return new Parity(_param, _formula, !_odd);
+  }
+
+  /** Translates the Parity into the corresponding exclusive or, provided that we are closed. */
+  public Formula translate() {
+    return new Xor(enumerateParts(), _odd);
+  }
+}
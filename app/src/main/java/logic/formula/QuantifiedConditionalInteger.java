@@ -54,7 +54,7 @@ public class QuantifiedConditionalInteger implements QuantifiedInteger {
     // don't change them afterwards
     Formula cond = ass == null ? _condition : _condition.instantiate(ass);
     Atom conditionAtom = cond.queryAtom() != null ? null :
-                            new Atom(new Variable("⟦" + cond.toString() + "⟧"), true);
+                            new Atom(Variable.auxiliary(cond, 0), true);
 
     ClosedInteger val = _value.instantiate(ass);
     if (!cond.queryClosed()) {
@@ -64,8 +64,8 @@ public class QuantifiedConditionalInteger implements QuantifiedInteger {
     if (conditionAtom == null) return new ConditionalInteger(cond.queryAtom(), val, _truth, null);
     ClauseAdder adder = new ClauseAdder() {
       public void add(ClauseCollection col) {
-        if (col.isInMemory(cond.toString())) return;
-        col.addToMemory(_condition.toString());
+        if (col.isInMemory(cond, 0)) return;
+        col.addToMemory(cond, 0);
         cond.addClausesDef(conditionAtom, col);
       }
     };
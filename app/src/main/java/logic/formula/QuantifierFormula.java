@@ -1,10 +1,12 @@
 package logic.formula;
 
+import logic.sat.Fingerprint;
 import logic.parameter.Parameter;
 import logic.parameter.Assignment;
 import logic.parameter.Substitution;
 import logic.parameter.PExpression;
 import logic.parameter.PConstraint;
+import logic.events.QuantifierExpansionEvent;
 import java.util.ArrayList;
 
 /**
@@ -43,6 +45,8 @@ public abstract class QuantifierFormula extends SugarFormula {
       throw new Error("Cannot enumerate parts of a bounded quantifier if it is not closed: " +
         toString());
     }
+    QuantifierExpansionEvent event = new QuantifierExpansionEvent();
+    event.begin();
     ArrayList<Formula> parts = new ArrayList<Formula>();
     int min = _param.queryMinimum().evaluate(null);
     int max = _param.queryMaximum().evaluate(null);
@@ -52,6 +56,13 @@ public abstract class QuantifierFormula extends SugarFormula {
         parts.add(_formula.instantiate(ass));
       }
     }
+    if (event.shouldCommit()) {
+      event.parameter = _param.queryName();
+      event.minimum = min;
+      event.maximum = max;
+      event.instances = parts.size();
+      event.commit();
+    }
     return parts;
   }
 
@@ -87,6 +98,11 @@ public abstract class QuantifierFormula extends SugarFormula {
     return Formula.OTHER;
   }
 
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint(queryQuantifierName() + " " + _param.toString(),
+                           _formula.queryFingerprint());
+  }
+
   /** Prints the quantifier formula, using the quantifier name. */
   public String toString() {
     return queryQuantifierName() + " " + _param.toString() + ". " + _formula.toString();
@@ -0,0 +1,145 @@
+package logic.formula;
+
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseCollection;
+import logic.sat.Fingerprint;
+import logic.parameter.Substitution;
+import java.util.ArrayList;
+
+/**
+ * Xor is a formula of the shape a1 ⊻ ... ⊻ an, which holds if an odd number of the parts hold (or
+ * its negation, which holds if an even number of them do).
+ *
+ * Stating the parity of k atoms directly takes 2^(k-1) clauses, so longer parity constraints are
+ * split up: the first CHUNK parts are replaced by an atom for their parity, until at most CHUNK
+ * parts are left.  All the resulting parity constraints are then over CHUNK+1 atoms at most, which
+ * is also the shape that the XorPreprocessor recovers from the clauses.
+ */
+public class Xor extends Formula {
+  private static final int CHUNK = 3;
+
+  private ArrayList<Formula> _parts;
+  private boolean _odd;
+
+  /** Helper for the constructor: adds a formula to parts, and flattens Xor parts. */
+  private void addPart(Formula part) {
+    if (!(part instanceof Xor)) {
+      _parts.add(part);
+      return;
+    }
+    _parts.addAll( ((Xor)part)._parts );
+    if (!((Xor)part)._odd) _odd = !_odd;
+  }
+
+  /**
+   * Creates the formula which holds if an odd number of the parts holds if odd is true, or an even
+   * number if odd is false.
+   */
+  public Xor(ArrayList<Formula> parts, boolean odd) {
+    super(parts);
+    _parts = new ArrayList<Formula>();
+    _odd = odd;
+    for (int i = 0; i < parts.size(); i++) addPart(parts.get(i));
+  }
+
+  public Xor(ArrayList<Formula> parts) {
+    this(parts, true);
+  }
+
+  public Xor(Formula first, Formula second) {
+    super(first, second);
+    _parts = new ArrayList<Formula>();
+    _odd = true;
+    addPart(first);
+    addPart(second);
+  }
+
+  /** Returns the negation of this formula, which requires the opposite parity. */
+  public Formula negate() {
+    return new Xor(_parts, !_odd);
+  }
+
+  /** @return null because this is not an AtomicFormula, unless it is a single positive part */
+  public Atom queryAtom() {
+    if (_parts.size() == 1 && _odd) return _parts.get(0).queryAtom();
+    return null;
+  }
+
+  /** Instantiates the current formula with a substitution. */
+  public Formula substitute(Substitution subst) {
+    ArrayList<Formula> parts = new ArrayList<Formula>();
+    for (int i = 0; i < _parts.size(); i++) parts.add(_parts.get(i).substitute(subst));
+    return new Xor(parts, _odd);
+  }
+
+  /**
+   * Returns atoms for the parts, with the first parts replaced by atoms for their parity until at
+   * most CHUNK atoms remain.  The parity of the returned atoms is the parity of the parts.
+   */
+  private ArrayList<Atom> queryChunkedAtoms(ClauseCollection col) {
+    ArrayList<Atom> atoms = new ArrayList<Atom>();
+    for (int i = 0; i < _parts.size(); i++) atoms.add(queryAtomFor(_parts.get(i), col));
+    while (atoms.size() > CHUNK) {
+      ArrayList<Formula> chunk = new ArrayList<Formula>();
+      for (int i = 0; i < CHUNK; i++) chunk.add(new AtomicFormula(atoms.get(i)));
+      ArrayList<Atom> rest = new ArrayList<Atom>();
+      rest.add(queryAtomFor(new Xor(chunk), col));
+      rest.addAll(atoms.subList(CHUNK, atoms.size()));
+      atoms = rest;
+    }
+    return atoms;
+  }
+
+  /**
+   * Adds the clauses which state that an odd (or even) number of the given atoms holds, unless
+   * the guard holds.  Each clause excludes one assignment of the wrong parity.  The guard may be
+   * null.
+   */
+  private static void addParityClauses(ArrayList<Atom> atoms, boolean odd, Atom guard,
+                                       ClauseCollection col) {
+    for (int mask = 0; mask < (1 << atoms.size()); mask++) {
+      if ((Integer.bitCount(mask) % 2 == 1) == odd) continue;
+      ArrayList<Atom> parts = new ArrayList<Atom>();
+      if (guard != null) parts.add(guard);
+      for (int i = 0; i < atoms.size(); i++) {
+        parts.add((mask & (1 << i)) != 0 ? atoms.get(i).negate() : atoms.get(i));
+      }
+      col.addClause(new Clause(parts));
+    }
+  }
+
+  public void addClauses(ClauseCollection col) {
+    addParityClauses(queryChunkedAtoms(col), _odd, null, col);
+  }
+
+  /** Adds clauses for a → this. */
+  public void addClausesIfThisIsImpliedBy(Atom a, ClauseCollection col) {
+    addParityClauses(queryChunkedAtoms(col), _odd, a.negate(), col);
+  }
+
+  /** Adds clauses for this → a, so ¬a → ¬this. */
+  public void addClausesIfThisImplies(Atom a, ClauseCollection col) {
+    addParityClauses(queryChunkedAtoms(col), !_odd, a, col);
+  }
+
+  public int queryAssocLevel() {
+    return Formula.JUNCTION;
+  }
+
+  protected Fingerprint computeFingerprint() {
+    return new Fingerprint(_odd ? "⊻" : "¬⊻", queryFingerprints(_parts));
+  }
+
+  public String toString() {
+    if (_parts.size() == 0) return _odd ? "⊥" : "⊤";
+    String ret = "";
+    for (int i = 0; i < _parts.size(); i++) {
+      if (i > 0) ret += " ⊻ ";
+      if (_parts.get(i).queryAssocLevel() < queryAssocLevel()) ret += _parts.get(i).toString();
+      else ret += "(" + _parts.get(i).toString() + ")";
+    }
+    if (_odd) return ret;
+    return "¬(" + ret + ")";
+  }
+}
@@ -21,6 +21,13 @@ public interface ClosedInteger {
   /** returns the kind of integer: range, binary or both */
   public int queryKind();
 
+  /**
+   * Returns the encoding that is expected to be most efficient for this integer: for integers of
+   * kind RANGE or BINARY this is just the kind, while for integers of kind BOTH it is RANGE or
+   * BINARY if the integer contains auto variables, and BOTH if it really does not matter.
+   */
+  public int queryPreferredKind();
+
   /** if the kind is RANGE or BOTH, this returns the corresponding range integer; otherwise null */
   public RangeInteger getRange();
 
@@ -30,6 +30,10 @@ public class ConditionalInteger implements ClosedInteger {
     return _value.queryKind();
   }
 
+  public int queryPreferredKind() {
+    return _value.queryPreferredKind();
+  }
+
   public RangeConditional getRange() {
     if (_value.queryKind() == ClosedInteger.BINARY) return null;
     return new RangeConditional(_condition, _value.getRange(), _truth, _adder);
@@ -25,6 +25,10 @@ public class ConstantInteger implements ClosedInteger {
     return ClosedInteger.BOTH;
   }
 
+  public int queryPreferredKind() {
+    return ClosedInteger.BOTH;
+  }
+
   public RangeConstant getRange() {
     return new RangeConstant(_value, _truth);
   }
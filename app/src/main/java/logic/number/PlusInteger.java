@@ -44,6 +44,18 @@ public class PlusInteger implements ClosedInteger {
     return _kind;
   }
 
+  /**
+   * If this is a sum of kind BOTH, then binary is preferred if either side prefers binary, since
+   * adding binary integers is much cheaper than adding range integers.
+   */
+  public int queryPreferredKind() {
+    if (_kind != ClosedInteger.BOTH) return _kind;
+    int l = _left.queryPreferredKind(), r = _right.queryPreferredKind();
+    if (l == ClosedInteger.BINARY || r == ClosedInteger.BINARY) return ClosedInteger.BINARY;
+    if (l == ClosedInteger.RANGE || r == ClosedInteger.RANGE) return ClosedInteger.RANGE;
+    return ClosedInteger.BOTH;
+  }
+
   public RangeInteger getRange() {
     if (_kind == ClosedInteger.BINARY) return null;
     if (_left.queryMinimum() == _left.queryMaximum()) {
@@ -10,25 +10,31 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.ParamAutoVar;
 import java.util.ArrayList;
 import java.util.TreeSet;
 
 /**
- * A quantified variable is the combination of either a ParamRangeVar or a ParamBinaryVar with a
- * substitution on its parameters.  When the parameters are all instantiated, this can be evaluated
+ * A quantified variable is the combination of either a ParamRangeVar, a ParamBinaryVar or a
+ * ParamAutoVar with a substitution on its parameters.  When the parameters are all instantiated, this can be evaluated
  * to a VariableInteger.
  */
 public class QuantifiedVariable implements QuantifiedInteger {
   private ParamRangeVar _rvar;
   private ParamBinaryVar _bvar;
+  private ParamAutoVar _avar;
   private ParameterList _parameters;
   private Substitution _substitution;
 
-  private QuantifiedVariable(ParamRangeVar r, ParamBinaryVar b, Substitution subst) {
+  private QuantifiedVariable(ParamRangeVar r, ParamBinaryVar b, ParamAutoVar a,
+                             Substitution subst) {
     _rvar = r;
     _bvar = b;
+    _avar = a;
     if (_rvar != null) _parameters = _rvar.queryParameters();
-    else _parameters = _bvar.queryParameters();
+    else if (_bvar != null) _parameters = _bvar.queryParameters();
+    else _parameters = _avar.queryParameters();
     _substitution = subst;
   }
 
@@ -46,6 +52,12 @@ public class QuantifiedVariable implements QuantifiedInteger {
     _parameters = x.queryParameters();
   }
 
+  public QuantifiedVariable(ParamAutoVar x, Substitution subst) {
+    _avar = x;
+    _substitution = subst;
+    _parameters = x.queryParameters();
+  }
+
   private void buildSubstitution(String name, ArrayList<PExpression> args) {
     if (_parameters.size() != args.size()) {
       throw new Error("QuantifiedVariable " + name + " created with args of size " +
@@ -71,6 +83,12 @@ public class QuantifiedVariable implements QuantifiedInteger {
     buildSubstitution(x.toString(), args);
   }
 
+  public QuantifiedVariable(ParamAutoVar x, ArrayList<PExpression> args) {
+    _avar = x;
+    _parameters = x.queryParameters();
+    buildSubstitution(x.toString(), args);
+  }
+
   public TreeSet<String> queryParameters() {
     TreeSet<String> ret = new TreeSet<String>();
     for (int i = 0; i < _parameters.size(); i++) {
@@ -88,7 +106,8 @@ public class QuantifiedVariable implements QuantifiedInteger {
 
   public int queryKind() {
     if (_rvar != null) return ClosedInteger.RANGE;
-    else return ClosedInteger.BINARY;
+    else if (_bvar != null) return ClosedInteger.BINARY;
+    else return ClosedInteger.BOTH;
   }
 
   public QuantifiedVariable substitute(Substitution subst) {
@@ -100,7 +119,7 @@ public class QuantifiedVariable implements QuantifiedInteger {
       p = p.substitute(subst);
       newsubst.put(name, p);
     }
-    return new QuantifiedVariable(_rvar, _bvar, newsubst);
+    return new QuantifiedVariable(_rvar, _bvar, _avar, newsubst);
   }
 
   public VariableInteger instantiate(Assignment ass) {
@@ -112,10 +131,20 @@ public class QuantifiedVariable implements QuantifiedInteger {
       newass.put(name, p.evaluate(ass));
     }
     if (_rvar != null) return new VariableInteger(_rvar.queryVar(newass));
-    else return new VariableInteger(_bvar.queryVar(newass));
+    else if (_bvar != null) return new VariableInteger(_bvar.queryVar(newass));
+    else return new VariableInteger(_avar.queryVar(newass));
+  }
+
+  /**
+   * If this is a range variable, this enables the direct view on all its instances, so that
+   * equalities with constants are represented by a single atom.
+   */
+  public void enableDirectView() {
+    if (_rvar != null) _rvar.enableDirectView();
   }
 
   public String toString() {
+    if (_avar != null) return _avar.toString(_substitution);
     return _rvar == null ? _bvar.toString(_substitution) : _rvar.toString(_substitution);
   }
 }
@@ -2,22 +2,34 @@ package logic.number;
 
 import logic.parameter.Assignment;
 import logic.parameter.Substitution;
+import logic.number.range.RangeInteger;
 import logic.number.range.RangeVariable;
+import logic.number.binary.BinaryInteger;
 import logic.number.binary.BinaryVariable;
+import logic.number.auto.AutoVariable;
 import java.util.TreeSet;
 
 public class VariableInteger implements ClosedInteger, QuantifiedInteger {
   private RangeVariable _r;
   private BinaryVariable _b;
+  private AutoVariable _a;
 
   public VariableInteger(RangeVariable ri) {
     _r = ri;
     _b = null;
+    _a = null;
   }
 
   public VariableInteger(BinaryVariable bi) {
     _r = null;
     _b = bi;
+    _a = null;
+  }
+
+  public VariableInteger(AutoVariable ai) {
+    _r = null;
+    _b = null;
+    _a = ai;
   }
 
   public TreeSet<String> queryParameters() {
@@ -37,27 +49,45 @@ public class VariableInteger implements ClosedInteger, QuantifiedInteger {
   }
 
   public int queryMinimum() {
+    if (_a != null) return _a.queryMinimum();
     return _r == null ? _b.queryMinimum() : _r.queryMinimum();
   }
 
   public int queryMaximum() {
+    if (_a != null) return _a.queryMaximum();
     return _r == null ? _b.queryMaximum() : _r.queryMaximum();
   }
 
   public int queryKind() {
+    if (_a != null) return ClosedInteger.BOTH;
     return _r == null ? ClosedInteger.BINARY : ClosedInteger.RANGE;
   }
 
-  public RangeVariable getRange() {
+  public int queryPreferredKind() {
+    if (_a != null) return _a.queryPreferredKind();
+    return queryKind();
+  }
+
+  public RangeInteger getRange() {
+    if (_a != null) return _a;
     return _r;
   }
 
-  public BinaryVariable getBinary() {
+  public BinaryInteger getBinary() {
+    if (_a != null) return _a;
     return _b;
   }
 
+  /**
+   * If this wraps a range variable, this enables its direct view, so that equalities with
+   * constants are represented by a single atom.
+   */
+  public void enableDirectView() {
+    if (_r != null) _r.enableDirectView();
+  }
+
   public String toString() {
+    if (_a != null) return _a.toString();
     return _r == null ? _b.toString() : _r.toString();
   }
 }
-
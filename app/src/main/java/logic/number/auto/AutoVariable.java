@@ -0,0 +1,215 @@
+package logic.number.auto;
+
+import logic.sat.*;
+import logic.parameter.Parameter;
+import logic.parameter.Assignment;
+import logic.number.ClosedInteger;
+import logic.number.range.RangeInteger;
+import logic.number.range.RangeVariable;
+import logic.number.binary.BinaryInteger;
+import logic.number.binary.BinaryVariable;
+import logic.number.binary.BinaryConstant;
+import logic.number.binary.BinaryComparison;
+
+import java.util.ArrayList;
+
+/**
+ * An AutoVariable is an integer variable for which the user has not chosen an encoding.  It can
+ * act both as a range integer (order encoding) and as a binary integer; the underlying
+ * RangeVariable and BinaryVariable are only created when they are first needed.  If both views
+ * end up being used, channeling clauses are added to guarantee that they represent the same
+ * value.
+ *
+ * Which encoding is preferred (for instance when comparing two auto variables) is determined by
+ * the EncodingChoice, based on the domain size and on how the variable is used in the program.
+ * This choice is made once -- at the time it is first needed -- and then stays fixed.
+ */
+public class AutoVariable implements RangeInteger, BinaryInteger {
+  private String _name;
+  private int _minimum;
+  private int _maximum;
+  private Parameter _range;
+  private Atom _truth;
+  private EncodingChoice _choice;
+  private int _preferred;
+  private RangeVariable _rvar;
+  private BinaryVariable _bvar;
+  private String _rangeDesc;
+
+  public AutoVariable(Parameter range, Atom truth, EncodingChoice choice) {
+    _name = range.queryName();
+    _range = range;
+    _truth = truth;
+    _choice = choice;
+    _preferred = -1;
+    _rvar = null;
+    _bvar = null;
+    _minimum = range.queryMinimum().evaluate(null);
+    _maximum = range.queryMaximum().evaluate(null);
+
+    // find true minimum and maximum
+    Assignment ass = new Assignment();
+    for (; _maximum >= _minimum; _maximum--) {
+      ass.put(_name, _maximum);
+      if (range.queryRestriction().evaluate(ass)) break;
+    }
+    for (; _minimum <= _maximum; _minimum++) {
+      ass.put(_name, _minimum);
+      if (range.queryRestriction().evaluate(ass)) break;
+    }
+    if (_minimum > _maximum) {
+      throw new Error("Trying to declare auto integer variable " + _name + " with empty range.");
+    }
+
+    _rangeDesc = "{" + _minimum + ".." + _maximum + "}";
+    if (!range.queryRestriction().isTop()) _rangeDesc += " with " + range.queryRestriction();
+  }
+
+  public AutoVariable(String name, int minimum, int maximum, Atom truth, EncodingChoice choice) {
+    this(new Parameter(name, minimum, maximum), truth, choice);
+  }
+
+  public int queryMinimum() {
+    return _minimum;
+  }
+
+  public int queryMaximum() {
+    return _maximum;
+  }
+
+  /** Returns true if the range of this variable has holes in it (so was declared using "with"). */
+  private boolean isRestricted() {
+    return !_range.queryRestriction().isTop();
+  }
+
+  /**
+   * Returns ClosedInteger.RANGE or ClosedInteger.BINARY, depending on which encoding is expected
+   * to be cheaper for this variable.  Restricted ranges are naturally expressed in the order
+   * encoding, so for those we always prefer RANGE.
+   */
+  public int queryPreferredKind() {
+    if (_preferred == -1) {
+      if (isRestricted()) _preferred = ClosedInteger.RANGE;
+      else _preferred = _choice.choose(_minimum, _maximum);
+    }
+    return _preferred;
+  }
+
+  /** Returns the usage statistics on which the encoding choice is based. */
+  public EncodingChoice queryEncodingChoice() {
+    return _choice;
+  }
+
+  /** Returns whether the order encoding of this variable has been used. */
+  public boolean hasRangeView() {
+    return _rvar != null;
+  }
+
+  /** Returns whether the binary encoding of this variable has been used. */
+  public boolean hasBinaryView() {
+    return _bvar != null;
+  }
+
+  private RangeVariable getRangeView() {
+    if (_rvar == null) _rvar = new RangeVariable(_range, _truth);
+    return _rvar;
+  }
+
+  /**
+   * Returns the binary view.  If the range is restricted, the range view is created as well: the
+   * channeling clauses then take care of the restriction.
+   */
+  private BinaryVariable getBinaryView() {
+    if (_bvar == null) {
+      _bvar = new BinaryVariable(_name, _minimum, _maximum, _truth);
+      if (isRestricted()) getRangeView();
+    }
+    return _bvar;
+  }
+
+  /**
+   * Makes sure the order encoding of this variable is used, as it would be by a call to
+   * queryGeqAtom.  This is used when clauses using the view are loaded rather than generated.
+   */
+  public void enableRangeView() {
+    getRangeView();
+  }
+
+  /**
+   * Makes sure the binary encoding of this variable is used, as it would be by a call to
+   * queryBit.  This is used when clauses using the view are loaded rather than generated.
+   */
+  public void enableBinaryView() {
+    getBinaryView();
+  }
+
+  public RangeInteger setPracticalBounds(int newmin, int newmax) {
+    return this;
+  }
+
+  public Atom queryGeqAtom(int i) {
+    return getRangeView().queryGeqAtom(i);
+  }
+
+  public int length() {
+    return getBinaryView().length();
+  }
+
+  public Atom queryBit(int i) {
+    return getBinaryView().queryBit(i);
+  }
+
+  public Atom queryNegativeBit() {
+    return getBinaryView().queryNegativeBit();
+  }
+
+  /**
+   * Adds the well-definedness clauses for all views that are in use.  If neither is in use yet,
+   * the preferred view is created, so the variable always has a value.  If both are in use, we
+   * also add clauses x ≥ i ↔ bin(x) ≥ i for all relevant i.
+   */
+  public void addWelldefinednessClauses(ClauseCollection col) {
+    if (_rvar == null && _bvar == null) {
+      if (queryPreferredKind() == ClosedInteger.RANGE) getRangeView();
+      else getBinaryView();
+    }
+    if (_rvar != null) _rvar.addWelldefinednessClauses(col);
+    if (_bvar != null) _bvar.addWelldefinednessClauses(col);
+    if (_rvar != null && _bvar != null) addChannelingClauses(col);
+  }
+
+  private void addChannelingClauses(ClauseCollection col) {
+    if (col.isInMemory("autovar " + _name)) return;
+    col.addToMemory("autovar " + _name);
+    for (int i = _minimum + 1; i <= _maximum; i++) {
+      Atom geq = _rvar.queryGeqAtom(i);
+      BinaryConstant c = new BinaryConstant(i, _truth);
+      ArrayList<Clause> clauses = BinaryComparison.generateGeqClauses(_bvar, c);
+      for (int j = 0; j < clauses.size(); j++) {
+        col.addClause(new Clause(geq.negate(), clauses.get(j)));
+      }
+      clauses = BinaryComparison.generateSmallerClauses(_bvar, c);
+      for (int j = 0; j < clauses.size(); j++) col.addClause(new Clause(geq, clauses.get(j)));
+    }
+  }
+
+  /**
+   * Returns the value of the current integer variable under the given solution.
+   * The solution is assumed to satisfy the well-definedness clauses.
+   */
+  public int getValue(Solution solution) {
+    if (_rvar != null) return _rvar.getValue(solution);
+    if (_bvar != null) return _bvar.getValue(solution);
+    return _minimum;
+  }
+
+  /** Returns a string representation of the range this variable occupies. */
+  public String queryRangeDescription() {
+    return _rangeDesc;
+  }
+
+  /** Returns the name of the variable. */
+  public String toString() {
+    return _name;
+  }
+}
@@ -0,0 +1,90 @@
+package logic.number.auto;
+
+import logic.number.ClosedInteger;
+
+/**
+ * An EncodingChoice keeps track of how an auto-encoded integer variable (or a family of them, in
+ * the case of a parametrised variable) is used in the program: in how many comparisons,
+ * equalities and sums it occurs.  Based on these statistics and the size of a variable's domain,
+ * it estimates the number of clauses that either encoding would need, and chooses the cheaper one.
+ *
+ * Usage is counted per syntactic occurrence, so a comparison inside a quantifier counts once,
+ * regardless of how many instances it has.  This is fine since all variables in a family share
+ * the same statistics, so only the relative weights matter.
+ */
+public class EncodingChoice {
+  private int _constantComparisons;
+  private int _comparisons;
+  private int _constantEqualities;
+  private int _equalities;
+  private int _sums;
+
+  public EncodingChoice() {
+    _constantComparisons = 0;
+    _comparisons = 0;
+    _constantEqualities = 0;
+    _equalities = 0;
+    _sums = 0;
+  }
+
+  /** Registers that the variable occurs in a comparison x ≥ y, x < y, etc. */
+  public void recordComparison(boolean withConstant) {
+    if (withConstant) _constantComparisons++;
+    else _comparisons++;
+  }
+
+  /** Registers that the variable occurs in an equality x = y or x ≠ y. */
+  public void recordEquality(boolean withConstant) {
+    if (withConstant) _constantEqualities++;
+    else _equalities++;
+  }
+
+  /** Registers that the variable occurs in an addition. */
+  public void recordSum() {
+    _sums++;
+  }
+
+  /** The number of bits a binary integer between min and max needs (including the sign bit). */
+  private static long queryBits(int min, int max) {
+    long bits = 0;
+    for (long k = 1; k <= max || -k > min; k *= 2) bits++;
+    if (min < 0 && max >= 0) bits++;
+    return bits;
+  }
+
+  /**
+   * Estimates the number of clauses the order encoding will cost.  Comparing with a constant is a
+   * single literal, a comparison or equality between two variables is linear in the domain size,
+   * and an addition is quadratic.
+   */
+  public long queryRangeCost(int min, int max) {
+    long n = (long)max - min + 1;
+    return n + _constantComparisons + 2 * _constantEqualities + _comparisons * n +
+           2 * _equalities * n + _sums * n * n;
+  }
+
+  /**
+   * Estimates the number of clauses the binary encoding will cost.  Every use is linear in the
+   * number of bits; additions need a full adder for each bit.
+   */
+  public long queryBinaryCost(int min, int max) {
+    long b = queryBits(min, max);
+    return 2 * b + 3 * b * (_constantComparisons + _comparisons) +
+           2 * b * (_constantEqualities + _equalities) + 14 * b * _sums;
+  }
+
+  /**
+   * Returns ClosedInteger.RANGE if the order encoding is expected to be at most as expensive as
+   * the binary encoding for a variable with the given bounds, and ClosedInteger.BINARY otherwise.
+   */
+  public int choose(int min, int max) {
+    if (queryRangeCost(min, max) <= queryBinaryCost(min, max)) return ClosedInteger.RANGE;
+    return ClosedInteger.BINARY;
+  }
+
+  public String toString() {
+    return "comparisons: " + _comparisons + " (+" + _constantComparisons + " with constants), " +
+           "equalities: " + _equalities + " (+" + _constantEqualities + " with constants), " +
+           "sums: " + _sums;
+  }
+}
@@ -0,0 +1,97 @@
+package logic.number.auto;
+
+import logic.sat.Atom;
+import logic.sat.ClauseCollection;
+import logic.parameter.*;
+
+/**
+ * A ParamAutoVar -- or Parametrised Auto IntegerVariable -- is a set of AutoVariables, indexed
+ * with one or more named integers parameters which are allowed to occupy a fixed range.  All
+ * variables in the set share the same usage statistics.
+ */
+public class ParamAutoVar extends ParametrisedObject<AutoVariable> {
+  private String _rangeDesc;
+  private EncodingChoice _choice;
+
+  /**
+   * Creates a parametrised auto variable with a given list of parameters. The "count" parameter
+   * defines the requirements for the AutoVariable: its name, minimum, maximum and perhaps range
+   * restriction.
+   */
+  public ParamAutoVar(Parameter count, ParameterList params, Atom truth) {
+    this(count, params, truth, new EncodingChoice());
+  }
+
+  private ParamAutoVar(Parameter count, ParameterList params, Atom truth, EncodingChoice choice) {
+    super(count.queryName(), params, makeHelper(count, params, truth, choice));
+    _choice = choice;
+    _rangeDesc = "{" + count.queryMinimum() + ".." + count.queryMaximum() + "}";
+    if (!count.queryRestriction().isTop()) _rangeDesc += " with " + count.queryRestriction();
+  }
+
+  /**
+   * Helper function for the constructor: generates the helper object which the ParamTree requires
+   * to construct itself.
+   */
+  private static ParamTree.ConstructorHelper<AutoVariable> makeHelper(Parameter count,
+                                                                      ParameterList params,
+                                                                      Atom truth,
+                                                                      EncodingChoice choice) {
+    return new ParamTree.ConstructorHelper<AutoVariable>() {
+      /** Creates a variable for a suitable, complete combination of parameters. */
+      public AutoVariable generate(Assignment args) {
+        Substitution subst = new Substitution(args);
+        String varname = queryObjectName(count.queryName(), params, subst);
+        PExpression minimum = count.queryMinimum().substitute(subst);
+        PExpression maximum = count.queryMaximum().substitute(subst);
+        subst.put(count.queryName(), new ParameterExpression(varname));
+        PConstraint restriction = count.queryRestriction().substitute(subst);
+        Parameter p = new Parameter(varname, minimum, maximum, restriction);
+        return new AutoVariable(p, truth, choice);
+      }
+    };
+  }
+
+  /** Returns the usage statistics shared by all variables in this set. */
+  public EncodingChoice queryEncodingChoice() {
+    return _choice;
+  }
+
+  /**
+   * This returns the variable integer corresponding to the given indexes.
+   * If one of the indexes is out of range (so this does not represent a proper variable), or not
+   * all the required parameters are provided, then an Error is thrown instead.
+   */
+  public AutoVariable queryVar(Assignment values) {
+    AutoVariable ret = queryObject(values);
+    if (ret == null) {
+      throw new Error("Instantiation of auto integer variable " + toString() + " with " + values +
+        " violates restrictions: parameter values are out of range.");
+    }
+    return ret;
+  }
+
+  public String queryRangeDescription() {
+    return _rangeDesc;
+  }
+
+  private void addWelldefinednessClauses(int i, Assignment sigma, ClauseCollection col) {
+    if (i >= _parameters.size()) queryVar(sigma).addWelldefinednessClauses(col);
+    else {
+      int min = _parameters.get(i).queryMinimum().evaluate(sigma);
+      int max = _parameters.get(i).queryMaximum().evaluate(sigma);
+      for (int k = min; k <= max; k++) {
+        sigma.put(_parameters.get(i).queryName(), k);
+        if (_parameters.get(i).queryRestriction().evaluate(sigma)) {
+          addWelldefinednessClauses(i+1, sigma, col);
+        }
+        sigma.remove(_parameters.get(i).queryName());
+      }
+    }
+  }
+
+  /** Adds clauses to col indicating that all instances are well-defined variables. */
+  public void addWelldefinednessClauses(ClauseCollection col) {
+    addWelldefinednessClauses(0, new Assignment(), col);
+  }
+}
@@ -3,6 +3,8 @@ package logic.number.binary;
 import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
 import java.util.ArrayList;
 
 /**
@@ -10,6 +12,34 @@ import java.util.ArrayList;
  * binary integers to each other.
  */
 public class BinaryComparison {
+  /** Names the variables a⟨0..i⟩ ≥ b⟨0..i⟩ (or with > instead of ≥) used in comparisons. */
+  private static class PrefixComparison implements VariableSource {
+    private BinaryInteger _a, _b;
+    private String _symbol;
+    PrefixComparison(BinaryInteger a, BinaryInteger b, String symbol) {
+      _a = a; _b = b; _symbol = symbol;
+    }
+    public String queryVariableName(int i) {
+      return _a.toString() + "⟨0.." + i + "⟩" + _symbol + _b.toString() + "⟨0.." + i + "⟩";
+    }
+    public Fingerprint queryFingerprint() {
+      return new Fingerprint("prefix " + _symbol, Fingerprint.of(_a), Fingerprint.of(_b));
+    }
+  }
+
+  /** Names the variables a⟨i⟩≠b⟨i⟩ used in inequalities (with i = -1 for the negative bits). */
+  private static class BitInequality implements VariableSource {
+    private BinaryInteger _a, _b;
+    BitInequality(BinaryInteger a, BinaryInteger b) { _a = a; _b = b; }
+    public String queryVariableName(int i) {
+      if (i < 0) return _a.queryNegativeBit().toString() + "≠" + _b.queryNegativeBit().toString();
+      return _a.queryBit(i).toString() + "≠" + _b.queryBit(i).toString();
+    }
+    public Fingerprint queryFingerprint() {
+      return new Fingerprint("≠", Fingerprint.of(_a), Fingerprint.of(_b));
+    }
+  }
+
   public static ArrayList<Clause> generateGeqOrGreaterClauses(BinaryInteger a, BinaryInteger b,
                                                               boolean equalAllowed) {
     ArrayList<Clause> ret = new ArrayList<Clause>();
@@ -18,8 +48,8 @@ public class BinaryComparison {
 
     // if a is positive, then a ≥ b holds if b is negative OR a⟨0..len⟩ ≥ b⟨0..len⟩
     // if a is negative, then a ≥ b holds if b is negative AND a⟨0..len⟩ ≥ b⟨0..len⟩
-    Atom xx = new Atom(new Variable(a.toString() + "⟨0.." + length + "⟩" + symbol +
-                                    b.toString() + "⟨0.." + length + "⟩"), true);
+    PrefixComparison names = new PrefixComparison(a, b, symbol);
+    Atom xx = new Atom(Variable.auxiliary(names, length), true);
     Atom aneg = a.queryNegativeBit(), apos = aneg.negate();
     Atom bneg = b.queryNegativeBit();
     ret.add(new Clause(aneg, bneg, xx));  // a ≥ 0 → b < 0 ∨ a⟨0..len⟩ ≥ b⟨0..len⟩
@@ -33,8 +63,7 @@ public class BinaryComparison {
       // a⟨0..i⟩ ≥ b⟨0..i⟩ holds only if:
       //   if a⟨i⟩ = 1, then b⟨i⟩ = 0 OR a⟨0..i-1⟩ ≥ b⟨0..i-1⟩
       //                else b⟨i⟩ = 0 AND a⟨0..i-1⟩ ≥ b⟨0..i-1⟩
-      Atom yy = new Atom(new Variable(a.toString() + "⟨0.." + (i-1) + "⟩" + symbol +
-                                      b.toString() + "⟨0.." + (i-1) + "⟩"), true);
+      Atom yy = new Atom(Variable.auxiliary(names, i-1), true);
       Atom ai = a.queryBit(i);
       Atom bineg = b.queryBit(i).negate();
       
@@ -91,16 +120,15 @@ public class BinaryComparison {
     ArrayList<Atom> someunequal = new ArrayList<Atom>();
 
     // a⟨-⟩≠b⟨-⟩ -> a⟨-⟩ ∧ ¬b⟨-⟩ OR ¬a⟨-⟩ ∧ b⟨-⟩
-    Atom xx = new Atom(new Variable(a.queryNegativeBit().toString() + "≠" +
-                                    b.queryNegativeBit().toString()), true);
+    BitInequality names = new BitInequality(a, b);
+    Atom xx = new Atom(Variable.auxiliary(names, -1), true);
     ret.add(new Clause(xx.negate(), a.queryNegativeBit().negate(), b.queryNegativeBit().negate()));
     ret.add(new Clause(xx.negate(), a.queryNegativeBit(), b.queryNegativeBit()));
     someunequal.add(xx);
 
     for (int i = length-1; i >= 0; i--) {
       // a⟨i⟩≠b⟨i⟩ -> a⟨i⟩ ∧ ¬b⟨i⟩ OR ¬a⟨i⟩ ∧ b⟨i⟩
-      xx = new Atom(new Variable(a.queryBit(i).toString() + "≠" +
-                                 b.queryBit(i).toString()), true);
+      xx = new Atom(Variable.auxiliary(names, i), true);
       ret.add(new Clause(xx.negate(), a.queryBit(i).negate(), b.queryBit(i).negate()));
       ret.add(new Clause(xx.negate(), a.queryBit(i), b.queryBit(i)));
       someunequal.add(xx);
@@ -9,13 +9,14 @@ import java.util.ArrayList;
  * A binary conditional represents an expression x?value where x is an Atom and value is a binary
  * integer.
  */
-public class BinaryConditional implements BinaryInteger {
+public class BinaryConditional implements BinaryInteger, VariableSource {
   private Atom _condition;
   private Atom _truth;
   private BinaryInteger _value;
   private ArrayList<Atom> _parts;
   private Atom _negativeBit;
   private ClauseAdder _adder;
+  private Fingerprint _fingerprint;
 
   public BinaryConditional(Atom atom, BinaryInteger value, Atom truth, ClauseAdder adder) {
     _condition = atom;
@@ -28,11 +29,25 @@ public class BinaryConditional implements BinaryInteger {
     for (int i = 0; i < value.length(); i++) {
       if (value.queryBit(i).equals(truth)) _parts.add(atom);
       else if (value.queryBit(i).equals(falsehood)) _parts.add(falsehood);
-      else _parts.add(new Atom(new Variable(toString() + "⟨" + i + "⟩"), true));
+      else _parts.add(new Atom(Variable.auxiliary(this, i), true));
     }
     if (_value.queryNegativeBit().equals(truth)) _negativeBit = atom;
     else if (_value.queryNegativeBit().equals(falsehood)) _negativeBit = falsehood;
-    else _negativeBit = new Atom(new Variable(toString() + "⟨-⟩"), true);
+    else _negativeBit = new Atom(Variable.auxiliary(this, -1), true);
+  }
+
+  /** Returns the name of bit i, or of the negative bit if i is -1. */
+  public String queryVariableName(int i) {
+    if (i < 0) return toString() + "⟨-⟩";
+    return toString() + "⟨" + i + "⟩";
+  }
+
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) {
+      _fingerprint = new Fingerprint("bconditional", Fingerprint.of(_condition),
+                                     Fingerprint.of(_value));
+    }
+    return _fingerprint;
   }
 
   public int queryMinimum() {
@@ -66,8 +81,8 @@ public class BinaryConditional implements BinaryInteger {
   }
 
   public void addWelldefinednessClauses(ClauseCollection col) {
-    if (col.isInMemory("bconditional: " + toString())) return;
-    col.addToMemory("bconditional: " + toString());
+    if (col.isInMemory(this)) return;
+    col.addToMemory(this);
 
     _adder.add(col);
 
@@ -4,15 +4,22 @@ import logic.sat.Variable;
 import logic.sat.Atom;
 import logic.sat.Clause;
 import logic.sat.ClauseCollection;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
 import java.util.ArrayList;
 
 /** The sum of two binary integers. */
-public class BinaryPlus implements BinaryInteger {
+public class BinaryPlus implements BinaryInteger, VariableSource {
   private BinaryInteger _left;
   private BinaryInteger _right;
   private ArrayList<Atom> _parts;
   private Atom _negativeBit;
   private Atom _truth;
+  private Fingerprint _fingerprint;
+
+  /** The variable index of the negative bit; carry bit i has index CARRY - i. */
+  private static final int NEGATIVE = -1;
+  private static final int CARRY = -2;
 
   public BinaryPlus(BinaryInteger left, BinaryInteger right, Atom truth) {
     int max = left.queryMaximum() + right.queryMaximum();
@@ -26,17 +33,27 @@ public class BinaryPlus implements BinaryInteger {
     // create the variables
     _parts = new ArrayList<Atom>();
     for (int i = 0, j = 1; j <= max || -j > min; i++, j *= 2) {
-      String name = "(" + _left.toString() + "⊞" + _right.toString() + ")⟨" + i + "⟩";
-      _parts.add(new Atom(new Variable(name), true));
+      _parts.add(new Atom(Variable.auxiliary(this, i), true));
     }
 
     // create the bit for the negative check
     if (min >= 0) _negativeBit = truth.negate();
     else if (max < 0) _negativeBit = truth;
-    else {
-      String name = "(" + _left.toString() + "⊞" + _right.toString() + ")⟨-⟩";
-      _negativeBit = new Atom(new Variable(name), true);
+    else _negativeBit = new Atom(Variable.auxiliary(this, NEGATIVE), true);
+  }
+
+  /** Returns the name of bit i, of the negative bit, or of a carry bit. */
+  public String queryVariableName(int i) {
+    if (i == NEGATIVE) return toString() + "⟨-⟩";
+    if (i <= CARRY) return toString() + "-carry⟨" + (CARRY - i) + "⟩";
+    return toString() + "⟨" + i + "⟩";
+  }
+
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) {
+      _fingerprint = new Fingerprint("bplus", Fingerprint.of(_left), Fingerprint.of(_right));
     }
+    return _fingerprint;
   }
 
   public int queryMinimum() {
@@ -78,8 +95,8 @@ public class BinaryPlus implements BinaryInteger {
   }
 
   public void addWelldefinednessClauses(ClauseCollection col) {
-    if (col.isInMemory("bplus " + toString())) return;
-    col.addToMemory("bplus " + toString());
+    if (col.isInMemory(this)) return;
+    col.addToMemory(this);
     _left.addWelldefinednessClauses(col);
     _right.addWelldefinednessClauses(col);
 
@@ -107,7 +124,7 @@ public class BinaryPlus implements BinaryInteger {
       // newcarry = atleasttwo(carry, left[i], right[i])
       Atom nc1;
       if (i == _parts.size() - 1 && (queryMinimum() >= 0 || queryMaximum() < 0)) return;
-      nc1 = new Atom(new Variable(toString() + "-carry⟨" + i + "⟩"), true);
+      nc1 = new Atom(Variable.auxiliary(this, CARRY - i), true);
       Atom nc0 = nc1.negate();
       makeC(c0, l0, nc1, col); // carry ∧ left[i] → newcarry
       makeC(c1, l1, nc0, col); // ¬carry ∧ ¬left[i] → ¬newcarry
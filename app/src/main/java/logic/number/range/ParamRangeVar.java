@@ -3,6 +3,7 @@ package logic.number.range;
 import logic.sat.Atom;
 import logic.sat.ClauseCollection;
 import logic.parameter.*;
+import java.util.TreeMap;
 
 /**
  * A ParamRangeVar -- or Parametrised Range IntegerVariable -- is a set of RangeVariables,
@@ -10,6 +11,7 @@ import logic.parameter.*;
  */
 public class ParamRangeVar extends ParametrisedObject<RangeVariable> {
   private String _rangeDesc;
+  private boolean _directView = false;
 
   /**
    * Creates a parametrised range variable with a given list of parameters.
@@ -68,6 +70,21 @@ public class ParamRangeVar extends ParametrisedObject<RangeVariable> {
     return ret;
   }
 
+  /**
+   * Enables the direct (one-hot) view on all the range variables in this set.  The instances are
+   * all created along with the set, so they can be updated right away.
+   */
+  public void enableDirectView() {
+    if (_directView) return;
+    _directView = true;
+    for (RangeVariable x : queryObjects()) x.enableDirectView();
+  }
+
+  /** Returns whether the direct view has been enabled on this set. */
+  public boolean queryDirectView() {
+    return _directView;
+  }
+
   public String queryRangeDescription() {
     return _rangeDesc;
   }
@@ -87,6 +104,11 @@ public class ParamRangeVar extends ParametrisedObject<RangeVariable> {
     }
   }
 
+  /** Adds all instances of this set to the given map, indexed by their name. */
+  public void collectInstances(TreeMap<String,RangeVariable> map) {
+    for (RangeVariable x : queryObjects()) map.put(x.toString(), x);
+  }
+
   /** Adds clauses to col indicating that all instances are well-defined variables. */
   public void addWelldefinednessClauses(ClauseCollection col) {
     addWelldefinednessClauses(0, new Assignment(), col);
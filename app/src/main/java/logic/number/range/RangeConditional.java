@@ -9,7 +9,7 @@ import java.util.TreeMap;
  * The expression can also optionally be given bounds, so that it is increased to the given minimum
  * if necessary, and lowered to the given maximum.
  */
-public class RangeConditional implements RangeInteger {
+public class RangeConditional implements RangeInteger, VariableSource {
   private Atom _condition;
   private RangeInteger _value;
   private Atom _truth;
@@ -17,6 +17,7 @@ public class RangeConditional implements RangeInteger {
   private int _maximum;
   private TreeMap<Integer,Variable> _variables;
   private ClauseAdder _adder;
+  private Fingerprint _fingerprint;
 
   /** A shared helper for all the constructors. */
   private void setup(Atom cond, RangeInteger value, Atom truth, ClauseAdder adder) {
@@ -70,10 +71,22 @@ public class RangeConditional implements RangeInteger {
     if (minval < _minimum) minval = _minimum;
     if (maxval > _maximum) maxval = _maximum;
     for (int i = minval+1; i <= maxval; i++) {
-      _variables.put(i, new Variable(_condition.toString() + "?" + _value.toString() + "≥" + i));
+      _variables.put(i, Variable.auxiliary(this, i));
     }
   }
 
+  /** Returns the name of the variable for this ≥ i. */
+  public String queryVariableName(int i) {
+    return _condition.toString() + "?" + _value.toString() + "≥" + i;
+  }
+
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) {
+      _fingerprint = new Fingerprint("?", Fingerprint.of(_condition), Fingerprint.of(_value));
+    }
+    return _fingerprint;
+  }
+
   public Atom queryGeqAtom(int i) {
     if (i <= _minimum) return _truth;
     if (i > _maximum) return _truth.negate();
@@ -89,8 +102,8 @@ public class RangeConditional implements RangeInteger {
   }
 
   public void addWelldefinednessClauses(ClauseCollection col) {
-    if (col.isInMemory("rconditional: " + toString())) return;
-    col.addToMemory("rconditional: " + toString());
+    if (col.isInMemory(this)) return;
+    col.addToMemory(this);
 
     if (_adder != null) _adder.add(col);
 
@@ -11,12 +11,13 @@ import java.util.TreeMap;
  * given maximum, then the value of the expresison is set to the maximum; and similar if the true
  * sum is smaller than the given minimum.
  */
-public class RangePlus implements RangeInteger {
+public class RangePlus implements RangeInteger, VariableSource {
   private RangeInteger _left;
   private RangeInteger _right;
   private int _minimum;
   private int _maximum;
   private TreeMap<Integer,Variable> _vars;
+  private Fingerprint _fingerprint;
 
   /**
    * a + b where the given minimum and maximum are exactly the true minimum and maximum of a + b.
@@ -61,10 +62,22 @@ public class RangePlus implements RangeInteger {
   private void setupVars() {
     _vars = new TreeMap<Integer,Variable>();
     for (int i = _maximum; i > _minimum; i--) {
-      _vars.put(i, new Variable(_left.toString() + "⊕" + _right.toString() + "≥" + i));
+      _vars.put(i, Variable.auxiliary(this, i));
     }
   }
 
+  /** Returns the name of the variable for this ≥ i. */
+  public String queryVariableName(int i) {
+    return _left.toString() + "⊕" + _right.toString() + "≥" + i;
+  }
+
+  public Fingerprint queryFingerprint() {
+    if (_fingerprint == null) {
+      _fingerprint = new Fingerprint("⊕", Fingerprint.of(_left), Fingerprint.of(_right));
+    }
+    return _fingerprint;
+  }
+
   public int queryMinimum() {
     return _minimum;
   }
@@ -92,8 +105,8 @@ public class RangePlus implements RangeInteger {
    * _right.
    */
   public void addWelldefinednessClauses(ClauseCollection col) {
-    if (col.isInMemory("plus: " + toString())) return;
-    col.addToMemory("plus: " + toString());
+    if (col.isInMemory(this)) return;
+    col.addToMemory(this);
 
     _left.addWelldefinednessClauses(col);
     _right.addWelldefinednessClauses(col);
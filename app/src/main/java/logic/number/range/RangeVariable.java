@@ -12,6 +12,8 @@ public class RangeVariable implements RangeInteger {
   private int _maximum;
   private Atom _truth;
   private TreeMap<Integer,Variable> _variables;
+  private TreeMap<Integer,Variable> _direct;
+  private boolean _directView;
   private String _rangeDesc;
 
   public RangeVariable(Parameter range, Atom truth) {
@@ -20,6 +22,8 @@ public class RangeVariable implements RangeInteger {
     _minimum = range.queryMinimum().evaluate(null);
     _maximum = range.queryMaximum().evaluate(null);
     _variables = new TreeMap<Integer,Variable>();
+    _direct = new TreeMap<Integer,Variable>();
+    _directView = false;
 
     // find true minimum and maximum
     Assignment ass = new Assignment();
@@ -55,6 +59,8 @@ public class RangeVariable implements RangeInteger {
     _truth = truth;
     _rangeDesc = "{" + minimum + ".." + maximum + "}";
     _variables = new TreeMap<Integer,Variable>();
+    _direct = new TreeMap<Integer,Variable>();
+    _directView = false;
     for (int i = maximum; i > _minimum; i--) {
       _variables.put(i, new Variable(name + "≥" + i));
     }
@@ -78,8 +84,47 @@ public class RangeVariable implements RangeInteger {
     return new Atom(_variables.get(i), true);
   }
 
-  /** Add clauses indicating that x ≥ i → x ≥ i-1 where necessary. */
+  /**
+   * Enables the direct (one-hot) view on this variable: after this, queryEqAtom may be used to
+   * obtain a single atom representing x = i.  This is useful for variables which are often
+   * compared to constants for equality.
+   */
+  public void enableDirectView() {
+    _directView = true;
+  }
+
+  /** Returns whether the direct view on this variable has been enabled. */
+  public boolean queryDirectView() {
+    return _directView;
+  }
+
+  /**
+   * An atom representing x = i.  The underlying variable is created when this is first called,
+   * and is related to the order encoding by the well-definedness clauses.  This may only be used
+   * if the direct view has been enabled.
+   */
+  public Atom queryEqAtom(int i) {
+    if (!_directView) {
+      throw new Error("Calling queryEqAtom on range variable " + _name + " without direct view.");
+    }
+    if (i < _minimum || i > _maximum) return _truth.negate();
+    if (_minimum == _maximum) return _truth;
+    // if i is excluded by the range restriction, then x ≥ i and x ≥ i+1 share a variable
+    if (queryGeqAtom(i).equals(queryGeqAtom(i+1))) return _truth.negate();
+    Variable x = _direct.get(i);
+    if (x == null) {
+      x = new Variable(_name + "=" + i);
+      _direct.put(i, x);
+    }
+    return new Atom(x, true);
+  }
+
+  /**
+   * Add clauses indicating that x ≥ i → x ≥ i-1 where necessary, and x = i ↔ x ≥ i ∧ ¬(x ≥ i+1)
+   * for all the direct atoms that have been created so far.
+   */
   public void addWelldefinednessClauses(ClauseCollection col) {
+    addDirectClauses(col);
     // avoid adding the same clauses twice
     if (col.isInMemory("rangevar " + _name)) return;
     col.addToMemory("rangevar " + _name);
@@ -90,6 +135,22 @@ public class RangeVariable implements RangeInteger {
     }
   }
 
+  /** Helper function for addWelldefinednessClauses: handles the direct view. */
+  private void addDirectClauses(ClauseCollection col) {
+    for (Integer i : _direct.keySet()) {
+      String desc = "rangevar " + _name + "=" + i;
+      if (col.isInMemory(desc)) continue;
+      col.addToMemory(desc);
+      Atom eq = new Atom(_direct.get(i), true);
+      Atom geq = queryGeqAtom(i), greater = queryGeqAtom(i+1);
+      if (i > _minimum) col.addClause(new Clause(eq.negate(), geq));
+      if (i < _maximum) col.addClause(new Clause(eq.negate(), greater.negate()));
+      if (i == _minimum) col.addClause(new Clause(eq, greater));
+      else if (i == _maximum) col.addClause(new Clause(eq, geq.negate()));
+      else col.addClause(new Clause(eq, geq.negate(), greater));
+    }
+  }
+
   /**
    * Returns the value of the current integer variable under the given solution.
    * The solution is assumed to satisfy the well-definedness clauses.
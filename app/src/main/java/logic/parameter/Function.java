@@ -99,17 +99,18 @@ public class Function {
   }
 
   public String toString() { 
-    String ret = _name + "(";
+    StringBuilder ret = new StringBuilder(_name + "(");
     for (int i = 0; i < _argumentNames.size(); i++) {
-      if (i > 0) ret += ",";
-      ret += _argumentNames.get(i);
+      if (i > 0) ret.append(",");
+      ret.append(_argumentNames.get(i));
     }
-    ret += ") { ";
+    ret.append(") { ");
     for (int i = 0; i < _matches.size(); i++) {
-      if (i > 0) ret += " ; ";
-      ret += _matches.get(i)._match.toString() + " ⇒ " + _matches.get(i)._output.toString();
+      if (i > 0) ret.append(" ; ");
+      ret.append(_matches.get(i)._match.toString() + " ⇒ " + _matches.get(i)._output.toString());
     }
-    return ret + " }";
+    ret.append(" }");
+    return ret.toString();
   }
 }
 
@@ -71,6 +71,17 @@ public class ParamTree<T> {
     return _children.get(k).lookup(args);
   }
 
+  /** Adds the values for all valid combinations of parameters to list. */
+  public void collect(ArrayList<T> list) {
+    if (_parameterName == null) {
+      if (_node != null) list.add(_node);
+      return;
+    }
+    for (int i = 0; i < _children.size(); i++) {
+      if (_children.get(i) != null) _children.get(i).collect(list);
+    }
+  }
+
   /** Sets the value for the given arguments, or throws an error if there is no such node. */
   public void set(Assignment args, T value) {
     if (_parameterName == null) {
@@ -42,6 +42,11 @@ public class ParametrisedObject<T> {
     return queryObjectName(_name, _parameters, substitution);
   }
 
+  /** Returns the name of the set, without parameters. */
+  public String queryName() {
+    return _name;
+  }
+
   /** Returns the parameter list for this object. */
   public ParameterList queryParameters() {
     return _parameters;
@@ -57,6 +62,13 @@ public class ParametrisedObject<T> {
     return _objects.lookup(values);
   }
 
+  /** Returns the objects for all valid combinations of parameters. */
+  public ArrayList<T> queryObjects() {
+    ArrayList<T> ret = new ArrayList<T>();
+    _objects.collect(ret);
+    return ret;
+  }
+
   /**
    * Returns a string representation where the given values are printed in place of the parameter
    * positions of the object; if a parameter value is not given, then the name of the parameter
@@ -68,6 +68,36 @@ public class Clause {
     return ret + "0";
   }
 
+  /**
+   * Returns the clause as a line in a SAT input file, where every variable is replaced by its
+   * index in the given numbering.
+   */
+  public String getSatDescription(VariableNumbering numbering) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < _atoms.size(); i++) {
+      Atom a = _atoms.get(i);
+      if (a.queryNegative()) ret.append('-');
+      ret.append(numbering.queryDense(a.queryIndex()));
+      ret.append(' ');
+    }
+    return ret.append('0').toString();
+  }
+
+  /** Returns the number of atoms in the clause. */
+  int size() {
+    return _atoms.size();
+  }
+
+  /** Returns the index of the variable of the ith atom in the clause. */
+  int queryIndex(int i) {
+    return _atoms.get(i).queryIndex();
+  }
+
+  /** Returns whether the ith atom in the clause is negated. */
+  boolean queryNegative(int i) {
+    return _atoms.get(i).queryNegative();
+  }
+
   /** Returns a human-readable description of the clause. */
   public String toString() {
     StringBuilder ret = new StringBuilder();
@@ -0,0 +1,194 @@
+package logic.sat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * A ClauseArena stores clauses outside the Java heap, as packed literals: every clause is a
+ * sequence of ints (the index of the variable, negative if the atom is negated) followed by a 0,
+ * just like in the DIMACS format.  Literals are written into fixed-size off-heap segments.  Once
+ * the segments in memory exceed a given budget, further full segments are written to a temporary
+ * file and memory-mapped from there, so the operating system can page them out.  This way, the
+ * size of the problem is bounded by the disk rather than by the heap.
+ *
+ * Clauses can only be added and read back in order; there is no way to remove them.
+ */
+public class ClauseArena {
+  private long _budget;
+  private int _segmentSize;
+  private ArrayList<ByteBuffer> _segments;
+  private ByteBuffer _current;
+  private long _resident;
+  private Path _file;
+  private FileChannel _channel;
+  private long _fileSize;
+  private int _size;
+  private int _highest;
+  private int _longest;
+
+  /**
+   * Creates an arena which keeps at most (approximately) budget bytes of clauses in memory, using
+   * segments of the given number of bytes.
+   */
+  public ClauseArena(long budget, int segmentSize) {
+    _budget = budget;
+    _segmentSize = segmentSize;
+    _segments = new ArrayList<ByteBuffer>();
+    _current = allocate();
+    _resident = segmentSize;
+    _file = null;
+    _channel = null;
+    _fileSize = 0;
+    _size = 0;
+    _highest = 0;
+    _longest = 0;
+  }
+
+  /** Creates an arena with the given budget and segments of 4 MB. */
+  public ClauseArena(long budget) {
+    this(budget, 4 << 20);
+  }
+
+  private ByteBuffer allocate() {
+    return ByteBuffer.allocateDirect(_segmentSize).order(ByteOrder.nativeOrder());
+  }
+
+  /** Adds the given clause to the arena. */
+  public void add(Clause clause) {
+    int bytes = 4 * (clause.size() + 1);
+    if (bytes > _segmentSize) {
+      throw new Error("Clause with " + clause.size() + " literals does not fit in a segment.");
+    }
+    if (_current.remaining() < bytes) seal();
+    for (int i = 0; i < clause.size(); i++) {
+      int index = clause.queryIndex(i);
+      _current.putInt(clause.queryNegative(i) ? -index : index);
+      if (index > _highest) _highest = index;
+    }
+    _current.putInt(0);
+    if (clause.size() > _longest) _longest = clause.size();
+    _size++;
+  }
+
+  /**
+   * Moves the current segment to the list of full segments, and starts a new one.  If the budget
+   * is exceeded, the segment is written to the temporary file and mapped back in.
+   */
+  private void seal() {
+    _current.flip();
+    if (_resident + _segmentSize <= _budget) {
+      _segments.add(_current);
+      _current = allocate();
+      _resident += _segmentSize;
+      return;
+    }
+    try {
+      if (_channel == null) {
+        _file = Files.createTempFile("satlanguage", ".clauses");
+        _file.toFile().deleteOnExit();
+        _channel = FileChannel.open(_file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      }
+      long start = _fileSize;
+      int length = _current.remaining();
+      while (_current.hasRemaining()) {
+        _channel.write(_current, start + length - _current.remaining());
+      }
+      _fileSize += length;
+      ByteBuffer mapped = _channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+      _segments.add(mapped.order(ByteOrder.nativeOrder()));
+      _current.clear();
+    }
+    catch (IOException e) {
+      throw new Error("Could not spill clauses to disk: " + e.getMessage());
+    }
+  }
+
+  /** Returns the number of clauses in the arena. */
+  public int size() {
+    return _size;
+  }
+
+  /** Returns the highest variable index occurring in the arena. */
+  public int queryHighestVariable() {
+    return _highest;
+  }
+
+  /** Returns the number of bytes that have been written to disk. */
+  public long querySpilledBytes() {
+    return _fileSize;
+  }
+
+  /**
+   * Removes the temporary file, if any, and drops the segments, so their memory can be reclaimed.
+   * The arena should not be used afterwards.
+   */
+  public void close() {
+    try {
+      if (_channel != null) _channel.close();
+      if (_file != null) Files.deleteIfExists(_file);
+    }
+    catch (IOException e) {}
+    _channel = null;
+    _file = null;
+    _segments.clear();
+    _current = null;
+  }
+
+  /** Returns a Reader, which goes through the clauses in the order they were added. */
+  public Reader reader() {
+    return new Reader();
+  }
+
+  /**
+   * A Reader reads the clauses in an arena one by one.  The literals of the current clause are
+   * available through length() and queryLiteral(j); the same array is reused for every clause.
+   */
+  public class Reader {
+    private int _segment;
+    private ByteBuffer _buffer;
+    private int[] _literals;
+    private int _length;
+
+    private Reader() {
+      _segment = -1;
+      _buffer = null;
+      _literals = new int[_longest > 0 ? _longest : 1];
+      _length = 0;
+    }
+
+    /** Moves to the next clause, and returns false if there is none. */
+    public boolean nextClause() {
+      while (_buffer == null || !_buffer.hasRemaining()) {
+        _segment++;
+        if (_segment < _segments.size()) _buffer = _segments.get(_segment).duplicate();
+        else if (_segment == _segments.size()) {
+          _buffer = _current.duplicate();
+          _buffer.flip();
+        }
+        else return false;
+        _buffer.order(ByteOrder.nativeOrder());
+      }
+      _length = 0;
+      for (int lit = _buffer.getInt(); lit != 0; lit = _buffer.getInt()) {
+        _literals[_length++] = lit;
+      }
+      return true;
+    }
+
+    /** Returns the number of literals in the current clause. */
+    public int length() {
+      return _length;
+    }
+
+    /** Returns literal j of the current clause: a variable index, negative if negated. */
+    public int queryLiteral(int j) {
+      return _literals[j];
+    }
+  }
+}
@@ -1,16 +1,18 @@
 package logic.sat;
 
 import java.util.ArrayList;
-import java.util.TreeSet;
+import java.util.HashSet;
 
 /** A ClauseCollection is simply a series of clauses, which can be added to. */
 public class ClauseCollection {
   protected ArrayList<Clause> _clauses;
-  private TreeSet<String> _memory;
+  private HashSet<Fingerprint> _memory;
+  private int _memoryHits;
 
   public ClauseCollection() {
     _clauses = new ArrayList<Clause>();
-    _memory = new TreeSet<String>();
+    _memory = new HashSet<Fingerprint>();
+    _memoryHits = 0;
   }
 
   /** Adds a clause to the collection. */
@@ -18,17 +20,68 @@ public class ClauseCollection {
     _clauses.add(clause);
   }
 
+  /** Returns the clause at the given position (in the order they were added). */
+  public Clause queryClause(int i) {
+    return _clauses.get(i);
+  }
+
+  /** Returns the number of clauses in the collection. */
+  public int queryNumberClauses() {
+    return _clauses.size();
+  }
+
   /**
    * Adds a string to the memory. This could be used to recall that a certain set of clauses has
    * already been added, and does not need to be added again.
+   * Only a fingerprint of the string is stored, since these strings can be very long.
    */
   public void addToMemory(String item) {
-    _memory.add(item);
+    _memory.add(new Fingerprint(item));
   }
 
   /** Returns whether the given string is in the memory. */
   public boolean isInMemory(String item) {
-    return _memory.contains(item);
+    return checkMemory(new Fingerprint(item));
+  }
+
+  /**
+   * Adds the given source to the memory, to recall that the clauses defining (some of) its
+   * variables have been added.  Only the fingerprint of the source is stored.
+   */
+  public void addToMemory(VariableSource source) {
+    _memory.add(source.queryFingerprint());
+  }
+
+  /** Returns whether the given source is in the memory. */
+  public boolean isInMemory(VariableSource source) {
+    return checkMemory(source.queryFingerprint());
+  }
+
+  /**
+   * Adds the auxiliary variable with the given index of the given source to the memory, to recall
+   * that the clauses defining it have been added.  This uses the same key as Variable.auxiliary.
+   */
+  public void addToMemory(VariableSource source, int index) {
+    _memory.add(source.queryFingerprint().extend(index));
+  }
+
+  /** Returns whether the given variable of the given source is in the memory. */
+  public boolean isInMemory(VariableSource source, int index) {
+    return checkMemory(source.queryFingerprint().extend(index));
+  }
+
+  private boolean checkMemory(Fingerprint item) {
+    if (!_memory.contains(item)) return false;
+    _memoryHits++;
+    return true;
+  }
+
+  /**
+   * Returns how often isInMemory returned true: that is, how often adding a set of clauses could
+   * be skipped because it had been done before.
+   */
+  public int queryMemoryHits() {
+    return _memoryHits;
   }
 
   /** Prints the current collection to a string in a human-readable way. */
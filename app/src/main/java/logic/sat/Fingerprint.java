@@ -0,0 +1,88 @@
+package logic.sat;
+
+/**
+ * A Fingerprint is a 128-bit hash, which is used instead of a (possibly very long) description to
+ * recognise auxiliary variables and the items in the memory of a ClauseCollection.  Two
+ * independent 64-bit hashes are combined, so the chance of a collision is negligible even for
+ * billions of items.
+ *
+ * A fingerprint can be computed from a string, or structurally: from a tag describing the kind of
+ * object, and the fingerprints of its parts.  The latter is how VariableSources identify
+ * themselves, so that the fingerprint of a large expression can be built from the (remembered)
+ * fingerprints of its subexpressions, without ever building its description as a string.
+ */
+public final class Fingerprint {
+  private final long _high;
+  private final long _low;
+
+  private Fingerprint(long high, long low) {
+    _high = high;
+    _low = low;
+  }
+
+  /** Creates the fingerprint of the given string. */
+  public Fingerprint(String str) {
+    long h1 = 0xcbf29ce484222325L;         // FNV-1a
+    long h2 = str.length();                // polynomial hash, mixed at the end
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      h1 = (h1 ^ c) * 0x100000001b3L;
+      h2 = h2 * 0x9e3779b97f4a7c15L + c;
+    }
+    _high = h1;
+    _low = mix(h2);
+  }
+
+  /** Creates the fingerprint of an object of the kind described by tag, with the given parts. */
+  public Fingerprint(String tag, Fingerprint ...parts) {
+    Fingerprint start = new Fingerprint(tag);
+    long h1 = start._high, h2 = start._low;
+    for (Fingerprint part : parts) {
+      h1 = mix(h1 * 0x100000001b3L + part._high);
+      h2 = mix(h2 * 0x9e3779b97f4a7c15L ^ part._low);
+    }
+    _high = mix(h1 + parts.length);
+    _low = h2;
+  }
+
+  /** Returns the fingerprint of the element with the given index of the current object. */
+  public Fingerprint extend(int index) {
+    return new Fingerprint(mix(_high * 0x100000001b3L + index),
+                           mix(_low * 0x9e3779b97f4a7c15L ^ (index + 0x632be59bd9b4e019L)));
+  }
+
+  /**
+   * Returns the fingerprint of x: structurally if x is a VariableSource, a Variable or an Atom,
+   * and otherwise the fingerprint of its string representation.  The latter is meant for objects
+   * with a short description, such as constants and user-declared variables.
+   */
+  public static Fingerprint of(Object x) {
+    if (x instanceof VariableSource) return ((VariableSource)x).queryFingerprint();
+    if (x instanceof Variable) return ((Variable)x).queryFingerprint();
+    if (x instanceof Atom) {
+      Atom a = (Atom)x;
+      return new Fingerprint(a.queryNegative() ? "¬" : "", of(a.queryVariable()));
+    }
+    return new Fingerprint(x.toString());
+  }
+
+  /** A bijective finaliser, which spreads every input bit over the whole result. */
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  public boolean equals(Object other) {
+    if (!(other instanceof Fingerprint)) return false;
+    Fingerprint f = (Fingerprint)other;
+    return _high == f._high && _low == f._low;
+  }
+
+  public int hashCode() {
+    return (int)(_low ^ (_low >>> 32));
+  }
+}
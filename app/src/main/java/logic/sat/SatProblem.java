@@ -1,19 +1,119 @@
 package logic.sat;
 
+import logic.events.DimacsEvent;
+import logic.events.SolverEvent;
+import logic.events.DecodeEvent;
+
+import logic.sat.solver.SolverBackend;
+import logic.sat.solver.SolverRun;
+import logic.sat.solver.ResultFileSolver;
+import logic.sat.solver.CubeAndConquer;
+import logic.sat.solver.ComponentSolver;
+import logic.sat.solver.LocalSearch;
+
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Scanner;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 /**
  * A SatProblem is essentially just a ClauseCollection which can be asked to solve itself using an
  * external SAT solver.  A SatProblem is mutable (clauses can be added).
+ *
+ * If clauseMemory is set (to a non-negative number of bytes) when the SatProblem is created,
+ * clauses are not kept on the heap, but in a ClauseArena which spills to disk past that budget.
+ * In that case, toString() can only print the variable indexes, and the problem should be closed
+ * once it is no longer needed, to release the memory and the temporary file of the arena.
+ *
+ * A SatProblem may also hold parity constraints, which are already implied by its clauses.  If
+ * xorLines is set, they are written as extra XOR lines in the style of CryptoMiniSat, for solvers
+ * that reason about parity natively.
  */
-public class SatProblem extends ClauseCollection {
+public class SatProblem extends ClauseCollection implements AutoCloseable {
   public static String solvername = "yicessolver";
+  /** If set, the backend to solve with; otherwise, ./bin/solvername is used. */
+  public static SolverBackend solver = null;
+  /** If set, solve(stats) divides the problem into cubes which are solved in parallel. */
+  public static CubeAndConquer cubes = null;
+  /** If set, solve(stats) solves the independent parts of the problem separately. */
+  public static ComponentSolver components = null;
+  /** If set, solve(stats) uses local search, alone or raced against the systematic solver. */
+  public static LocalSearch localSearch = null;
+
+  /** Variables are written with the indexes they were created with. */
+  public static final int NUMBERING_ORIGINAL = 0;
+  /** Only variables occurring in a clause are written, numbered 1..n in their original order. */
+  public static final int NUMBERING_DENSE = 1;
+  /** Like NUMBERING_DENSE, but ordered by a breadth-first search over the clause graph. */
+  public static final int NUMBERING_LOCALITY = 2;
+
+  public static int numbering = NUMBERING_DENSE;
+
+  /** If non-negative, new problems store their clauses off the heap, using this many bytes. */
+  public static long clauseMemory = -1;
+
+  /** If set, the parity constraints of a problem are also written as XOR lines ("x1 2 3 0"). */
+  public static boolean xorLines = false;
+
+  /** The numbering used when the problem was last written, or null for the original one. */
+  private VariableNumbering _numbering = null;
+  /** Where the clauses are stored if they are not kept on the heap. */
+  private ClauseArena _arena;
+  /** The parity constraints, as sorted variable indexes followed by 1 (odd) or 0 (even). */
+  private ArrayList<int[]> _xors;
+
+  public SatProblem() {
+    _arena = clauseMemory < 0 ? null : new ClauseArena(clauseMemory);
+    _xors = new ArrayList<int[]>();
+  }
+
+  /** Adds a clause to the problem. */
+  public void addClause(Clause clause) {
+    if (_arena == null) super.addClause(clause);
+    else _arena.add(clause);
+  }
+
+  /**
+   * Registers that the sum of the given variables modulo 2 is 1 (if odd is true) or 0 (if not).
+   * This should already follow from the clauses: the constraint is only used for XOR lines.
+   */
+  public void addXor(int[] vars, boolean odd) {
+    int[] xor = Arrays.copyOf(vars, vars.length + 1);
+    xor[vars.length] = odd ? 1 : 0;
+    _xors.add(xor);
+  }
+
+  /** Returns the number of parity constraints registered with addXor. */
+  public int queryNumberXors() {
+    return _xors.size();
+  }
+
+  /** Returns the number of clauses in the problem. */
+  public int queryNumberClauses() {
+    if (_arena == null) return super.queryNumberClauses();
+    return _arena.size();
+  }
+
+  /**
+   * Releases the clause arena, if the clauses are stored in one.  The problem should not be used
+   * afterwards.  Problems whose clauses are on the heap need not be closed.
+   */
+  public void close() {
+    if (_arena != null) _arena.close();
+  }
+
+  /**
+   * Returns the numbering used when the problem was last written in DIMACS format, or null if
+   * the original indexes were used (or the problem was not written yet).
+   */
+  public VariableNumbering queryNumbering() {
+    return _numbering;
+  }
 
   /** This yields the index of the largest variable in the SatProblem. */
-  private int getNumberVariables() {
+  public int queryNumberVariables() {
+    if (_arena != null) return _arena.queryHighestVariable();
     int max = 0;
     for (int i = 0; i < _clauses.size(); i++) {
       int topVar = _clauses.get(i).getHighestAtomIdentifier();
@@ -23,88 +123,341 @@ public class SatProblem extends ClauseCollection {
   }
 
   /**
-   * This creates a file for the SAT solver and returns true, or prints a message and returns
-   * false if creating the file fails for some reason.
+   * Returns the clauses of the problem as arrays of literals: the index of the variable, negative
+   * if the atom is negated.  This is meant for solvers which run inside the program.
    */
-  private boolean createSatFile() {
-    try {
-      BufferedWriter writer = new BufferedWriter(new FileWriter("problem.sat"));
-      writer.write("p cnf " + getNumberVariables() + " " + +_clauses.size());
-      writer.newLine();
-      for (int i = 0; i < _clauses.size(); i++) {
-        writer.write(_clauses.get(i).getSatDescription());
-        writer.newLine();
+  public int[][] queryClauseLiterals() {
+    int[][] ret = new int[queryNumberClauses()][];
+    if (_arena != null) {
+      ClauseArena.Reader reader = _arena.reader();
+      for (int i = 0; reader.nextClause(); i++) {
+        ret[i] = new int[reader.length()];
+        for (int j = 0; j < reader.length(); j++) ret[i][j] = reader.queryLiteral(j);
       }
-      writer.close();
-    } catch (IOException e) {
-      System.out.println("Could not create SAT file.");
-      e.printStackTrace();
-      return false;
+      return ret;
     }
-    return true;
+    for (int i = 0; i < _clauses.size(); i++) {
+      Clause c = _clauses.get(i);
+      ret[i] = new int[c.size()];
+      for (int j = 0; j < c.size(); j++) {
+        ret[i][j] = c.queryNegative(j) ? -c.queryIndex(j) : c.queryIndex(j);
+      }
+    }
+    return ret;
   }
 
   /**
-   * This function runs the SAT solver on problem.sat and returns true if it succeeded; it it did
-   * not, a message is printed instead.
+   * Returns the clauses of the problem as arrays of literals like queryClauseLiterals(), followed
+   * by a unit clause for each of the given assumptions.
    */
-  private boolean runSatSolver() {
-    Runtime rt = Runtime.getRuntime();
-    // clean up old result, it any
-    try { Process p = rt.exec("rm result"); p.waitFor(); } catch (Exception e) {}
-    // start new satsolver process
-    try {
-      Process p = rt.exec("./bin/" + solvername + " problem.sat result");
-      p.waitFor();
-    } catch (Exception e) {
-      System.out.println("Could not execute satsolver " + solvername + ".");
-      e.printStackTrace();
-      return false;
+  public int[][] queryClauseLiterals(int[] assumptions) {
+    int[][] clauses = queryClauseLiterals();
+    int[][] ret = Arrays.copyOf(clauses, clauses.length + assumptions.length);
+    for (int i = 0; i < assumptions.length; i++) {
+      ret[clauses.length + i] = new int[] { assumptions[i] };
     }
-    return true;
+    return ret;
   }
 
   /**
-   * This reads the solution from the expected SAT output file, and turns it into a Solution.
-   * If the file cannot be read -- for example because the SAT solver failed -- then null is
-   * returned instead (and a message printed).
+   * Returns a score for every literal, which indicates how much assigning it would simplify the
+   * problem: the sum of 2^-k over the clauses of length k that the literal occurs in (the
+   * Jeroslow-Wang heuristic).  Entry 2x is the score of variable x, and entry 2x+1 the score of
+   * its negation; variables which do not occur in any clause have score 0 for both.
    */
-  private Solution readSatFile() {
-    try {
-      File file = new File("result");
-      Scanner reader = new Scanner(file);
-      if (!reader.hasNextLine()) {
-        System.out.println("Could not read result file.");
-        return null;
+  public double[] queryLiteralScores() {
+    double[] ret = new double[2 * queryNumberVariables() + 2];
+    if (_arena != null) {
+      ClauseArena.Reader reader = _arena.reader();
+      while (reader.nextClause()) {
+        double weight = Math.pow(2, -reader.length());
+        for (int j = 0; j < reader.length(); j++) {
+          int lit = reader.queryLiteral(j);
+          ret[lit > 0 ? 2 * lit : -2 * lit + 1] += weight;
+        }
       }
-      String answer = reader.nextLine();
-      if (answer.equals("UNSAT") || answer.equals("unsat")) return new Solution(null);
-      if (!answer.equals("SAT") && !answer.equals("sat")) {
-        System.out.println("Unexpected answer: " + answer);
-        return null;
+      return ret;
+    }
+    for (int i = 0; i < _clauses.size(); i++) {
+      Clause c = _clauses.get(i);
+      double weight = Math.pow(2, -c.size());
+      for (int j = 0; j < c.size(); j++) {
+        ret[2 * c.queryIndex(j) + (c.queryNegative(j) ? 1 : 0)] += weight;
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * This writes the problem to the given writer in DIMACS format, with the variables renumbered
+   * as indicated by the static numbering setting.  The numbering is remembered, so the solution
+   * can be translated back.
+   */
+  public void writeDimacs(BufferedWriter writer) throws IOException {
+    writeDimacs(writer, new int[0]);
+  }
+
+  /**
+   * This writes the problem like writeDimacs(writer), followed by a unit clause for each of the
+   * given assumptions: literals given as a variable index, negative if the variable should be
+   * false.  The assumptions are not added to the problem.  Their variables should occur in the
+   * clauses of the problem.
+   */
+  public void writeDimacs(BufferedWriter writer, int[] assumptions) throws IOException {
+    DimacsEvent event = new DimacsEvent();
+    event.begin();
+    if (numbering == NUMBERING_ORIGINAL) _numbering = null;
+    else if (_arena != null) _numbering = new VariableNumbering(_arena);
+    else _numbering = new VariableNumbering(_clauses, numbering == NUMBERING_LOCALITY);
+    int numvars = _numbering == null ? queryNumberVariables() : _numbering.size();
+    int numxors = xorLines ? _xors.size() : 0;
+    writer.write("p cnf " + numvars + " " + (queryNumberClauses() + assumptions.length + numxors));
+    writer.newLine();
+    if (_arena != null) writeArena(writer);
+    else {
+      for (int i = 0; i < _clauses.size(); i++) {
+        if (_numbering == null) writer.write(_clauses.get(i).getSatDescription());
+        else writer.write(_clauses.get(i).getSatDescription(_numbering));
+        writer.newLine();
       }
-      int num = reader.nextInt();
-      TreeSet<Integer> set = new TreeSet<Integer>();
-      while (num != 0) {
-        if (num > 0) set.add(num);
-        num = reader.nextInt();
+    }
+    for (int lit : assumptions) {
+      int index = _numbering == null ? Math.abs(lit) : _numbering.queryDense(Math.abs(lit));
+      writer.write((lit < 0 ? "-" : "") + index + " 0");
+      writer.newLine();
+    }
+    if (xorLines) writeXors(writer);
+    if (event.shouldCommit()) {
+      event.clauses = queryNumberClauses() + assumptions.length;
+      event.variables = numvars;
+      event.commit();
+    }
+  }
+
+  /**
+   * Writes the clauses in the arena straight from their packed form, without creating Clause or
+   * String objects for them.
+   */
+  private void writeArena(BufferedWriter writer) throws IOException {
+    ClauseArena.Reader reader = _arena.reader();
+    while (reader.nextClause()) {
+      for (int j = 0; j < reader.length(); j++) {
+        int lit = reader.queryLiteral(j);
+        if (_numbering != null) {
+          lit = lit < 0 ? -_numbering.queryDense(-lit) : _numbering.queryDense(lit);
+        }
+        writer.write(Integer.toString(lit));
+        writer.write(' ');
       }
-      return new Solution(set);
-    } catch (IOException e) {
-      System.out.println("Error reading result file.");
-      e.printStackTrace();
-      return null;
+      writer.write('0');
+      writer.newLine();
     }
   }
 
+  /**
+   * Writes the parity constraints as XOR lines: "x1 2 3 0" states that an odd number of the
+   * variables is true, and negating the first variable requires an even number instead.
+   */
+  private void writeXors(BufferedWriter writer) throws IOException {
+    for (int[] xor : _xors) {
+      writer.write("x");
+      for (int j = 0; j + 1 < xor.length; j++) {
+        int index = _numbering == null ? xor[j] : _numbering.queryDense(xor[j]);
+        if (j == 0 && xor[xor.length - 1] == 0) writer.write('-');
+        writer.write(index + (j + 2 < xor.length ? " " : " 0"));
+      }
+      writer.newLine();
+    }
+  }
+
+  /**
+   * Prints the problem in a human-readable way.  If the clauses are stored off the heap, only the
+   * variable indexes are available, so the clauses are printed as in DIMACS format.
+   */
+  public String toString() {
+    if (_arena == null) return super.toString();
+    StringBuilder ret = new StringBuilder();
+    ClauseArena.Reader reader = _arena.reader();
+    while (reader.nextClause()) {
+      for (int j = 0; j < reader.length(); j++) ret.append(reader.queryLiteral(j) + " ");
+      ret.append("0\n");
+    }
+    return ret.toString();
+  }
+
+  /** Writes the problem and the given assumptions in DIMACS format to the given file. */
+  private void createSatFile(Path file, int[] assumptions) throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(file);
+    writeDimacs(writer, assumptions);
+    writer.close();
+  }
+
+  /** Removes the given directory and the files in it, ignoring any errors. */
+  private static void removeDirectory(Path dir) {
+    File[] files = dir.toFile().listFiles();
+    if (files != null) {
+      for (File f : files) f.delete();
+    }
+    dir.toFile().delete();
+  }
+
+  /**
+   * Returns the backend used by solve(): the static solver if it is set, or otherwise a
+   * ResultFileSolver which runs ./bin/solvername.
+   */
+  public static SolverBackend queryDefaultBackend() {
+    if (solver != null) return solver;
+    return new ResultFileSolver("./bin/" + solvername);
+  }
+
+  /**
+   * Returns a description of the static settings that affect which solution solve(stats) finds:
+   * the backend, the strategies that are set, and how the problem is written.
+   */
+  public static String querySolverDescription() {
+    StringBuilder ret = new StringBuilder(queryDefaultBackend().queryName());
+    if (cubes != null) ret.append("\n" + cubes.toString());
+    if (components != null) ret.append("\n" + components.toString());
+    if (localSearch != null) ret.append("\n" + localSearch.toString());
+    ret.append("\nnumbering " + numbering);
+    if (xorLines) ret.append("\nxor lines");
+    return ret.toString();
+  }
+
   /**
    * This function seeks to solve the SatProblem as it currently is (using an external SAT solver)
    * and returns the Solution that is found, if any.  If no yes/no answer can be found, then null
    * is returned instead.
    */
   public Solution solve() {
-    if (!createSatFile()) return null;
-    if (!runSatSolver()) return null;
-    return readSatFile();
+    return solve(new Statistics());
+  }
+
+  /**
+   * This function solves the SatProblem like solve(), and records the time spent in writing the
+   * problem, running the solver and reading the solution in stats.  If local search, component
+   * solving or cube-and-conquer is set up, the problem is solved that way.
+   */
+  public Solution solve(Statistics stats) {
+    return solve(stats, new int[0]);
+  }
+
+  /**
+   * This function solves the SatProblem like solve(stats), but additionally requires the given
+   * literals to hold; like with solve(stats, backend, assumptions), the problem itself is not
+   * changed.  Local search, component solving and cube-and-conquer all respect the assumptions.
+   */
+  public Solution solve(Statistics stats, int[] assumptions) {
+    if (localSearch != null) return localSearch.solve(this, stats, assumptions);
+    if (components != null) return components.solve(this, stats, assumptions);
+    if (cubes != null) return cubes.solve(this, stats, assumptions);
+    return solve(stats, queryDefaultBackend(), assumptions);
+  }
+
+  /** This function solves the SatProblem like solve(stats), requiring the given atoms to hold. */
+  public Solution solve(Statistics stats, ArrayList<Atom> assumptions) {
+    return solve(stats, queryLiterals(assumptions));
+  }
+
+  /**
+   * Stops the searches started by solve(stats) that are going on, which then return null.  This
+   * may be called from another thread.  If no static solver is set, the default backend is created
+   * anew for every search, and cannot be stopped this way.
+   */
+  public static void cancelSearch() {
+    if (localSearch != null) localSearch.cancel();
+    if (components != null) components.cancel();
+    if (cubes != null) cubes.cancel();
+    if (solver != null) solver.cancel();
+  }
+
+  /**
+   * This function solves the SatProblem using the given backend.  The problem is written to a
+   * fresh temporary directory, so several problems can be solved at the same time; the directory
+   * is removed afterwards.  If the solver fails, times out or is cancelled, a message is printed
+   * and null is returned.
+   */
+  public Solution solve(Statistics stats, SolverBackend backend) {
+    return solve(stats, backend, new int[0]);
+  }
+
+  /**
+   * This function solves the SatProblem using the given backend, like solve(stats, backend), but
+   * additionally requires the given atoms to hold.  The assumptions only apply to this call; the
+   * problem itself is not changed.
+   */
+  public Solution solve(Statistics stats, SolverBackend backend, ArrayList<Atom> assumptions) {
+    return solve(stats, backend, queryLiterals(assumptions));
+  }
+
+  /** Returns the given atoms as literals, like in writeDimacs. */
+  private static int[] queryLiterals(ArrayList<Atom> atoms) {
+    int[] ret = new int[atoms.size()];
+    for (int i = 0; i < ret.length; i++) {
+      Atom a = atoms.get(i);
+      ret[i] = a.queryNegative() ? -a.queryIndex() : a.queryIndex();
+    }
+    return ret;
+  }
+
+  /**
+   * This function solves the SatProblem under the given assumptions, given as literals like in
+   * writeDimacs.  Several threads may call this at the same time on the same problem, as long as
+   * each uses its own backend and Statistics, and no clauses are added in the meantime.
+   */
+  public Solution solve(Statistics stats, SolverBackend backend, int[] assumptions) {
+    Path dir;
+    try { dir = Files.createTempDirectory("satlanguage"); }
+    catch (IOException e) {
+      System.out.println("Could not create a temporary directory: " + e.getMessage());
+      return null;
+    }
+    try {
+      Path problem = dir.resolve("problem.cnf");
+      stats.startPhase("serialize", null);
+      VariableNumbering used;
+      try {
+        synchronized (this) {
+          createSatFile(problem, assumptions);
+          used = _numbering;
+        }
+      }
+      catch (IOException e) {
+        System.out.println("Could not create SAT file: " + e.getMessage());
+        return null;
+      }
+      finally { stats.endPhase(); }
+
+      stats.startPhase("solve", null);
+      SolverEvent solverEvent = new SolverEvent();
+      solverEvent.begin();
+      SolverRun run = backend.run(problem);
+      if (solverEvent.shouldCommit()) {
+        solverEvent.solver = backend.queryName();
+        solverEvent.exitCode = run.queryExitCode();
+        solverEvent.clauses = queryNumberClauses();
+        solverEvent.variables = queryNumberVariables();
+        solverEvent.commit();
+      }
+      stats.endPhase();
+      if (run.queryStatus() != SolverRun.FINISHED) {
+        System.out.println("Solver " + backend.queryName() + ": " + run.queryMessage() + ".");
+        return null;
+      }
+
+      stats.startPhase("decode", null);
+      DecodeEvent decodeEvent = new DecodeEvent();
+      decodeEvent.begin();
+      Solution ret = backend.decode(run);
+      if (ret != null && used != null) ret = ret.renumber(used);
+      if (ret != null && decodeEvent.shouldCommit()) {
+        decodeEvent.satisfiable = ret.querySatisfiable();
+        decodeEvent.trueVariables = ret.queryNumberTrue();
+        decodeEvent.commit();
+      }
+      stats.endPhase();
+      return ret;
+    }
+    finally { removeDirectory(dir); }
   }
 }
@@ -27,6 +27,11 @@ public class Solution {
     return _vars != null;
   }
 
+  /** Returns the number of true variables, or 0 for a null-solution. */
+  public int queryNumberTrue() {
+    return _vars == null ? 0 : _vars.size();
+  }
+
   /** Returns true if the given variable is satisfied under this assignment, false otherwise. */
   public boolean check(Variable x) {
     return _vars != null && _vars.contains(x.queryIndex());
@@ -44,5 +49,17 @@ public class Solution {
   public boolean check(Atom a) {
     return _vars != null && _vars.contains(a.queryIndex()) != a.queryNegative();
   }
-}
 
+  /**
+   * Returns the solution obtained by translating every index of a true variable from the given
+   * numbering back to its original index.  Indexes outside the numbering are dropped.
+   */
+  public Solution renumber(VariableNumbering numbering) {
+    if (_vars == null) return this;
+    TreeSet<Integer> set = new TreeSet<Integer>();
+    for (int x : _vars) {
+      if (x <= numbering.size()) set.add(numbering.queryOriginal(x));
+    }
+    return new Solution(set);
+  }
+}
@@ -0,0 +1,259 @@
+package logic.sat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * The Statistics keep track of where time and memory go when a program is run.  Measurements are
+ * kept both for the phases of the pipeline (parse, ground, well-definedness, serialize, solve,
+ * decode) and for every top-level requirement separately.  For each of them we record the wall
+ * time, the bytes allocated by the current thread, the number of clauses added, the number of
+ * fresh variables, and how often clauses could be skipped because they were already in memory.
+ *
+ * Phases and requirements are measured independently, so a requirement may be measured while the
+ * ground phase is going on.
+ */
+public class Statistics {
+  /** The counters for a single phase or requirement. */
+  public static class Measurement {
+    private String _name;
+    private int _line;
+    private Object _description;
+    private long _wallNanos;
+    private long _allocatedBytes;
+    private long _clauses;
+    private long _variables;
+    private long _memoryHits;
+
+    private Measurement(String name, int line, Object description) {
+      _name = name;
+      _line = line;
+      _description = description;
+    }
+
+    /** Returns the name of the phase, or the index of the requirement. */
+    public String queryName() { return _name; }
+    /** Returns the line in the input file the requirement was read from, or -1 if unknown. */
+    public int queryLine() { return _line; }
+    public long queryWallNanos() { return _wallNanos; }
+    /** Returns the number of allocated bytes, or -1 if the JVM cannot measure this. */
+    public long queryAllocatedBytes() { return _allocatedBytes; }
+    public long queryClauses() { return _clauses; }
+    public long queryVariables() { return _variables; }
+    public long queryMemoryHits() { return _memoryHits; }
+  }
+
+  private static com.sun.management.ThreadMXBean _threads = findThreadBean();
+
+  private ArrayList<Measurement> _phases;
+  private ArrayList<Measurement> _requirements;
+  private Measurement _currentPhase;
+  private Measurement _currentRequirement;
+  private ClauseCollection _phaseCollection;
+  private ClauseCollection _requirementCollection;
+
+  public Statistics() {
+    _phases = new ArrayList<Measurement>();
+    _requirements = new ArrayList<Measurement>();
+    _currentPhase = null;
+    _currentRequirement = null;
+  }
+
+  private static com.sun.management.ThreadMXBean findThreadBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+    com.sun.management.ThreadMXBean ret = (com.sun.management.ThreadMXBean)bean;
+    if (!ret.isThreadAllocatedMemorySupported()) return null;
+    if (!ret.isThreadAllocatedMemoryEnabled()) ret.setThreadAllocatedMemoryEnabled(true);
+    return ret;
+  }
+
+  private static long allocatedBytes() {
+    if (_threads == null) return -1;
+    return _threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /** Stores the current value of all counters in m; the collection may be null. */
+  private static void begin(Measurement m, ClauseCollection col) {
+    m._clauses = col == null ? 0 : col.queryNumberClauses();
+    m._memoryHits = col == null ? 0 : col.queryMemoryHits();
+    m._variables = Variable.queryNumberCreated();
+    m._allocatedBytes = allocatedBytes();
+    m._wallNanos = System.nanoTime();
+  }
+
+  /** Replaces the counters stored by begin by the difference with their current values. */
+  private static void end(Measurement m, ClauseCollection col) {
+    m._wallNanos = System.nanoTime() - m._wallNanos;
+    long alloc = allocatedBytes();
+    m._allocatedBytes = alloc < 0 || m._allocatedBytes < 0 ? -1 : alloc - m._allocatedBytes;
+    m._variables = Variable.queryNumberCreated() - m._variables;
+    m._clauses = col == null ? 0 : col.queryNumberClauses() - m._clauses;
+    m._memoryHits = col == null ? 0 : col.queryMemoryHits() - m._memoryHits;
+  }
+
+  /**
+   * Starts measuring the given phase.  Clauses and memory hits are counted in col, which may be
+   * null if the phase does not add clauses.
+   */
+  public void startPhase(String name, ClauseCollection col) {
+    if (_currentPhase != null) throw new Error("Starting phase " + name + " inside phase " +
+      _currentPhase.queryName() + ".");
+    _currentPhase = new Measurement(name, -1, null);
+    _phaseCollection = col;
+    begin(_currentPhase, col);
+  }
+
+  /** Ends the phase that was last started. */
+  public void endPhase() {
+    if (_currentPhase == null) throw new Error("Ending a phase that was not started.");
+    end(_currentPhase, _phaseCollection);
+    _phases.add(_currentPhase);
+    _currentPhase = null;
+    _phaseCollection = null;
+  }
+
+  /**
+   * Starts measuring the grounding of a top-level requirement.  The description is only turned
+   * into a string when the statistics are printed, since this may be expensive.
+   */
+  public void startRequirement(int line, Object description, ClauseCollection col) {
+    _currentRequirement = new Measurement("" + _requirements.size(), line, description);
+    _requirementCollection = col;
+    begin(_currentRequirement, col);
+  }
+
+  /** Ends the requirement that was last started. */
+  public void endRequirement() {
+    if (_currentRequirement == null) throw new Error("Ending a requirement that was not started.");
+    end(_currentRequirement, _requirementCollection);
+    _requirements.add(_currentRequirement);
+    _currentRequirement = null;
+    _requirementCollection = null;
+  }
+
+  public ArrayList<Measurement> queryPhases() {
+    return _phases;
+  }
+
+  public ArrayList<Measurement> queryRequirements() {
+    return _requirements;
+  }
+
+  /** Returns the measurement for the phase with the given name, or null if there is none. */
+  public Measurement queryPhase(String name) {
+    for (int i = 0; i < _phases.size(); i++) {
+      if (_phases.get(i).queryName().equals(name)) return _phases.get(i);
+    }
+    return null;
+  }
+
+  /**
+   * Adds the phases measured in other to these statistics, with the given prefix before their
+   * names.  Phases with the same name are combined into one, by adding up their counters.  This
+   * is used to collect the measurements of worker threads, which each need their own Statistics.
+   */
+  public void mergePhases(Statistics other, String prefix) {
+    for (Measurement m : other._phases) {
+      Measurement total = queryPhase(prefix + m._name);
+      if (total == null) {
+        total = new Measurement(prefix + m._name, -1, null);
+        _phases.add(total);
+      }
+      total._wallNanos += m._wallNanos;
+      if (total._allocatedBytes >= 0 && m._allocatedBytes >= 0) {
+        total._allocatedBytes += m._allocatedBytes;
+      }
+      else total._allocatedBytes = -1;
+      total._clauses += m._clauses;
+      total._variables += m._variables;
+      total._memoryHits += m._memoryHits;
+    }
+  }
+
+  /**
+   * Returns the indexes of the requirements with the most clauses, ordered by number of clauses,
+   * which are together responsible for at least the given fraction of the clauses added by all
+   * requirements.
+   */
+  public ArrayList<Integer> queryHeaviestRequirements(double fraction) {
+    ArrayList<Integer> order = new ArrayList<Integer>();
+    long total = 0;
+    for (int i = 0; i < _requirements.size(); i++) {
+      order.add(i);
+      total += _requirements.get(i).queryClauses();
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        return Long.compare(_requirements.get(b).queryClauses(),
+                            _requirements.get(a).queryClauses());
+      }
+    });
+    ArrayList<Integer> ret = new ArrayList<Integer>();
+    long sum = 0;
+    for (int i = 0; i < order.size() && sum < fraction * total; i++) {
+      ret.add(order.get(i));
+      sum += _requirements.get(order.get(i)).queryClauses();
+    }
+    return ret;
+  }
+
+  private static String escape(String str) {
+    StringBuilder ret = new StringBuilder();
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c == '"' || c == '\\') ret.append('\\').append(c);
+      else if (c == '\n') ret.append("\\n");
+      else if (c < 0x20) ret.append(String.format("\\u%04x", (int)c));
+      else ret.append(c);
+    }
+    return ret.toString();
+  }
+
+  /** Long descriptions are cut off, so the output stays readable for huge formulas. */
+  private static String shorten(String str) {
+    if (str.length() <= 120) return str;
+    return str.substring(0, 117) + "...";
+  }
+
+  private static void appendCounters(StringBuilder ret, Measurement m) {
+    ret.append("\"wall_ms\": " + String.format(Locale.ROOT, "%.3f", m._wallNanos / 1000000.0));
+    ret.append(", \"allocated_bytes\": " + m._allocatedBytes);
+    ret.append(", \"clauses\": " + m._clauses);
+    ret.append(", \"variables\": " + m._variables);
+    ret.append(", \"memo_hits\": " + m._memoryHits);
+  }
+
+  /** Returns the statistics in JSON format. */
+  public String toJson() {
+    StringBuilder ret = new StringBuilder("{\n  \"phases\": [");
+    for (int i = 0; i < _phases.size(); i++) {
+      Measurement m = _phases.get(i);
+      ret.append(i == 0 ? "\n" : ",\n");
+      ret.append("    {\"name\": \"" + escape(m._name) + "\", ");
+      appendCounters(ret, m);
+      ret.append("}");
+    }
+    ret.append("\n  ],\n  \"requirements\": [");
+    long total = 0;
+    for (int i = 0; i < _requirements.size(); i++) total += _requirements.get(i)._clauses;
+    for (int i = 0; i < _requirements.size(); i++) {
+      Measurement m = _requirements.get(i);
+      ret.append(i == 0 ? "\n" : ",\n");
+      ret.append("    {\"index\": " + i + ", \"line\": " + m._line + ", ");
+      if (m._description != null) {
+        ret.append("\"formula\": \"" + escape(shorten(m._description.toString())) + "\", ");
+      }
+      appendCounters(ret, m);
+      double share = total == 0 ? 0.0 : (double)m._clauses / total;
+      ret.append(", \"clause_share\": " + String.format(Locale.ROOT, "%.4f", share));
+      ret.append("}");
+    }
+    ret.append("\n  ],\n  \"requirements_for_80_percent\": " + queryHeaviestRequirements(0.8));
+    ret.append("\n}");
+    return ret.toString();
+  }
+}
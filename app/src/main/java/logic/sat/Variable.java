@@ -1,6 +1,10 @@
 package logic.sat;
 
 import java.lang.Comparable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
 import java.util.TreeMap;
 
 /**
@@ -9,14 +13,40 @@ import java.util.TreeMap;
  * identifier.  Hence, within the program, name and identifier should be equivalent.
  * (To avoid overlaps,it is advised that user-defined variables should satisfy some restrictions
  * that automatically generated variables do not.)
- * Variables are immutable objects.
+ *
+ * Auxiliary variables -- those created during the translation, whose names are often long
+ * descriptions of formulas or integer expressions -- do not store their name.  Instead, they keep
+ * the object which created them (a VariableSource) and an index, and are registered by the
+ * fingerprint of that source and index.  The name is only reconstructed when toString() is called.
+ * The registry only remembers the identifier for each fingerprint, and refers to the variables
+ * themselves weakly, so it does not keep their sources alive.  An auxiliary variable that is
+ * asked for again after all references to it were dropped gets the same identifier, but only the
+ * new source to reconstruct its name from.
+ *
+ * Variables are immutable objects.  The registry is shared by all threads, and may be used by
+ * several of them at the same time.
  */
 public class Variable implements Comparable<Variable> {
   private int _id;
   private String _name;
+  private VariableSource _source;
+  private int _index;
+
+  /** A weak reference to an auxiliary variable, which remembers its identifier. */
+  private static class Provenance extends WeakReference<Variable> {
+    int id;
+
+    Provenance(Variable x, ReferenceQueue<Variable> queue) {
+      super(x, queue);
+      id = x._id;
+    }
+  }
 
   private static int _lastUsed = 0;
   private static TreeMap<String,Integer> _nameToId = new TreeMap<String,Integer>();
+  private static HashMap<Fingerprint,Integer> _auxiliaries = new HashMap<Fingerprint,Integer>();
+  private static HashMap<Integer,Provenance> _provenance = new HashMap<Integer,Provenance>();
+  private static ReferenceQueue<Variable> _collected = new ReferenceQueue<Variable>();
 
   /**
    * This resets the registered variables, so that variables will be numbered from 1 onwards again
@@ -24,41 +54,131 @@ public class Variable implements Comparable<Variable> {
    * Do this only when starting a new SAT problem, since newly created variables will now get the
    * same ID as some previous variables.
    */
-  public static void reset() {
+  public static synchronized void reset() {
     _lastUsed = 0;
     _nameToId = new TreeMap<String,Integer>();
+    _auxiliaries = new HashMap<Fingerprint,Integer>();
+    _provenance = new HashMap<Integer,Provenance>();
+    _collected = new ReferenceQueue<Variable>();
   }
 
   /** This generates a name that is not yet in use. */
-  public static String generateFresh() {
+  public static synchronized String generateFresh() {
     String name = "_var" + _lastUsed;
-    while (_nameToId.containsKey(name)) {
+    while (exists(name)) {
       _lastUsed++;
       name = "_var" + _lastUsed;
     }
     return name;
   }
 
-  /** This returns whether a variable by the given name already exists. */
-  public static boolean exists(String name) {
+  /** This returns how many distinct variables have been created since the last reset. */
+  public static synchronized int queryNumberCreated() {
+    return _nameToId.size() + _auxiliaries.size();
+  }
+
+  /**
+   * This returns the index and name of every variable created by name (so not the auxiliary
+   * variables), ordered by index.
+   */
+  public static synchronized TreeMap<Integer,String> queryNamedVariables() {
+    TreeMap<Integer,String> ret = new TreeMap<Integer,String>();
+    for (String name : _nameToId.keySet()) ret.put(_nameToId.get(name), name);
+    return ret;
+  }
+
+  /**
+   * This returns every auxiliary variable created since the last reset, ordered by index.  Those
+   * that are no longer referenced anywhere else are returned without a source, so their names are
+   * not available (see queryNameAvailable).
+   */
+  public static synchronized TreeMap<Integer,Variable> queryAuxiliaryVariables() {
+    TreeMap<Integer,Variable> ret = new TreeMap<Integer,Variable>();
+    for (Integer id : _auxiliaries.values()) {
+      Variable x = queryLive(id);
+      ret.put(id, x == null ? new Variable(id) : x);
+    }
+    return ret;
+  }
+
+  /** This returns every variable created since the last reset, named or auxiliary, by index. */
+  public static synchronized TreeMap<Integer,Variable> queryVariables() {
+    TreeMap<Integer,Variable> ret = queryAuxiliaryVariables();
+    for (String name : _nameToId.keySet()) ret.put(_nameToId.get(name), new Variable(name));
+    return ret;
+  }
+
+  /** This returns whether a variable by the given name was created (auxiliaries excluded). */
+  public static synchronized boolean exists(String name) {
     return _nameToId.containsKey(name);
   }
 
+  /** Returns the auxiliary variable with the given identifier if it is still referenced. */
+  private static Variable queryLive(int id) {
+    Provenance p = _provenance.get(id);
+    return p == null ? null : p.get();
+  }
+
+  /** Forgets the weak references to auxiliary variables which have been collected. */
+  private static void purge() {
+    for (Reference<? extends Variable> r = _collected.poll(); r != null; r = _collected.poll()) {
+      Provenance p = (Provenance)r;
+      if (_provenance.get(p.id) == p) _provenance.remove(p.id);
+    }
+  }
+
+  /**
+   * This returns the auxiliary variable with the given index for the given source.  Asking twice
+   * for a variable with the same index, from sources with the same fingerprint -- even if they
+   * are different objects -- yields the same variable.  Neither the name nor the fingerprint of
+   * the variable is stored.
+   */
+  public static synchronized Variable auxiliary(VariableSource source, int index) {
+    Fingerprint key = source.queryFingerprint().extend(index);
+    Integer id = _auxiliaries.get(key);
+    if (id != null) {
+      Variable ret = queryLive(id);
+      if (ret != null) return ret;
+    }
+    else {
+      _lastUsed++;
+      id = _lastUsed;
+      _auxiliaries.put(key, id);
+    }
+    purge();
+    Variable ret = new Variable(id, source, index);
+    _provenance.put(id, new Provenance(ret, _collected));
+    return ret;
+  }
+
+  private Variable(int id, VariableSource source, int index) {
+    _id = id;
+    _name = null;
+    _source = source;
+    _index = index;
+  }
+
+  /** Creates an auxiliary variable whose source is no longer known. */
+  private Variable(int id) {
+    this(id, null, 0);
+  }
+
   /**
    * This creates a variable with the given name.
    * If the name was previously used, the corresponding ID will be the same as the previous one
    * with that name.  If it wasn't used, a fresh ID is generated.
    */
   public Variable(String name) {
-    if (_nameToId.containsKey(name)) {
+    synchronized (Variable.class) {
       _name = name;
-      _id = _nameToId.get(name);
-    }
-    else {
-      _lastUsed++;
-      _id = _lastUsed;
-      _name = name;
-      _nameToId.put(_name, _id);
+      _source = null;
+      _index = 0;
+      if (_nameToId.containsKey(name)) _id = _nameToId.get(name);
+      else {
+        _lastUsed++;
+        _id = _lastUsed;
+        _nameToId.put(_name, _id);
+      }
     }
   }
 
@@ -76,14 +196,50 @@ public class Variable implements Comparable<Variable> {
     return compareTo(x) == 0;
   }
 
+  /**
+   * Returns whether this is an auxiliary variable (created by a VariableSource) rather than a
+   * variable created by name.
+   */
+  public boolean queryAuxiliary() {
+    return _name == null;
+  }
+
   /** @return the variable's unique identifier */
   public int queryIndex() {
     return _id;
   }
 
+  /**
+   * Returns the source of an auxiliary variable, or null for a variable created by name, or an
+   * auxiliary variable whose source was forgotten.
+   */
+  public VariableSource querySource() {
+    return _source;
+  }
+
+  /**
+   * Returns whether the name of the variable can be reconstructed; this is only false for
+   * auxiliary variables which were returned by queryAuxiliaryVariables after being forgotten.
+   */
+  public boolean queryNameAvailable() {
+    return _name != null || _source != null;
+  }
+
+  /**
+   * Returns a fingerprint which identifies the variable: the fingerprint of its name for a
+   * variable created by name, and of its source and index for an auxiliary variable.
+   */
+  public Fingerprint queryFingerprint() {
+    if (_name != null) return new Fingerprint(_name);
+    if (_source != null) return _source.queryFingerprint().extend(_index);
+    return new Fingerprint("⟦aux⟧").extend(_id);
+  }
+
   /** @return the variable's name */
   public String toString() {
-    return _name;
+    if (_name != null) return _name;
+    if (_source != null) return _source.queryVariableName(_index);
+    return "⟦aux " + _id + "⟧";
   }
 }
 
@@ -0,0 +1,148 @@
+package logic.sat;
+
+import java.util.ArrayList;
+
+/**
+ * A VariableNumbering maps the indexes of the variables which actually occur in a list of clauses
+ * to a dense range 1..n, and back.  Variables are created in many places during grounding (for
+ * instance for the bounds of range integers) without necessarily ending up in a clause; by
+ * renumbering before sending the problem to a SAT solver, the header of the DIMACS file does not
+ * count these holes, so the solver does not allocate memory for them.
+ *
+ * The numbering either keeps the original order of the variables, or orders them by a breadth
+ * first search over the clause graph, so that variables which occur in the same clauses tend to
+ * get nearby indexes.
+ */
+public class VariableNumbering {
+  private int[] _toDense;
+  private int[] _toOriginal;
+  private int _size;
+
+  /**
+   * Creates a numbering for the variables occurring in the given clauses.  If locality is true,
+   * variables are numbered in breadth-first order over the clause graph; otherwise the original
+   * order is kept.
+   */
+  public VariableNumbering(ArrayList<Clause> clauses, boolean locality) {
+    int max = 0;
+    for (int i = 0; i < clauses.size(); i++) {
+      int top = clauses.get(i).getHighestAtomIdentifier();
+      if (top > max) max = top;
+    }
+    _toDense = new int[max + 1];
+    _toOriginal = new int[max + 1];
+    _size = 0;
+    if (locality) numberByLocality(clauses, max);
+    else numberInOrder(clauses, max);
+  }
+
+  /**
+   * Creates a numbering for the variables occurring in the clauses of the given arena, keeping
+   * their original order.  (A locality-based order would need random access to the clauses,
+   * which an arena does not offer.)
+   */
+  public VariableNumbering(ClauseArena arena) {
+    int max = arena.queryHighestVariable();
+    _toDense = new int[max + 1];
+    _toOriginal = new int[max + 1];
+    _size = 0;
+    boolean[] used = new boolean[max + 1];
+    ClauseArena.Reader reader = arena.reader();
+    while (reader.nextClause()) {
+      for (int j = 0; j < reader.length(); j++) used[Math.abs(reader.queryLiteral(j))] = true;
+    }
+    for (int x = 1; x <= max; x++) {
+      if (used[x]) assign(x);
+    }
+  }
+
+  private void assign(int original) {
+    _size++;
+    _toDense[original] = _size;
+    _toOriginal[_size] = original;
+  }
+
+  /** Numbers all used variables, keeping their original order. */
+  private void numberInOrder(ArrayList<Clause> clauses, int max) {
+    boolean[] used = new boolean[max + 1];
+    for (int i = 0; i < clauses.size(); i++) {
+      Clause c = clauses.get(i);
+      for (int j = 0; j < c.size(); j++) used[c.queryIndex(j)] = true;
+    }
+    for (int x = 1; x <= max; x++) {
+      if (used[x]) assign(x);
+    }
+  }
+
+  /**
+   * Numbers all used variables in the order they are reached by a breadth-first search over the
+   * clause graph, where two variables are neighbours if they occur in the same clause.  The search
+   * is started from the lowest-numbered variable that has not been reached yet.
+   */
+  private void numberByLocality(ArrayList<Clause> clauses, int max) {
+    // for every variable, the clauses it occurs in, stored in compressed form: the clauses for
+    // variable x are occurrences[start[x]..start[x+1]-1]
+    int[] start = new int[max + 2];
+    for (int i = 0; i < clauses.size(); i++) {
+      Clause c = clauses.get(i);
+      for (int j = 0; j < c.size(); j++) start[c.queryIndex(j) + 1]++;
+    }
+    for (int x = 1; x <= max + 1; x++) start[x] += start[x-1];
+    int[] occurrences = new int[start[max + 1]];
+    int[] fill = new int[max + 1];
+    for (int i = 0; i < clauses.size(); i++) {
+      Clause c = clauses.get(i);
+      for (int j = 0; j < c.size(); j++) {
+        int x = c.queryIndex(j);
+        occurrences[start[x] + fill[x]] = i;
+        fill[x]++;
+      }
+    }
+
+    boolean[] clauseDone = new boolean[clauses.size()];
+    int[] queue = new int[max + 1];
+    for (int root = 1; root <= max; root++) {
+      if (start[root] == start[root + 1] || _toDense[root] != 0) continue;
+      int head = 0, tail = 0;
+      queue[tail++] = root;
+      assign(root);
+      while (head < tail) {
+        int x = queue[head++];
+        for (int k = start[x]; k < start[x + 1]; k++) {
+          int ci = occurrences[k];
+          if (clauseDone[ci]) continue;
+          clauseDone[ci] = true;
+          Clause c = clauses.get(ci);
+          for (int j = 0; j < c.size(); j++) {
+            int y = c.queryIndex(j);
+            if (_toDense[y] == 0) {
+              assign(y);
+              queue[tail++] = y;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Returns the number of variables in the numbering. */
+  public int size() {
+    return _size;
+  }
+
+  /** Returns the new index of the variable with the given original index. */
+  public int queryDense(int original) {
+    if (original <= 0 || original >= _toDense.length || _toDense[original] == 0) {
+      throw new Error("Variable " + original + " does not occur in the renumbered clauses.");
+    }
+    return _toDense[original];
+  }
+
+  /** Returns the original index of the variable with the given new index. */
+  public int queryOriginal(int dense) {
+    if (dense <= 0 || dense > _size) {
+      throw new Error("Index " + dense + " is not part of the numbering.");
+    }
+    return _toOriginal[dense];
+  }
+}
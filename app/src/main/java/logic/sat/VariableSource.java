@@ -0,0 +1,19 @@
+package logic.sat;
+
+/**
+ * A VariableSource is an object which creates auxiliary variables, and can reconstruct their
+ * names.  Auxiliary variables only store their source and an index, so the (often long) name is
+ * only built when it is needed, for instance to print the clauses for debugging.
+ *
+ * Auxiliary variables are identified by the fingerprint of their source together with their
+ * index: two sources with the same fingerprint are considered to create the same variables.  The
+ * fingerprint should therefore describe the source structurally, and it should be cheap to
+ * compute -- so it should not be computed from the variable names.
+ */
+public interface VariableSource {
+  /** Returns the human-readable name of the auxiliary variable with the given index. */
+  public String queryVariableName(int index);
+
+  /** Returns a fingerprint which identifies the source structurally (see Fingerprint). */
+  public Fingerprint queryFingerprint();
+}
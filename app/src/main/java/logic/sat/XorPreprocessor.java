@@ -0,0 +1,267 @@
+package logic.sat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The XorPreprocessor recovers parity constraints from the clauses of a grounded problem, and
+ * combines them by Gauss-Jordan elimination to derive short consequences that clausal reasoning
+ * would find hard to see.
+ *
+ * A parity constraint x1 ⊕ ... ⊕ xk = 1 is encoded by the 2^(k-1) clauses which each exclude one
+ * assignment with an even number of true variables (and similarly for parity 0).  Such groups of
+ * clauses are produced by the Xor formulas, but also by the binary adders of BinaryPlus (for every
+ * sum bit, sum ⊕ carry ⊕ left ⊕ right = 0).  The preprocessor looks for complete groups over at
+ * most MAX_RECOVER variables; unit clauses are parity constraints over a single variable.
+ *
+ * The recovered constraints are split into independent components, and each component is brought
+ * into reduced row echelon form, using rows of bits packed into longs.  A zero row with parity 1
+ * means that the problem is unsatisfiable.  Rows with at most MAX_DERIVED variables which were not
+ * known before (units, equivalences and short parity constraints) are added as clauses.  The
+ * recovered constraints over three variables or more are also registered with the SatProblem, so
+ * they can be given to solvers which support parity constraints natively.
+ */
+public class XorPreprocessor {
+  /** The largest number of variables of a parity constraint recovered from the clauses. */
+  private static final int MAX_RECOVER = 5;
+  /** The largest number of variables of a derived parity constraint that is added as clauses. */
+  private static final int MAX_DERIVED = 3;
+  /** Components whose matrix has more bits than this are not eliminated. */
+  private static final long MAX_MATRIX = 1L << 26;
+
+  /** A parity constraint: the sum of the variables (sorted by index) modulo 2 is 1 if odd. */
+  private static class Parity {
+    int[] vars;
+    boolean odd;
+
+    Parity(int[] v, boolean o) {
+      vars = v;
+      odd = o;
+    }
+
+    String key() {
+      return Arrays.toString(vars) + (odd ? "1" : "0");
+    }
+  }
+
+  private ArrayList<Parity> _recovered;
+  private int _derived;
+  private boolean _conflict;
+
+  public XorPreprocessor() {
+    _recovered = new ArrayList<Parity>();
+    _derived = 0;
+    _conflict = false;
+  }
+
+  /** Returns the number of parity constraints found by the last call to simplify. */
+  public int queryNumberRecovered() {
+    return _recovered.size();
+  }
+
+  /** Returns the number of clauses added by the last call to simplify. */
+  public int queryNumberDerived() {
+    return _derived;
+  }
+
+  /** Returns whether the last call to simplify found the problem to be unsatisfiable. */
+  public boolean queryConflict() {
+    return _conflict;
+  }
+
+  /**
+   * Recovers the parity constraints from the problem, and adds the clauses derived from them.
+   * Returns the number of clauses added.
+   */
+  public int simplify(SatProblem problem) {
+    _recovered = recover(problem.queryClauseLiterals());
+    _derived = 0;
+    _conflict = false;
+    if (_recovered.size() == 0) return 0;
+    HashSet<String> known = new HashSet<String>();
+    for (Parity p : _recovered) known.add(p.key());
+    TreeMap<Integer,Variable> variables = Variable.queryVariables();
+    for (ArrayList<Parity> component : components(_recovered)) {
+      for (Parity p : eliminate(component)) {
+        if (p.vars.length == 0) {
+          _conflict = true;
+          problem.addClause(new Clause());
+          _derived++;
+        }
+        else if (!known.contains(p.key())) {
+          known.add(p.key());
+          _derived += addParityClauses(p, variables, problem);
+        }
+      }
+    }
+    for (Parity p : _recovered) {
+      if (p.vars.length >= 3) problem.addXor(p.vars, p.odd);
+    }
+    System.err.println("Xor reasoning: recovered " + _recovered.size() + " parity constraints, " +
+      "derived " + _derived + " clauses.");
+    return _derived;
+  }
+
+  /**
+   * Finds the complete groups of clauses over the same variables which together state a parity
+   * constraint.  A clause over the sorted variables x1,...,xk is identified by its sign mask: bit i
+   * is set if xi occurs negatively, so the clause excludes exactly the assignment where xi is true
+   * iff bit i is set.
+   */
+  private static ArrayList<Parity> recover(int[][] clauses) {
+    LinkedHashMap<String,int[]> groupVars = new LinkedHashMap<String,int[]>();
+    HashMap<String,HashSet<Integer>> groupMasks = new HashMap<String,HashSet<Integer>>();
+    for (int[] clause : clauses) {
+      if (clause.length == 0 || clause.length > MAX_RECOVER) continue;
+      int[] lits = clause.clone();
+      for (int j = 0; j < lits.length; j++) lits[j] = Math.abs(lits[j]);
+      Arrays.sort(lits);
+      boolean distinct = true;
+      for (int j = 1; j < lits.length; j++) distinct = distinct && lits[j] != lits[j-1];
+      if (!distinct) continue;
+      int mask = 0;
+      for (int lit : clause) {
+        if (lit < 0) mask |= 1 << Arrays.binarySearch(lits, -lit);
+      }
+      String key = Arrays.toString(lits);
+      if (!groupVars.containsKey(key)) {
+        groupVars.put(key, lits);
+        groupMasks.put(key, new HashSet<Integer>());
+      }
+      groupMasks.get(key).add(mask);
+    }
+    ArrayList<Parity> ret = new ArrayList<Parity>();
+    for (Map.Entry<String,int[]> entry : groupVars.entrySet()) {
+      int[] vars = entry.getValue();
+      HashSet<Integer> masks = groupMasks.get(entry.getKey());
+      if (masks.size() < (1 << (vars.length - 1))) continue;
+      // parity 1 excludes all even assignments; parity 0 all odd ones
+      for (int parity = 0; parity < 2; parity++) {
+        boolean complete = true;
+        for (int mask = 0; mask < (1 << vars.length) && complete; mask++) {
+          if (Integer.bitCount(mask) % 2 != parity) continue;
+          complete = masks.contains(mask);
+        }
+        if (complete) ret.add(new Parity(vars, parity == 0));
+      }
+    }
+    return ret;
+  }
+
+  /** Splits the parity constraints into groups that share no variables, using union-find. */
+  private static ArrayList<ArrayList<Parity>> components(ArrayList<Parity> parities) {
+    HashMap<Integer,Integer> parent = new HashMap<Integer,Integer>();
+    for (Parity p : parities) {
+      for (int x : p.vars) {
+        if (!parent.containsKey(x)) parent.put(x, x);
+      }
+      for (int j = 1; j < p.vars.length; j++) {
+        parent.put(find(parent, p.vars[j]), find(parent, p.vars[0]));
+      }
+    }
+    LinkedHashMap<Integer,ArrayList<Parity>> groups =
+      new LinkedHashMap<Integer,ArrayList<Parity>>();
+    for (Parity p : parities) {
+      int root = find(parent, p.vars[0]);
+      if (!groups.containsKey(root)) groups.put(root, new ArrayList<Parity>());
+      groups.get(root).add(p);
+    }
+    return new ArrayList<ArrayList<Parity>>(groups.values());
+  }
+
+  private static int find(HashMap<Integer,Integer> parent, int x) {
+    int root = x;
+    while (parent.get(root).intValue() != root) root = parent.get(root);
+    while (x != root) {
+      int next = parent.get(x);
+      parent.put(x, root);
+      x = next;
+    }
+    return root;
+  }
+
+  /**
+   * Brings the given parity constraints into reduced row echelon form, and returns the nonzero
+   * rows, followed by an empty constraint with parity 1 if the constraints are inconsistent.  If
+   * the matrix is too large, nothing is returned.
+   */
+  private static ArrayList<Parity> eliminate(ArrayList<Parity> parities) {
+    ArrayList<Parity> ret = new ArrayList<Parity>();
+    TreeMap<Integer,Integer> columns = new TreeMap<Integer,Integer>();
+    for (Parity p : parities) {
+      for (int x : p.vars) columns.put(x, 0);
+    }
+    if ((long)parities.size() * columns.size() > MAX_MATRIX) return ret;
+    int[] variable = new int[columns.size()];
+    int col = 0;
+    for (Map.Entry<Integer,Integer> entry : columns.entrySet()) {
+      entry.setValue(col);
+      variable[col++] = entry.getKey();
+    }
+    int words = (variable.length + 63) / 64;
+    long[][] rows = new long[parities.size()][words];
+    boolean[] rhs = new boolean[parities.size()];
+    for (int i = 0; i < parities.size(); i++) {
+      for (int x : parities.get(i).vars) {
+        int c = columns.get(x);
+        rows[i][c / 64] ^= 1L << (c % 64);
+      }
+      rhs[i] = parities.get(i).odd;
+    }
+    int rank = 0;
+    for (int c = 0; c < variable.length && rank < rows.length; c++) {
+      long bit = 1L << (c % 64);
+      int pivot = rank;
+      while (pivot < rows.length && (rows[pivot][c / 64] & bit) == 0) pivot++;
+      if (pivot == rows.length) continue;
+      long[] tmp = rows[pivot]; rows[pivot] = rows[rank]; rows[rank] = tmp;
+      boolean b = rhs[pivot]; rhs[pivot] = rhs[rank]; rhs[rank] = b;
+      for (int i = 0; i < rows.length; i++) {
+        if (i == rank || (rows[i][c / 64] & bit) == 0) continue;
+        for (int w = c / 64; w < words; w++) rows[i][w] ^= rows[rank][w];
+        rhs[i] ^= rhs[rank];
+      }
+      rank++;
+    }
+    for (int i = 0; i < rank; i++) {
+      ArrayList<Integer> vars = new ArrayList<Integer>();
+      for (int c = 0; c < variable.length && vars.size() <= MAX_DERIVED; c++) {
+        if ((rows[i][c / 64] & (1L << (c % 64))) != 0) vars.add(variable[c]);
+      }
+      if (vars.size() > MAX_DERIVED) continue;
+      int[] arr = new int[vars.size()];
+      for (int j = 0; j < arr.length; j++) arr[j] = vars.get(j);
+      ret.add(new Parity(arr, rhs[i]));
+    }
+    for (int i = rank; i < rows.length; i++) {
+      if (rhs[i]) {
+        ret.add(new Parity(new int[0], true));
+        break;
+      }
+    }
+    return ret;
+  }
+
+  /** Adds the clauses stating the given parity constraint to col, and returns how many. */
+  private static int addParityClauses(Parity p, TreeMap<Integer,Variable> variables,
+                                      ClauseCollection col) {
+    int count = 0;
+    for (int mask = 0; mask < (1 << p.vars.length); mask++) {
+      if ((Integer.bitCount(mask) % 2 == 1) == p.odd) continue;
+      ArrayList<Atom> parts = new ArrayList<Atom>();
+      for (int j = 0; j < p.vars.length; j++) {
+        Variable x = variables.get(p.vars[j]);
+        if (x == null) throw new Error("Unknown variable index in parity constraint: " + p.vars[j]);
+        parts.add(new Atom(x, (mask & (1 << j)) == 0));
+      }
+      col.addClause(new Clause(parts));
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,66 @@
+package logic.sat.solver;
+
+import logic.sat.Solution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.TreeSet;
+
+/**
+ * A CompetitionSolver is a solver which follows the output format of the SAT competition: it is
+ * called as "solver problem", and prints a line "s SATISFIABLE", "s UNSATISFIABLE" or
+ * "s UNKNOWN" on standard output, followed (if satisfiable) by lines "v lit lit ..." giving the
+ * assignment, terminated by 0.  Comment lines start with "c".
+ */
+public class CompetitionSolver extends ExternalSolver {
+  public CompetitionSolver(String executable) {
+    super(executable);
+  }
+
+  protected List<String> queryArguments(Path problem, Path output) {
+    ArrayList<String> ret = new ArrayList<String>();
+    ret.add(problem.toString());
+    return ret;
+  }
+
+  protected boolean answerOnStdout() {
+    return true;
+  }
+
+  public Solution decode(SolverRun run) {
+    if (run.queryStatus() != SolverRun.FINISHED) return null;
+    String status = null;
+    TreeSet<Integer> set = new TreeSet<Integer>();
+    try (Scanner reader = new Scanner(run.queryOutput())) {
+      while (reader.hasNextLine()) {
+        String line = reader.nextLine().trim();
+        if (line.startsWith("s ")) status = line.substring(2).trim();
+        else if (line.startsWith("v ")) {
+          for (String lit : line.substring(2).trim().split("\\s+")) {
+            int num = Integer.parseInt(lit);
+            if (num > 0) set.add(num);
+          }
+        }
+      }
+    }
+    catch (IOException e) {
+      System.out.println("Error reading solver output: " + e.getMessage());
+      return null;
+    }
+    catch (NumberFormatException e) {
+      System.out.println("Malformed solver output: " + e.getMessage());
+      return null;
+    }
+    if (status == null) {
+      System.out.println("Solver output contains no status line.");
+      return null;
+    }
+    if (status.equals("UNSATISFIABLE")) return new Solution(null);
+    if (status.equals("SATISFIABLE")) return new Solution(set);
+    if (!status.equals("UNKNOWN")) System.out.println("Unexpected answer: " + status);
+    return null;
+  }
+}
@@ -0,0 +1,412 @@
+package logic.sat.solver;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ComponentSolver splits a SatProblem into independent parts, which share no variables, and
+ * solves them at the same time.  This helps when a program consists of several unrelated puzzles:
+ * the total time is then roughly that of the hardest one, rather than that of all of them together.
+ *
+ * The components are found with union-find over the variables of each clause.  Components with at
+ * most smallLimit variables are solved inside the program, by a simple DPLL search; the others are
+ * written to their own problem files and divided over the backends, largest first.  The problem is
+ * satisfiable if and only if every component is, and the models of the components together form a
+ * model of the whole problem.
+ */
+public class ComponentSolver {
+  private ArrayList<SolverBackend> _workers;
+  private int _smallLimit;
+
+  /** A component that is solved by a backend, with the variables that occur in it. */
+  private static class Component {
+    SatProblem problem;
+    int[] vars;
+
+    Component(SatProblem p, int[] v) {
+      problem = p;
+      vars = v;
+    }
+  }
+
+  // the state of a single solve() call, guarded by this
+  private ArrayDeque<Component> _queue;
+  private TreeSet<Integer> _trueVariables;
+  private boolean _unsatisfiable;
+  private boolean _failed;
+
+  /**
+   * Creates a solver which divides the large components over the given backends, and solves
+   * components with at most smallLimit variables itself.
+   */
+  public ComponentSolver(ArrayList<SolverBackend> workers, int smallLimit) {
+    if (workers.size() == 0) throw new Error("Component solving needs at least one worker.");
+    _workers = new ArrayList<SolverBackend>(workers);
+    _smallLimit = smallLimit;
+    _queue = null;
+  }
+
+  /**
+   * Returns the components of the given clauses over the variables 1..n, as lists of clause
+   * numbers, ordered by their first clause.  Clauses without variables are left out.
+   */
+  static ArrayList<ArrayList<Integer>> queryComponents(int[][] clauses, int n) {
+    int[] parent = new int[n + 1];
+    for (int x = 0; x <= n; x++) parent[x] = x;
+    for (int[] clause : clauses) {
+      for (int j = 1; j < clause.length; j++) {
+        int a = find(parent, Math.abs(clause[0]));
+        int b = find(parent, Math.abs(clause[j]));
+        if (a != b) parent[b] = a;
+      }
+    }
+    TreeMap<Integer,ArrayList<Integer>> groups = new TreeMap<Integer,ArrayList<Integer>>();
+    int[] first = new int[n + 1];
+    for (int c = 0; c < clauses.length; c++) {
+      if (clauses[c].length == 0) continue;
+      int root = find(parent, Math.abs(clauses[c][0]));
+      if (first[root] == 0) {
+        first[root] = c + 1;
+        groups.put(c, new ArrayList<Integer>());
+      }
+      groups.get(first[root] - 1).add(c);
+    }
+    return new ArrayList<ArrayList<Integer>>(groups.values());
+  }
+
+  private static int find(int[] parent, int x) {
+    while (parent[x] != x) {
+      parent[x] = parent[parent[x]];
+      x = parent[x];
+    }
+    return x;
+  }
+
+  /** Returns the variables occurring in the given clauses, in increasing order. */
+  private static int[] queryVariables(int[][] clauses, ArrayList<Integer> component) {
+    TreeSet<Integer> vars = new TreeSet<Integer>();
+    for (int c : component) {
+      for (int lit : clauses[c]) vars.add(Math.abs(lit));
+    }
+    int[] ret = new int[vars.size()];
+    int i = 0;
+    for (int x : vars) ret[i++] = x;
+    return ret;
+  }
+
+  /**
+   * Solves the problem, and returns a solution, a Solution without assignment if the problem is
+   * unsatisfiable, or null if this could not be determined.  No clauses should be added to the
+   * problem while this is running.  The phases measured by the workers are added to stats, with
+   * the prefix "components ".
+   */
+  public Solution solve(SatProblem problem, Statistics stats) {
+    return solve(problem, stats, new int[0]);
+  }
+
+  /**
+   * Solves the problem like solve(problem, stats), but additionally requires the given literals
+   * to hold.  They are added as unit clauses to the components of their variables.
+   */
+  public Solution solve(SatProblem problem, Statistics stats, int[] assumptions) {
+    stats.startPhase("components", problem);
+    int[][] clauses = problem.queryClauseLiterals(assumptions);
+    int n = problem.queryNumberVariables();
+    for (int lit : assumptions) n = Math.max(n, Math.abs(lit));
+    ArrayList<ArrayList<Integer>> components = queryComponents(clauses, n);
+    ArrayList<ArrayList<Integer>> small = new ArrayList<ArrayList<Integer>>();
+    ArrayList<Component> large = new ArrayList<Component>();
+    boolean empty = false;
+    for (int[] clause : clauses) empty = empty || clause.length == 0;
+    if (!empty && components.size() == 1 && queryVariables(clauses, components.get(0)).length >
+        _smallLimit) {
+      stats.endPhase();
+      return problem.solve(stats, _workers.get(0), assumptions);
+    }
+    if (empty) {
+      stats.endPhase();
+      return new Solution(null);
+    }
+    TreeMap<Integer,Variable> variables = Variable.queryVariables();
+    for (ArrayList<Integer> component : components) {
+      int[] vars = queryVariables(clauses, component);
+      if (vars.length <= _smallLimit) small.add(component);
+      else large.add(new Component(createProblem(clauses, component, variables), vars));
+    }
+    large.sort(new Comparator<Component>() {
+      public int compare(Component a, Component b) {
+        return Integer.compare(b.problem.queryNumberClauses(), a.problem.queryNumberClauses());
+      }
+    });
+    stats.endPhase();
+
+    synchronized (this) {
+      _queue = new ArrayDeque<Component>(large);
+      _trueVariables = new TreeSet<Integer>();
+      _unsatisfiable = false;
+      _failed = false;
+    }
+    System.err.println("Solving " + components.size() + " components (" + small.size() +
+      " in-process) with " + _workers.size() + " workers...");
+
+    stats.startPhase("solve", null);
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    ArrayList<Statistics> measurements = new ArrayList<Statistics>();
+    for (int i = 0; i < _workers.size() && i < large.size(); i++) {
+      final SolverBackend backend = _workers.get(i);
+      final Statistics measurement = new Statistics();
+      measurements.add(measurement);
+      Thread thread = new Thread(new Runnable() {
+        public void run() { work(backend, measurement); }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (ArrayList<Integer> component : small) {
+      if (queryFinished()) break;
+      boolean[] model = (new Dpll(clauses, component)).search();
+      if (model == null) unsatisfiable();
+      else {
+        TreeSet<Integer> trueVariables = new TreeSet<Integer>();
+        int[] vars = queryVariables(clauses, component);
+        for (int i = 0; i < vars.length; i++) {
+          if (model[i]) trueVariables.add(vars[i]);
+        }
+        addModel(trueVariables);
+      }
+    }
+    // a backend only cancels a run that has already started, so once the search is over we keep
+    // cancelling until every worker has noticed
+    try {
+      for (Thread thread : threads) {
+        while (thread.isAlive()) {
+          thread.join(100);
+          if (queryFinished()) {
+            for (SolverBackend backend : _workers) backend.cancel();
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      failed();
+      Thread.currentThread().interrupt();
+    }
+    stats.endPhase();
+    for (int i = 0; i < threads.size(); i++) {
+      if (!threads.get(i).isAlive()) stats.mergePhases(measurements.get(i), "components ");
+    }
+    synchronized (this) {
+      // the workers close the problems of the components they took
+      for (Component component : _queue) component.problem.close();
+      _queue = null;
+      if (_unsatisfiable) return new Solution(null);
+      if (_failed) return null;
+      return new Solution(_trueVariables);
+    }
+  }
+
+  /** Creates a SatProblem with the given clauses. */
+  private static SatProblem createProblem(int[][] clauses, ArrayList<Integer> component,
+                                          TreeMap<Integer,Variable> variables) {
+    SatProblem ret = new SatProblem();
+    for (int c : component) {
+      ArrayList<Atom> parts = new ArrayList<Atom>();
+      for (int lit : clauses[c]) {
+        Variable x = variables.get(Math.abs(lit));
+        if (x == null) throw new Error("Unknown variable index in clause: " + Math.abs(lit));
+        parts.add(new Atom(x, lit > 0));
+      }
+      ret.addClause(new Clause(parts));
+    }
+    return ret;
+  }
+
+  /** Returns a description of the settings, which determine which solution may be found. */
+  public String toString() {
+    StringBuilder ret = new StringBuilder("components " + _smallLimit);
+    for (SolverBackend worker : _workers) ret.append(" worker " + worker.queryName());
+    return ret.toString();
+  }
+
+  /**
+   * Stops the current search, which then returns null.  This may be called from another thread;
+   * if no search is going on, nothing happens.
+   */
+  public void cancel() {
+    synchronized (this) {
+      if (_queue == null) return;
+    }
+    failed();
+  }
+
+  /** Returns whether some component is unsatisfiable, or the search has failed. */
+  private synchronized boolean queryFinished() {
+    return _unsatisfiable || _failed;
+  }
+
+  /** Returns the next large component to solve, or null if there is none or the search is over. */
+  private synchronized Component takeComponent() {
+    if (_unsatisfiable || _failed) return null;
+    return _queue.pollFirst();
+  }
+
+  /** Records the true variables in the model of a component. */
+  private synchronized void addModel(TreeSet<Integer> trueVariables) {
+    _trueVariables.addAll(trueVariables);
+  }
+
+  /** Records that a component is unsatisfiable, and stops all workers. */
+  private void unsatisfiable() {
+    synchronized (this) {
+      if (_unsatisfiable) return;
+      _unsatisfiable = true;
+    }
+    for (SolverBackend backend : _workers) backend.cancel();
+  }
+
+  /** Records that a component could not be solved, and stops all workers. */
+  private void failed() {
+    synchronized (this) {
+      if (_unsatisfiable || _failed) return;
+      _failed = true;
+    }
+    for (SolverBackend backend : _workers) backend.cancel();
+  }
+
+  /** The main loop of a worker thread, which records its phases in stats. */
+  private void work(SolverBackend backend, Statistics stats) {
+    for (Component component = takeComponent(); component != null;
+         component = takeComponent()) {
+      Solution sol = component.problem.solve(stats, backend);
+      component.problem.close();
+      if (queryFinished()) return;
+      if (sol == null) failed();
+      else if (!sol.querySatisfiable()) unsatisfiable();
+      else {
+        TreeSet<Integer> trueVariables = new TreeSet<Integer>();
+        for (int x : component.vars) {
+          if (sol.check(x)) trueVariables.add(x);
+        }
+        addModel(trueVariables);
+      }
+    }
+  }
+
+  /**
+   * A DPLL search with unit propagation for a small component.  The variables are numbered
+   * 0..k-1 in the order of their original indexes.
+   */
+  private static class Dpll {
+    private int[][] _clauses;
+    private int _numVars;
+    private int[] _value;    // 1 for true, -1 for false, 0 if unassigned
+    private int[] _trail;
+    private int _trailSize;
+
+    Dpll(int[][] clauses, ArrayList<Integer> component) {
+      int[] vars = queryVariables(clauses, component);
+      TreeMap<Integer,Integer> local = new TreeMap<Integer,Integer>();
+      for (int i = 0; i < vars.length; i++) local.put(vars[i], i + 1);
+      _clauses = new int[component.size()][];
+      for (int c = 0; c < component.size(); c++) {
+        int[] clause = clauses[component.get(c)];
+        _clauses[c] = new int[clause.length];
+        for (int j = 0; j < clause.length; j++) {
+          int x = local.get(Math.abs(clause[j]));
+          _clauses[c][j] = clause[j] > 0 ? x : -x;
+        }
+      }
+      _numVars = vars.length;
+      _value = new int[_numVars + 1];
+      _trail = new int[_numVars];
+      _trailSize = 0;
+    }
+
+    private int valueOf(int lit) {
+      return lit > 0 ? _value[lit] : -_value[-lit];
+    }
+
+    private void assign(int lit) {
+      _value[Math.abs(lit)] = lit > 0 ? 1 : -1;
+      _trail[_trailSize++] = Math.abs(lit);
+    }
+
+    private void undo(int size) {
+      while (_trailSize > size) _value[_trail[--_trailSize]] = 0;
+    }
+
+    /** Assigns the unit literals until nothing changes, and returns false on a conflict. */
+    private boolean propagate() {
+      for (boolean changed = true; changed; ) {
+        changed = false;
+        for (int[] clause : _clauses) {
+          int unassigned = 0, last = 0;
+          boolean satisfied = false;
+          for (int lit : clause) {
+            int v = valueOf(lit);
+            if (v > 0) { satisfied = true; break; }
+            if (v == 0) { unassigned++; last = lit; }
+          }
+          if (satisfied) continue;
+          if (unassigned == 0) return false;
+          if (unassigned == 1) {
+            assign(last);
+            changed = true;
+          }
+        }
+      }
+      return true;
+    }
+
+    /** Returns an unassigned variable in an unsatisfied clause, or 0 if all clauses hold. */
+    private int chooseVariable() {
+      for (int[] clause : _clauses) {
+        int choice = 0;
+        boolean satisfied = false;
+        for (int lit : clause) {
+          int v = valueOf(lit);
+          if (v > 0) satisfied = true;
+          else if (v == 0 && choice == 0) choice = Math.abs(lit);
+        }
+        if (!satisfied) return choice;
+      }
+      return 0;
+    }
+
+    private boolean solve() {
+      int size = _trailSize;
+      if (!propagate()) {
+        undo(size);
+        return false;
+      }
+      int x = chooseVariable();
+      if (x == 0) return true;
+      for (int lit : new int[] { -x, x }) {
+        int before = _trailSize;
+        assign(lit);
+        if (solve()) return true;
+        undo(before);
+      }
+      undo(size);
+      return false;
+    }
+
+    /** Returns a model, with entry i for local variable i+1, or null if there is none. */
+    boolean[] search() {
+      if (!solve()) return null;
+      boolean[] ret = new boolean[_numVars];
+      for (int i = 0; i < _numVars; i++) ret[i] = _value[i + 1] > 0;
+      return ret;
+    }
+  }
+}
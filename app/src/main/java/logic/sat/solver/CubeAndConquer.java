@@ -0,0 +1,308 @@
+package logic.sat.solver;
+
+import logic.sat.Variable;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CubeAndConquer solves a SatProblem with several solvers at the same time.  The problem is
+ * split into cubes: for the first few splitting variables, every combination of values is a
+ * cube, which is passed to a solver as assumptions.  The problem is satisfiable if and only if
+ * some cube is, so the search stops at the first satisfiable cube, and reports unsatisfiability
+ * only once every cube has been refuted.
+ *
+ * Every worker has its own backend, and takes the next cube from a shared queue whenever it is
+ * idle.  If a cube time is set and a worker does not finish a cube in that time, the cube is split
+ * on the next splitting variable, and both halves are put at the front of the queue, so idle
+ * workers can take over part of the work.
+ *
+ * The splitting variables are either those whose names start with one of the given prefixes, or
+ * otherwise all variables; in both cases they are ordered by how much assigning them simplifies
+ * the problem (see SatProblem.queryLiteralScores).
+ */
+public class CubeAndConquer {
+  private ArrayList<SolverBackend> _workers;
+  private int _depth;
+  private long _cubeTime;
+  private ArrayList<String> _prefixes;
+
+  // the state of a single solve() call, guarded by this
+  private boolean _active;
+  private ArrayDeque<int[]> _queue;
+  private int _pending;
+  private Solution _answer;
+  private boolean _failed;
+
+  /**
+   * Creates a solver which divides the work over the given backends, starting with cubes that
+   * assign depth variables.  If cubeTime is positive, cubes that take longer than that many
+   * milliseconds are split further.
+   */
+  public CubeAndConquer(ArrayList<SolverBackend> workers, int depth, long cubeTime) {
+    if (workers.size() == 0) throw new Error("Cube and conquer needs at least one worker.");
+    _workers = new ArrayList<SolverBackend>(workers);
+    _depth = depth;
+    _cubeTime = cubeTime;
+    _prefixes = new ArrayList<String>();
+    _active = false;
+    _queue = null;
+  }
+
+  /**
+   * Splits only on the variables with the given name, or the instances or bits of the
+   * parametrised or integer variable by that name (so poolof also matches poolof[3] and
+   * poolof[3]≥2).
+   */
+  public void addSplittingPrefix(String name) {
+    _prefixes.add(name);
+  }
+
+  /** Returns whether the given variable name belongs to one of the splitting prefixes. */
+  private boolean matchesPrefix(String name) {
+    for (String prefix : _prefixes) {
+      if (name.equals(prefix) || name.startsWith(prefix + "[") || name.startsWith(prefix + "≥") ||
+          name.startsWith(prefix + "⟨")) return true;
+    }
+    return false;
+  }
+
+  /** Returns the splitting variables that occur in the problem, best first. */
+  ArrayList<Integer> querySplittingOrder(SatProblem problem) {
+    final double[] scores = problem.queryLiteralScores();
+    ArrayList<Integer> ret = new ArrayList<Integer>();
+    if (_prefixes.isEmpty()) {
+      for (int x = 1; 2 * x + 1 < scores.length; x++) ret.add(x);
+    }
+    else {
+      for (Map.Entry<Integer,String> e : Variable.queryNamedVariables().entrySet()) {
+        int x = e.getKey();
+        if (matchesPrefix(e.getValue()) && 2 * x + 1 < scores.length) ret.add(x);
+      }
+    }
+    ArrayList<Integer> used = new ArrayList<Integer>();
+    for (int x : ret) {
+      if (scores[2 * x] > 0 && scores[2 * x + 1] > 0) used.add(x);
+    }
+    // prefer variables where both values simplify the problem a lot
+    used.sort(new Comparator<Integer>() {
+      public int compare(Integer x, Integer y) {
+        double a = scores[2 * x] * scores[2 * x + 1];
+        double b = scores[2 * y] * scores[2 * y + 1];
+        if (a != b) return a > b ? -1 : 1;
+        return Integer.compare(x, y);
+      }
+    });
+    return used;
+  }
+
+  /** Returns the two cubes that extend the given cube with the given variable. */
+  private static int[][] split(int[] cube, int x) {
+    int[] pos = Arrays.copyOf(cube, cube.length + 1);
+    int[] neg = Arrays.copyOf(cube, cube.length + 1);
+    pos[cube.length] = x;
+    neg[cube.length] = -x;
+    return new int[][] { pos, neg };
+  }
+
+  /**
+   * Solves the problem, and returns a solution, a Solution without assignment if the problem is
+   * unsatisfiable, or null if this could not be determined.  No clauses should be added to the
+   * problem while this is running.  The phases measured by the workers are added to stats, with
+   * the prefix "cubes ".
+   */
+  public Solution solve(SatProblem problem, Statistics stats) {
+    return solve(problem, stats, new int[0]);
+  }
+
+  /**
+   * Solves the problem like solve(problem, stats), but additionally requires the given literals
+   * to hold.  They are passed to the solvers along with every cube, and are not split on.
+   */
+  public Solution solve(SatProblem problem, Statistics stats, int[] assumptions) {
+    synchronized (this) {
+      _active = true;
+      _answer = null;
+      _failed = false;
+    }
+    stats.startPhase("lookahead", problem);
+    ArrayList<Integer> order = querySplittingOrder(problem);
+    for (int lit : assumptions) order.remove(Integer.valueOf(Math.abs(lit)));
+    stats.endPhase();
+    int depth = Math.min(_depth, order.size());
+    int cubes;
+    synchronized (this) {
+      _queue = new ArrayDeque<int[]>();
+      _queue.add(new int[0]);
+      for (int i = 0; i < depth; i++) {
+        ArrayDeque<int[]> next = new ArrayDeque<int[]>();
+        for (int[] cube : _queue) {
+          for (int[] half : split(cube, order.get(i))) next.add(half);
+        }
+        _queue = next;
+      }
+      _pending = _queue.size();
+      cubes = _pending;
+    }
+    System.err.println("Solving " + cubes + " cubes with " + _workers.size() + " workers...");
+
+    stats.startPhase("solve", null);
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    ArrayList<Statistics> measurements = new ArrayList<Statistics>();
+    for (SolverBackend backend : _workers) {
+      final Statistics measurement = new Statistics();
+      measurements.add(measurement);
+      Thread thread = new Thread(new Runnable() {
+        public void run() { work(problem, backend, order, assumptions, measurement); }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    // a backend only cancels a run that has already started, so once the search is over we keep
+    // cancelling until every worker has noticed
+    try {
+      for (Thread thread : threads) {
+        while (thread.isAlive()) {
+          thread.join(100);
+          if (queryFinished()) {
+            for (SolverBackend backend : _workers) backend.cancel();
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      failed();
+      Thread.currentThread().interrupt();
+    }
+    stats.endPhase();
+    for (int i = 0; i < threads.size(); i++) {
+      if (!threads.get(i).isAlive()) stats.mergePhases(measurements.get(i), "cubes ");
+    }
+    synchronized (this) {
+      _active = false;
+      _queue = null;
+      if (_answer != null) return _answer;
+      if (_failed || _pending > 0) return null;
+      return new Solution(null);
+    }
+  }
+
+  /** Returns a description of the settings, which determine which solution may be found. */
+  public String toString() {
+    StringBuilder ret = new StringBuilder("cubes " + _depth + " " + _cubeTime);
+    for (String prefix : _prefixes) ret.append(" prefix " + prefix);
+    for (SolverBackend worker : _workers) ret.append(" worker " + worker.queryName());
+    return ret.toString();
+  }
+
+  /**
+   * Stops the current search, which then returns null.  This may be called from another thread;
+   * if no search is going on, nothing happens.  The cancellation is recorded even if the workers
+   * have not started yet (for instance during the lookahead), and they check it before taking
+   * each cube.
+   */
+  public void cancel() {
+    synchronized (this) {
+      if (!_active) return;
+    }
+    failed();
+  }
+
+  /** Returns whether a solution has been found, or the search has failed. */
+  private synchronized boolean queryFinished() {
+    return _answer != null || _failed;
+  }
+
+  /**
+   * Returns the next cube to work on, waiting while other workers may still produce more; or
+   * null if the search is over.
+   */
+  private synchronized int[] takeCube() {
+    while (_queue.isEmpty() && _pending > 0 && _answer == null && !_failed) {
+      try { wait(); }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    if (_answer != null || _failed || _queue.isEmpty()) return null;
+    return _queue.pollFirst();
+  }
+
+  /** Records that a cube has been dealt with. */
+  private synchronized void finishCube() {
+    _pending--;
+    notifyAll();
+  }
+
+  /** Records that a cube was satisfiable, and stops all other workers. */
+  private void foundSolution(Solution solution) {
+    synchronized (this) {
+      if (_answer != null) return;
+      _answer = solution;
+      notifyAll();
+    }
+    for (SolverBackend backend : _workers) backend.cancel();
+  }
+
+  /** Records that a cube could not be solved, and stops all other workers. */
+  private void failed() {
+    synchronized (this) {
+      if (_answer != null || _failed) return;
+      _failed = true;
+      notifyAll();
+    }
+    for (SolverBackend backend : _workers) backend.cancel();
+  }
+
+  /** Replaces a hard cube by its two halves, at the front of the queue. */
+  private synchronized void requeue(int[] cube, int x) {
+    int[][] halves = split(cube, x);
+    _queue.addFirst(halves[1]);
+    _queue.addFirst(halves[0]);
+    _pending++;
+    notifyAll();
+  }
+
+  /** Returns the assumptions followed by the literals of the cube. */
+  private static int[] combine(int[] assumptions, int[] cube) {
+    int[] ret = Arrays.copyOf(assumptions, assumptions.length + cube.length);
+    System.arraycopy(cube, 0, ret, assumptions.length, cube.length);
+    return ret;
+  }
+
+  /** The main loop of a worker thread. */
+  private void work(SatProblem problem, final SolverBackend backend, ArrayList<Integer> order,
+                    int[] assumptions, Statistics stats) {
+    for (int[] cube = takeCube(); cube != null; cube = takeCube()) {
+      boolean splittable = _cubeTime > 0 && cube.length < order.size();
+      final AtomicBoolean expired = new AtomicBoolean(false);
+      Timer timer = null;
+      if (splittable) {
+        timer = new Timer(true);
+        timer.schedule(new TimerTask() {
+          public void run() {
+            expired.set(true);
+            backend.cancel();
+          }
+        }, _cubeTime);
+      }
+      Solution sol = problem.solve(stats, backend, combine(assumptions, cube));
+      if (timer != null) timer.cancel();
+      if (queryFinished()) return;
+      if (sol != null && sol.querySatisfiable()) foundSolution(sol);
+      else if (sol != null) finishCube();
+      else if (expired.get()) requeue(cube, order.get(cube.length));
+      else failed();
+    }
+  }
+}
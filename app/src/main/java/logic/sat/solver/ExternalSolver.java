@@ -0,0 +1,122 @@
+package logic.sat.solver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An ExternalSolver runs a SAT solver as a separate process.  The process' standard output and
+ * error are redirected to files next to the problem file, so a chatty solver can never block on
+ * a full pipe, and several solvers can run side by side as long as their problems are in
+ * different directories.
+ *
+ * Optionally, the solver is given a wall-clock time limit (after which it is killed, together
+ * with any processes it started) and a memory limit.  The memory limit is imposed through
+ * "ulimit -v", so it requires a POSIX shell.
+ */
+public abstract class ExternalSolver implements SolverBackend {
+  private String _executable;
+  private long _timeout;
+  private long _memoryLimit;
+  private volatile Process _process;
+  private volatile boolean _cancelled;
+
+  /** Creates a solver which runs the given executable, without limits. */
+  protected ExternalSolver(String executable) {
+    _executable = executable;
+    _timeout = 0;
+    _memoryLimit = 0;
+    _process = null;
+    _cancelled = false;
+  }
+
+  /** Sets the wall-clock time limit in milliseconds; 0 means no limit. */
+  public void setTimeout(long milliseconds) {
+    _timeout = milliseconds;
+  }
+
+  /** Sets the memory limit in megabytes; 0 means no limit. */
+  public void setMemoryLimit(long megabytes) {
+    _memoryLimit = megabytes;
+  }
+
+  public String queryName() {
+    return _executable;
+  }
+
+  /** Returns the arguments to pass to the executable for the given problem and output file. */
+  protected abstract List<String> queryArguments(Path problem, Path output);
+
+  /** Returns whether the standard output of the process is where the answer goes. */
+  protected abstract boolean answerOnStdout();
+
+  /** Builds the full command line, wrapping it in a shell if a memory limit is set. */
+  private ArrayList<String> buildCommand(Path problem, Path output) {
+    ArrayList<String> ret = new ArrayList<String>();
+    if (_memoryLimit > 0) {
+      ret.add("/bin/sh");
+      ret.add("-c");
+      ret.add("ulimit -v " + (_memoryLimit * 1024) + " && exec \"$0\" \"$@\"");
+    }
+    ret.add(_executable);
+    ret.addAll(queryArguments(problem, output));
+    return ret;
+  }
+
+  /** Kills the process and everything it started. */
+  private static void kill(Process process) {
+    process.descendants().forEach(p -> p.destroyForcibly());
+    process.destroyForcibly();
+  }
+
+  public SolverRun run(Path problem) {
+    Path dir = problem.toAbsolutePath().getParent();
+    Path output = dir.resolve("result");
+    Path stdout = answerOnStdout() ? output : dir.resolve("stdout");
+    Path stderr = dir.resolve("stderr");
+    ProcessBuilder builder = new ProcessBuilder(buildCommand(problem, output));
+    builder.redirectOutput(stdout.toFile());
+    builder.redirectError(stderr.toFile());
+    _cancelled = false;
+    try {
+      Files.deleteIfExists(output);
+      Process process = builder.start();
+      _process = process;
+      if (_cancelled) kill(process);
+      boolean done;
+      if (_timeout > 0) done = process.waitFor(_timeout, TimeUnit.MILLISECONDS);
+      else { process.waitFor(); done = true; }
+      if (!done) {
+        kill(process);
+        process.waitFor();
+      }
+      _process = null;
+      if (_cancelled) return new SolverRun(SolverRun.CANCELLED, -1, output, stderr, "cancelled");
+      if (!done) {
+        return new SolverRun(SolverRun.TIMEOUT, -1, output, stderr,
+                             "time limit of " + _timeout + " ms exceeded");
+      }
+      return new SolverRun(SolverRun.FINISHED, process.exitValue(), output, stderr, null);
+    }
+    catch (IOException e) {
+      return new SolverRun(SolverRun.FAILED, -1, output, stderr,
+                           "could not execute " + _executable + ": " + e.getMessage());
+    }
+    catch (InterruptedException e) {
+      Process process = _process;
+      if (process != null) kill(process);
+      _process = null;
+      Thread.currentThread().interrupt();
+      return new SolverRun(SolverRun.CANCELLED, -1, output, stderr, "interrupted");
+    }
+  }
+
+  public void cancel() {
+    _cancelled = true;
+    Process process = _process;
+    if (process != null) kill(process);
+  }
+}
@@ -0,0 +1,295 @@
+package logic.sat.solver;
+
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LocalSearch is a stochastic local search solver in the style of ProbSAT, which works directly on
+ * the clauses of a SatProblem, without writing them to a file.  Starting from a random assignment,
+ * it repeatedly picks a falsified clause and flips one of its variables, preferring variables
+ * whose flip falsifies few other clauses (few "breaks").
+ *
+ * Local search can only show that a problem is satisfiable: if no model is found within the flip
+ * budget, the answer is unknown.  Several searches with different seeds can run in parallel; the
+ * first model found is used.  In race mode, the search runs next to the systematic solver (the
+ * component solver or cube-and-conquer if one is set up, and otherwise the default backend), and
+ * whichever answers first wins.
+ */
+public class LocalSearch {
+  private static final double EPSILON = 1.0;
+  private static final double BREAK_EXPONENT = 2.3;
+
+  private int _threads;
+  private long _flips;
+  private long _seed;
+  private boolean _race;
+  private volatile boolean _stopped;
+
+  /**
+   * Creates a local search solver which runs the given number of searches at the same time, each
+   * for at most the given number of flips (or without limit if this is 0).  Search i uses seed + i
+   * as its random seed.  If race is true, solve() also runs the systematic solver.
+   */
+  public LocalSearch(int threads, long flips, long seed, boolean race) {
+    _threads = threads < 1 ? 1 : threads;
+    _flips = flips;
+    _seed = seed;
+    _race = race;
+    _stopped = false;
+  }
+
+  /** Returns a description of the settings, which determine which solution may be found. */
+  public String toString() {
+    return "local search " + _threads + " " + _flips + " " + _seed + (_race ? " race" : "");
+  }
+
+  /** Stops the current search, if any.  This may be called from another thread. */
+  public void cancel() {
+    _stopped = true;
+  }
+
+  /**
+   * Solves the problem, and returns a solution, or null if none was found.  In race mode, this
+   * may also return a Solution without assignment, if the systematic solver shows that the problem
+   * is unsatisfiable.
+   */
+  public Solution solve(SatProblem problem, Statistics stats) {
+    return solve(problem, stats, new int[0]);
+  }
+
+  /**
+   * Solves the problem like solve(problem, stats), but additionally requires the given literals
+   * to hold.  The local search treats them as unit clauses.
+   */
+  public Solution solve(SatProblem problem, Statistics stats, int[] assumptions) {
+    if (_race) return race(problem, stats, assumptions);
+    _stopped = false;
+    stats.startPhase("local search", problem);
+    int[][] clauses = problem.queryClauseLiterals(assumptions);
+    try { return search(clauses, queryRange(problem, assumptions)); }
+    finally { stats.endPhase(); }
+  }
+
+  /** Returns the largest variable in the problem or the assumptions. */
+  private static int queryRange(SatProblem problem, int[] assumptions) {
+    int ret = problem.queryNumberVariables();
+    for (int lit : assumptions) ret = Math.max(ret, Math.abs(lit));
+    return ret;
+  }
+
+  /**
+   * Runs the local search and the systematic solver at the same time, and returns the first
+   * definite answer.  The systematic solver records its phases in stats; the local search does not
+   * record anything, since Statistics can only be used by one thread at a time.
+   */
+  private Solution race(SatProblem problem, Statistics stats, int[] assumptions) {
+    final SolverBackend backend = SatProblem.queryDefaultBackend();
+    final ComponentSolver components = SatProblem.components;
+    final CubeAndConquer cubes = SatProblem.cubes;
+    final AtomicReference<Solution> systematic = new AtomicReference<Solution>();
+    _stopped = false;
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        Solution sol;
+        if (components != null) sol = components.solve(problem, stats, assumptions);
+        else if (cubes != null) sol = cubes.solve(problem, stats, assumptions);
+        else sol = problem.solve(stats, backend, assumptions);
+        systematic.set(sol);
+        if (sol != null) cancel();
+      }
+    });
+    int[][] clauses = problem.queryClauseLiterals(assumptions);
+    thread.start();
+    Solution ret = search(clauses, queryRange(problem, assumptions));
+    try {
+      while (thread.isAlive()) {
+        // the systematic solver only notices cancellation once its solver has started
+        if (ret != null) {
+          if (components != null) components.cancel();
+          else if (cubes != null) cubes.cancel();
+          else backend.cancel();
+        }
+        thread.join(100);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (ret != null) {
+      System.err.println("Local search found a solution first.");
+      return ret;
+    }
+    return systematic.get();
+  }
+
+  /**
+   * Runs _threads searches on the given clauses over the variables 1..n, and returns the first
+   * model found, or null if there is none within the flip budget (or the search is cancelled).
+   */
+  Solution search(int[][] clauses, int n) {
+    final AtomicReference<boolean[]> found = new AtomicReference<boolean[]>();
+    final Occurrences occ = new Occurrences(clauses, n);
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < _threads; i++) {
+      final long seed = _seed + i;
+      Thread thread = new Thread(new Runnable() {
+        public void run() {
+          boolean[] model = new Walker(clauses, occ, n, seed).walk(found);
+          if (model != null) found.compareAndSet(null, model);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      try { thread.join(); }
+      catch (InterruptedException e) {
+        _stopped = true;
+        Thread.currentThread().interrupt();
+      }
+    }
+    boolean[] model = found.get();
+    if (model == null) return null;
+    TreeSet<Integer> trueVariables = new TreeSet<Integer>();
+    for (int x = 1; x <= n; x++) {
+      if (model[x]) trueVariables.add(x);
+    }
+    return new Solution(trueVariables);
+  }
+
+  /**
+   * For every literal, the clauses it occurs in, in compressed form: the clauses containing
+   * literal l are clauses[start[l]..start[l+1]-1], where literal x has number 2x and ¬x has 2x+1.
+   * This is shared by all searches.
+   */
+  private static class Occurrences {
+    int[] start;
+    int[] clauses;
+
+    Occurrences(int[][] cls, int n) {
+      start = new int[2 * n + 3];
+      for (int[] clause : cls) {
+        for (int lit : clause) start[literal(lit) + 1]++;
+      }
+      for (int l = 1; l < start.length; l++) start[l] += start[l-1];
+      clauses = new int[start[start.length - 1]];
+      int[] fill = new int[2 * n + 2];
+      for (int c = 0; c < cls.length; c++) {
+        for (int lit : cls[c]) {
+          int l = literal(lit);
+          clauses[start[l] + fill[l]] = c;
+          fill[l]++;
+        }
+      }
+    }
+
+    static int literal(int lit) {
+      return lit > 0 ? 2 * lit : -2 * lit + 1;
+    }
+  }
+
+  /** A single search, with its own assignment and random generator. */
+  private class Walker {
+    private int[][] _clauses;
+    private Occurrences _occ;
+    private Random _random;
+    private boolean[] _value;
+    private int[] _numTrue;
+    private int[] _unsat;
+    private int[] _where;
+    private int _numUnsat;
+
+    Walker(int[][] clauses, Occurrences occ, int n, long seed) {
+      _clauses = clauses;
+      _occ = occ;
+      _random = new Random(seed);
+      _value = new boolean[n + 1];
+      for (int x = 1; x <= n; x++) _value[x] = _random.nextBoolean();
+      _numTrue = new int[clauses.length];
+      _unsat = new int[clauses.length];
+      _where = new int[clauses.length];
+      _numUnsat = 0;
+      for (int c = 0; c < clauses.length; c++) {
+        for (int lit : clauses[c]) {
+          if (isTrue(lit)) _numTrue[c]++;
+        }
+        if (_numTrue[c] == 0) addUnsat(c);
+      }
+    }
+
+    private boolean isTrue(int lit) {
+      return lit > 0 ? _value[lit] : !_value[-lit];
+    }
+
+    private void addUnsat(int c) {
+      _where[c] = _numUnsat;
+      _unsat[_numUnsat++] = c;
+    }
+
+    private void removeUnsat(int c) {
+      int last = _unsat[--_numUnsat];
+      _unsat[_where[c]] = last;
+      _where[last] = _where[c];
+    }
+
+    /** Returns the number of clauses that would become false if x were flipped. */
+    private int breakCount(int x) {
+      int l = _value[x] ? 2 * x : 2 * x + 1;
+      int ret = 0;
+      for (int k = _occ.start[l]; k < _occ.start[l + 1]; k++) {
+        if (_numTrue[_occ.clauses[k]] == 1) ret++;
+      }
+      return ret;
+    }
+
+    private void flip(int x) {
+      int wasTrue = _value[x] ? 2 * x : 2 * x + 1;
+      int wasFalse = wasTrue ^ 1;
+      _value[x] = !_value[x];
+      for (int k = _occ.start[wasTrue]; k < _occ.start[wasTrue + 1]; k++) {
+        int c = _occ.clauses[k];
+        if (--_numTrue[c] == 0) addUnsat(c);
+      }
+      for (int k = _occ.start[wasFalse]; k < _occ.start[wasFalse + 1]; k++) {
+        int c = _occ.clauses[k];
+        if (++_numTrue[c] == 1) removeUnsat(c);
+      }
+    }
+
+    /**
+     * Searches for a model within the flip budget, and returns it, or null if none is found or
+     * the search should stop because it is cancelled or another search has found a model.
+     */
+    boolean[] walk(AtomicReference<boolean[]> found) {
+      for (int[] clause : _clauses) {
+        if (clause.length == 0) return null;
+      }
+      double[] probability = new double[16];
+      for (long flips = 0; _flips <= 0 || flips < _flips; flips++) {
+        if (_numUnsat == 0) return _value;
+        if ((flips & 1023) == 0 && (_stopped || found.get() != null)) return null;
+        int[] clause = _clauses[_unsat[_random.nextInt(_numUnsat)]];
+        if (probability.length < clause.length) probability = new double[clause.length];
+        double sum = 0;
+        for (int j = 0; j < clause.length; j++) {
+          probability[j] = Math.pow(EPSILON + breakCount(Math.abs(clause[j])), -BREAK_EXPONENT);
+          sum += probability[j];
+        }
+        double r = _random.nextDouble() * sum;
+        int j = 0;
+        for (; j < clause.length - 1; j++) {
+          r -= probability[j];
+          if (r <= 0) break;
+        }
+        flip(Math.abs(clause[j]));
+      }
+      return _numUnsat == 0 ? _value : null;
+    }
+  }
+}
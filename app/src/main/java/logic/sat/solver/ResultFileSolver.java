@@ -0,0 +1,61 @@
+package logic.sat.solver;
+
+import logic.sat.Solution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.TreeSet;
+
+/**
+ * A ResultFileSolver is a solver which is called as "solver problem result", and writes its
+ * answer to the result file: a first line SAT or UNSAT, followed (if SAT) by the literals of a
+ * satisfying assignment, terminated by 0.  The solvers in bin/ all behave this way.
+ */
+public class ResultFileSolver extends ExternalSolver {
+  public ResultFileSolver(String executable) {
+    super(executable);
+  }
+
+  protected List<String> queryArguments(Path problem, Path output) {
+    ArrayList<String> ret = new ArrayList<String>();
+    ret.add(problem.toString());
+    ret.add(output.toString());
+    return ret;
+  }
+
+  protected boolean answerOnStdout() {
+    return false;
+  }
+
+  public Solution decode(SolverRun run) {
+    if (run.queryStatus() != SolverRun.FINISHED) return null;
+    try (Scanner reader = new Scanner(run.queryOutput())) {
+      if (!reader.hasNextLine()) {
+        System.out.println("Could not read result file.");
+        return null;
+      }
+      String answer = reader.nextLine().trim();
+      if (answer.equals("UNSAT") || answer.equals("unsat")) return new Solution(null);
+      if (!answer.equals("SAT") && !answer.equals("sat")) {
+        System.out.println("Unexpected answer: " + answer);
+        return null;
+      }
+      TreeSet<Integer> set = new TreeSet<Integer>();
+      for (int num = reader.nextInt(); num != 0; num = reader.nextInt()) {
+        if (num > 0) set.add(num);
+      }
+      return new Solution(set);
+    }
+    catch (IOException e) {
+      System.out.println("Error reading result file: " + e.getMessage());
+      return null;
+    }
+    catch (RuntimeException e) {
+      System.out.println("Malformed result file.");
+      return null;
+    }
+  }
+}
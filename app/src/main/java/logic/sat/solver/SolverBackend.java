@@ -0,0 +1,36 @@
+package logic.sat.solver;
+
+import logic.sat.Solution;
+import java.nio.file.Path;
+
+/**
+ * A SolverBackend is a way to solve a SAT problem that has been written to a file in DIMACS
+ * format.  Solving happens in two steps: run() does the actual work (typically starting an
+ * external process), and decode() turns the outcome into a Solution.
+ *
+ * A backend may be used for several problems after each other, but only one run at a time should
+ * be going on; to solve problems concurrently, use a separate backend for each.
+ */
+public interface SolverBackend {
+  /**
+   * Runs the solver on the given problem.  Any files the solver produces are created in the same
+   * directory as the problem file.  This never returns null; failure is indicated in the result.
+   */
+  public SolverRun run(Path problem);
+
+  /**
+   * Reads the answer of the given run.  This returns a Solution in terms of the variable indexes
+   * in the problem file, a Solution without assignment if the problem is unsatisfiable, or null if
+   * no answer is available (for instance because the run timed out or was cancelled).
+   */
+  public Solution decode(SolverRun run);
+
+  /**
+   * Stops the current run, if any.  This may be called from another thread; the run then returns
+   * with status CANCELLED.
+   */
+  public void cancel();
+
+  /** Returns a short description of the solver, for use in messages. */
+  public String queryName();
+}
@@ -0,0 +1,57 @@
+package logic.sat.solver;
+
+import java.nio.file.Path;
+
+/** A SolverRun records how a single run of a SolverBackend ended, and where its output is. */
+public class SolverRun {
+  /** The solver terminated by itself (whether or not it found an answer). */
+  public static final int FINISHED = 0;
+  /** The solver was stopped because it exceeded the time limit. */
+  public static final int TIMEOUT = 1;
+  /** The solver was stopped by a call to cancel(). */
+  public static final int CANCELLED = 2;
+  /** The solver could not be started, or something went wrong reading its output. */
+  public static final int FAILED = 3;
+
+  private int _status;
+  private int _exitCode;
+  private Path _output;
+  private Path _errors;
+  private String _message;
+
+  /**
+   * Creates a run with the given status.  The output and errors are the files holding the
+   * solver's answer and its error output; either may be null.
+   */
+  public SolverRun(int status, int exitCode, Path output, Path errors, String message) {
+    _status = status;
+    _exitCode = exitCode;
+    _output = output;
+    _errors = errors;
+    _message = message;
+  }
+
+  public int queryStatus() {
+    return _status;
+  }
+
+  /** Returns the exit code of the solver process, or -1 if it did not terminate by itself. */
+  public int queryExitCode() {
+    return _exitCode;
+  }
+
+  /** Returns the file holding the solver's answer. */
+  public Path queryOutput() {
+    return _output;
+  }
+
+  /** Returns the file holding the solver's error output, or null if there is none. */
+  public Path queryErrors() {
+    return _errors;
+  }
+
+  /** Returns a description of what went wrong, or null if the solver finished normally. */
+  public String queryMessage() {
+    return _message;
+  }
+}
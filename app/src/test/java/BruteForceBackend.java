@@ -0,0 +1,69 @@
+import logic.sat.Solution;
+import logic.sat.solver.SolverBackend;
+import logic.sat.solver.SolverRun;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A helper class for the tests of the parallel solvers: a backend which solves small problems by
+ * trying every assignment.  Several threads may share it.
+ */
+class BruteForceBackend implements SolverBackend {
+  private Solution _last;
+  private int _runs = 0;
+
+  /** Returns a list with the given backends, to use as the workers of a parallel solver. */
+  static ArrayList<SolverBackend> workers(BruteForceBackend a, BruteForceBackend b) {
+    ArrayList<SolverBackend> ret = new ArrayList<SolverBackend>();
+    ret.add(a);
+    ret.add(b);
+    return ret;
+  }
+
+  /** Returns the number of problems this backend was asked to solve. */
+  synchronized int queryRuns() { return _runs; }
+
+  public synchronized SolverRun run(Path problem) {
+    _runs++;
+    ArrayList<int[]> clauses = new ArrayList<int[]>();
+    int n = 0;
+    try {
+      List<String> lines = Files.readAllLines(problem);
+      n = Integer.parseInt(lines.get(0).split(" ")[2]);
+      for (int i = 1; i < lines.size(); i++) {
+        String[] parts = lines.get(i).trim().split(" ");
+        int[] clause = new int[parts.length - 1];
+        for (int j = 0; j < clause.length; j++) clause[j] = Integer.parseInt(parts[j]);
+        clauses.add(clause);
+      }
+    }
+    catch (Exception e) { return new SolverRun(SolverRun.FAILED, -1, null, null, "broken"); }
+    _last = new Solution(null);
+    for (int a = 0; a < (1 << n); a++) {
+      boolean ok = true;
+      for (int[] clause : clauses) {
+        boolean sat = false;
+        for (int lit : clause) {
+          if (((a & (1 << (Math.abs(lit) - 1))) != 0) == (lit > 0)) sat = true;
+        }
+        if (!sat) { ok = false; break; }
+      }
+      if (!ok) continue;
+      TreeSet<Integer> trueVars = new TreeSet<Integer>();
+      for (int x = 1; x <= n; x++) {
+        if ((a & (1 << (x - 1))) != 0) trueVars.add(x);
+      }
+      _last = new Solution(trueVars);
+      break;
+    }
+    return new SolverRun(SolverRun.FINISHED, 0, null, null, null);
+  }
+
+  public synchronized Solution decode(SolverRun run) { return _last; }
+  public void cancel() {}
+  public String queryName() { return "brute force"; }
+}
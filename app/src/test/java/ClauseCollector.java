@@ -24,8 +24,16 @@ class ClauseCollector extends ClauseCollection {
    * it positively, while removing the negation of this variable from the remaining clauses.
    */
   void force(String v, boolean value) {
-    Atom v1 = new Atom(new Variable(v), value);
-    Atom v0 = new Atom(new Variable(v), !value);
+    force(new Variable(v), value);
+  }
+
+  /**
+   * This forces the given variable to hold, like force(name, value); this also works for auxiliary
+   * variables, which cannot be found by name.
+   */
+  void force(Variable v, boolean value) {
+    Atom v1 = new Atom(v, value);
+    Atom v0 = new Atom(v, !value);
     for (int i = 0; i < size(); i++) {
       ArrayList<Atom> parts = _clauses.get(i).getParts();
       boolean changed = false;
@@ -67,8 +75,8 @@ class ClauseCollector extends ClauseCollection {
           _solution.add(p.toString());
           _clauses.remove(i);
           Variable x = p.queryVariable();
-          if (p.queryNegative()) force(x.toString(), false);
-          else force(x.toString(), true);
+          if (p.queryNegative()) force(x, false);
+          else force(x, true);
           didSomething = true;
         }
       }
@@ -88,13 +96,13 @@ class ClauseCollector extends ClauseCollection {
     // in the copy, force the very first atom we find to be the value to make that clause true
     Atom p = _clauses.get(0).getParts().get(0);
     Variable x = p.queryVariable();
-    if (p.queryNegative()) col.force(x.toString(), false);
-    else col.force(x.toString(), true);
+    if (p.queryNegative()) col.force(x, false);
+    else col.force(x, true);
     // if that works -- great!
     if (col.checkSatisfiable()) return true;
     // if not, we force that atom to false, and keep going
-    if (p.queryNegative()) force(x.toString(), true);
-    else force(x.toString(), false);
+    if (p.queryNegative()) force(x, true);
+    else force(x, false);
     return checkSatisfiable();
   }
 }
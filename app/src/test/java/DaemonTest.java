@@ -0,0 +1,79 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import language.Daemon;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class DaemonTest {
+  /** Starts a daemon on a free port, which runs the given handler in a background thread. */
+  private Daemon start(Daemon.Handler handler) throws IOException {
+    final Daemon daemon = new Daemon("0", handler);
+    Thread thread = new Thread(new Runnable() {
+      public void run() { daemon.serve(); }
+    });
+    thread.setDaemon(true);
+    thread.start();
+    return daemon;
+  }
+
+  /** Sends the given arguments to the daemon, and returns the lines of its answer. */
+  private ArrayList<String> request(Daemon daemon, String... args) throws IOException {
+    int port = ((InetSocketAddress)daemon.queryAddress()).getPort();
+    try (Socket socket = new Socket("127.0.0.1", port)) {
+      OutputStream out = socket.getOutputStream();
+      for (String arg : args) out.write((arg + "\n").getBytes(StandardCharsets.UTF_8));
+      out.write('\n');
+      out.flush();
+      BufferedReader reader = new BufferedReader(
+        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      ArrayList<String> ret = new ArrayList<String>();
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) ret.add(line);
+      return ret;
+    }
+  }
+
+  @Test
+  public void testOutputIsForwarded() throws IOException {
+    Daemon daemon = start(new Daemon.Handler() {
+      public void handle(String[] args) {
+        System.out.println("args: " + String.join(" ", args));
+        System.err.println("working ∧ done");
+      }
+    });
+    try {
+      ArrayList<String> answer = request(daemon, "--solutions=2", "/tmp/x.log");
+      assertTrue(answer.size() == 3);
+      assertTrue(answer.get(0).equals("out args: --solutions=2 /tmp/x.log"));
+      assertTrue(answer.get(1).equals("err working ∧ done"));
+      assertTrue(answer.get(2).equals("done ok"));
+      // the daemon handles more than one request
+      assertTrue(request(daemon).get(0).equals("out args: "));
+    }
+    finally { daemon.close(); }
+  }
+
+  @Test
+  public void testFailureIsReported() throws IOException {
+    Daemon daemon = start(new Daemon.Handler() {
+      public void handle(String[] args) {
+        System.out.print("partial");
+        throw new Error("broken input");
+      }
+    });
+    try {
+      ArrayList<String> answer = request(daemon, "x");
+      assertTrue(answer.size() == 2);
+      assertTrue(answer.get(0).equals("out partial"));
+      assertTrue(answer.get(1).startsWith("done error"));
+      assertTrue(answer.get(1).contains("broken input"));
+    }
+    finally { daemon.close(); }
+  }
+}
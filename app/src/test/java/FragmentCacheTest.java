@@ -0,0 +1,147 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseCollection;
+import logic.parameter.Parameter;
+import logic.number.range.RangeVariable;
+import logic.number.auto.AutoVariable;
+import logic.FragmentCache;
+import logic.VariableList;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class FragmentCacheTest {
+  private VariableSource source() {
+    return new VariableSource() {
+      public String queryVariableName(int index) {
+        return "⟦aux" + index + "⟧";
+      }
+      public Fingerprint queryFingerprint() {
+        return new Fingerprint("aux");
+      }
+    };
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Path dir = Files.createTempDirectory("fragmenttest");
+    FragmentCache cache = new FragmentCache(dir, 1 << 20);
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    Variable aux = Variable.auxiliary(source(), 0);
+    col.addClause(new Clause(new Atom(new Variable("a"), true), new Atom(aux, false)));
+    col.addClause(new Clause(new Atom(aux, true)));
+    cache.store("key", col);
+
+    Variable.reset();
+    Variable b = new Variable("b");
+    ClauseCollection loaded = new ClauseCollection();
+    assertFalse(cache.load("missing", loaded, new VariableList()));
+    assertTrue(cache.load("key", loaded, new VariableList()));
+    assertTrue(loaded.queryNumberClauses() == 2);
+    Clause first = loaded.queryClause(0);
+    assertTrue(first.getParts().size() == 2);
+    Atom named = first.getParts().get(0).queryVariable().queryAuxiliary() ?
+                 first.getParts().get(1) : first.getParts().get(0);
+    assertTrue(named.queryVariable().equals(new Variable("a")));
+    assertFalse(named.queryNegative());
+    // the auxiliary variable is renamed apart, but shared within the fragment
+    Variable fresh = loaded.queryClause(1).getParts().get(0).queryVariable();
+    assertTrue(fresh.queryAuxiliary());
+    assertFalse(fresh.equals(b));
+    assertFalse(Variable.exists("⟦aux0⟧"));
+  }
+
+  @Test
+  public void testRestoresDirectAtoms() throws Exception {
+    Path dir = Files.createTempDirectory("fragmenttest");
+    FragmentCache cache = new FragmentCache(dir, 1 << 20);
+    Variable.reset();
+    VariableList vars = new VariableList();
+    RangeVariable x = vars.registerRangeVariable(new Parameter("x", 1, 5));
+    x.enableDirectView();
+    ClauseCollection col = new ClauseCollection();
+    col.addClause(new Clause(x.queryEqAtom(3)));
+    cache.store("direct", col);
+
+    Variable.reset();
+    vars = new VariableList();
+    x = vars.registerRangeVariable(new Parameter("x", 1, 5));
+    x.enableDirectView();
+    assertTrue(cache.load("direct", new ClauseCollection(), vars));
+    // x=3 now exists, so its meaning is given by the well-definedness clauses
+    ClauseCollection welldef = new ClauseCollection();
+    vars.addWelldefinednessClauses(welldef);
+    assertTrue(welldef.toString().contains("x=3"));
+  }
+
+  @Test
+  public void testRestoresAutoViews() throws Exception {
+    Path dir = Files.createTempDirectory("fragmenttest");
+    FragmentCache cache = new FragmentCache(dir, 1 << 20);
+    Variable.reset();
+    VariableList vars = new VariableList();
+    AutoVariable x = vars.registerAutoVariable(new Parameter("x", 0, 20));
+    ClauseCollection col = new ClauseCollection();
+    col.addClause(new Clause(x.queryBit(1)));
+    cache.store("auto", col);
+
+    Variable.reset();
+    vars = new VariableList();
+    x = vars.registerAutoVariable(new Parameter("x", 0, 20));
+    assertTrue(cache.load("auto", new ClauseCollection(), vars));
+    assertTrue(x.hasBinaryView());
+    assertFalse(x.hasRangeView());
+  }
+
+  @Test
+  public void testBrokenFragmentHasNoEffect() throws Exception {
+    Path dir = Files.createTempDirectory("fragmenttest");
+    FragmentCache cache = new FragmentCache(dir, 1 << 20);
+    Variable.reset();
+    VariableList vars = new VariableList();
+    RangeVariable x = vars.registerRangeVariable(new Parameter("x", 1, 5));
+    x.enableDirectView();
+    ClauseCollection col = new ClauseCollection();
+    col.addClause(new Clause(x.queryEqAtom(3)));
+    cache.store("broken", col);
+    // cut off the last literal
+    Path file = dir.resolve("broken.frag");
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 4));
+
+    Variable.reset();
+    vars = new VariableList();
+    x = vars.registerRangeVariable(new Parameter("x", 1, 5));
+    x.enableDirectView();
+    ClauseCollection loaded = new ClauseCollection();
+    assertFalse(cache.load("broken", loaded, vars));
+    assertTrue(loaded.queryNumberClauses() == 0);
+    assertFalse(Variable.exists("x=3"));
+  }
+
+  @Test
+  public void testEvict() throws Exception {
+    Path dir = Files.createTempDirectory("fragmenttest");
+    FragmentCache cache = new FragmentCache(dir, 0);
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    col.addClause(new Clause(new Atom(new Variable("a"), true)));
+    cache.store("key", col);
+    cache.evict();
+    assertFalse(cache.load("key", new ClauseCollection(), new VariableList()));
+  }
+
+  @Test
+  public void testHash() {
+    assertTrue(FragmentCache.hash("abc").equals(
+      "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+  }
+}
@@ -0,0 +1,84 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Solution;
+import logic.number.*;
+import logic.number.range.RangeVariable;
+import logic.number.binary.BinaryVariable;
+import logic.Objective;
+import java.util.TreeSet;
+
+public class ObjectiveTest {
+  private Atom truth() {
+    return new Atom(new Variable("TRUE"), true);
+  }
+
+  private QuantifiedInteger makeRangeVar(String name, int min, int max) {
+    return new VariableInteger(new RangeVariable(name, min, max, truth()));
+  }
+
+  @Test
+  public void testBounds() {
+    Objective min = new Objective(makeRangeVar("x", -2, 5), false, truth());
+    Objective max = new Objective(makeRangeVar("x", -2, 5), true, truth());
+    assertTrue(min.queryMinimum() == -2);
+    assertTrue(min.queryMaximum() == 5);
+    assertTrue(min.queryOptimum() == -2);
+    assertTrue(max.queryOptimum() == 5);
+    assertTrue(min.queryBetter(1, 2));
+    assertTrue(max.queryBetter(2, 1));
+  }
+
+  @Test
+  public void testRangeValue() {
+    Variable.reset();
+    Objective objective = new Objective(makeRangeVar("x", 0, 5), false, truth());
+    TreeSet<Integer> sol = new TreeSet<Integer>();
+    sol.add((new Variable("TRUE")).queryIndex());
+    sol.add((new Variable("x≥1")).queryIndex());
+    sol.add((new Variable("x≥2")).queryIndex());
+    assertTrue(objective.queryValue(new Solution(sol)) == 2);
+  }
+
+  @Test
+  public void testBinaryValue() {
+    Variable.reset();
+    BinaryVariable x = new BinaryVariable("x", -8, 7, truth());
+    Objective objective = new Objective(new VariableInteger(x), true, truth());
+    TreeSet<Integer> sol = new TreeSet<Integer>();
+    // -3: 1101
+    sol.add((new Variable("TRUE")).queryIndex());
+    sol.add((new Variable("x⟨-⟩")).queryIndex());
+    sol.add((new Variable("x⟨0⟩")).queryIndex());
+    sol.add((new Variable("x⟨2⟩")).queryIndex());
+    assertTrue(objective.queryValue(new Solution(sol)) == -3);
+  }
+
+  @Test
+  public void testMinimiseBound() {
+    Variable.reset();
+    Objective objective = new Objective(makeRangeVar("x", 0, 5), false, truth());
+    ClauseCollector col = new ClauseCollector();
+    col.addToMemory("rangevar x");
+    Atom a = objective.addBound(3, col);
+    assertTrue(a.toString().equals("⟦minimize x ≤ 3⟧"));
+    assertTrue(col.size() == 1);
+    assertTrue(col.contains("¬x≥4 ∨ ¬⟦minimize x ≤ 3⟧"));
+    // asking for the same bound again does not add more clauses
+    assertTrue(objective.addBound(3, col).equals(a));
+    assertTrue(col.size() == 1);
+  }
+
+  @Test
+  public void testMaximiseBound() {
+    Variable.reset();
+    Objective objective = new Objective(makeRangeVar("x", 0, 5), true, truth());
+    ClauseCollector col = new ClauseCollector();
+    col.addToMemory("rangevar x");
+    objective.addBound(2, col);
+    assertTrue(col.size() == 1);
+    assertTrue(col.contains("x≥2 ∨ ¬⟦maximize x ≥ 2⟧"));
+  }
+}
@@ -0,0 +1,61 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Solution;
+import logic.formula.AtomicFormula;
+import logic.VariableList;
+import logic.RequirementsList;
+import logic.Objective;
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+public class PreferenceTest {
+  private RequirementsList makeList() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    Variable x = vars.registerBooleanVariable("x");
+    Variable y = vars.registerBooleanVariable("y");
+    RequirementsList lst = new RequirementsList(vars);
+    lst.add(new AtomicFormula(x, true));
+    lst.addPreference(new AtomicFormula(y, true), 3, 4);
+    lst.addPreference(new AtomicFormula(x, false), 1, 5);
+    lst.addPreference(new AtomicFormula(y, false), 1, 6);
+    return lst;
+  }
+
+  @Test
+  public void testOptimising() {
+    RequirementsList lst = makeList();
+    assertTrue(lst.queryOptimising());
+    assertTrue(lst.queryNumberPreferences() == 3);
+    assertFalse(new RequirementsList(new VariableList()).queryOptimising());
+  }
+
+  @Test
+  public void testStrata() {
+    RequirementsList lst = makeList();
+    lst.createSat();
+    ArrayList<Objective> objectives = lst.queryObjectives();
+    assertTrue(objectives.size() == 2);
+    // the first stratum only counts the preference of weight 3
+    assertTrue(objectives.get(0).queryMinimum() == 0);
+    assertTrue(objectives.get(0).queryMaximum() == 3);
+    // the last one counts all of them
+    assertTrue(objectives.get(1).queryMinimum() == 0);
+    assertTrue(objectives.get(1).queryMaximum() == 5);
+    assertFalse(objectives.get(1).queryMaximise());
+  }
+
+  @Test
+  public void testViolatedPreferences() {
+    RequirementsList lst = makeList();
+    lst.createSat();
+    TreeSet<Integer> sol = new TreeSet<Integer>();
+    sol.add((new Variable("TRUE")).queryIndex());
+    sol.add((new Variable("x")).queryIndex());
+    sol.add((new Variable("y")).queryIndex());
+    assertTrue(lst.queryViolatedPreferences(new Solution(sol)).equals(
+      "line 5: prefer[1] ¬x\nline 6: prefer[1] ¬y\n"));
+  }
+}
@@ -0,0 +1,89 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import logic.sat.SatProblem;
+import logic.sat.solver.LocalSearch;
+import language.Program;
+import language.Sweep;
+
+public class SweepTest {
+  private Sweep createSweep() {
+    return new Sweep("nothing.log", new Sweep.ProgramFactory() {
+      public Program create() { return new Program(); }
+    }, 2);
+  }
+
+  @Test
+  public void testRange() {
+    Sweep sweep = createSweep();
+    sweep.addMacro("NUMPOOLS=2..8");
+    assertTrue(sweep.queryNumberCombinations() == 7);
+  }
+
+  @Test
+  public void testCombinations() {
+    Sweep sweep = createSweep();
+    sweep.addMacro("NUMPOOLS=2..8");
+    sweep.addMacro("DEVIATION=0,5,10");
+    assertTrue(sweep.queryNumberCombinations() == 21);
+  }
+
+  @Test
+  public void testMixedValues() {
+    Sweep sweep = createSweep();
+    sweep.addMacro("N = 1, 3..5, -2..-1");
+    assertTrue(sweep.queryNumberCombinations() == 6);
+  }
+
+  @Test
+  public void testEmptyRange() {
+    Sweep sweep = createSweep();
+    try { sweep.addMacro("N=5..4"); }
+    catch (Error e) {
+      assertTrue(e.getMessage().equals("Sweep N=5..4 has no values."));
+      return;
+    }
+    assertTrue(false);
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testMissingName() {
+    createSweep().addMacro("=1,2");
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testNotANumber() {
+    createSweep().addMacro("N=1,x");
+  }
+
+  @Test
+  public void testBlocksInOrder() throws Exception {
+    Path path = Files.createTempFile("program", ".log");
+    path.toFile().deleteOnExit();
+    Files.writeString(path, "define N 1\ndeclare p :: Bool\np\n===\n" +
+                            "for i := 1 to N do print(\"x\")\nprintln()\n");
+    Sweep sweep = new Sweep(path.toString(), new Sweep.ProgramFactory() {
+      public Program create() { return new Program(); }
+    }, 2);
+    sweep.addMacro("N=1..6");
+    // solve in-process, so the test does not need an external solver
+    SatProblem.localSearch = new LocalSearch(1, 10000, 0, false);
+    PrintStream original = System.out;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+    try { sweep.run(); }
+    finally {
+      System.setOut(original);
+      SatProblem.localSearch = null;
+    }
+    StringBuilder expected = new StringBuilder();
+    for (int n = 1; n <= 6; n++) expected.append("Sweep N = " + n + ":\n" + "x".repeat(n) + "\n");
+    assertEquals(expected.toString(), buffer.toString(StandardCharsets.UTF_8));
+  }
+}
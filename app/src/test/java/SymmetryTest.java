@@ -0,0 +1,177 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Fingerprint;
+import logic.sat.VariableSource;
+import logic.parameter.Assignment;
+import logic.parameter.Parameter;
+import logic.parameter.ParameterList;
+import logic.parameter.ParamBoolVar;
+import logic.number.range.RangeVariable;
+import logic.number.range.ParamRangeVar;
+import logic.VariableList;
+import logic.Objective;
+import logic.SymmetryBreaker;
+import java.util.ArrayList;
+
+public class SymmetryTest {
+  /** Returns whether the problem, extended with the given unit literals, is satisfiable. */
+  private boolean satisfiable(SatProblem problem, int... units) {
+    int[][] clauses = problem.queryClauseLiterals();
+    int n = problem.queryNumberVariables();
+    for (int a = 0; a < (1 << n); a++) {
+      boolean ok = true;
+      for (int lit : units) {
+        if (((a & (1 << (Math.abs(lit) - 1))) != 0) != (lit > 0)) ok = false;
+      }
+      for (int i = 0; ok && i < clauses.length; i++) {
+        boolean sat = false;
+        for (int lit : clauses[i]) {
+          if (((a & (1 << (Math.abs(lit) - 1))) != 0) == (lit > 0)) sat = true;
+        }
+        ok = sat;
+      }
+      if (ok) return true;
+    }
+    return false;
+  }
+
+  private Atom atom(Variable x, boolean value) {
+    return new Atom(x, value);
+  }
+
+  /** A source of auxiliary variables a_i, which in the tests below stand for x[i] ∧ z. */
+  private static class Conjunctions implements VariableSource {
+    public String queryVariableName(int index) { return "⟦x[" + index + "] ∧ z⟧"; }
+    public Fingerprint queryFingerprint() { return new Fingerprint("conjunctions"); }
+  }
+
+  /**
+   * Declares x[i] for i ∈ {1..3} and z, and adds clauses defining a_i ↔ x[i] ∧ z, where a_i is
+   * auxiliary.  This returns the variables a_1, a_2, a_3.
+   */
+  private Variable[] addConjunctions(VariableList vars, SatProblem problem) {
+    ParamBoolVar x = vars.registerParametrisedBooleanVariable("x",
+      new ParameterList(new Parameter("i", 1, 3)));
+    Variable z = new Variable("z");
+    Conjunctions source = new Conjunctions();
+    Variable[] ret = new Variable[4];
+    for (int i = 1; i <= 3; i++) {
+      Variable xi = x.queryVar(new Assignment("i", i));
+      ret[i] = Variable.auxiliary(source, i);
+      problem.addClause(new Clause(atom(ret[i], false), atom(xi, true)));
+      problem.addClause(new Clause(atom(ret[i], false), atom(z, true)));
+      problem.addClause(new Clause(atom(ret[i], true), atom(xi, false), atom(z, false)));
+    }
+    return ret;
+  }
+
+  @Test
+  public void testInterchangeableBooleans() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    ParamBoolVar x = vars.registerParametrisedBooleanVariable("x",
+      new ParameterList(new Parameter("i", 1, 3)));
+    Variable x1 = x.queryVar(new Assignment("i", 1));
+    Variable x2 = x.queryVar(new Assignment("i", 2));
+    Variable x3 = x.queryVar(new Assignment("i", 3));
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom(x1, true), atom(x2, true), atom(x3, true)));
+    assertTrue(satisfiable(problem, -x1.queryIndex()));
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    assertTrue(breaker.addClauses(problem) == 2);
+    // now x[1] ≥ x[2] ≥ x[3], so some solution remains, but not one with x[1] false
+    assertTrue(satisfiable(problem));
+    assertFalse(satisfiable(problem, -x1.queryIndex()));
+  }
+
+  @Test
+  public void testPartialSymmetry() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    ParamBoolVar x = vars.registerParametrisedBooleanVariable("x",
+      new ParameterList(new Parameter("i", 1, 3)));
+    Variable x1 = x.queryVar(new Assignment("i", 1));
+    Variable x2 = x.queryVar(new Assignment("i", 2));
+    Variable x3 = x.queryVar(new Assignment("i", 3));
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom(x1, true), atom(x2, true)));
+    problem.addClause(new Clause(atom(x3, false)));
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    assertTrue(breaker.addClauses(problem) == 1);
+    assertTrue(breaker.querySymmetries().get(0).equals("x[·]: 1 ↔ 2"));
+  }
+
+  /** Declares y[i] ∈ {1..3} for i ∈ {1..2} with a direct view, and requires y[1] ≠ y[2]. */
+  private SatProblem makeValueProblem(VariableList vars) {
+    ParamRangeVar y = vars.registerParametrisedRangeVariable(new Parameter("y", 1, 3),
+      new ParameterList(new Parameter("i", 1, 2)));
+    y.enableDirectView();
+    RangeVariable y1 = y.queryVar(new Assignment("i", 1));
+    RangeVariable y2 = y.queryVar(new Assignment("i", 2));
+    SatProblem problem = new SatProblem();
+    for (int c = 1; c <= 3; c++) {
+      problem.addClause(new Clause(y1.queryEqAtom(c).negate(), y2.queryEqAtom(c).negate()));
+    }
+    return problem;
+  }
+
+  @Test
+  public void testValueSymmetry() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    SatProblem problem = makeValueProblem(vars);
+    vars.addWelldefinednessClauses(problem);
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    // the two instances can be swapped, and so can each pair of consecutive values
+    assertTrue(breaker.addClauses(problem) == 3);
+    assertTrue(breaker.querySymmetries().contains("y = ·: 1 ↔ 2"));
+    assertTrue(breaker.querySymmetries().contains("y[·]: 1 ↔ 2"));
+  }
+
+  @Test
+  public void testOrderAtomsPreventValueSymmetry() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    SatProblem problem = makeValueProblem(vars);
+    // y[1] ≥ 3 ∨ y[2] ≥ 3 is symmetric in the index, but not in the values
+    problem.addClause(new Clause(new Atom(new Variable("y[1]≥3"), true),
+                                 new Atom(new Variable("y[2]≥3"), true)));
+    vars.addWelldefinednessClauses(problem);
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    assertTrue(breaker.addClauses(problem) == 1);
+    assertTrue(breaker.querySymmetries().get(0).equals("y[·]: 1 ↔ 2"));
+  }
+
+  @Test
+  public void testAuxiliarySymmetry() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    SatProblem problem = new SatProblem();
+    Variable[] a = addConjunctions(vars, problem);
+    problem.addClause(new Clause(atom(a[1], true), atom(a[2], true), atom(a[3], true)));
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    assertTrue(breaker.addClauses(problem) == 2);
+    Variable x1 = new Variable("x[1]");
+    assertTrue(satisfiable(problem));
+    assertFalse(satisfiable(problem, -x1.queryIndex()));
+  }
+
+  @Test
+  public void testAuxiliaryBreaksSymmetry() {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    SatProblem problem = new SatProblem();
+    Variable[] a = addConjunctions(vars, problem);
+    // x[1] and x[2] are interchangeable, but x[3] is not, since a_3 must hold
+    problem.addClause(new Clause(atom(a[1], true), atom(a[2], true)));
+    problem.addClause(new Clause(atom(a[3], true)));
+    SymmetryBreaker breaker = new SymmetryBreaker(vars, new ArrayList<Objective>());
+    assertTrue(breaker.addClauses(problem) == 1);
+    assertTrue(breaker.querySymmetries().get(0).equals("x[·]: 1 ↔ 2"));
+  }
+}
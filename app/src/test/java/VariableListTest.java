@@ -10,6 +10,8 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.ParamAutoVar;
 import language.parser.InputReader;
 import language.parser.ParserException;
 import logic.VariableList;
@@ -127,5 +129,39 @@ public class VariableListTest {
     assertTrue(lst.queryTrueVariable().equals(new Variable("TRUE")));
     assertTrue(lst.queryFalseVariable().equals(new Variable("FALSE")));
   }
-}
 
+  @Test
+  public void testProjection() {
+    Variable.reset();
+    VariableList lst = new VariableList();
+    Variable z = lst.registerBooleanVariable("z");
+    RangeVariable r = lst.registerRangeVariable(new Parameter("r", 1, 3));
+    ParamBoolVar b = lst.registerParametrisedBooleanVariable("b",
+      new ParameterList(new Parameter("i", 1, 3)));
+    java.util.TreeSet<Integer> projection = new java.util.TreeSet<Integer>();
+    for (Variable x : lst.queryProjection()) projection.add(x.queryIndex());
+    assertTrue(projection.size() == 6);
+    assertTrue(projection.contains(z.queryIndex()));
+    assertTrue(projection.contains(r.queryGeqAtom(3).queryIndex()));
+    assertTrue(projection.contains(new Variable("b[2]").queryIndex()));
+    assertFalse(projection.contains(lst.queryTrueVariable().queryIndex()));
+  }
+
+  @Test
+  public void testRestoreAutoView() {
+    VariableList lst = new VariableList();
+    AutoVariable x = lst.registerAutoVariable(new Parameter("x", 0, 10));
+    ParamAutoVar y = lst.registerParametrisedAutoVariable(new Parameter("y", 0, 3),
+      new ParameterList(new Parameter("i", 1, 2)));
+    assertFalse(lst.restoreAutoView("z≥3"));
+    assertFalse(lst.restoreAutoView("x"));
+    assertTrue(lst.restoreAutoView("x⟨2⟩"));
+    assertTrue(x.hasBinaryView());
+    assertFalse(x.hasRangeView());
+    assertTrue(lst.restoreAutoView("y[2]≥1"));
+    AutoVariable y2 = y.queryObjects().get(1);
+    assertTrue(y2.toString().equals("y[2]"));
+    assertTrue(y2.hasRangeView());
+    assertFalse(y2.hasBinaryView());
+  }
+}
@@ -0,0 +1,108 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.number.ClosedInteger;
+import logic.number.VariableInteger;
+import logic.number.ConstantInteger;
+import logic.number.PlusInteger;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.EncodingChoice;
+
+public class AutoVariableTest {
+  private Atom truth() { return new Atom(new Variable("TRUE"), true); }
+
+  @Test
+  public void testSmallDomainPrefersRange() {
+    EncodingChoice choice = new EncodingChoice();
+    choice.recordComparison(true);
+    choice.recordEquality(true);
+    AutoVariable x = new AutoVariable("x", 1, 4, truth(), choice);
+    assertTrue(x.queryPreferredKind() == ClosedInteger.RANGE);
+  }
+
+  @Test
+  public void testSumsOverLargeDomainPreferBinary() {
+    EncodingChoice choice = new EncodingChoice();
+    choice.recordSum();
+    choice.recordComparison(false);
+    AutoVariable x = new AutoVariable("x", 0, 100, truth(), choice);
+    assertTrue(x.queryPreferredKind() == ClosedInteger.BINARY);
+  }
+
+  @Test
+  public void testChoiceIsFixed() {
+    EncodingChoice choice = new EncodingChoice();
+    choice.recordComparison(true);
+    AutoVariable x = new AutoVariable("x", 0, 10, truth(), choice);
+    assertTrue(x.queryPreferredKind() == ClosedInteger.RANGE);
+    for (int i = 0; i < 10; i++) choice.recordSum();
+    assertTrue(x.queryPreferredKind() == ClosedInteger.RANGE);
+    AutoVariable y = new AutoVariable("y", 0, 10, truth(), choice);
+    assertTrue(y.queryPreferredKind() == ClosedInteger.BINARY);
+  }
+
+  @Test
+  public void testViewsAreCreatedLazily() {
+    AutoVariable x = new AutoVariable("x", 0, 7, truth(), new EncodingChoice());
+    assertFalse(x.hasRangeView());
+    assertFalse(x.hasBinaryView());
+    assertTrue(x.queryGeqAtom(3).toString().equals("x≥3"));
+    assertTrue(x.hasRangeView());
+    assertFalse(x.hasBinaryView());
+    assertTrue(x.length() == 3);
+    assertTrue(x.queryBit(1).toString().equals("x⟨1⟩"));
+    assertTrue(x.hasBinaryView());
+  }
+
+  @Test
+  public void testWelldefinednessCreatesPreferredView() {
+    EncodingChoice choice = new EncodingChoice();
+    for (int i = 0; i < 5; i++) choice.recordSum();
+    AutoVariable x = new AutoVariable("x", 0, 30, truth(), choice);
+    ClauseCollector col = new ClauseCollector();
+    x.addWelldefinednessClauses(col);
+    assertTrue(x.hasBinaryView());
+    assertFalse(x.hasRangeView());
+  }
+
+  @Test
+  public void testChannelingClauses() {
+    Variable.reset();
+    AutoVariable x = new AutoVariable("x", 0, 3, truth(), new EncodingChoice());
+    x.queryGeqAtom(1);
+    x.queryBit(0);
+    ClauseCollector col = new ClauseCollector();
+    col.addClause(new logic.sat.Clause(truth()));
+    x.addWelldefinednessClauses(col);
+    x.addWelldefinednessClauses(col);  // should not add anything new
+    ClauseCollector good = new ClauseCollector();
+    ClauseCollector bad = new ClauseCollector();
+    for (int i = 0; i < col.size(); i++) { good.addClause(col.get(i)); bad.addClause(col.get(i)); }
+    // x = 2 in the range view
+    good.force("x≥1", true); good.force("x≥2", true); good.force("x≥3", false);
+    bad.force("x≥1", true); bad.force("x≥2", true); bad.force("x≥3", false);
+    // x = 2 in the binary view
+    good.force("x⟨0⟩", false); good.force("x⟨1⟩", true);
+    assertTrue(good.checkSatisfiable());
+    // x = 3 in the binary view
+    bad.force("x⟨0⟩", true); bad.force("x⟨1⟩", true);
+    assertFalse(bad.checkSatisfiable());
+  }
+
+  @Test
+  public void testAutoInVariableInteger() {
+    EncodingChoice choice = new EncodingChoice();
+    for (int i = 0; i < 5; i++) choice.recordSum();
+    AutoVariable x = new AutoVariable("x", 0, 30, truth(), choice);
+    VariableInteger w = new VariableInteger(x);
+    assertTrue(w.queryKind() == ClosedInteger.BOTH);
+    assertTrue(w.queryPreferredKind() == ClosedInteger.BINARY);
+    assertTrue(w.getRange() == x);
+    assertTrue(w.getBinary() == x);
+    PlusInteger p = new PlusInteger(w, new ConstantInteger(3, truth()), ClosedInteger.BOTH,
+                                    truth());
+    assertTrue(p.queryPreferredKind() == ClosedInteger.BINARY);
+  }
+}
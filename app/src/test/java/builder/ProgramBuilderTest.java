@@ -0,0 +1,156 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.VariableList;
+import logic.RequirementsList;
+import logic.formula.Formula;
+import logic.number.QuantifiedInteger;
+import logic.parameter.Function;
+import logic.parameter.Property;
+import logic.parameter.PExpression;
+import logic.parameter.SmallerConstraint;
+import language.parser.DefinitionData;
+import language.builder.ProgramBuilder;
+import language.builder.Index;
+import language.builder.BoolVar;
+import language.builder.IntVar;
+import static language.builder.ProgramBuilder.*;
+
+public class ProgramBuilderTest {
+  private VariableList _vars;
+  private RequirementsList _reqs;
+  private DefinitionData _defs;
+  private StringBuilder _core;
+
+  private ProgramBuilder createBuilder() {
+    _vars = new VariableList();
+    _reqs = new RequirementsList(_vars);
+    _defs = new DefinitionData();
+    _core = new StringBuilder();
+    return new ProgramBuilder(null, _vars, _reqs, _defs, _core);
+  }
+
+  @Test
+  public void testBooleanRequirement() {
+    ProgramBuilder b = createBuilder();
+    Index x = b.index("x", 1, 4);
+    Index y = b.index("y", 1, 4);
+    BoolVar queen = b.declareBool("queen", x, y);
+    Formula f = forall(y, exists(x, queen.at(x, y)));
+    assertTrue(f.toString().equals("∀ y ∈ {1..4}. ∃ x ∈ {1..4}. queen[x,y]"));
+    b.require(f);
+    assertTrue(_reqs.queryNumberRequirements() == 1);
+    assertTrue(_vars.queryParametrisedBooleanVariable("queen") != null);
+    assertTrue(_core.toString().contains("queen[x,y] :: Bool for x ∈ {1..4}, y ∈ {1..4}"));
+    assertTrue(_reqs.createSat().queryNumberClauses() > 0);
+  }
+
+  @Test
+  public void testTriangleIndex() {
+    ProgramBuilder b = createBuilder();
+    Index x = b.index("x", 1, 3);
+    Index y = b.index("y", x.add(1), b.defineMacro("N", 3));
+    BoolVar p = b.declareBool("p", x);
+    b.require(forall(x, forall(y, or(not(p.at(x)), not(p.at(y))))));
+    assertTrue(_reqs.toString().contains("∀ x ∈ {1..3}. ∀ y ∈ {x+1..3}. ¬p[x] ∨ ¬p[y]"));
+  }
+
+  @Test
+  public void testIntegerRequirement() {
+    ProgramBuilder b = createBuilder();
+    Index i = b.index("i", 1, 3);
+    IntVar a = b.declareInt("a", 0, 5, i);
+    IntVar total = b.declareInt("total", 0, 15);
+    QuantifiedInteger sum = b.sum(i, a.at(i));
+    b.require(eq(sum, total.at()));
+    b.require(geq(a.at(2), b.constant(1)));
+    assertTrue(_reqs.queryNumberRequirements() == 2);
+    assertTrue(_reqs.createSat().queryNumberClauses() > 0);
+  }
+
+  @Test
+  public void testFunctionAndProperty() {
+    ProgramBuilder b = createBuilder();
+    Function cost = b.defineFunction("cost", 1, new int[] { 4, 7, 2 });
+    Property even = b.defineProperty("even", new int[] { 2, 4 });
+    assertTrue(cost.lookup(2) == 7);
+    assertTrue(cost.lookup(3) == 2);
+    assertTrue(even.lookup(4));
+    assertFalse(even.lookup(3));
+    assertTrue(_defs.getFunction("cost") == cost);
+    assertTrue(_defs.getProperty("even") == even);
+    Function dist = b.defineFunction("dist", new int[][] { {1,2}, {2,1} }, new int[] { 5, 6 });
+    assertTrue(dist.arity() == 2);
+    PExpression e = apply(dist, b.index("u", 1, 2), b.index("v", 1, 2));
+    assertTrue(e.toString().equals("dist(u,v)"));
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testFunctionWithUnequalKeys() {
+    createBuilder().defineFunction("f", new int[][] { {1}, {1,2} }, new int[] { 3, 4 });
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testFunctionWithMissingValues() {
+    createBuilder().defineFunction("f", new int[][] { {1}, {2} }, new int[] { 3 });
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testFunctionWrongArity() {
+    ProgramBuilder b = createBuilder();
+    Function f = b.defineFunction("f", 0, new int[] { 3, 4 });
+    apply(f, b.index("i", 0, 1), b.index("j", 0, 1));
+  }
+
+  @Test
+  public void testWrongArity() {
+    ProgramBuilder b = createBuilder();
+    Index x = b.index("x", 1, 4);
+    BoolVar p = b.declareBool("p", x);
+    try { p.at(1, 2); }
+    catch (Error e) {
+      assertTrue(e.getMessage().equals("p takes 1 argument(s), but is given 2."));
+      return;
+    }
+    assertTrue(false);
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testRequireOpenFormula() {
+    ProgramBuilder b = createBuilder();
+    Index x = b.index("x", 1, 4);
+    BoolVar p = b.declareBool("p", x);
+    b.require(p.at(x));
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testDuplicateDeclaration() {
+    ProgramBuilder b = createBuilder();
+    b.declareBool("p");
+    b.declareInt("p", 0, 3);
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testIndexNamedAfterMacro() {
+    ProgramBuilder b = createBuilder();
+    b.defineMacro("N", 3);
+    b.index("N", 1, 2);
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testMixedPlus() {
+    ProgramBuilder b = createBuilder();
+    IntVar a = b.declareInt("a", 0, 5);
+    IntVar c = b.declareBinary("c", 0, 5);
+    b.plus(a.at(), c.at());
+  }
+
+  @Test
+  public void testRestrictedLoop() {
+    ProgramBuilder b = createBuilder();
+    Index i = b.index("i", 1, 5);
+    Index j = i.where(new SmallerConstraint(i, b.defineMacro("K", 3)));
+    assertTrue(loop(j, print(j)).toString().contains("if"));
+    assertFalse(loop(i, print(i)).toString().contains("if"));
+  }
+}
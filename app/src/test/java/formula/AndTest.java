@@ -101,7 +101,8 @@ public class AndTest {
     ClauseCollector coll = new ClauseCollector();
     Formula sample = sampleAnd();
     Atom myatom = new Atom(new Variable("myvar"), true);
-    coll.addToMemory("⟦x4 ∨ x2⟧");
+    coll.addToMemory(new Or(new AtomicFormula(new Atom(new Variable("x4"), true)),
+                            new AtomicFormula(new Atom(new Variable("x2"), true))), 0);
     sample.addClausesIfThisImplies(myatom, coll);
     assertTrue(coll.size() == 1); 
     assertTrue(coll.contains("¬x1 ∨ ¬x2 ∨ x3 ∨ x5 ∨ myvar ∨ ¬⟦x4 ∨ x2⟧"));
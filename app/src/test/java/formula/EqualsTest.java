@@ -139,5 +139,34 @@ public class EqualsTest {
     col.force("TRUE", true);
     assertTrue(col.checkSatisfiable());
   }
-}
 
+  @Test
+  public void testDirectAtom() {
+    Variable.reset();
+    RangeVariable x = new RangeVariable("x", 1, 5, truth());
+    Equals formula = new Equals(new VariableInteger(x), makeConstant(3), true);
+    assertTrue(formula.queryAtom() == null);
+    x.enableDirectView();
+    assertTrue(formula.queryAtom().toString().equals("x=3"));
+    assertTrue(formula.negate().queryAtom().toString().equals("¬x=3"));
+    Equals reversed = new Equals(makeConstant(3), new VariableInteger(x), false);
+    assertTrue(reversed.queryAtom().toString().equals("¬x=3"));
+  }
+
+  @Test
+  public void testAddClausesDirect() {
+    Variable.reset();
+    RangeVariable x = new RangeVariable("x", 1, 5, truth());
+    x.enableDirectView();
+    Equals formula = new Equals(new VariableInteger(x), makeConstant(3), true);
+    ClauseCollector col = new ClauseCollector();
+    col.addToMemory("rangevar x");
+    Atom atom = new Atom(new Variable("myvar"), true);
+    formula.addClausesIfThisIsImpliedBy(atom, col);
+    assertTrue(col.size() == 4);
+    assertTrue(col.contains("¬myvar ∨ x=3"));
+    assertTrue(col.contains("x≥3 ∨ ¬x=3"));
+    assertTrue(col.contains("¬x≥4 ∨ ¬x=3"));
+    assertTrue(col.contains("x≥4 ∨ ¬x≥3 ∨ x=3"));
+  }
+}
@@ -126,7 +126,8 @@ public class OrTest {
     ClauseCollector coll = new ClauseCollector();
     Formula sample = sampleOr();
     Atom myatom = new Atom(new Variable("myvar"), true);
-    coll.addToMemory("⟦x4 ∧ x2⟧");
+    coll.addToMemory(new And(new AtomicFormula(new Atom(new Variable("x4"), true)),
+                             new AtomicFormula(new Atom(new Variable("x2"), true))), 0);
     sample.addClausesDef(myatom, coll);
     assertTrue(coll.size() == 6);
     assertFalse(coll.contains("x4 ∨ ¬⟦x4 ∧ x2⟧"));
@@ -0,0 +1,129 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.formula.Formula;
+import logic.formula.AtomicFormula;
+import logic.formula.And;
+import logic.formula.Xor;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+public class XorTest {
+  private AtomicFormula atom(String name) {
+    return new AtomicFormula(new Atom(new Variable(name), true));
+  }
+
+  private Xor sampleXor(int n) {
+    ArrayList<Formula> parts = new ArrayList<Formula>();
+    for (int i = 1; i <= n; i++) parts.add(atom("x" + i));
+    return new Xor(parts);
+  }
+
+  /**
+   * Returns whether the clauses can be satisfied when x1..xn are given the values in the bits of
+   * assignment (and the other variables are chosen freely).
+   */
+  private boolean satisfiable(ClauseCollector coll, int n, int assignment) {
+    TreeMap<Integer,Integer> fixed = new TreeMap<Integer,Integer>();
+    for (int i = 1; i <= n; i++) {
+      fixed.put(new Variable("x" + i).queryIndex(), (assignment >> (i - 1)) & 1);
+    }
+    ArrayList<Integer> free = new ArrayList<Integer>();
+    for (int i = 0; i < coll.size(); i++) {
+      for (Atom a : coll.get(i).getParts()) {
+        if (!fixed.containsKey(a.queryIndex()) && !free.contains(a.queryIndex())) {
+          free.add(a.queryIndex());
+        }
+      }
+    }
+    for (int rest = 0; rest < (1 << free.size()); rest++) {
+      TreeMap<Integer,Integer> value = new TreeMap<Integer,Integer>(fixed);
+      for (int j = 0; j < free.size(); j++) value.put(free.get(j), (rest >> j) & 1);
+      boolean ok = true;
+      for (int i = 0; ok && i < coll.size(); i++) {
+        boolean sat = false;
+        for (Atom a : coll.get(i).getParts()) {
+          if ((value.get(a.queryIndex()) == 1) != a.queryNegative()) sat = true;
+        }
+        ok = sat;
+      }
+      if (ok) return true;
+    }
+    return false;
+  }
+
+  @Test
+  public void testString() {
+    ArrayList<Formula> parts = new ArrayList<Formula>();
+    parts.add(atom("x"));
+    parts.add(new And(atom("y"), atom("z")));
+    parts.add(new Xor(atom("u"), atom("v").negate()));
+    Xor form = new Xor(parts);
+    assertTrue(form.toString().equals("x ⊻ (y ∧ z) ⊻ u ⊻ ¬v"));
+    assertTrue(form.negate().toString().equals("¬(x ⊻ (y ∧ z) ⊻ u ⊻ ¬v)"));
+  }
+
+  @Test
+  public void testAtom() {
+    assertTrue(sampleXor(2).queryAtom() == null);
+    assertTrue(sampleXor(1).queryAtom().toString().equals("x1"));
+    assertTrue(sampleXor(1).negate().queryAtom() == null);
+  }
+
+  @Test
+  public void testAddClausesShort() {
+    Variable.reset();
+    ClauseCollector coll = new ClauseCollector();
+    sampleXor(3).addClauses(coll);
+    assertTrue(coll.size() == 4);
+    assertTrue(coll.contains("x1 ∨ x2 ∨ x3"));
+    assertTrue(coll.contains("¬x1 ∨ ¬x2 ∨ x3"));
+    assertTrue(coll.contains("¬x1 ∨ x2 ∨ ¬x3"));
+    assertTrue(coll.contains("x1 ∨ ¬x2 ∨ ¬x3"));
+  }
+
+  @Test
+  public void testAddClausesLong() {
+    Variable.reset();
+    ClauseCollector coll = new ClauseCollector();
+    sampleXor(6).addClauses(coll);
+    // two parity atoms for the first chunks, each with 8 definition clauses, and 2 final clauses
+    assertTrue(coll.size() == 18);
+    for (int a = 0; a < 64; a++) {
+      assertTrue(satisfiable(coll, 6, a) == (Integer.bitCount(a) % 2 == 1));
+    }
+  }
+
+  @Test
+  public void testNegationClauses() {
+    Variable.reset();
+    ClauseCollector coll = new ClauseCollector();
+    sampleXor(5).negate().addClauses(coll);
+    for (int a = 0; a < 32; a++) {
+      assertTrue(satisfiable(coll, 5, a) == (Integer.bitCount(a) % 2 == 0));
+    }
+  }
+
+  @Test
+  public void testAddClausesImpliedBy() {
+    Variable.reset();
+    ClauseCollector coll = new ClauseCollector();
+    sampleXor(2).addClausesIfThisIsImpliedBy(new Atom(new Variable("a"), true), coll);
+    assertTrue(coll.size() == 2);
+    assertTrue(coll.contains("x1 ∨ x2 ∨ ¬a"));
+    assertTrue(coll.contains("¬x1 ∨ ¬x2 ∨ ¬a"));
+  }
+
+  @Test
+  public void testAddClausesImplies() {
+    Variable.reset();
+    ClauseCollector coll = new ClauseCollector();
+    sampleXor(2).addClausesIfThisImplies(new Atom(new Variable("a"), true), coll);
+    assertTrue(coll.size() == 2);
+    assertTrue(coll.contains("¬x1 ∨ x2 ∨ a"));
+    assertTrue(coll.contains("x1 ∨ ¬x2 ∨ a"));
+  }
+}
@@ -159,5 +159,24 @@ public class ParseBasicFormulaTest {
     Formula form = InputReader.readFormulaFromString("x ∨ ¬z ↔ (y -> z)", vars);
     assertTrue(form instanceof Iff);
   }
-}
 
+  @Test
+  public void testXorFormula() throws ParserException {
+    VariableList vars = new VariableList();
+    vars.registerBooleanVariable("x");
+    vars.registerBooleanVariable("y");
+    vars.registerBooleanVariable("z");
+    Formula form = InputReader.readFormulaFromString("x ⊻ ¬y ^^ (x ∧ z)", vars);
+    assertTrue(form instanceof Xor);
+    assertTrue(form.toString().equals("x ⊻ ¬y ⊻ (x ∧ z)"));
+  }
+
+  @Test(expected = language.parser.ParserException.class)
+  public void testXorAndMixture() throws ParserException {
+    VariableList vars = new VariableList();
+    vars.registerBooleanVariable("x");
+    vars.registerBooleanVariable("y");
+    vars.registerBooleanVariable("z");
+    Formula form = InputReader.readFormulaFromString("x ⊻ y ∧ z", vars);
+  }
+}
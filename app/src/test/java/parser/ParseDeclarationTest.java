@@ -9,6 +9,8 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import logic.number.binary.BinaryVariable;
 import logic.number.binary.ParamBinaryVar;
+import logic.number.auto.AutoVariable;
+import logic.number.auto.ParamAutoVar;
 import logic.VariableList;
 import language.parser.InputReader;
 import language.parser.ParserException;
@@ -306,5 +308,28 @@ public class ParseDeclarationTest {
     VariableList lst = new VariableList();
     InputReader.declare("a :: Int? ∈ {1..i}", lst);
   }
-}
 
+  @Test
+  public void testReadBasicAutoDeclaration() throws ParserException {
+    VariableList lst = new VariableList();
+    InputReader.declare("myvar :: Auto ∈ {12..15} with myvar != 14", lst);
+    assertTrue(lst.isDeclared("myvar"));
+    AutoVariable av = lst.queryAutoVariable("myvar");
+    assertTrue(av.toString().equals("myvar"));
+    assertTrue(av.queryMinimum() == 12);
+    assertTrue(av.queryMaximum() == 15);
+    assertTrue(av.queryGeqAtom(14).equals(av.queryGeqAtom(15)));
+  }
+
+  @Test
+  public void testReadParamAutoVar() throws ParserException {
+    VariableList lst = new VariableList();
+    InputReader.declare("var[i] :: Auto ∈ {0..i} for i ∈ {1..9}", lst);
+    ParamAutoVar v = lst.queryParametrisedAutoVariable("var");
+    assertTrue(v.queryParameters().size() == 1);
+    AutoVariable x = v.queryVar(new Assignment("i", 4));
+    assertTrue(x.toString().equals("var[4]"));
+    assertTrue(x.queryMaximum() == 4);
+    assertTrue(lst.toString().equals("declare var[i] :: Auto ∈ {0..i} for i ∈ {1..9}\n"));
+  }
+}
@@ -0,0 +1,77 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import logic.VariableList;
+import logic.RequirementsList;
+import language.execution.Statement;
+import language.parser.DefinitionData;
+import language.parser.InputReader;
+import language.parser.ParserException;
+
+public class ParseProgramTest {
+  private static final String PROGRAM =
+    "define SIZE 4\n" +
+    "declare queen[x,y] :: Bool for x ∈ {1..SIZE}, y ∈ {1..SIZE}\n" +
+    "declare total :: Number ∈ {0..SIZE}\n" +
+    "# there is a queen in every row\n" +
+    "∀ y ∈ {1..SIZE}.∃ x ∈ {1..SIZE}.queen[x,y]\n" +
+    "∀ y ∈ {1..SIZE}.∀ x1 ∈ {1..SIZE-1}.∀ x2 ∈ {x1+1..SIZE}.queen[x1,y] → ¬queen[x2,y]\n" +
+    "===============\n" +
+    "for y := 1 to SIZE do {\n" +
+    "  for x := 1 to SIZE do {\n" +
+    "    if queen[x,y] then print(\"Q\")\n" +
+    "    else print(\".\")\n" +
+    "  }\n" +
+    "  println()\n" +
+    "}\n" +
+    "println(total)\n";
+
+  private Path createFile(String content) throws Exception {
+    Path path = Files.createTempFile("program", ".log");
+    path.toFile().deleteOnExit();
+    Files.writeString(path, content);
+    return path;
+  }
+
+  @Test
+  public void testStreamingReadsTheSameProgram() throws Exception {
+    Path path = createFile(PROGRAM);
+    RequirementsList reqs1 = new RequirementsList(new VariableList());
+    RequirementsList reqs2 = new RequirementsList(new VariableList());
+    StringBuilder core1 = new StringBuilder();
+    StringBuilder core2 = new StringBuilder();
+    Statement stat1 = InputReader.readProgramFromFile(path.toString(), reqs1,
+                                                      new DefinitionData(), core1, false);
+    Statement stat2 = InputReader.readProgramFromFile(path.toString(), reqs2,
+                                                      new DefinitionData(), core2, true);
+    assertTrue(reqs2.queryNumberRequirements() == 2);
+    assertTrue(reqs1.toString().equals(reqs2.toString()));
+    assertTrue(core1.toString().equals(core2.toString()));
+    assertTrue(stat1.toString().equals(stat2.toString()));
+  }
+
+  @Test
+  public void testStreamingWithoutStatements() throws Exception {
+    Path path = createFile("declare p :: Bool\np ∨ ¬p\n");
+    RequirementsList reqs = new RequirementsList(new VariableList());
+    InputReader.readProgramFromFile(path.toString(), reqs, new DefinitionData(), null, true);
+    assertTrue(reqs.queryNumberRequirements() == 1);
+  }
+
+  @Test(expected = ParserException.class)
+  public void testStreamingDefinitionAfterDeclaration() throws Exception {
+    Path path = createFile("declare p :: Bool\ndefine N 3\np\n");
+    RequirementsList reqs = new RequirementsList(new VariableList());
+    InputReader.readProgramFromFile(path.toString(), reqs, new DefinitionData(), null, true);
+  }
+
+  @Test(expected = ParserException.class)
+  public void testStreamingRequirementAfterStatement() throws Exception {
+    Path path = createFile("declare p :: Bool\n===\nprintln(p)\np\n");
+    RequirementsList reqs = new RequirementsList(new VariableList());
+    InputReader.readProgramFromFile(path.toString(), reqs, new DefinitionData(), null, true);
+  }
+}
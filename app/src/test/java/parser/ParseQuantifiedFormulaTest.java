@@ -197,5 +197,14 @@ public class ParseQuantifiedFormulaTest {
     InputReader.declare("y[j] :: Int ∈ {1..10} for j ∈ {1..5}", vars);
     Formula form = InputReader.readFormulaFromString("∀ j ∈ {1..5}.x[y[j]]", vars);
   }
-}
 
+  @Test
+  public void testReadParity() throws ParserException {
+    VariableList vars = new VariableList();
+    InputReader.declare("x[i] :: Bool for i ∈ {1..3}", vars);
+    Formula form = InputReader.readFormulaFromString("⊻ i ∈ {1..3}. x[i]", vars);
+    assertTrue(form instanceof Parity);
+    assertTrue(((Parity)form).translate().toString().equals("x[1] ⊻ x[2] ⊻ x[3]"));
+    assertTrue(((Parity)form.negate()).translate().toString().equals("¬(x[1] ⊻ x[2] ⊻ x[3])"));
+  }
+}
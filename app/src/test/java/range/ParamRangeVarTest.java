@@ -10,6 +10,7 @@ import logic.number.range.RangeVariable;
 import logic.number.range.ParamRangeVar;
 import language.parser.InputReader;
 import language.parser.ParserException;
+import java.util.TreeMap;
 
 public class ParamRangeVarTest {
   private Atom truth() { return new Atom(new Variable("TRUE"), true); }
@@ -70,5 +71,16 @@ public class ParamRangeVarTest {
     Parameter count = InputReader.readParameterFromString("x ∈ {1..3} with x < y");
     ParamRangeVar v = new ParamRangeVar(count, lst, truth());
   }
-}
 
+  @Test
+  public void testDirectViewOnAllInstances() {
+    ParameterList lst = new ParameterList(new Parameter("i", 1, 3));
+    ParamRangeVar v = new ParamRangeVar("xx", lst, 3, 6, truth());
+    TreeMap<String,RangeVariable> map = new TreeMap<String,RangeVariable>();
+    v.collectInstances(map);
+    assertTrue(map.size() == 3);
+    assertFalse(map.get("xx[2]").queryDirectView());
+    v.enableDirectView();
+    for (RangeVariable x : map.values()) assertTrue(x.queryDirectView());
+  }
+}
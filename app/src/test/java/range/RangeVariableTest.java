@@ -127,5 +127,50 @@ public class RangeVariableTest {
     Solution solution = new Solution(truevars);
     assertTrue(vi.getValue(solution) == 1);
   }
-}
 
+  @Test
+  public void testDirectView() {
+    Variable.reset();
+    RangeVariable x = new RangeVariable("x", 1, 4, truth());
+    assertFalse(x.queryDirectView());
+    x.enableDirectView();
+    assertTrue(x.queryDirectView());
+    assertTrue(x.queryEqAtom(0).equals(truth().negate()));
+    assertTrue(x.queryEqAtom(5).equals(truth().negate()));
+    assertTrue(x.queryEqAtom(2).toString().equals("x=2"));
+    assertTrue(x.queryEqAtom(2).equals(x.queryEqAtom(2)));
+    x.queryEqAtom(1);
+    x.queryEqAtom(4);
+    ClauseCollector col = new ClauseCollector();
+    x.addWelldefinednessClauses(col);
+    assertTrue(col.size() == 2 + 3 + 2 + 2);
+    assertTrue(col.contains("x≥2 ∨ ¬x=2"));
+    assertTrue(col.contains("¬x≥3 ∨ ¬x=2"));
+    assertTrue(col.contains("x≥3 ∨ ¬x≥2 ∨ x=2"));
+    assertTrue(col.contains("¬x≥2 ∨ ¬x=1"));
+    assertTrue(col.contains("x≥2 ∨ x=1"));
+    assertTrue(col.contains("x≥4 ∨ ¬x=4"));
+    assertTrue(col.contains("¬x≥4 ∨ x=4"));
+    // adding a new direct atom later only adds the clauses for that atom
+    x.queryEqAtom(3);
+    x.addWelldefinednessClauses(col);
+    assertTrue(col.size() == 12);
+    assertTrue(col.contains("x≥4 ∨ ¬x≥3 ∨ x=3"));
+  }
+
+  @Test
+  public void testDirectViewWithRestriction() throws ParserException {
+    Parameter parameter = InputReader.readParameterFromString("x ∈ {1..5} with x ≤ 2 ∨ x > 4");
+    RangeVariable x = new RangeVariable(parameter, truth());
+    x.enableDirectView();
+    assertTrue(x.queryEqAtom(3).equals(truth().negate()));
+    assertTrue(x.queryEqAtom(4).equals(truth().negate()));
+    assertTrue(x.queryEqAtom(2).toString().equals("x=2"));
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testEqAtomWithoutDirectView() {
+    RangeVariable x = new RangeVariable("x", 1, 4, truth());
+    x.queryEqAtom(2);
+  }
+}
@@ -0,0 +1,105 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseArena;
+import logic.sat.SatProblem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+public class ClauseArenaTest {
+  private Atom atom(String name, boolean positive) {
+    return new Atom(new Variable(name), positive);
+  }
+
+  private ArrayList<Clause> makeClauses(int n) {
+    ArrayList<Clause> ret = new ArrayList<Clause>();
+    for (int i = 0; i < n; i++) {
+      ret.add(new Clause(atom("a" + i, true), atom("b" + i, false), atom("c" + (i % 7), true)));
+    }
+    ret.add(new Clause(atom("a0", false)));
+    return ret;
+  }
+
+  @Test
+  public void testReadBackWithSpilling() {
+    Variable.reset();
+    ArrayList<Clause> clauses = makeClauses(100);
+    // segments of 64 bytes, at most two in memory, so most segments go to disk
+    ClauseArena arena = new ClauseArena(128, 64);
+    for (Clause c : clauses) arena.add(c);
+    assertTrue(arena.size() == clauses.size());
+    assertTrue(arena.querySpilledBytes() > 0);
+    ClauseArena.Reader reader = arena.reader();
+    for (int i = 0; i < clauses.size(); i++) {
+      assertTrue(reader.nextClause());
+      String desc = "";
+      for (int j = 0; j < reader.length(); j++) desc += reader.queryLiteral(j) + " ";
+      assertTrue(clauses.get(i).getSatDescription().equals(desc + "0"));
+    }
+    assertFalse(reader.nextClause());
+    arena.close();
+  }
+
+  /** Returns the number of spill files in the temporary directory. */
+  private int countSpillFiles() {
+    File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles();
+    int ret = 0;
+    for (File f : files) {
+      if (f.getName().startsWith("satlanguage") && f.getName().endsWith(".clauses")) ret++;
+    }
+    return ret;
+  }
+
+  @Test
+  public void testCloseRemovesSpillFile() {
+    Variable.reset();
+    int before = countSpillFiles();
+    ClauseArena arena = new ClauseArena(64, 64);
+    for (Clause c : makeClauses(20)) arena.add(c);
+    assertTrue(arena.querySpilledBytes() > 0);
+    assertTrue(countSpillFiles() == before + 1);
+    arena.close();
+    assertTrue(countSpillFiles() == before);
+  }
+
+  @Test
+  public void testEmptyClause() {
+    ClauseArena arena = new ClauseArena(1024, 64);
+    arena.add(new Clause());
+    ClauseArena.Reader reader = arena.reader();
+    assertTrue(reader.nextClause());
+    assertTrue(reader.length() == 0);
+    assertFalse(reader.nextClause());
+  }
+
+  private String dimacs(SatProblem problem) throws Exception {
+    StringWriter out = new StringWriter();
+    BufferedWriter writer = new BufferedWriter(out);
+    problem.writeDimacs(writer);
+    writer.flush();
+    return out.toString();
+  }
+
+  @Test
+  public void testSatProblemOffHeap() throws Exception {
+    Variable.reset();
+    new Variable("unused");
+    ArrayList<Clause> clauses = makeClauses(50);
+    SatProblem onheap = new SatProblem();
+    long old = SatProblem.clauseMemory;
+    SatProblem.clauseMemory = 0;
+    SatProblem offheap = new SatProblem();
+    SatProblem.clauseMemory = old;
+    for (Clause c : clauses) { onheap.addClause(c); offheap.addClause(c); }
+    assertTrue(offheap.queryNumberClauses() == 51);
+    assertTrue(offheap.queryNumberVariables() == onheap.queryNumberVariables());
+    assertTrue(dimacs(onheap).equals(dimacs(offheap)));
+    offheap.close();
+  }
+}
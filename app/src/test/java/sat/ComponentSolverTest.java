@@ -0,0 +1,121 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+import logic.sat.solver.ComponentSolver;
+
+import java.util.ArrayList;
+
+public class ComponentSolverTest {
+  private Atom atom(String name, boolean value) {
+    return new Atom(new Variable(name), value);
+  }
+
+  /** Adds clauses for exactly one of a, b, c to the problem (and to the list). */
+  private void addExactlyOne(SatProblem problem, ArrayList<Clause> list, String prefix) {
+    list.add(new Clause(atom(prefix + "a", true), atom(prefix + "b", true),
+                        atom(prefix + "c", true)));
+    list.add(new Clause(atom(prefix + "a", false), atom(prefix + "b", false)));
+    list.add(new Clause(atom(prefix + "a", false), atom(prefix + "c", false)));
+    list.add(new Clause(atom(prefix + "b", false), atom(prefix + "c", false)));
+    for (int i = list.size() - 4; i < list.size(); i++) problem.addClause(list.get(i));
+  }
+
+  private boolean satisfies(Solution sol, ArrayList<Clause> clauses) {
+    for (Clause c : clauses) {
+      boolean ok = false;
+      for (Atom a : c.getParts()) ok = ok || sol.check(a);
+      if (!ok) return false;
+    }
+    return true;
+  }
+
+  @Test
+  public void testLargeComponents() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    addExactlyOne(problem, clauses, "x");
+    addExactlyOne(problem, clauses, "y");
+    addExactlyOne(problem, clauses, "z");
+    problem.addClause(new Clause(atom("ya", false)));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    ComponentSolver solver = new ComponentSolver(BruteForceBackend.workers(a, b), 2);
+    Statistics stats = new Statistics();
+    Solution sol = solver.solve(problem, stats);
+    assertTrue(sol.querySatisfiable());
+    assertTrue(satisfies(sol, clauses));
+    assertFalse(sol.check(new Variable("ya")));
+    assertTrue(a.queryRuns() + b.queryRuns() == 3);
+    // the workers' measurements are part of the statistics
+    assertTrue(stats.queryPhase("components serialize") != null);
+    assertTrue(stats.queryPhase("components decode") != null);
+  }
+
+  @Test
+  public void testSmallComponentsInProcess() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    addExactlyOne(problem, clauses, "x");
+    addExactlyOne(problem, clauses, "y");
+    clauses.add(new Clause(atom("xa", false)));
+    clauses.add(new Clause(atom("xb", false)));
+    clauses.add(new Clause(atom("u", true)));
+    for (int i = clauses.size() - 3; i < clauses.size(); i++) problem.addClause(clauses.get(i));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    ComponentSolver solver = new ComponentSolver(BruteForceBackend.workers(a, b), 10);
+    Solution sol = solver.solve(problem, new Statistics());
+    assertTrue(sol.querySatisfiable());
+    assertTrue(satisfies(sol, clauses));
+    assertTrue(sol.check(new Variable("xc")));
+    assertTrue(a.queryRuns() + b.queryRuns() == 0);
+  }
+
+  @Test
+  public void testUnsatisfiableComponent() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    addExactlyOne(problem, clauses, "x");
+    addExactlyOne(problem, clauses, "y");
+    problem.addClause(new Clause(atom("ya", false)));
+    problem.addClause(new Clause(atom("yb", false)));
+    problem.addClause(new Clause(atom("yc", false)));
+    for (int limit = 0; limit <= 10; limit += 10) {
+      BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+      ComponentSolver solver = new ComponentSolver(BruteForceBackend.workers(a, b), limit);
+      Solution sol = solver.solve(problem, new Statistics());
+      assertTrue(sol != null);
+      assertFalse(sol.querySatisfiable());
+    }
+  }
+
+  @Test
+  public void testAssumptions() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    addExactlyOne(problem, clauses, "x");
+    addExactlyOne(problem, clauses, "y");
+    int[] assumptions = new int[] { -new Variable("xa").queryIndex(),
+                                    -new Variable("xb").queryIndex(),
+                                    new Variable("yb").queryIndex() };
+    for (int limit = 0; limit <= 10; limit += 10) {
+      BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+      ComponentSolver solver = new ComponentSolver(BruteForceBackend.workers(a, b), limit);
+      Solution sol = solver.solve(problem, new Statistics(), assumptions);
+      assertTrue(sol.querySatisfiable());
+      assertTrue(satisfies(sol, clauses));
+      assertTrue(sol.check(new Variable("xc")));
+      assertTrue(sol.check(new Variable("yb")));
+      int[] contradiction = new int[] { assumptions[2], new Variable("yc").queryIndex() };
+      assertFalse(solver.solve(problem, new Statistics(), contradiction).querySatisfiable());
+    }
+  }
+}
@@ -0,0 +1,93 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+import logic.sat.solver.CubeAndConquer;
+
+import java.util.ArrayList;
+
+public class CubeAndConquerTest {
+  private Atom atom(String name, boolean value) {
+    return new Atom(new Variable(name), value);
+  }
+
+  @Test
+  public void testUnsatisfiable() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom("x", true), atom("y", true)));
+    problem.addClause(new Clause(atom("x", true), atom("y", false)));
+    problem.addClause(new Clause(atom("x", false), atom("y", true)));
+    problem.addClause(new Clause(atom("x", false), atom("y", false)));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    CubeAndConquer cc = new CubeAndConquer(BruteForceBackend.workers(a, b), 2, 0);
+    Statistics stats = new Statistics();
+    Solution sol = cc.solve(problem, stats);
+    assertFalse(sol.querySatisfiable());
+    // every one of the four cubes had to be refuted
+    assertTrue(a.queryRuns() + b.queryRuns() == 4);
+    // and the workers' measurements are part of the statistics
+    assertTrue(stats.queryPhase("cubes serialize") != null);
+    assertTrue(stats.queryPhase("cubes decode") != null);
+  }
+
+  @Test
+  public void testSatisfiable() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom("x", true), atom("y", true)));
+    problem.addClause(new Clause(atom("x", false), atom("y", false)));
+    problem.addClause(new Clause(atom("y", true), atom("z", true)));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    CubeAndConquer cc = new CubeAndConquer(BruteForceBackend.workers(a, b), 3, 0);
+    Solution sol = cc.solve(problem, new Statistics());
+    assertTrue(sol.querySatisfiable());
+    boolean x = sol.check(new Variable("x"));
+    boolean y = sol.check(new Variable("y"));
+    boolean z = sol.check(new Variable("z"));
+    assertTrue(x != y);
+    assertTrue(y || z);
+  }
+
+  @Test
+  public void testSplittingPrefix() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom("a[1]", true), atom("b", true)));
+    problem.addClause(new Clause(atom("a[1]", false), atom("ab", false)));
+    problem.addClause(new Clause(atom("a[2]", false), atom("b", false)));
+    problem.addClause(new Clause(atom("a[2]", true), atom("ab", true)));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    CubeAndConquer cc = new CubeAndConquer(BruteForceBackend.workers(a, b), 5, 0);
+    cc.addSplittingPrefix("a");
+    assertTrue(cc.solve(problem, new Statistics()).querySatisfiable());
+    // only a[1] and a[2] are split on, so there are at most four cubes
+    assertTrue(a.queryRuns() + b.queryRuns() <= 4);
+  }
+
+  @Test
+  public void testAssumptions() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom("x", true), atom("y", true)));
+    problem.addClause(new Clause(atom("x", false), atom("y", false)));
+    problem.addClause(new Clause(atom("y", true), atom("z", true)));
+    int x = new Variable("x").queryIndex();
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    CubeAndConquer cc = new CubeAndConquer(BruteForceBackend.workers(a, b), 3, 0);
+    Solution sol = cc.solve(problem, new Statistics(), new int[] { x });
+    assertTrue(sol.querySatisfiable());
+    assertTrue(sol.check(new Variable("x")));
+    assertFalse(sol.check(new Variable("y")));
+    assertTrue(sol.check(new Variable("z")));
+    // the assumptions only apply to that call
+    sol = cc.solve(problem, new Statistics(), new int[] { x, -new Variable("z").queryIndex() });
+    assertFalse(sol.querySatisfiable());
+    assertEquals(3, problem.queryNumberClauses());
+  }
+}
@@ -0,0 +1,99 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+import logic.sat.Statistics;
+import logic.sat.solver.LocalSearch;
+import logic.sat.solver.ComponentSolver;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class LocalSearchTest {
+  private Atom atom(int i, boolean value) {
+    return new Atom(new Variable("x" + i), value);
+  }
+
+  /** Checks that the solution satisfies every clause in the list. */
+  private boolean satisfies(Solution sol, ArrayList<Clause> clauses) {
+    for (Clause c : clauses) {
+      boolean ok = false;
+      for (Atom a : c.getParts()) ok = ok || sol.check(a);
+      if (!ok) return false;
+    }
+    return true;
+  }
+
+  @Test
+  public void testPlantedSolution() {
+    Variable.reset();
+    Random random = new Random(42);
+    boolean[] planted = new boolean[51];
+    for (int i = 1; i <= 50; i++) planted[i] = random.nextBoolean();
+    SatProblem problem = new SatProblem();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    while (clauses.size() < 200) {
+      ArrayList<Atom> parts = new ArrayList<Atom>();
+      boolean ok = false;
+      for (int j = 0; j < 3; j++) {
+        int x = 1 + random.nextInt(50);
+        boolean value = random.nextBoolean();
+        parts.add(atom(x, value));
+        ok = ok || planted[x] == value;
+      }
+      if (!ok) continue;    // only keep clauses satisfied by the planted assignment
+      Clause c = new Clause(parts);
+      clauses.add(c);
+      problem.addClause(c);
+    }
+    LocalSearch search = new LocalSearch(2, 1000000, 1, false);
+    Solution sol = search.solve(problem, new Statistics());
+    assertTrue(sol != null);
+    assertTrue(sol.querySatisfiable());
+    assertTrue(satisfies(sol, clauses));
+  }
+
+  @Test
+  public void testUnsatisfiableIsUnknown() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom(1, true), atom(2, true)));
+    problem.addClause(new Clause(atom(1, false)));
+    problem.addClause(new Clause(atom(2, false)));
+    LocalSearch search = new LocalSearch(1, 10000, 0, false);
+    assertTrue(search.solve(problem, new Statistics()) == null);
+  }
+
+  @Test
+  public void testEmptyClause() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom(1, true)));
+    problem.addClause(new Clause());
+    LocalSearch search = new LocalSearch(1, 0, 0, false);
+    assertTrue(search.solve(problem, new Statistics()) == null);
+  }
+
+  @Test
+  public void testRaceUsesComponentSolver() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(atom(1, true), atom(2, true)));
+    problem.addClause(new Clause(atom(1, false)));
+    problem.addClause(new Clause(atom(2, false)));
+    BruteForceBackend a = new BruteForceBackend(), b = new BruteForceBackend();
+    SatProblem.components = new ComponentSolver(BruteForceBackend.workers(a, b), 0);
+    try {
+      Solution sol = (new LocalSearch(1, 10000, 0, true)).solve(problem, new Statistics());
+      // only the component solver can show that the problem is unsatisfiable
+      assertTrue(sol != null);
+      assertFalse(sol.querySatisfiable());
+      assertTrue(a.queryRuns() + b.queryRuns() > 0);
+    }
+    finally { SatProblem.components = null; }
+  }
+}
@@ -0,0 +1,81 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import language.ResultCache;
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.Solution;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeSet;
+
+public class ResultCacheTest {
+  private SatProblem createProblem() {
+    SatProblem problem = new SatProblem();
+    problem.addClause(new Clause(new Atom(new Variable("a"), true),
+                                 new Atom(new Variable("b"), false)));
+    return problem;
+  }
+
+  @Test
+  public void testKeyDependsOnCoreAndSolver() {
+    String key = ResultCache.computeKey("define N 3 declare x :: Bool", "minisat");
+    assertTrue(key.length() == 64);
+    assertTrue(key.equals(ResultCache.computeKey("define N 3 declare x :: Bool", "minisat")));
+    assertFalse(key.equals(ResultCache.computeKey("define N 4 declare x :: Bool", "minisat")));
+    assertFalse(key.equals(ResultCache.computeKey("define N 3 declare x :: Bool", "yices")));
+  }
+
+  @Test
+  public void testStoreAndLookupByName() throws Exception {
+    Path dir = Files.createTempDirectory("cachetest");
+    ResultCache cache = new ResultCache(dir, 1 << 20, 1000000);
+    Variable.reset();
+    SatProblem problem = createProblem();
+    TreeSet<Integer> truth = new TreeSet<Integer>();
+    truth.add(new Variable("a").queryIndex());
+    cache.store("k", problem, new Solution(truth));
+    assertTrue(Files.exists(dir.resolve("k").resolve("problem.cnf")));
+    assertTrue(cache.lookup("other") == null);
+
+    // in a new run, the variables may be created in a different order
+    Variable.reset();
+    Variable b = new Variable("b");
+    Variable a = new Variable("a");
+    Solution sol = cache.lookup("k");
+    assertTrue(sol.querySatisfiable());
+    assertTrue(sol.check(a));
+    assertFalse(sol.check(b));
+  }
+
+  @Test
+  public void testUnsatisfiable() throws Exception {
+    Path dir = Files.createTempDirectory("cachetest");
+    ResultCache cache = new ResultCache(dir, 1 << 20, 1000000);
+    Variable.reset();
+    cache.store("k", createProblem(), new Solution(null));
+    assertFalse(cache.lookup("k").querySatisfiable());
+  }
+
+  @Test
+  public void testEvictBySize() throws Exception {
+    Path dir = Files.createTempDirectory("cachetest");
+    ResultCache cache = new ResultCache(dir, 1, 1000000);
+    Variable.reset();
+    cache.store("k", createProblem(), new Solution(null));
+    assertTrue(cache.lookup("k") == null);
+  }
+
+  @Test
+  public void testEvictByAge() throws Exception {
+    Path dir = Files.createTempDirectory("cachetest");
+    ResultCache cache = new ResultCache(dir, 1 << 20, -1);
+    Variable.reset();
+    cache.store("k", createProblem(), new Solution(null));
+    assertTrue(cache.lookup("k") == null);
+    assertFalse(Files.exists(dir.resolve("k")));
+  }
+}
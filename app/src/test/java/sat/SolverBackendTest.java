@@ -0,0 +1,97 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Solution;
+import logic.sat.solver.SolverRun;
+import logic.sat.solver.ExternalSolver;
+import logic.sat.solver.ResultFileSolver;
+import logic.sat.solver.CompetitionSolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SolverBackendTest {
+  /** Creates a directory with an (empty) problem file and an executable script with the body. */
+  private Path setup(String script) throws Exception {
+    Path dir = Files.createTempDirectory("solvertest");
+    Files.writeString(dir.resolve("problem.cnf"), "p cnf 0 0\n");
+    Path exe = dir.resolve("solver.sh");
+    Files.writeString(exe, "#!/bin/sh\n" + script + "\n");
+    exe.toFile().setExecutable(true);
+    return dir;
+  }
+
+  @Test
+  public void testResultFile() throws Exception {
+    Path dir = setup("printf 'SAT\\n1 -2 3 0\\n' > \"$2\"");
+    ResultFileSolver solver = new ResultFileSolver(dir.resolve("solver.sh").toString());
+    SolverRun run = solver.run(dir.resolve("problem.cnf"));
+    assertTrue(run.queryStatus() == SolverRun.FINISHED);
+    assertTrue(run.queryExitCode() == 0);
+    Solution sol = solver.decode(run);
+    assertTrue(sol.querySatisfiable());
+    assertTrue(sol.check(1));
+    assertFalse(sol.check(2));
+    assertTrue(sol.check(3));
+  }
+
+  @Test
+  public void testCompetitionOutput() throws Exception {
+    Path dir = setup("echo 'c a comment'; echo 's SATISFIABLE'; echo 'v -1 2'; echo 'v 4 0'");
+    CompetitionSolver solver = new CompetitionSolver(dir.resolve("solver.sh").toString());
+    Solution sol = solver.decode(solver.run(dir.resolve("problem.cnf")));
+    assertTrue(sol.queryNumberTrue() == 2);
+    assertTrue(sol.check(2));
+    assertTrue(sol.check(4));
+    assertFalse(sol.check(1));
+  }
+
+  @Test
+  public void testCompetitionUnsatAndUnknown() throws Exception {
+    Path dir = setup("echo 's UNSATISFIABLE'; exit 20");
+    CompetitionSolver solver = new CompetitionSolver(dir.resolve("solver.sh").toString());
+    SolverRun run = solver.run(dir.resolve("problem.cnf"));
+    assertTrue(run.queryExitCode() == 20);
+    assertFalse(solver.decode(run).querySatisfiable());
+    dir = setup("echo 's UNKNOWN'");
+    solver = new CompetitionSolver(dir.resolve("solver.sh").toString());
+    assertTrue(solver.decode(solver.run(dir.resolve("problem.cnf"))) == null);
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    Path dir = setup("sleep 30");
+    ExternalSolver solver = new ResultFileSolver(dir.resolve("solver.sh").toString());
+    solver.setTimeout(200);
+    long start = System.currentTimeMillis();
+    SolverRun run = solver.run(dir.resolve("problem.cnf"));
+    assertTrue(run.queryStatus() == SolverRun.TIMEOUT);
+    assertTrue(System.currentTimeMillis() - start < 10000);
+    assertTrue(solver.decode(run) == null);
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    Path dir = setup("sleep 30");
+    final ExternalSolver solver = new ResultFileSolver(dir.resolve("solver.sh").toString());
+    Thread canceller = new Thread() {
+      public void run() {
+        try { Thread.sleep(200); } catch (InterruptedException e) {}
+        solver.cancel();
+      }
+    };
+    canceller.start();
+    SolverRun run = solver.run(dir.resolve("problem.cnf"));
+    canceller.join();
+    assertTrue(run.queryStatus() == SolverRun.CANCELLED);
+  }
+
+  @Test
+  public void testMissingExecutable() throws Exception {
+    Path dir = setup("");
+    ResultFileSolver solver = new ResultFileSolver(dir.resolve("nonexisting").toString());
+    SolverRun run = solver.run(dir.resolve("problem.cnf"));
+    assertTrue(run.queryStatus() == SolverRun.FAILED);
+    assertTrue(solver.decode(run) == null);
+  }
+}
@@ -0,0 +1,87 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.ClauseCollection;
+import logic.sat.Statistics;
+
+import java.util.ArrayList;
+
+public class StatisticsTest {
+  private Clause unit(String name) {
+    return new Clause(new Atom(new Variable(name), true));
+  }
+
+  @Test
+  public void testPhaseCounters() {
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    col.addClause(unit("a"));
+    Statistics stats = new Statistics();
+    stats.startPhase("ground", col);
+    col.addClause(unit("b"));
+    col.addClause(unit("c"));
+    col.addToMemory("x");
+    col.isInMemory("x");
+    col.isInMemory("y");
+    stats.endPhase();
+    Statistics.Measurement m = stats.queryPhase("ground");
+    assertTrue(m.queryClauses() == 2);
+    assertTrue(m.queryVariables() == 2);
+    assertTrue(m.queryMemoryHits() == 1);
+    assertTrue(m.queryWallNanos() >= 0);
+    assertTrue(stats.queryPhase("solve") == null);
+  }
+
+  @Test
+  public void testHeaviestRequirements() {
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    Statistics stats = new Statistics();
+    int[] sizes = { 1, 6, 3 };
+    for (int i = 0; i < sizes.length; i++) {
+      stats.startRequirement(i + 1, "req" + i, col);
+      for (int j = 0; j < sizes[i]; j++) col.addClause(unit("v" + i + "_" + j));
+      stats.endRequirement();
+    }
+    assertTrue(stats.queryRequirements().get(1).queryClauses() == 6);
+    assertTrue(stats.queryRequirements().get(2).queryLine() == 3);
+    ArrayList<Integer> heavy = stats.queryHeaviestRequirements(0.8);
+    assertTrue(heavy.toString().equals("[1, 2]"));
+    String json = stats.toJson();
+    assertTrue(json.contains("\"formula\": \"req1\""));
+    assertTrue(json.contains("\"requirements_for_80_percent\": [1, 2]"));
+  }
+
+  @Test
+  public void testMergePhases() {
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    Statistics worker1 = new Statistics(), worker2 = new Statistics();
+    worker1.startPhase("solve", col);
+    col.addClause(unit("a"));
+    worker1.endPhase();
+    worker2.startPhase("solve", col);
+    col.addClause(unit("b"));
+    col.addClause(unit("c"));
+    worker2.endPhase();
+    worker2.startPhase("decode", null);
+    worker2.endPhase();
+    Statistics stats = new Statistics();
+    stats.mergePhases(worker1, "worker ");
+    stats.mergePhases(worker2, "worker ");
+    assertTrue(stats.queryPhases().size() == 2);
+    assertTrue(stats.queryPhase("worker solve").queryClauses() == 3);
+    assertTrue(stats.queryPhase("worker decode") != null);
+    assertTrue(stats.queryPhase("solve") == null);
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testNestedPhases() {
+    Statistics stats = new Statistics();
+    stats.startPhase("parse", null);
+    stats.startPhase("ground", null);
+  }
+}
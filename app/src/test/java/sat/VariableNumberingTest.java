@@ -0,0 +1,81 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.VariableNumbering;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+public class VariableNumberingTest {
+  private Atom atom(String name, boolean positive) {
+    return new Atom(new Variable(name), positive);
+  }
+
+  @Test
+  public void testDenseSkipsUnusedVariables() {
+    Variable.reset();
+    for (String name : new String[] { "a", "b", "c", "d", "e" }) new Variable(name);
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    clauses.add(new Clause(atom("a", true), atom("c", false)));   // b is never used
+    clauses.add(new Clause(atom("e", true)));                     // nor is d
+    VariableNumbering numbering = new VariableNumbering(clauses, false);
+    assertTrue(numbering.size() == 3);
+    assertTrue(numbering.queryDense(1) == 1);
+    assertTrue(numbering.queryDense(3) == 2);
+    assertTrue(numbering.queryDense(new Variable("e").queryIndex()) == 3);
+    assertTrue(numbering.queryOriginal(2) == 3);
+    assertTrue(clauses.get(0).getSatDescription(numbering).equals("1 -2 0"));
+  }
+
+  @Test
+  public void testLocalityFollowsClauses() {
+    Variable.reset();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    // x1 is connected to x4, which is connected to x3; x2 is on its own
+    clauses.add(new Clause(atom("x1", true), atom("x4", true)));
+    clauses.add(new Clause(atom("x2", false)));
+    clauses.add(new Clause(atom("x3", true), atom("x4", false)));
+    VariableNumbering numbering = new VariableNumbering(clauses, true);
+    assertTrue(numbering.size() == 4);
+    assertTrue(numbering.queryOriginal(1) == new Variable("x1").queryIndex());
+    assertTrue(numbering.queryOriginal(2) == new Variable("x4").queryIndex());
+    assertTrue(numbering.queryOriginal(3) == new Variable("x3").queryIndex());
+    assertTrue(numbering.queryOriginal(4) == new Variable("x2").queryIndex());
+  }
+
+  @Test(expected = java.lang.Error.class)
+  public void testUnusedVariableHasNoIndex() {
+    Variable.reset();
+    ArrayList<Clause> clauses = new ArrayList<Clause>();
+    new Variable("a");
+    clauses.add(new Clause(atom("b", true)));
+    new VariableNumbering(clauses, false).queryDense(1);
+  }
+
+  @Test
+  public void testDimacsHeader() throws Exception {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    new Variable("unused");
+    problem.addClause(new Clause(atom("a", true), atom("b", false)));
+    StringWriter out = new StringWriter();
+    BufferedWriter writer = new BufferedWriter(out);
+    int old = SatProblem.numbering;
+    SatProblem.numbering = SatProblem.NUMBERING_DENSE;
+    problem.writeDimacs(writer);
+    writer.flush();
+    assertTrue(out.toString().startsWith("p cnf 2 1"));
+    assertTrue(out.toString().contains("1 -2 0"));
+    out.getBuffer().setLength(0);
+    SatProblem.numbering = SatProblem.NUMBERING_ORIGINAL;
+    problem.writeDimacs(writer);
+    writer.flush();
+    SatProblem.numbering = old;
+    assertTrue(out.toString().startsWith("p cnf 3 1"));
+  }
+}
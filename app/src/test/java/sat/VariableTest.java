@@ -2,6 +2,9 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import logic.sat.Variable;
+import logic.sat.VariableSource;
+import logic.sat.Fingerprint;
+import logic.sat.ClauseCollection;
 
 public class VariableTest {
   @Test
@@ -52,5 +55,56 @@ public class VariableTest {
     Variable x = new Variable("x");
     assertTrue(x.queryIndex() > 0);
   }
-}
 
+  private class Source implements VariableSource {
+    private String _name;
+    int _calls = 0;
+    Source(String name) { _name = name; }
+    public String queryVariableName(int index) { _calls++; return _name + "#" + index; }
+    public Fingerprint queryFingerprint() { return new Fingerprint("source " + _name); }
+  }
+
+  @Test
+  public void testAuxiliaryVariablesAreShared() {
+    Variable.reset();
+    Source s1 = new Source("aux"), s2 = new Source("aux");
+    Variable x = Variable.auxiliary(s1, 3);
+    Variable y = Variable.auxiliary(s2, 3);
+    Variable z = Variable.auxiliary(s1, 4);
+    assertTrue(x.equals(y));
+    assertFalse(x.equals(z));
+    assertFalse(x.equals(Variable.auxiliary(new Source("other"), 3)));
+    assertTrue(Variable.queryNumberCreated() == 3);
+  }
+
+  @Test
+  public void testAuxiliaryNameOnlyBuiltWhenAsked() {
+    Variable.reset();
+    Source s = new Source("aux");
+    Variable x = Variable.auxiliary(s, 1);
+    Variable.auxiliary(s, 1);
+    assertTrue(s._calls == 0);
+    assertTrue(x.toString().equals("aux#1"));
+    assertTrue(s._calls == 1);
+  }
+
+  @Test
+  public void testAuxiliaryIndependentOfNamedVariables() {
+    Variable.reset();
+    Variable x = new Variable("aux#2");
+    Variable y = Variable.auxiliary(new Source("aux"), 2);
+    assertFalse(y.equals(x));
+    assertTrue(y.queryAuxiliary());
+    assertTrue(new Variable("aux#2").equals(x));
+  }
+
+  @Test
+  public void testMemoryUsesVariableKey() {
+    Variable.reset();
+    ClauseCollection col = new ClauseCollection();
+    col.addToMemory(new Source("aux"), 5);
+    assertTrue(col.isInMemory(new Source("aux"), 5));
+    assertFalse(col.isInMemory(new Source("aux"), 4));
+    assertFalse(col.isInMemory(new Source("aux")));
+  }
+}
@@ -0,0 +1,98 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import logic.sat.Variable;
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.SatProblem;
+import logic.sat.XorPreprocessor;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+public class XorPreprocessorTest {
+  private Atom atom(String name, boolean value) {
+    return new Atom(new Variable(name), value);
+  }
+
+  /** Adds the clauses stating that an odd (or even) number of the given variables is true. */
+  private void addParity(SatProblem problem, boolean odd, String... names) {
+    for (int mask = 0; mask < (1 << names.length); mask++) {
+      if ((Integer.bitCount(mask) % 2 == 1) == odd) continue;
+      ArrayList<Atom> parts = new ArrayList<Atom>();
+      for (int j = 0; j < names.length; j++) parts.add(atom(names[j], (mask & (1 << j)) == 0));
+      problem.addClause(new Clause(parts));
+    }
+  }
+
+  private boolean containsClause(SatProblem problem, String desc) {
+    return ("\n" + problem.toString() + "\n").contains("\n" + desc + "\n");
+  }
+
+  @Test
+  public void testRecoverFourVariables() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    addParity(problem, false, "a", "b", "c", "d");
+    problem.addClause(new Clause(atom("a", true), atom("b", true)));
+    XorPreprocessor xor = new XorPreprocessor();
+    assertTrue(xor.simplify(problem) == 0);
+    assertTrue(xor.queryNumberRecovered() == 1);
+    assertTrue(problem.queryNumberXors() == 1);
+  }
+
+  @Test
+  public void testDeriveEquivalence() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    // a ⊕ b ⊕ c = 1 and b ⊕ c ⊕ d = 0 together give a ⊕ d = 1
+    addParity(problem, true, "a", "b", "c");
+    addParity(problem, false, "b", "c", "d");
+    XorPreprocessor xor = new XorPreprocessor();
+    assertTrue(xor.simplify(problem) > 0);
+    assertTrue(xor.queryNumberRecovered() == 2);
+    assertFalse(xor.queryConflict());
+    assertTrue(containsClause(problem, "a ∨ d"));
+    assertTrue(containsClause(problem, "¬a ∨ ¬d"));
+  }
+
+  @Test
+  public void testDeriveUnit() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    addParity(problem, true, "a", "b", "c");
+    addParity(problem, true, "b", "c");
+    XorPreprocessor xor = new XorPreprocessor();
+    xor.simplify(problem);
+    assertTrue(containsClause(problem, "¬a"));
+  }
+
+  @Test
+  public void testConflict() {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    addParity(problem, true, "a", "b", "c");
+    addParity(problem, true, "a", "b");
+    addParity(problem, true, "c");
+    XorPreprocessor xor = new XorPreprocessor();
+    xor.simplify(problem);
+    assertTrue(xor.queryConflict());
+  }
+
+  @Test
+  public void testXorLines() throws IOException {
+    Variable.reset();
+    SatProblem problem = new SatProblem();
+    addParity(problem, false, "a", "b", "c");
+    (new XorPreprocessor()).simplify(problem);
+    StringWriter out = new StringWriter();
+    BufferedWriter writer = new BufferedWriter(out);
+    SatProblem.xorLines = true;
+    try { problem.writeDimacs(writer); }
+    finally { SatProblem.xorLines = false; }
+    writer.flush();
+    assertTrue(out.toString().startsWith("p cnf 3 5\n"));
+    assertTrue(out.toString().endsWith("x-1 2 3 0\n"));
+  }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import logic.sat.Variable;
+import logic.sat.SatProblem;
+import logic.VariableList;
+import logic.RequirementsList;
+import language.parser.InputReader;
+import language.parser.DefinitionData;
+
+import java.io.File;
+import java.io.Writer;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.io.BufferedWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures writing a grounded problem in DIMACS format (without the disk, so only the cost of
+ * building the text is measured).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DimacsBenchmark {
+  @Param({"queens.log", "sudoku.log", "pools.log"})
+  public String file;
+
+  private SatProblem _problem;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    String path = System.getProperty("lola.inputs", "inputs") + File.separator + file;
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    Variable.reset();
+    RequirementsList reqs = new RequirementsList(new VariableList());
+    InputReader.readProgramFromFile(path, reqs, new DefinitionData());
+    _problem = reqs.createSat();
+  }
+
+  @Benchmark
+  public SatProblem write() throws Exception {
+    BufferedWriter writer = new BufferedWriter(Writer.nullWriter());
+    _problem.writeDimacs(writer);
+    writer.flush();
+    return _problem;
+  }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import logic.sat.Atom;
+import logic.sat.Clause;
+import logic.sat.Variable;
+import logic.sat.ClauseCollection;
+import logic.number.range.RangeVariable;
+import logic.number.range.RangePlus;
+import logic.number.range.RangeComparison;
+import logic.number.binary.BinaryVariable;
+import logic.number.binary.BinaryPlus;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Micro-benchmarks for the integer encodings: adding two range integers or two binary integers,
+ * and comparing two range integers, for variables with domain {0..size}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+  @Param({"10", "50", "200"})
+  public int size;
+
+  private Atom _truth;
+  private RangeVariable _rx, _ry;
+  private BinaryVariable _bx, _by;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Variable.reset();
+    _truth = new Atom(new Variable("TRUE"), true);
+    _rx = new RangeVariable("x", 0, size, _truth);
+    _ry = new RangeVariable("y", 0, size, _truth);
+    _bx = new BinaryVariable("a", 0, size, _truth);
+    _by = new BinaryVariable("b", 0, size, _truth);
+  }
+
+  @Benchmark
+  public ClauseCollection rangePlus() {
+    ClauseCollection col = new ClauseCollection();
+    new RangePlus(_rx, _ry).addWelldefinednessClauses(col);
+    return col;
+  }
+
+  @Benchmark
+  public ClauseCollection binaryPlus() {
+    ClauseCollection col = new ClauseCollection();
+    new BinaryPlus(_bx, _by, _truth).addWelldefinednessClauses(col);
+    return col;
+  }
+
+  @Benchmark
+  public ArrayList<Clause> rangeGeq() {
+    return RangeComparison.generateGeqClauses(_rx, _ry);
+  }
+
+  @Benchmark
+  public ArrayList<Clause> rangeEqual() {
+    return RangeComparison.generateEqualClauses(_rx, _ry);
+  }
+}
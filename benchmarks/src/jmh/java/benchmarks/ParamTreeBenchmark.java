@@ -0,0 +1,43 @@
+package benchmarks;
+
+import logic.parameter.Assignment;
+import logic.parameter.Parameter;
+import logic.parameter.ParameterList;
+import logic.parameter.ParamTree;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures lookups in a ParamTree, which happen every time a parametrised variable x[i,j] is
+ * instantiated.  Each invocation looks up every entry of a size × size tree once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParamTreeBenchmark {
+  @Param({"10", "50"})
+  public int size;
+
+  private ParamTree<Integer> _tree;
+  private Assignment[] _lookups;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ParameterList params = new ParameterList(new Parameter("i", 1, size),
+                                             new Parameter("j", 1, size));
+    _tree = new ParamTree<Integer>(params, new ParamTree.ConstructorHelper<Integer>() {
+      public Integer generate(Assignment args) { return args.get("i") * 1000 + args.get("j"); }
+    });
+    _lookups = new Assignment[size * size];
+    for (int i = 1, k = 0; i <= size; i++) {
+      for (int j = 1; j <= size; j++, k++) _lookups[k] = new Assignment("i", i, "j", j);
+    }
+  }
+
+  @Benchmark
+  public void lookup(Blackhole hole) {
+    for (int k = 0; k < _lookups.length; k++) hole.consume(_tree.lookup(_lookups[k]));
+  }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import logic.sat.Variable;
+import logic.sat.SatProblem;
+import logic.VariableList;
+import logic.RequirementsList;
+import language.parser.InputReader;
+import language.parser.DefinitionData;
+import language.execution.Statement;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the two big phases before solving on the example programs in inputs/: parsing a
+ * program file, and grounding the parsed requirements into a SAT problem.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ProgramBenchmark {
+  @Param({"queens.log", "queens2.log", "queens3.log", "sudoku.log", "pools.log", "pairing.log",
+          "pairing_with_dropouts.log"})
+  public String file;
+
+  private String _path;
+  private RequirementsList _requirements;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    _path = System.getProperty("lola.inputs", "inputs") + File.separator + file;
+    // createSat reports progress on stderr, which would drown out the JMH output
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    Variable.reset();
+    _requirements = new RequirementsList(new VariableList());
+    InputReader.readProgramFromFile(_path, _requirements, new DefinitionData());
+  }
+
+  @Benchmark
+  public Statement parse() throws Exception {
+    RequirementsList reqs = new RequirementsList(new VariableList());
+    return InputReader.readProgramFromFile(_path, reqs, new DefinitionData());
+  }
+
+  @Benchmark
+  public SatProblem ground() {
+    return _requirements.createSat();
+  }
+}
@@ -0,0 +1,38 @@
+package logic.formula;
+
+import logic.sat.Variable;
+import logic.VariableList;
+import language.parser.InputReader;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures expanding a quantifier into its instances.  This lives in package logic.formula since
+ * enumerateParts is not public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class QuantifierBenchmark {
+  @Param({"10", "50"})
+  public int size;
+
+  private QuantifierFormula _formula;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    Variable.reset();
+    VariableList vars = new VariableList();
+    InputReader.declare("x[i,j] :: Bool for i ∈ {1.." + size + "}, j ∈ {1.." + size + "}", vars);
+    InputReader.declare("y[j] :: Bool for j ∈ {1.." + size + "}", vars);
+    _formula = (QuantifierFormula)InputReader.readFormulaFromString("∀ i ∈ {1.." + size +
+      "}. ∀ j ∈ {1.." + size + "} with i ≠ j. x[i,j] → y[j]", vars);
+  }
+
+  @Benchmark
+  public ArrayList<Formula> enumerateParts() {
+    return _formula.enumerateParts();
+  }
+}
@@ -0,0 +1,283 @@
+package benchmarks;
+
+import logic.sat.Variable;
+import logic.sat.SatProblem;
+import logic.VariableList;
+import logic.RequirementsList;
+import language.parser.InputReader;
+import language.parser.DefinitionData;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The ScalingRunner runs a program from inputs/ for a whole series of values of one of its
+ * macros, to see how the tool scales with the size of the instance.  For example,
+ *
+ *   ScalingRunner inputs/queens.log SIZE=10..200:10 --out=queens.csv --baseline=base.csv
+ *
+ * replaces the line "define SIZE 50" by "define SIZE 10", "define SIZE 20", ..., and for each
+ * point records the parsing time, grounding time, the number of variables and clauses, the size
+ * of the DIMACS file, the solving time (only with --solve) and the peak heap usage.  The results
+ * are written as CSV.
+ *
+ * If a baseline CSV is given, every point is compared to the corresponding point there.  Any
+ * increase of the variable count, clause count or CNF size is reported as a regression, as is an
+ * increase of time or heap usage beyond the tolerance (default 25%).  The runner exits with status
+ * 1 if a regression was found, so it can be used in scripts.  If the baseline file does not exist
+ * yet, the current results are stored there instead.
+ */
+public class ScalingRunner {
+  private static final String HEADER =
+    "file,macro,value,parse_ms,ground_ms,variables,clauses,cnf_bytes,solve_ms,peak_heap_kb";
+
+  /** Timings below this many milliseconds are considered noise when comparing to a baseline. */
+  private static final long TIME_SLACK = 10;
+  /** Heap differences below this many kilobytes are considered noise. */
+  private static final long HEAP_SLACK = 4096;
+
+  private String _file;
+  private String _macro;
+  private ArrayList<Integer> _values;
+  private String _out;
+  private String _baseline;
+  private double _tolerance;
+  private boolean _solve;
+
+  private ScalingRunner() {
+    _file = null;
+    _macro = null;
+    _values = new ArrayList<Integer>();
+    _out = null;
+    _baseline = null;
+    _tolerance = 0.25;
+    _solve = false;
+  }
+
+  /** A Writer which only counts how many characters pass through it. */
+  private static class CountingWriter extends Writer {
+    private long _count = 0;
+    public void write(char[] cbuf, int off, int len) { _count += len; }
+    public void write(String str, int off, int len) { _count += len; }
+    public void flush() {}
+    public void close() {}
+    public long queryCount() { return _count; }
+  }
+
+  /** The measurements for a single point of the sweep. */
+  private static class Point {
+    int value;
+    long parseMs, groundMs, variables, clauses, cnfBytes, solveMs, peakHeapKb;
+
+    String toCsv(String file, String macro) {
+      return file + "," + macro + "," + value + "," + parseMs + "," + groundMs + "," + variables +
+             "," + clauses + "," + cnfBytes + "," + (solveMs < 0 ? "" : solveMs) + "," +
+             peakHeapKb;
+    }
+  }
+
+  private static void usage(String message) {
+    System.err.println(message);
+    System.err.println("Usage: ScalingRunner <file> <MACRO>=<min>..<max>[:<step>] " +
+                       "[--out=<csv>] [--baseline=<csv>] [--tolerance=<fraction>] [--solve] " +
+                       "[--solver=<name>]");
+    System.err.println("  (instead of a range, a comma-separated list of values may be given)");
+    System.exit(2);
+  }
+
+  /** Reads the sweep description, e.g. SIZE=10..200:10 or SIZE=8,16,32. */
+  private void readSweep(String arg) {
+    int eq = arg.indexOf('=');
+    _macro = arg.substring(0, eq);
+    String spec = arg.substring(eq + 1);
+    Matcher m = Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)(:(\\d+))?").matcher(spec);
+    if (m.matches()) {
+      int min = Integer.parseInt(m.group(1));
+      int max = Integer.parseInt(m.group(2));
+      int step = m.group(4) == null ? 1 : Integer.parseInt(m.group(4));
+      if (step <= 0) usage("Step of the sweep should be positive.");
+      for (int i = min; i <= max; i += step) _values.add(i);
+    }
+    else {
+      for (String v : spec.split(",")) _values.add(Integer.parseInt(v.trim()));
+    }
+  }
+
+  private void readArguments(String[] args) {
+    for (String arg : args) {
+      if (arg.startsWith("--out=")) _out = arg.substring(6);
+      else if (arg.startsWith("--baseline=")) _baseline = arg.substring(11);
+      else if (arg.startsWith("--tolerance=")) _tolerance = Double.parseDouble(arg.substring(12));
+      else if (arg.equals("--solve")) _solve = true;
+      else if (arg.startsWith("--solver=")) SatProblem.solvername = arg.substring(9);
+      else if (arg.startsWith("--")) usage("Unknown option: " + arg);
+      else if (arg.indexOf('=') > 0) readSweep(arg);
+      else _file = arg;
+    }
+    if (_file == null) usage("No input file given.");
+    if (_macro == null || _values.isEmpty()) usage("No sweep given.");
+  }
+
+  /**
+   * Returns the program text with the definition of the sweep macro replaced by the given value.
+   * If the program does not define the macro, a definition is added at the top.
+   */
+  private String instantiate(String program, int value) {
+    Pattern def = Pattern.compile("^define\\s+" + Pattern.quote(_macro) + "\\s.*$",
+                                  Pattern.MULTILINE);
+    String line = "define " + _macro + " " + value;
+    Matcher m = def.matcher(program);
+    if (m.find()) return m.replaceFirst(Matcher.quoteReplacement(line));
+    return line + "\n" + program;
+  }
+
+  /** Sets the peak usage of all heap pools back to their current usage. */
+  private static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+    }
+  }
+
+  /** Returns the sum of the peak usage of all heap pools, in kilobytes. */
+  private static long queryPeakHeap() {
+    long total = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) total += pool.getPeakUsage().getUsed();
+    }
+    return total / 1024;
+  }
+
+  private Point measure(String program, int value) throws Exception {
+    Path tmp = Files.createTempFile("scaling", ".log");
+    try {
+      Files.write(tmp, instantiate(program, value).getBytes(StandardCharsets.UTF_8));
+      Point point = new Point();
+      point.value = value;
+      System.gc();
+      resetPeakHeap();
+
+      long start = System.nanoTime();
+      Variable.reset();
+      RequirementsList reqs = new RequirementsList(new VariableList());
+      InputReader.readProgramFromFile(tmp.toString(), reqs, new DefinitionData());
+      point.parseMs = (System.nanoTime() - start) / 1000000;
+
+      start = System.nanoTime();
+      SatProblem problem = reqs.createSat();
+      point.groundMs = (System.nanoTime() - start) / 1000000;
+      point.variables = problem.queryNumberVariables();
+      point.clauses = problem.queryNumberClauses();
+
+      CountingWriter counter = new CountingWriter();
+      BufferedWriter writer = new BufferedWriter(counter);
+      problem.writeDimacs(writer);
+      writer.flush();
+      point.cnfBytes = counter.queryCount();
+
+      point.solveMs = -1;
+      if (_solve) {
+        start = System.nanoTime();
+        if (problem.solve() == null) System.out.println("Solver failed for " + _macro + "=" + value);
+        point.solveMs = (System.nanoTime() - start) / 1000000;
+      }
+      point.peakHeapKb = queryPeakHeap();
+      return point;
+    }
+    finally { Files.deleteIfExists(tmp); }
+  }
+
+  /** Reads a baseline file into a map from the value of the sweep macro to its CSV fields. */
+  private TreeMap<Integer,String[]> readBaseline() throws IOException {
+    TreeMap<Integer,String[]> ret = new TreeMap<Integer,String[]>();
+    List<String> lines = Files.readAllLines(Paths.get(_baseline), StandardCharsets.UTF_8);
+    for (int i = 1; i < lines.size(); i++) {
+      String[] fields = lines.get(i).split(",", -1);
+      if (fields.length < 10 || !fields[1].equals(_macro)) continue;
+      ret.put(Integer.parseInt(fields[2]), fields);
+    }
+    return ret;
+  }
+
+  /**
+   * Compares a single field of the current point with the baseline, and prints a message if it
+   * regressed.  Counts should not increase at all; measurements may grow by the tolerance, and
+   * by the given amount of slack.
+   */
+  private boolean regressed(int value, String name, long current, String base, boolean exact,
+                            long slack) {
+    if (base.equals("") || current < 0) return false;
+    long old = Long.parseLong(base);
+    boolean bad = exact ? current > old
+                        : current > old * (1 + _tolerance) && current - old > slack;
+    if (bad) {
+      System.out.println("REGRESSION at " + _macro + "=" + value + ": " + name + " " + old +
+                         " -> " + current);
+    }
+    return bad;
+  }
+
+  private boolean compare(Point p, String[] base) {
+    boolean bad = false;
+    bad |= regressed(p.value, "parse_ms", p.parseMs, base[3], false, TIME_SLACK);
+    bad |= regressed(p.value, "ground_ms", p.groundMs, base[4], false, TIME_SLACK);
+    bad |= regressed(p.value, "variables", p.variables, base[5], true, 0);
+    bad |= regressed(p.value, "clauses", p.clauses, base[6], true, 0);
+    bad |= regressed(p.value, "cnf_bytes", p.cnfBytes, base[7], true, 0);
+    bad |= regressed(p.value, "solve_ms", p.solveMs, base[8], false, TIME_SLACK);
+    bad |= regressed(p.value, "peak_heap_kb", p.peakHeapKb, base[9], false, HEAP_SLACK);
+    return bad;
+  }
+
+  private int run() throws Exception {
+    String program = new String(Files.readAllBytes(Paths.get(_file)), StandardCharsets.UTF_8);
+    String name = Paths.get(_file).getFileName().toString();
+
+    // createSat reports every formula on stderr, which is not what we want to measure
+    PrintStream err = System.err;
+    System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    ArrayList<Point> points = new ArrayList<Point>();
+    try {
+      for (int value : _values) {
+        Point p = measure(program, value);
+        points.add(p);
+        System.out.println(p.toCsv(name, _macro));
+      }
+    }
+    finally { System.setErr(err); }
+
+    StringBuilder csv = new StringBuilder(HEADER + "\n");
+    for (Point p : points) csv.append(p.toCsv(name, _macro) + "\n");
+    if (_out != null) Files.write(Paths.get(_out), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+    if (_baseline == null) return 0;
+    if (!Files.exists(Paths.get(_baseline))) {
+      Files.write(Paths.get(_baseline), csv.toString().getBytes(StandardCharsets.UTF_8));
+      System.out.println("No baseline found; stored the current results in " + _baseline + ".");
+      return 0;
+    }
+    TreeMap<Integer,String[]> base = readBaseline();
+    boolean bad = false;
+    for (Point p : points) {
+      if (base.containsKey(p.value)) bad |= compare(p, base.get(p.value));
+    }
+    if (!bad) System.out.println("No regressions compared to " + _baseline + ".");
+    return bad ? 1 : 0;
+  }
+
+  public static void main(String[] args) throws Exception {
+    ScalingRunner runner = new ScalingRunner();
+    runner.readArguments(args);
+    System.exit(runner.run());
+  }
+}